@@ -54,6 +54,58 @@ CREATE TABLE IF NOT EXISTS configuracion_usuario (
     FOREIGN KEY (usuario_id) REFERENCES usuarios(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- ============================================
+-- Tabla: mediciones (consumo energético)
+-- ============================================
+-- Particionada por mes: una consulta por rango de fechas solo lee sus particiones.
+-- La clave primaria empieza por la fecha, así que InnoDB guarda las filas en orden
+-- cronológico; id conserva el orden de inserción y se indexa aparte para AUTO_INCREMENT.
+-- Para añadir meses: ALTER TABLE mediciones REORGANIZE PARTITION p_max INTO (...)
+CREATE TABLE IF NOT EXISTS mediciones (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    fecha DATETIME NOT NULL,
+    usage_kwh DOUBLE NOT NULL,
+    lagging_reactive DOUBLE NOT NULL,
+    leading_reactive DOUBLE NOT NULL,
+    co2 DOUBLE NOT NULL,
+    lagging_power_factor DOUBLE NOT NULL,
+    leading_power_factor DOUBLE NOT NULL,
+    nsm INT NOT NULL,
+    week_status VARCHAR(20),
+    day_of_week VARCHAR(20),
+    load_type VARCHAR(20),
+    PRIMARY KEY (fecha, id),
+    INDEX idx_mediciones_id (id),
+    INDEX idx_mediciones_load_type (load_type, fecha)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+PARTITION BY RANGE COLUMNS (fecha) (
+    PARTITION p2018_01 VALUES LESS THAN ('2018-02-01'),
+    PARTITION p2018_02 VALUES LESS THAN ('2018-03-01'),
+    PARTITION p2018_03 VALUES LESS THAN ('2018-04-01'),
+    PARTITION p2018_04 VALUES LESS THAN ('2018-05-01'),
+    PARTITION p2018_05 VALUES LESS THAN ('2018-06-01'),
+    PARTITION p2018_06 VALUES LESS THAN ('2018-07-01'),
+    PARTITION p2018_07 VALUES LESS THAN ('2018-08-01'),
+    PARTITION p2018_08 VALUES LESS THAN ('2018-09-01'),
+    PARTITION p2018_09 VALUES LESS THAN ('2018-10-01'),
+    PARTITION p2018_10 VALUES LESS THAN ('2018-11-01'),
+    PARTITION p2018_11 VALUES LESS THAN ('2018-12-01'),
+    PARTITION p2018_12 VALUES LESS THAN ('2019-01-01'),
+    PARTITION p2019_01 VALUES LESS THAN ('2019-02-01'),
+    PARTITION p2019_02 VALUES LESS THAN ('2019-03-01'),
+    PARTITION p2019_03 VALUES LESS THAN ('2019-04-01'),
+    PARTITION p2019_04 VALUES LESS THAN ('2019-05-01'),
+    PARTITION p2019_05 VALUES LESS THAN ('2019-06-01'),
+    PARTITION p2019_06 VALUES LESS THAN ('2019-07-01'),
+    PARTITION p2019_07 VALUES LESS THAN ('2019-08-01'),
+    PARTITION p2019_08 VALUES LESS THAN ('2019-09-01'),
+    PARTITION p2019_09 VALUES LESS THAN ('2019-10-01'),
+    PARTITION p2019_10 VALUES LESS THAN ('2019-11-01'),
+    PARTITION p2019_11 VALUES LESS THAN ('2019-12-01'),
+    PARTITION p2019_12 VALUES LESS THAN ('2020-01-01'),
+    PARTITION p_max VALUES LESS THAN (MAXVALUE)
+);
+
 -- ============================================
 -- Insertar usuarios de prueba
 -- ============================================
@@ -8,6 +8,8 @@ module org.example.datasensefx {
     requires com.zaxxer.hikari;
     requires org.apache.commons.csv;
     requires java.desktop;
+    // Opcional: kernels SIMD si se arranca con --add-modules jdk.incubator.vector
+    requires static jdk.incubator.vector;
     requires com.github.librepdf.openpdf;
 
     opens org.example.datasensefx to javafx.fxml;
@@ -19,4 +21,5 @@ module org.example.datasensefx {
     exports org.example.datasensefx.utils;
     exports org.example.datasensefx.model;
     exports org.example.datasensefx.services;
+    exports org.example.datasensefx.storage;
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package org.example.datasensefx.controllers;
 
+import javafx.application.Platform;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.LineChart;
@@ -7,22 +10,27 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.VBox;
 import org.example.datasensefx.model.Measurement;
 import org.example.datasensefx.model.Rol;
-import org.example.datasensefx.services.DataLoader;
+import org.example.datasensefx.services.Aggregate;
+import org.example.datasensefx.services.AggregationEngine;
+import org.example.datasensefx.services.AggregationResult;
+import org.example.datasensefx.services.EnergyDataService;
 import org.example.datasensefx.services.MainController;
 import org.example.datasensefx.utils.FxChartUtils;
 import org.example.datasensefx.utils.SceneManager;
 import org.example.datasensefx.utils.UserSession;
 
-import java.io.IOException;
-import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DashboardController {
 
@@ -102,10 +110,45 @@ public class DashboardController {
     @FXML
     private ToggleButton btnPromedioTipoCarga;
 
+    // Indicador de carga en segundo plano
+    @FXML
+    private ProgressBar loadingProgress;
+
+    @FXML
+    private Label lblLoadingStatus;
+
     // Controlador de lógica de negocio energética
     private MainController energyController;
     private List<Measurement> energyData;
 
+    // Carga y agregaciones fuera del hilo de JavaFX
+    private final Service<DashboardData> loadService = createLoadService();
+    private DashboardData dashboardData;
+
+    // Mediciones nuevas del CSV seguido: varias seguidas producen un solo refresco
+    private volatile boolean liveUpdatesEnabled;
+    private volatile Flow.Subscription liveUpdates;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    /**
+     * Resultados calculados en segundo plano; se publican de una vez en el hilo de JavaFX
+     */
+    private static class DashboardData {
+        List<Measurement> measurements;
+        MainController controller;
+        double[] stats;
+        LocalDate firstDate;
+        LocalDate lastDate;
+        Map<Integer, Double> usageByHour;
+        Map<String, Double> usageByLoadType;
+        Map<String, Double> avgUsageByLoadType;
+        Map<String, Double> totalUsageByDay;
+        Map<String, Double> avgUsageByDay;
+        Map<String, Double> co2ByDay;
+        Map<String, Double> totalCO2ByDay;
+        Map<String, Double> weekdayVsWeekend;
+    }
+
     /*
      * Método que se ejecuta automáticamente después de cargar el FXML
      */
@@ -117,7 +160,8 @@ public class DashboardController {
         btnInformes.setOnAction(event -> handleInformes());
         btnConfiguracion.setOnAction(event -> handleConfiguracion());
 
-        // Cargar datos energéticos y crear gráficos
+        // Cargar datos energéticos en segundo plano y crear gráficos al terminar
+        setupLoadService();
         loadEnergyData();
 
         // Datos de sesión
@@ -184,6 +228,7 @@ public class DashboardController {
     @FXML
     private void handleDispositivos() {
         try {
+            cancelLoading();
             SceneManager.switchScene("/org/example/datasensefx/views/devices-view.fxml",
                     "DataSense - Dispositivos", 1000, 700);
         } catch (Exception e) {
@@ -198,6 +243,7 @@ public class DashboardController {
     @FXML
     private void handleInformes() {
         try {
+            cancelLoading();
             SceneManager.switchScene("/org/example/datasensefx/views/reports-view.fxml",
                     "DataSense - Informes", 1000, 700);
         } catch (Exception e) {
@@ -221,6 +267,7 @@ public class DashboardController {
         }
 
         try {
+            cancelLoading();
             SceneManager.switchScene("/org/example/datasensefx/views/config-view.fxml",
                     "DataSense - Configuración", 1000, 700);
         } catch (Exception e) {
@@ -237,6 +284,7 @@ public class DashboardController {
         try {
             // Limpiar sesión antes de volver al login
             UserSession.getInstance().clearSession();
+            cancelLoading();
 
             SceneManager.switchScene("/org/example/datasensefx/views/login-view.fxml",
                     "DataSense - Iniciar Sesión", 500, 650);
@@ -258,59 +306,176 @@ public class DashboardController {
     }
 
     /**
-     * Carga los datos energéticos desde CSV y crea los gráficos
+     * Lanza (o relanza) la carga de datos energéticos en segundo plano.
+     * Los datos vienen del servicio compartido: el CSV solo se lee la primera vez.
      */
     private void loadEnergyData() {
-        try {
-            System.out.println("🔄 Iniciando carga de datos energéticos...");
-
-            // Intentar primero cargar desde el classpath (recursos empaquetados)
-            try {
-                energyData = DataLoader.loadFromClasspath("/data/steel_industry_data.csv");
-                System.out.println("✓ Datos cargados desde classpath");
-            } catch (Exception e1) {
-                System.out.println("⚠ No se pudo cargar desde classpath, intentando con ruta del sistema de archivos...");
-
-                // Si falla, intentar con ruta del sistema de archivos (modo desarrollo)
-                Path csvPath = Path.of("src/main/resources/data/steel_industry_data.csv");
+        System.out.println("🔄 Iniciando carga de datos energéticos...");
+        loadService.restart();
+    }
 
-                if (!csvPath.toFile().exists()) {
-                    // Intentar ruta alternativa
-                    csvPath = Path.of("DataSenseFX/src/main/resources/data/steel_industry_data.csv");
-                }
+    /**
+     * Cancela la carga en curso (al salir del dashboard antes de que termine) y deja de
+     * recibir las mediciones nuevas del CSV seguido
+     */
+    private void cancelLoading() {
+        if (loadService.isRunning()) {
+            System.out.println("⏹ Cancelando carga de datos energéticos");
+            loadService.cancel();
+        }
+        liveUpdatesEnabled = false;
+        Flow.Subscription subscription = liveUpdates;
+        liveUpdates = null;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
 
-                if (!csvPath.toFile().exists()) {
-                    csvPath = Path.of("src/main/resources/data/sample.csv");
+    /**
+     * Refresca los gráficos cuando el servicio añade mediciones del CSV seguido. Los agregados
+     * ya se han actualizado de forma incremental, así que el refresco solo vuelve a leerlos.
+     */
+    private void subscribeToLiveUpdates() {
+        liveUpdatesEnabled = true;
+        EnergyDataService.getInstance().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                if (!liveUpdatesEnabled) {
+                    // Se salió del dashboard antes de completarse la suscripción
+                    subscription.cancel();
+                    return;
                 }
+                liveUpdates = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
 
-                if (csvPath.toFile().exists()) {
-                    energyData = DataLoader.loadFromCsv(csvPath);
-                    System.out.println("✓ Datos cargados desde sistema de archivos: " + csvPath);
-                } else {
-                    throw new IOException("No se encontró el archivo CSV en ninguna ubicación");
+            @Override
+            public void onNext(Measurement m) {
+                if (refreshPending.compareAndSet(false, true)) {
+                    Platform.runLater(() -> {
+                        refreshPending.set(false);
+                        if (liveUpdatesEnabled) {
+                            loadService.restart();
+                        }
+                    });
                 }
             }
 
-            if (energyData == null || energyData.isEmpty()) {
-                System.err.println("⚠ No se pudieron cargar datos energéticos. Los gráficos no se mostrarán.");
-                showAlert("Error de datos", "No se pudieron cargar los datos energéticos. Verifica que el archivo CSV existe.");
-                return;
+            @Override
+            public void onError(Throwable throwable) {
+                System.err.println("✗ Error recibiendo mediciones nuevas: " + throwable.getMessage());
             }
 
-            System.out.println("✓ Cargadas " + energyData.size() + " mediciones energéticas");
-
-            // Inicializar controlador de análisis
-            energyController = new MainController();
-            energyController.setData(energyData);
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
 
-            // Crear gráficos
-            createEnergyCharts();
+    /**
+     * Enlaza el indicador de progreso con el servicio y define qué hacer al terminar
+     */
+    private void setupLoadService() {
+        if (loadingProgress != null) {
+            loadingProgress.progressProperty().bind(loadService.progressProperty());
+            loadingProgress.visibleProperty().bind(loadService.runningProperty());
+            loadingProgress.managedProperty().bind(loadService.runningProperty());
+        }
+        if (lblLoadingStatus != null) {
+            lblLoadingStatus.textProperty().bind(loadService.messageProperty());
+            lblLoadingStatus.visibleProperty().bind(loadService.runningProperty());
+            lblLoadingStatus.managedProperty().bind(loadService.runningProperty());
+        }
 
-        } catch (Exception e) {
+        loadService.setOnSucceeded(event -> showEnergyData(loadService.getValue()));
+        loadService.setOnCancelled(event -> System.out.println("⏹ Carga de datos energéticos cancelada"));
+        loadService.setOnFailed(event -> {
+            Throwable e = loadService.getException();
             System.err.println("✗ Error cargando datos energéticos: " + e.getMessage());
             e.printStackTrace();
             showAlert("Error", "Error al cargar datos: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Servicio que obtiene el dataset y calcula todas las agregaciones de los gráficos.
+     * El avance se alimenta con las filas leídas por el cargador.
+     */
+    private Service<DashboardData> createLoadService() {
+        return new Service<>() {
+            @Override
+            protected Task<DashboardData> createTask() {
+                return new Task<>() {
+                    @Override
+                    protected DashboardData call() throws Exception {
+                        updateMessage("Cargando datos energéticos...");
+                        EnergyDataService dataService = EnergyDataService.getInstance();
+                        List<Measurement> measurements = dataService.getData((rowsRead, estimatedRows) -> {
+                            if (estimatedRows > 0) {
+                                updateProgress(rowsRead, estimatedRows);
+                            } else {
+                                updateProgress(-1, 1);
+                            }
+                            updateMessage(String.format("Leídas %,d filas...", rowsRead));
+                        });
+
+                        DashboardData result = new DashboardData();
+                        result.measurements = measurements;
+                        if (measurements == null || measurements.isEmpty() || isCancelled()) {
+                            return result;
+                        }
+
+                        updateMessage("Calculando estadísticas...");
+                        updateProgress(-1, 1);
+                        MainController controller = dataService.getMainController();
+                        result.controller = controller;
+                        result.firstDate = controller.getFirstAvailableDate();
+                        result.lastDate = controller.getLastAvailableDate();
+
+                        // Todos los agregados de los gráficos en una sola pasada (los percentiles no se
+                        // muestran: sin ellos los agregados salen del cubo)
+                        AggregationResult aggregates = controller.aggregate(
+                            EnumSet.complementOf(EnumSet.copyOf(AggregationEngine.ROW_AGGREGATES)));
+                        result.stats = aggregates.getBasicStatistics();
+                        result.usageByHour = aggregates.getTotalUsageByHour();
+                        result.usageByLoadType = aggregates.getTotalUsageByLoadType();
+                        result.avgUsageByLoadType = new HashMap<>();
+                        for (Map.Entry<String, double[]> entry : aggregates.getAverageUsageByLoadType().entrySet()) {
+                            result.avgUsageByLoadType.put(entry.getKey(), entry.getValue()[0]); // [0] es el promedio
+                        }
+                        result.totalUsageByDay = aggregates.getTotalUsageByDayOfWeek();
+                        result.avgUsageByDay = aggregates.getAverageUsageByDayOfWeek();
+                        result.co2ByDay = aggregates.getAverageCO2ByDayOfWeek();
+                        result.totalCO2ByDay = aggregates.getTotalCO2ByDayOfWeek();
+                        result.weekdayVsWeekend = aggregates.getTotalUsageByWeekStatus();
+                        updateProgress(1, 1);
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Publica en la interfaz los resultados de la carga (en el hilo de JavaFX)
+     */
+    private void showEnergyData(DashboardData data) {
+        if (data == null || data.measurements == null || data.measurements.isEmpty()) {
+            System.err.println("⚠ No se pudieron cargar datos energéticos. Los gráficos no se mostrarán.");
+            showAlert("Error de datos", "No se pudieron cargar los datos energéticos. Verifica que el archivo CSV existe.");
+            return;
+        }
+
+        energyData = data.measurements;
+        energyController = data.controller;
+        dashboardData = data;
+        System.out.println("✓ Cargadas " + energyData.size() + " mediciones energéticas");
+        if (!liveUpdatesEnabled) {
+            subscribeToLiveUpdates();
         }
+
+        // Crear gráficos
+        createEnergyCharts();
     }
 
     /**
@@ -340,12 +505,11 @@ public class DashboardController {
             updateCO2Chart();
 
             // Gráfico 5: Weekday vs Weekend (BarChart) - NUEVO
-            Map<String, Double> weekdayVsWeekend = energyController.calculateTotalUsageByWeekStatus();
             BarChart<String, Number> weekStatusChart = FxChartUtils.createBarChartFromStringMap(
                 "Consumo: Laborables vs Fin de Semana",
                 "Tipo de Día",
                 "Consumo Total (kWh)",
-                weekdayVsWeekend
+                dashboardData.weekdayVsWeekend
             );
             weekdayVsWeekendChart.getChildren().clear();
             weekdayVsWeekendChart.getChildren().add(weekStatusChart);
@@ -364,7 +528,7 @@ public class DashboardController {
     private void updateStatistics() {
         try {
             // Obtener estadísticas básicas: [total_mediciones, consumo_promedio, consumo_min, consumo_max, co2_total]
-            double[] stats = energyController.getBasicStatistics();
+            double[] stats = dashboardData.stats;
 
             // Actualizar labels
             if (lblTotalMediciones != null) {
@@ -388,8 +552,8 @@ public class DashboardController {
             }
 
             if (lblDatasetInfo != null) {
-                LocalDate firstDate = energyController.getFirstAvailableDate();
-                LocalDate lastDate = energyController.getLastAvailableDate();
+                LocalDate firstDate = dashboardData.firstDate;
+                LocalDate lastDate = dashboardData.lastDate;
                 lblDatasetInfo.setText(String.format("%,.0f mediciones (%s a %s)",
                     stats[0], firstDate, lastDate));
             }
@@ -414,8 +578,8 @@ public class DashboardController {
         }
 
         // Obtener rango de fechas disponibles
-        LocalDate firstDate = energyController.getFirstAvailableDate();
-        LocalDate lastDate = energyController.getLastAvailableDate();
+        LocalDate firstDate = dashboardData.firstDate;
+        LocalDate lastDate = dashboardData.lastDate;
 
         if (firstDate != null && lastDate != null) {
             // Establecer la primera fecha como valor inicial
@@ -445,7 +609,7 @@ public class DashboardController {
 
             if (date == null) {
                 // Mostrar datos totales (suma de todos los días)
-                usageByHour = energyController.calculateTotalUsageByHour();
+                usageByHour = dashboardData.usageByHour;
                 chartTitle = "Consumo Total por Hora (Todos los días)";
             } else {
                 // Mostrar datos de un día específico
@@ -510,7 +674,7 @@ public class DashboardController {
 
             if (isTotal) {
                 // Mostrar consumo TOTAL por tipo de carga
-                Map<String, Double> usageByLoadType = energyController.calculateTotalUsageByLoadType();
+                Map<String, Double> usageByLoadType = dashboardData.usageByLoadType;
                 BarChart<String, Number> loadTypeChart = FxChartUtils.createBarChartFromStringMap(
                     "Consumo Total por Tipo de Carga",
                     "Tipo de Carga",
@@ -522,13 +686,7 @@ public class DashboardController {
                 System.out.println("✓ Gráfico de tipo de carga actualizado (Total)");
             } else {
                 // Mostrar consumo PROMEDIO por tipo de carga
-                Map<String, double[]> avgUsageByLoadType = energyController.calculateAverageUsageByLoadType();
-
-                // Convertir Map<String, double[]> a Map<String, Double> (solo el promedio)
-                Map<String, Double> avgMap = new HashMap<>();
-                for (Map.Entry<String, double[]> entry : avgUsageByLoadType.entrySet()) {
-                    avgMap.put(entry.getKey(), entry.getValue()[0]); // [0] es el promedio
-                }
+                Map<String, Double> avgMap = dashboardData.avgUsageByLoadType;
 
                 BarChart<String, Number> loadTypeChart = FxChartUtils.createBarChartFromStringMap(
                     "Consumo Promedio por Tipo de Carga",
@@ -555,7 +713,7 @@ public class DashboardController {
 
             if (isTotal) {
                 // Mostrar consumo TOTAL por día
-                Map<String, Double> totalUsageByDay = energyController.calculateTotalUsageByDayOfWeek();
+                Map<String, Double> totalUsageByDay = dashboardData.totalUsageByDay;
                 BarChart<String, Number> dayChart = FxChartUtils.createBarChartFromStringMap(
                     "Consumo Total por Día",
                     "Día de la Semana",
@@ -567,7 +725,7 @@ public class DashboardController {
                 System.out.println("✓ Gráfico de día de semana actualizado (Total)");
             } else {
                 // Mostrar consumo PROMEDIO por día
-                Map<String, Double> avgUsageByDay = energyController.calculateAverageUsageByDayOfWeek();
+                Map<String, Double> avgUsageByDay = dashboardData.avgUsageByDay;
                 BarChart<String, Number> dayChart = FxChartUtils.createBarChartFromStringMap(
                     "Consumo Promedio por Día",
                     "Día de la Semana",
@@ -593,7 +751,7 @@ public class DashboardController {
 
             if (isTotal) {
                 // Mostrar CO2 TOTAL por día (promedio de CO2 diario)
-                Map<String, Double> co2ByDay = energyController.calculateTotalCO2ByDayOfWeek();
+                Map<String, Double> co2ByDay = dashboardData.co2ByDay;
                 BarChart<String, Number> co2Chart = FxChartUtils.createBarChartFromStringMap(
                     "Emisiones CO₂ Promedio por Día",
                     "Día de la Semana",
@@ -605,7 +763,7 @@ public class DashboardController {
                 System.out.println("✓ Gráfico de CO2 actualizado (Promedio)");
             } else {
                 // Mostrar CO2 TOTAL acumulado por día
-                Map<String, Double> totalCO2ByDay = energyController.calculateTotalCO2ByDayOfWeekTotal();
+                Map<String, Double> totalCO2ByDay = dashboardData.totalCO2ByDay;
                 BarChart<String, Number> co2Chart = FxChartUtils.createBarChartFromStringMap(
                     "Emisiones CO₂ Total por Día",
                     "Día de la Semana",
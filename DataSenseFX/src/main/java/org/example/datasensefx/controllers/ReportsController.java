@@ -10,12 +10,11 @@ import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
 import org.example.datasensefx.model.*;
-import org.example.datasensefx.services.DataLoader;
+import org.example.datasensefx.services.EnergyDataService;
 import org.example.datasensefx.services.ReportGenerator;
 import org.example.datasensefx.utils.SceneManager;
 import org.example.datasensefx.utils.UserSession;
 
-import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -102,44 +101,23 @@ public class ReportsController {
     }
 
     /**
-     * Carga los datos energéticos desde CSV
+     * Obtiene los datos energéticos del servicio compartido
+     * (el CSV solo se lee la primera vez que se pide)
      */
     private void loadEnergyData() {
         try {
             System.out.println("🔄 Cargando datos para informes...");
 
-            // Intentar cargar desde classpath primero
-            try {
-                energyData = DataLoader.loadFromClasspath("/data/steel_industry_data.csv");
-                System.out.println("✓ Datos cargados desde classpath para informes");
-            } catch (Exception e1) {
-                // Fallback a sistema de archivos
-                Path csvPath = Path.of("src/main/resources/data/steel_industry_data.csv");
-
-                if (!csvPath.toFile().exists()) {
-                    csvPath = Path.of("DataSenseFX/src/main/resources/data/steel_industry_data.csv");
-                }
-
-                if (csvPath.toFile().exists()) {
-                    energyData = DataLoader.loadFromCsv(csvPath);
-                    System.out.println("✓ Datos cargados desde sistema de archivos para informes");
-                }
-            }
+            EnergyDataService dataService = EnergyDataService.getInstance();
+            energyData = dataService.getData();
 
             if (energyData != null && !energyData.isEmpty()) {
-                reportGenerator = new ReportGenerator(energyData);
+                reportGenerator = dataService.getReportGenerator();
                 System.out.println("✓ ReportGenerator inicializado con " + energyData.size() + " mediciones");
 
-                // Obtener rango de fechas disponibles
-                minDate = energyData.stream()
-                    .map(m -> m.getDate().toLocalDate())
-                    .min(LocalDate::compareTo)
-                    .orElse(LocalDate.now().minusYears(1));
-
-                maxDate = energyData.stream()
-                    .map(m -> m.getDate().toLocalDate())
-                    .max(LocalDate::compareTo)
-                    .orElse(LocalDate.now());
+                // Obtener rango de fechas disponibles (extremos del índice temporal)
+                minDate = dataService.getMainController().getFirstAvailableDate();
+                maxDate = dataService.getMainController().getLastAvailableDate();
 
                 System.out.println("📅 Rango de fechas: " + minDate + " a " + maxDate);
             } else {
@@ -0,0 +1,511 @@
+package org.example.datasensefx.dao;
+
+import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.storage.Category;
+import org.example.datasensefx.storage.Granularity;
+import org.example.datasensefx.utils.DatabaseManager;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object de la tabla de mediciones, sobre un archivo SQLite embebido (un
+ * histórico persistente sin servidor) o sobre la base de datos MySQL de la aplicación.
+ *
+ * La fecha está indexada, así que las consultas por rango de fechas no recorren la tabla;
+ * en MySQL además la tabla está particionada por mes (ver database/setup.sql) y un rango
+ * solo lee sus particiones. La carga masiva inserta varias filas por sentencia, en lotes
+ * JDBC y dentro de una única transacción. Los agregados (por periodo, hora, tipo de carga,
+ * día de la semana...) equivalen a los de MainController pero se calculan con GROUP BY en
+ * la base de datos, sin traer las filas. Las diferencias de SQL están en {@link SqlDialect}.
+ */
+public class MeasurementDAO {
+
+    /** Propiedad de sistema con el archivo de la base de datos (-Ddatasensefx.sqlite=ruta) */
+    public static final String SQLITE_PROPERTY = "datasensefx.sqlite";
+
+    // Sentencias INSERT multifila por cada envío del lote JDBC
+    private static final int STATEMENTS_PER_BATCH = 10;
+
+    private static final String COLUMNS = "fecha, usage_kwh, lagging_reactive, leading_reactive, co2, "
+            + "lagging_power_factor, leading_power_factor, nsm, week_status, day_of_week, load_type";
+    private static final int COLUMN_COUNT = 11;
+
+    private static final String SQLITE_CREATE_TABLE = "CREATE TABLE IF NOT EXISTS mediciones ("
+            + "id INTEGER PRIMARY KEY, "
+            + "fecha INTEGER NOT NULL, "
+            + "usage_kwh REAL NOT NULL, "
+            + "lagging_reactive REAL NOT NULL, "
+            + "leading_reactive REAL NOT NULL, "
+            + "co2 REAL NOT NULL, "
+            + "lagging_power_factor REAL NOT NULL, "
+            + "leading_power_factor REAL NOT NULL, "
+            + "nsm INTEGER NOT NULL, "
+            + "week_status TEXT, "
+            + "day_of_week TEXT, "
+            + "load_type TEXT)";
+    private static final String[] SQLITE_CREATE_INDEXES = {
+        "CREATE INDEX IF NOT EXISTS idx_mediciones_fecha ON mediciones (fecha)",
+        "CREATE INDEX IF NOT EXISTS idx_mediciones_load_type ON mediciones (load_type)"
+    };
+
+    /**
+     * Origen de las conexiones (DriverManager para SQLite, el pool de DatabaseManager para MySQL)
+     */
+    public interface ConnectionFactory {
+        Connection getConnection() throws SQLException;
+    }
+
+    private final SqlDialect dialect;
+    private final ConnectionFactory connections;
+    private final String description;
+    private final Path file;
+
+    public MeasurementDAO(SqlDialect dialect, ConnectionFactory connections, String description) {
+        this(dialect, connections, description, null);
+    }
+
+    private MeasurementDAO(SqlDialect dialect, ConnectionFactory connections, String description, Path file) {
+        this.dialect = dialect;
+        this.connections = connections;
+        this.description = description;
+        this.file = file;
+    }
+
+    /**
+     * Abre (o crea) la base de datos SQLite de un archivo, con su esquema y en modo WAL
+     */
+    public static MeasurementDAO openSqlite(Path file) throws SQLException {
+        Path absolute = file.toAbsolutePath().normalize();
+        String url = "jdbc:sqlite:" + absolute;
+        MeasurementDAO dao = new MeasurementDAO(SqlDialect.SQLITE, () -> openSqliteConnection(url),
+                "sqlite:" + absolute, absolute);
+        try (Connection conn = dao.connections.getConnection();
+             Statement stmt = conn.createStatement()) {
+            // El modo WAL se guarda en el archivo: basta con activarlo una vez
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute(SQLITE_CREATE_TABLE);
+            for (String index : SQLITE_CREATE_INDEXES) {
+                stmt.execute(index);
+            }
+        }
+        return dao;
+    }
+
+    /**
+     * Tabla mediciones de la base de datos MySQL configurada en database.properties
+     * (el esquema se crea con database/setup.sql)
+     */
+    public static MeasurementDAO mysql() {
+        return new MeasurementDAO(SqlDialect.MYSQL, DatabaseManager::getConnection, "mysql");
+    }
+
+    /**
+     * Base de datos configurada con -Ddatasensefx.sqlite, o null si no se indica
+     */
+    public static MeasurementDAO fromSystemProperty() throws SQLException {
+        String value = System.getProperty(SQLITE_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return openSqlite(Path.of(value.trim()));
+    }
+
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Archivo de la base de datos SQLite (null en MySQL)
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Base de datos en texto, para mensajes ("sqlite:/ruta/archivo.db" o "mysql")
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Inserta todas las mediciones en una única transacción: si alguna falla, no se guarda ninguna
+     *
+     * @return Número de mediciones insertadas
+     */
+    public int insertAll(Iterable<Measurement> measurements) throws SQLException {
+        long start = System.nanoTime();
+        int rowsPerInsert = dialect.rowsPerInsert();
+        int total = 0;
+        try (Connection conn = connections.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement multi = conn.prepareStatement(insertSql(rowsPerInsert));
+                 PreparedStatement single = conn.prepareStatement(insertSql(1))) {
+                Measurement[] pending = new Measurement[rowsPerInsert];
+                int n = 0;
+                int batched = 0;
+                for (Measurement m : measurements) {
+                    pending[n++] = m;
+                    if (n == rowsPerInsert) {
+                        for (int i = 0; i < n; i++) {
+                            bind(multi, i * COLUMN_COUNT, pending[i]);
+                        }
+                        multi.addBatch();
+                        total += n;
+                        n = 0;
+                        if (++batched == STATEMENTS_PER_BATCH) {
+                            multi.executeBatch();
+                            batched = 0;
+                        }
+                    }
+                }
+                if (batched > 0) {
+                    multi.executeBatch();
+                }
+                // Las filas sobrantes, de una en una en un lote
+                for (int i = 0; i < n; i++) {
+                    bind(single, 0, pending[i]);
+                    single.addBatch();
+                }
+                if (n > 0) {
+                    single.executeBatch();
+                    total += n;
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                // Las conexiones del pool vuelven a él: se dejan como estaban
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        System.out.printf("✓ Guardadas %d mediciones en %s en %.1f ms%n", total, description, (System.nanoTime() - start) / 1e6);
+        return total;
+    }
+
+    /**
+     * Número de mediciones guardadas
+     */
+    public long count() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM mediciones")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Todas las mediciones, en el orden en que se insertaron
+     */
+    public List<Measurement> findAll() throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM mediciones ORDER BY id";
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            return readMeasurements(stmt);
+        }
+    }
+
+    /**
+     * Mediciones con fecha en [from, to), en orden cronológico
+     */
+    public List<Measurement> findBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM mediciones WHERE fecha >= ? AND fecha < ? ORDER BY fecha, id";
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindRange(stmt, from, to);
+            return readMeasurements(stmt);
+        }
+    }
+
+    /**
+     * Borra todas las mediciones
+     */
+    public void deleteAll() throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM mediciones");
+        }
+    }
+
+    /**
+     * Agregados de cada periodo con datos en [from, to), en orden cronológico
+     * (en SQLite, fechas posteriores a 1970); una semana va de lunes a domingo.
+     */
+    public List<PeriodAggregate> aggregate(Granularity granularity, LocalDateTime from, LocalDateTime to) throws SQLException {
+        String sql = "SELECT " + dialect.periodStart(granularity) + " AS periodo, COUNT(*), SUM(usage_kwh), "
+                + "MIN(usage_kwh), MAX(usage_kwh), SUM(co2) "
+                + "FROM mediciones WHERE fecha >= ? AND fecha < ? GROUP BY periodo ORDER BY periodo";
+        List<PeriodAggregate> result = new ArrayList<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindRange(stmt, from, to);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new PeriodAggregate(granularity, LocalDateTime.ofEpochSecond(rs.getLong(1), 0, ZoneOffset.UTC),
+                            rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5), rs.getDouble(6)));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Consumo total por tipo de carga en [from, to): tipo_carga -> consumo_kWh
+     */
+    public Map<String, Double> totalUsageByLoadType(LocalDateTime from, LocalDateTime to) throws SQLException {
+        return groupBy("load_type", "SUM(usage_kwh)", from, to);
+    }
+
+    /**
+     * Consumo total por hora del día en [from, to): hora (0-23) -> consumo_kWh
+     */
+    public Map<Integer, Double> totalUsageByHour(LocalDateTime from, LocalDateTime to) throws SQLException {
+        return byHour(groupBy(dialect.hourOfDay(), "SUM(usage_kwh)", from, to));
+    }
+
+    // Equivalentes de MainController sobre toda la tabla
+
+    /**
+     * Estadísticas generales: [total_mediciones, consumo_promedio, consumo_min, consumo_max, co2_total]
+     */
+    public double[] getBasicStatistics() throws SQLException {
+        String sql = "SELECT COUNT(*), AVG(usage_kwh), MIN(usage_kwh), MAX(usage_kwh), SUM(co2) FROM mediciones";
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next() || rs.getLong(1) == 0) {
+                return new double[]{0, 0, 0, 0, 0};
+            }
+            return new double[]{rs.getLong(1), rs.getDouble(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5)};
+        }
+    }
+
+    /**
+     * Consumo total por hora del día: hora (0-23) -> consumo_total_kWh
+     */
+    public Map<Integer, Double> calculateTotalUsageByHour() throws SQLException {
+        return byHour(groupBy(dialect.hourOfDay(), "SUM(usage_kwh)", null, null));
+    }
+
+    /**
+     * Consumo por hora de un día: hora (0-23) -> consumo_kWh (solo lee las filas de ese día)
+     */
+    public Map<Integer, Double> calculateUsageByHourForDate(LocalDate date) throws SQLException {
+        return totalUsageByHour(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Consumo total por tipo de carga: tipo_carga -> consumo_total_kWh
+     */
+    public Map<String, Double> calculateTotalUsageByLoadType() throws SQLException {
+        return groupBy("load_type", "SUM(usage_kwh)", null, null);
+    }
+
+    /**
+     * Consumo promedio por tipo de carga: tipo_carga -> [promedio_kWh]
+     */
+    public Map<String, double[]> calculateAverageUsageByLoadType() throws SQLException {
+        Map<String, double[]> result = new HashMap<>();
+        for (Map.Entry<String, Double> entry : groupBy("load_type", "AVG(usage_kwh)", null, null).entrySet()) {
+            result.put(entry.getKey(), new double[]{entry.getValue()});
+        }
+        return result;
+    }
+
+    /**
+     * Consumo total por estado de semana (Weekday vs Weekend): estado -> consumo_total_kWh
+     */
+    public Map<String, Double> calculateTotalUsageByWeekStatus() throws SQLException {
+        return groupBy("week_status", "SUM(usage_kwh)", null, null);
+    }
+
+    /**
+     * Consumo total por día de la semana, de lunes a domingo: día_semana -> consumo_total_kWh
+     */
+    public Map<String, Double> calculateTotalUsageByDayOfWeek() throws SQLException {
+        return inDayOrder(groupBy("day_of_week", "SUM(usage_kwh)", null, null));
+    }
+
+    /**
+     * Consumo promedio por día de la semana, de lunes a domingo: día_semana -> consumo_promedio_kWh
+     */
+    public Map<String, Double> calculateAverageUsageByDayOfWeek() throws SQLException {
+        return inDayOrder(groupBy("day_of_week", "AVG(usage_kwh)", null, null));
+    }
+
+    /**
+     * CO2 promedio por día de la semana, de lunes a domingo: día_semana -> co2_promedio
+     */
+    public Map<String, Double> calculateTotalCO2ByDayOfWeek() throws SQLException {
+        return inDayOrder(groupBy("day_of_week", "AVG(co2)", null, null));
+    }
+
+    /**
+     * CO2 total por día de la semana, de lunes a domingo: día_semana -> co2_total
+     */
+    public Map<String, Double> calculateTotalCO2ByDayOfWeekTotal() throws SQLException {
+        return inDayOrder(groupBy("day_of_week", "SUM(co2)", null, null));
+    }
+
+    /**
+     * Días con mediciones, en orden
+     */
+    public List<LocalDate> getAvailableDates() throws SQLException {
+        String sql = "SELECT DISTINCT " + dialect.periodStart(Granularity.DAY) + " AS dia FROM mediciones ORDER BY dia";
+        List<LocalDate> dates = new ArrayList<>();
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                dates.add(LocalDate.ofEpochDay(Math.floorDiv(rs.getLong(1), 86400)));
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Primera fecha con datos, o null si la tabla está vacía (usa el índice de la fecha)
+     */
+    public LocalDate getFirstAvailableDate() throws SQLException {
+        return dateOf("SELECT MIN(fecha) FROM mediciones");
+    }
+
+    /**
+     * Última fecha con datos, o null si la tabla está vacía (usa el índice de la fecha)
+     */
+    public LocalDate getLastAvailableDate() throws SQLException {
+        return dateOf("SELECT MAX(fecha) FROM mediciones");
+    }
+
+    /**
+     * Ejecuta SELECT clave, agregado ... GROUP BY clave, opcionalmente limitado a [from, to)
+     */
+    private Map<String, Double> groupBy(String key, String aggregate, LocalDateTime from, LocalDateTime to) throws SQLException {
+        String sql = "SELECT " + key + " AS clave, " + aggregate + " FROM mediciones"
+                + (from != null ? " WHERE fecha >= ? AND fecha < ?" : "")
+                + " GROUP BY clave";
+        Map<String, Double> result = new HashMap<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (from != null) {
+                bindRange(stmt, from, to);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getString(1), rs.getDouble(2));
+                }
+            }
+        }
+        return result;
+    }
+
+    private LocalDate dateOf(String sql) throws SQLException {
+        try (Connection conn = connections.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next() || rs.getObject(1) == null) {
+                return null;
+            }
+            return dialect.getDate(rs, 1).toLocalDate();
+        }
+    }
+
+    private static Map<Integer, Double> byHour(Map<String, Double> byKey) {
+        Map<Integer, Double> result = new HashMap<>();
+        for (Map.Entry<String, Double> entry : byKey.entrySet()) {
+            result.put(Integer.parseInt(entry.getKey()), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Ordena los días de lunes a domingo (los valores desconocidos, al final)
+     */
+    private static Map<String, Double> inDayOrder(Map<String, Double> byDay) {
+        Map<String, Double> ordered = new LinkedHashMap<>();
+        for (String day : Category.DAY_OF_WEEK.getKnownValues()) {
+            if (byDay.containsKey(day)) {
+                ordered.put(day, byDay.get(day));
+            }
+        }
+        for (Map.Entry<String, Double> entry : byDay.entrySet()) {
+            ordered.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        return ordered;
+    }
+
+    private static Connection openSqliteConnection(String url) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement stmt = conn.createStatement()) {
+            // Con WAL, NORMAL no sincroniza en cada commit y la base de datos sigue siendo consistente
+            stmt.execute("PRAGMA synchronous = NORMAL");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO mediciones (").append(COLUMNS).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(" : ", (");
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                sql.append(c == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Asigna los parámetros de una fila a partir de la posición offset (0, 11, 22...)
+     */
+    private void bind(PreparedStatement stmt, int offset, Measurement m) throws SQLException {
+        dialect.setDate(stmt, offset + 1, m.getDate());
+        stmt.setDouble(offset + 2, m.getUsageKWh());
+        stmt.setDouble(offset + 3, m.getLaggingReactive());
+        stmt.setDouble(offset + 4, m.getLeadingReactive());
+        stmt.setDouble(offset + 5, m.getCo2());
+        stmt.setDouble(offset + 6, m.getLaggingPowerFactor());
+        stmt.setDouble(offset + 7, m.getLeadingPowerFactor());
+        stmt.setInt(offset + 8, m.getNsm());
+        stmt.setString(offset + 9, m.getWeekStatus());
+        stmt.setString(offset + 10, m.getDayOfWeek());
+        stmt.setString(offset + 11, m.getLoadType());
+    }
+
+    private void bindRange(PreparedStatement stmt, LocalDateTime from, LocalDateTime to) throws SQLException {
+        dialect.setDate(stmt, 1, from);
+        dialect.setDate(stmt, 2, to);
+    }
+
+    private List<Measurement> readMeasurements(PreparedStatement stmt) throws SQLException {
+        List<Measurement> result = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                result.add(new Measurement(dialect.getDate(rs, 1),
+                        rs.getDouble(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5),
+                        rs.getDouble(6), rs.getDouble(7), rs.getInt(8),
+                        rs.getString(9), rs.getString(10), rs.getString(11)));
+            }
+        }
+        return result;
+    }
+}
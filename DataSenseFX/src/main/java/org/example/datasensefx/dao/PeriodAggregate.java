@@ -0,0 +1,75 @@
+package org.example.datasensefx.dao;
+
+import org.example.datasensefx.storage.Granularity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agregados de un periodo calculados por la base de datos (GROUP BY): número de mediciones,
+ * consumo total, mínimo y máximo, y CO2 total.
+ */
+public class PeriodAggregate {
+
+    private final Granularity granularity;
+    private final LocalDateTime start;
+    private final long count;
+    private final double usageSum;
+    private final double usageMin;
+    private final double usageMax;
+    private final double co2Sum;
+
+    public PeriodAggregate(Granularity granularity, LocalDateTime start, long count,
+                           double usageSum, double usageMin, double usageMax, double co2Sum) {
+        this.granularity = granularity;
+        this.start = start;
+        this.count = count;
+        this.usageSum = usageSum;
+        this.usageMin = usageMin;
+        this.usageMax = usageMax;
+        this.co2Sum = co2Sum;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Inicio del periodo
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getUsageSum() {
+        return usageSum;
+    }
+
+    /**
+     * Consumo medio por medición (0 si el periodo está vacío)
+     */
+    public double getUsageAverage() {
+        return count == 0 ? 0 : usageSum / count;
+    }
+
+    public double getUsageMin() {
+        return usageMin;
+    }
+
+    public double getUsageMax() {
+        return usageMax;
+    }
+
+    public double getCo2Sum() {
+        return co2Sum;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PeriodAggregate{%s %s, count=%d, usage=%.2f, min=%.2f, max=%.2f, co2=%.4f}",
+                granularity, start, count, usageSum, usageMin, usageMax, co2Sum);
+    }
+}
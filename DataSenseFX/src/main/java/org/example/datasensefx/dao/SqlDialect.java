@@ -0,0 +1,84 @@
+package org.example.datasensefx.dao;
+
+import org.example.datasensefx.storage.Granularity;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Diferencias de SQL entre las bases de datos que admite {@link MeasurementDAO}.
+ *
+ * En SQLite la fecha es un entero con los segundos de época (UTC); en MySQL es un DATETIME,
+ * que permite particionar la tabla por mes. Las expresiones de periodo devuelven en ambos
+ * casos el inicio del periodo en segundos de época, de modo que el resto del DAO es común.
+ */
+public enum SqlDialect {
+    SQLITE,
+    MYSQL;
+
+    /**
+     * Filas por sentencia INSERT: SQLite admite 999 parámetros (90 x 11), MySQL 65535
+     */
+    int rowsPerInsert() {
+        return this == SQLITE ? 90 : 500;
+    }
+
+    /**
+     * Expresión con el inicio del periodo que contiene la fecha, en segundos de época
+     */
+    String periodStart(Granularity granularity) {
+        if (this == SQLITE) {
+            switch (granularity) {
+                case HOUR:
+                    return "(fecha / 3600) * 3600";
+                case DAY:
+                    return "(fecha / 86400) * 86400";
+                case WEEK:
+                    // El día de época 0 (1970-01-01) fue jueves: se retrocede hasta el lunes
+                    return "((fecha / 86400) - ((fecha / 86400 + 3) % 7)) * 86400";
+                default:
+                    return "CAST(strftime('%s', fecha, 'unixepoch', 'start of month') AS INTEGER)";
+            }
+        }
+        // TIMESTAMPDIFF no depende de la zona horaria de la sesión, a diferencia de UNIX_TIMESTAMP
+        switch (granularity) {
+            case HOUR:
+                return epochSeconds("DATE_FORMAT(fecha, '%Y-%m-%d %H:00:00')");
+            case DAY:
+                return epochSeconds("DATE(fecha)");
+            case WEEK:
+                return epochSeconds("DATE(fecha) - INTERVAL WEEKDAY(fecha) DAY");
+            default:
+                return epochSeconds("DATE_FORMAT(fecha, '%Y-%m-01')");
+        }
+    }
+
+    /**
+     * Expresión con la hora del día (0-23) de la fecha
+     */
+    String hourOfDay() {
+        return this == SQLITE ? "(fecha % 86400) / 3600" : "HOUR(fecha)";
+    }
+
+    void setDate(PreparedStatement stmt, int index, LocalDateTime date) throws SQLException {
+        if (this == SQLITE) {
+            stmt.setLong(index, date.toEpochSecond(ZoneOffset.UTC));
+        } else {
+            stmt.setObject(index, date);
+        }
+    }
+
+    LocalDateTime getDate(ResultSet rs, int index) throws SQLException {
+        if (this == SQLITE) {
+            return LocalDateTime.ofEpochSecond(rs.getLong(index), 0, ZoneOffset.UTC);
+        }
+        return rs.getObject(index, LocalDateTime.class);
+    }
+
+    private static String epochSeconds(String datetime) {
+        return "TIMESTAMPDIFF(SECOND, '1970-01-01 00:00:00', " + datetime + ")";
+    }
+}
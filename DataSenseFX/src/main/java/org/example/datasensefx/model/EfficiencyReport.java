@@ -16,6 +16,11 @@ public class EfficiencyReport extends Report {
     private double co2Intensity;
     private int totalMeasurements;
     
+    // Percentiles de consumo por medición (kWh)
+    private double usageP50;
+    private double usageP95;
+    private double usageP99;
+    
     // KPIs de eficiencia
     private double lightLoadPercentage;
     private double mediumLoadPercentage;
@@ -69,6 +74,10 @@ public class EfficiencyReport extends Report {
         content.append(String.format("🔋 Intensidad energética: %.2f kWh/medición\n", energyIntensity));
         content.append(String.format("🌍 Intensidad de CO₂: %.4f kg/kWh\n\n", co2Intensity));
         
+        // Percentiles de consumo
+        content.append(String.format("📐 Consumo por medición: P50 %.2f kWh | P95 %.2f kWh | P99 %.2f kWh\n\n",
+            usageP50, usageP95, usageP99));
+        
         // Distribución de carga
         content.append("───────────────────────────────────────────────────────\n");
         content.append("  DISTRIBUCIÓN DE CARGA\n");
@@ -176,6 +185,30 @@ public class EfficiencyReport extends Report {
         this.totalMeasurements = totalMeasurements;
     }
     
+    public double getUsageP50() {
+        return usageP50;
+    }
+    
+    public void setUsageP50(double usageP50) {
+        this.usageP50 = usageP50;
+    }
+    
+    public double getUsageP95() {
+        return usageP95;
+    }
+    
+    public void setUsageP95(double usageP95) {
+        this.usageP95 = usageP95;
+    }
+    
+    public double getUsageP99() {
+        return usageP99;
+    }
+    
+    public void setUsageP99(double usageP99) {
+        this.usageP99 = usageP99;
+    }
+    
     public double getLightLoadPercentage() {
         return lightLoadPercentage;
     }
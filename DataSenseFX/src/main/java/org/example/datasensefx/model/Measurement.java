@@ -1,6 +1,13 @@
 package org.example.datasensefx.model;
+import org.example.datasensefx.storage.Category;
+
 import java.time.LocalDateTime;
 
+/**
+ * Una medición del dataset. Los valores categóricos (estado de la semana, día y tipo de
+ * carga) se guardan como códigos del diccionario global de cada {@link Category}: se
+ * codifican al crear la medición y los getters devuelven el String compartido del diccionario.
+ */
 public class Measurement {
     private LocalDateTime date;
     private double usageKWh;
@@ -10,9 +17,9 @@ public class Measurement {
     private double laggingPowerFactor;
     private double leadingPowerFactor;
     private int nsm;
-    private String weekStatus;
-    private String dayOfWeek;
-    private String loadType;
+    private int weekStatusCode;
+    private int dayOfWeekCode;
+    private int loadTypeCode;
 
     public Measurement(LocalDateTime date, double usageKWh, double laggingReactive,
                        double leadingReactive, double co2, double laggingPowerFactor,
@@ -26,9 +33,9 @@ public class Measurement {
         this.laggingPowerFactor = laggingPowerFactor;
         this.leadingPowerFactor = leadingPowerFactor;
         this.nsm = nsm;
-        this.weekStatus = weekStatus;
-        this.dayOfWeek = dayOfWeek;
-        this.loadType = loadType;
+        this.weekStatusCode = Category.WEEK_STATUS.encode(weekStatus);
+        this.dayOfWeekCode = Category.DAY_OF_WEEK.encode(dayOfWeek);
+        this.loadTypeCode = Category.LOAD_TYPE.encode(loadType);
     }
 
     public double getLaggingPowerFactor() {
@@ -64,15 +71,36 @@ public class Measurement {
     }
 
     public String getWeekStatus() {
-        return weekStatus;
+        return Category.WEEK_STATUS.decode(weekStatusCode);
     }
 
     public String getDayOfWeek() {
-        return dayOfWeek;
+        return Category.DAY_OF_WEEK.decode(dayOfWeekCode);
     }
 
     public String getLoadType() {
-        return loadType;
+        return Category.LOAD_TYPE.decode(loadTypeCode);
+    }
+
+    /**
+     * Código de {@link #getWeekStatus()} en el diccionario global
+     */
+    public int getWeekStatusCode() {
+        return weekStatusCode;
+    }
+
+    /**
+     * Código de {@link #getDayOfWeek()} en el diccionario global
+     */
+    public int getDayOfWeekCode() {
+        return dayOfWeekCode;
+    }
+
+    /**
+     * Código de {@link #getLoadType()} en el diccionario global
+     */
+    public int getLoadTypeCode() {
+        return loadTypeCode;
     }
 
     @Override
@@ -86,9 +114,9 @@ public class Measurement {
                 ", laggingPowerFactor=" + laggingPowerFactor +
                 ", leadingPowerFactor=" + leadingPowerFactor +
                 ", nsm=" + nsm +
-                ", weekStatus='" + weekStatus + '\'' +
-                ", dayOfWeek='" + dayOfWeek + '\'' +
-                ", loadType='" + loadType + '\'' +
+                ", weekStatus='" + getWeekStatus() + '\'' +
+                ", dayOfWeek='" + getDayOfWeek() + '\'' +
+                ", loadType='" + getLoadType() + '\'' +
                 '}';
     }
 }
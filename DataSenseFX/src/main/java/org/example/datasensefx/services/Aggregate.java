@@ -0,0 +1,30 @@
+package org.example.datasensefx.services;
+
+/**
+ * Agregados que {@link AggregationEngine} puede calcular juntos en una sola pasada.
+ * Cada uno corresponde al método de {@link MainController} del mismo nombre.
+ */
+public enum Aggregate {
+    /** [total_mediciones, consumo_promedio, consumo_min, consumo_max, co2_total] */
+    BASIC_STATISTICS,
+    /** hora (0-23) -> consumo_total_kWh */
+    TOTAL_USAGE_BY_HOUR,
+    /** tipo_carga -> [promedio_kWh] */
+    AVERAGE_USAGE_BY_LOAD_TYPE,
+    /** tipo_carga -> consumo_total_kWh */
+    TOTAL_USAGE_BY_LOAD_TYPE,
+    /** estado_semana -> consumo_total_kWh */
+    TOTAL_USAGE_BY_WEEK_STATUS,
+    /** día_semana -> consumo_promedio_kWh, de lunes a domingo */
+    AVERAGE_USAGE_BY_DAY_OF_WEEK,
+    /** día_semana -> consumo_total_kWh, de lunes a domingo */
+    TOTAL_USAGE_BY_DAY_OF_WEEK,
+    /** día_semana -> co2_promedio, de lunes a domingo */
+    AVERAGE_CO2_BY_DAY_OF_WEEK,
+    /** día_semana -> co2_total, de lunes a domingo */
+    TOTAL_CO2_BY_DAY_OF_WEEK,
+    /** tipo_carga -> sketch de percentiles de consumo (necesita las filas, no sale del cubo) */
+    USAGE_PERCENTILES_BY_LOAD_TYPE,
+    /** hora (0-23) -> sketch de percentiles de consumo (necesita las filas, no sale del cubo) */
+    USAGE_PERCENTILES_BY_HOUR
+}
@@ -0,0 +1,657 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.storage.Category;
+import org.example.datasensefx.storage.EnergyCube;
+import org.example.datasensefx.storage.MeasurementStore;
+import org.example.datasensefx.storage.Metric;
+import org.example.datasensefx.storage.QuantileSketch;
+import org.example.datasensefx.storage.StreamingStats;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Motor de agregación: calcula en una sola pasada todos los agregados pedidos.
+ *
+ * Cada fila se lee una vez y actualiza acumuladores primitivos indexados por hora o por
+ * código de diccionario; los mapas de resultado se construyen al final, con las mismas
+ * formas (y el mismo orden de suma) que los métodos de {@link MainController}.
+ *
+ * En modo paralelo un almacén columnar se divide en tramos de filas que recorren los hilos
+ * del ForkJoinPool común, cada uno con sus propios acumuladores; al terminar se combinan
+ * de dos en dos (sumas, conteos, mínimos y máximos son asociativos). Las sumas pueden
+ * diferir del modo secuencial en los últimos decimales por el distinto orden de suma.
+ */
+public final class AggregationEngine {
+
+    /** Propiedad de sistema para desactivar el modo paralelo por defecto (-Ddatasensefx.parallel=false) */
+    public static final String PARALLEL_PROPERTY = "datasensefx.parallel";
+
+    /** Filas por tramo en modo paralelo; por debajo del doble no compensa repartir */
+    static final int PARALLEL_LEAF_ROWS = 1 << 14;
+    // Códigos de diccionario para los que se reservan acumuladores de entrada (crecen si hacen falta)
+    private static final int INITIAL_CODES = 8;
+
+    /** Agregados que el cubo no puede responder: necesitan los valores, no solo sus momentos */
+    public static final Set<Aggregate> ROW_AGGREGATES = Collections.unmodifiableSet(
+            EnumSet.of(Aggregate.USAGE_PERCENTILES_BY_LOAD_TYPE, Aggregate.USAGE_PERCENTILES_BY_HOUR));
+
+    private static final String[] DAYS_ORDER = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
+    private AggregationEngine() {
+    }
+
+    /**
+     * Indica si el modo paralelo está activado por defecto (lo está salvo que la propiedad sea false)
+     */
+    public static boolean isParallelEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(PARALLEL_PROPERTY));
+    }
+
+    /**
+     * Calcula los agregados pedidos recorriendo los datos una sola vez,
+     * en paralelo si así está configurado
+     */
+    public static AggregationResult aggregate(Iterable<Measurement> data, Set<Aggregate> aggregates) {
+        return aggregate(data, aggregates, isParallelEnabled());
+    }
+
+    /**
+     * Calcula los agregados pedidos recorriendo los datos una sola vez
+     * @param data Almacén columnar, lista o fuente iterable de mediciones
+     * @param parallel Repartir el recorrido entre varios hilos (solo con almacenes columnares
+     *                 grandes; el resto de fuentes se recorre siempre de forma secuencial)
+     */
+    public static AggregationResult aggregate(Iterable<Measurement> data, Set<Aggregate> aggregates, boolean parallel) {
+        if (data instanceof MeasurementStore store) {
+            // Las estadísticas básicas son reducciones de columna completas (kernels SIMD en tablas)
+            double[] basicStatistics = null;
+            Set<Aggregate> scanned = aggregates;
+            if (aggregates.contains(Aggregate.BASIC_STATISTICS)) {
+                basicStatistics = basicStatistics(store);
+                scanned = EnumSet.copyOf(aggregates);
+                scanned.remove(Aggregate.BASIC_STATISTICS);
+            }
+
+            Accumulators acc;
+            if (scanned.isEmpty()) {
+                acc = new Accumulators(scanned);
+            } else if (parallel && store.size() >= 2 * PARALLEL_LEAF_ROWS) {
+                acc = ForkJoinPool.commonPool().invoke(new ParallelScan(store, scanned, 0, store.size()));
+            } else {
+                acc = new Accumulators(scanned);
+                acc.scan(store, 0, store.size());
+            }
+            AggregationResult result = acc.finish(store::decode);
+            if (basicStatistics != null) {
+                result.setBasicStatistics(basicStatistics);
+            }
+            return result;
+        }
+
+        Accumulators acc = new Accumulators(aggregates);
+
+        // Fuente de objetos: los valores categóricos ya vienen codificados del diccionario global
+        for (Measurement m : data) {
+            acc.accept(m.getUsageKWh(), acc.needsCo2 ? m.getCo2() : 0,
+                    acc.needsHour ? m.getDate().getHour() : 0,
+                    acc.needsWeekStatus ? m.getWeekStatusCode() : 0,
+                    acc.needsDayOfWeek ? m.getDayOfWeekCode() : 0,
+                    acc.needsLoadType ? m.getLoadTypeCode() : 0);
+        }
+        return acc.finish(Category::decode);
+    }
+
+    /**
+     * Calcula los agregados pedidos a partir de un cubo, sin recorrer filas
+     * (cada agregado lee a lo sumo las 1008 celdas del cubo)
+     * @throws IllegalArgumentException Si se pide alguno de {@link #ROW_AGGREGATES}
+     */
+    public static AggregationResult aggregate(EnergyCube cube, Set<Aggregate> aggregates) {
+        for (Aggregate aggregate : aggregates) {
+            if (ROW_AGGREGATES.contains(aggregate)) {
+                throw new IllegalArgumentException("El cubo no puede calcular " + aggregate);
+            }
+        }
+        final int all = EnergyCube.ALL;
+        AggregationResult result = new AggregationResult();
+        if (aggregates.contains(Aggregate.BASIC_STATISTICS)) {
+            long count = cube.count(all, all, all, all);
+            if (count == 0) {
+                result.setBasicStatistics(new double[]{0, 0, 0, 0, 0});
+            } else {
+                result.setBasicStatistics(new double[]{
+                    count,
+                    cube.sum(Metric.USAGE_KWH, all, all, all, all) / count,
+                    Math.min(Double.MAX_VALUE, cube.min(Metric.USAGE_KWH, all, all, all, all)),
+                    Math.max(Double.MIN_VALUE, cube.max(Metric.USAGE_KWH, all, all, all, all)),
+                    cube.sum(Metric.CO2, all, all, all, all)
+                });
+            }
+        }
+        if (aggregates.contains(Aggregate.TOTAL_USAGE_BY_HOUR)) {
+            Map<Integer, Double> byHour = new HashMap<>();
+            for (int hour = 0; hour < EnergyCube.HOURS; hour++) {
+                if (cube.count(all, all, all, hour) > 0) {
+                    byHour.put(hour, cube.sum(Metric.USAGE_KWH, all, all, all, hour));
+                }
+            }
+            result.setTotalUsageByHour(byHour);
+        }
+        if (aggregates.contains(Aggregate.TOTAL_USAGE_BY_LOAD_TYPE) || aggregates.contains(Aggregate.AVERAGE_USAGE_BY_LOAD_TYPE)) {
+            Map<String, Double> totals = new HashMap<>();
+            Map<String, double[]> averages = new HashMap<>();
+            Map<String, StreamingStats> stats = new HashMap<>();
+            for (int loadType = 0; loadType < EnergyCube.LOAD_TYPES.length; loadType++) {
+                StreamingStats s = cube.stats(Metric.USAGE_KWH, loadType, all, all, all);
+                if (s.getCount() > 0) {
+                    totals.put(EnergyCube.LOAD_TYPES[loadType], s.getSum());
+                    averages.put(EnergyCube.LOAD_TYPES[loadType], new double[]{s.getMean()});
+                    stats.put(EnergyCube.LOAD_TYPES[loadType], s);
+                }
+            }
+            if (aggregates.contains(Aggregate.TOTAL_USAGE_BY_LOAD_TYPE)) {
+                result.setTotalUsageByLoadType(totals);
+            }
+            if (aggregates.contains(Aggregate.AVERAGE_USAGE_BY_LOAD_TYPE)) {
+                result.setUsageStatsByLoadType(stats);
+                result.setAverageUsageByLoadType(averages);
+            }
+        }
+        if (aggregates.contains(Aggregate.TOTAL_USAGE_BY_WEEK_STATUS)) {
+            Map<String, Double> byStatus = new HashMap<>();
+            for (int weekStatus = 0; weekStatus < EnergyCube.WEEK_STATUSES.length; weekStatus++) {
+                if (cube.count(all, all, weekStatus, all) > 0) {
+                    byStatus.put(EnergyCube.WEEK_STATUSES[weekStatus], cube.sum(Metric.USAGE_KWH, all, all, weekStatus, all));
+                }
+            }
+            result.setTotalUsageByWeekStatus(byStatus);
+        }
+        if (aggregates.contains(Aggregate.TOTAL_USAGE_BY_DAY_OF_WEEK)) {
+            result.setTotalUsageByDayOfWeek(byDayOfWeek(cube, Metric.USAGE_KWH));
+        }
+        if (aggregates.contains(Aggregate.AVERAGE_USAGE_BY_DAY_OF_WEEK)) {
+            Map<String, StreamingStats> stats = statsByDayOfWeek(cube, Metric.USAGE_KWH);
+            result.setUsageStatsByDayOfWeek(stats);
+            result.setAverageUsageByDayOfWeek(means(stats));
+        }
+        if (aggregates.contains(Aggregate.TOTAL_CO2_BY_DAY_OF_WEEK)) {
+            result.setTotalCO2ByDayOfWeek(byDayOfWeek(cube, Metric.CO2));
+        }
+        if (aggregates.contains(Aggregate.AVERAGE_CO2_BY_DAY_OF_WEEK)) {
+            Map<String, StreamingStats> stats = statsByDayOfWeek(cube, Metric.CO2);
+            result.setCo2StatsByDayOfWeek(stats);
+            result.setAverageCO2ByDayOfWeek(means(stats));
+        }
+        return result;
+    }
+
+    /**
+     * Total de una métrica por día de la semana, de lunes a domingo
+     */
+    private static Map<String, Double> byDayOfWeek(EnergyCube cube, Metric metric) {
+        final int all = EnergyCube.ALL;
+        Map<String, Double> byDay = new LinkedHashMap<>();
+        for (int day = 0; day < EnergyCube.DAYS_OF_WEEK.length; day++) {
+            if (cube.count(all, day, all, all) > 0) {
+                byDay.put(EnergyCube.DAYS_OF_WEEK[day], cube.sum(metric, all, day, all, all));
+            }
+        }
+        return byDay;
+    }
+
+    /**
+     * Estadísticas de una métrica por día de la semana, de lunes a domingo
+     */
+    private static Map<String, StreamingStats> statsByDayOfWeek(EnergyCube cube, Metric metric) {
+        final int all = EnergyCube.ALL;
+        Map<String, StreamingStats> byDay = new LinkedHashMap<>();
+        for (int day = 0; day < EnergyCube.DAYS_OF_WEEK.length; day++) {
+            StreamingStats stats = cube.stats(metric, all, day, all, all);
+            if (stats.getCount() > 0) {
+                byDay.put(EnergyCube.DAYS_OF_WEEK[day], stats);
+            }
+        }
+        return byDay;
+    }
+
+    /**
+     * [total_mediciones, consumo_promedio, consumo_min, consumo_max, co2_total] de un almacén
+     */
+    private static double[] basicStatistics(MeasurementStore store) {
+        int n = store.size();
+        if (n == 0) {
+            return new double[]{0, 0, 0, 0, 0};
+        }
+        double sum = store.sum(Metric.USAGE_KWH, 0, n);
+        // Mismos valores iniciales que el recorrido por filas
+        double minUsage = Math.min(Double.MAX_VALUE, store.min(Metric.USAGE_KWH, 0, n));
+        double maxUsage = Math.max(Double.MIN_VALUE, store.max(Metric.USAGE_KWH, 0, n));
+        return new double[]{n, sum / n, minUsage, maxUsage, store.sum(Metric.CO2, 0, n)};
+    }
+
+    /**
+     * Recorre un tramo de filas; si es grande lo parte en dos mitades y combina sus acumuladores
+     */
+    private static final class ParallelScan extends RecursiveTask<Accumulators> {
+
+        private final MeasurementStore store;
+        private final Set<Aggregate> aggregates;
+        private final int from;
+        private final int to;
+
+        ParallelScan(MeasurementStore store, Set<Aggregate> aggregates, int from, int to) {
+            this.store = store;
+            this.aggregates = aggregates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulators compute() {
+            if (to - from <= PARALLEL_LEAF_ROWS) {
+                Accumulators acc = new Accumulators(aggregates);
+                acc.scan(store, from, to);
+                return acc;
+            }
+            int mid = (from + to) >>> 1;
+            ParallelScan left = new ParallelScan(store, aggregates, from, mid);
+            left.fork();
+            Accumulators right = new ParallelScan(store, aggregates, mid, to).compute();
+            Accumulators result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+
+    /**
+     * Traduce códigos de diccionario a valores
+     */
+    interface CodeDecoder {
+        String decode(Category category, int code);
+    }
+
+    /**
+     * Acumuladores primitivos de una pasada
+     */
+    static final class Accumulators {
+
+        private final boolean basic;
+        private final boolean usageByHour;
+        private final boolean loadTypeTotals;
+        private final boolean loadTypeAverages;
+        private final boolean weekStatusTotals;
+        private final boolean dayUsageAverages;
+        private final boolean dayUsageTotals;
+        private final boolean dayCo2Averages;
+        private final boolean dayCo2Totals;
+        private final boolean loadTypePercentiles;
+        private final boolean hourPercentiles;
+
+        final boolean needsCo2;
+        final boolean needsHour;
+        final boolean needsWeekStatus;
+        final boolean needsDayOfWeek;
+        final boolean needsLoadType;
+
+        // Estadísticas básicas
+        private long count;
+        private double sum;
+        private double minUsage = Double.MAX_VALUE;
+        private double maxUsage = Double.MIN_VALUE;
+        private double totalCO2;
+
+        // Por hora
+        private final double[] hourSums = new double[24];
+        private final long[] hourCounts = new long[24];
+        // Por código de diccionario: los arrays crecen al llegar un código que no cabe, así
+        // que no hay límite de valores distintos
+        private double[] loadTypeSums = new double[INITIAL_CODES];
+        private long[] loadTypeCounts = new long[INITIAL_CODES];
+        private double[] weekStatusSums = new double[INITIAL_CODES];
+        private long[] weekStatusCounts = new long[INITIAL_CODES];
+        private double[] dayUsageSums = new double[INITIAL_CODES];
+        private double[] dayCo2Sums = new double[INITIAL_CODES];
+        private long[] dayCounts = new long[INITIAL_CODES];
+        // Los promedios llevan además varianza, mínimo y máximo (Welford), combinables por tramos
+        private StreamingStats[] loadTypeStats;
+        private StreamingStats[] dayUsageStats;
+        private StreamingStats[] dayCo2Stats;
+        // Sketches de percentiles, creados al ver el primer valor de cada grupo
+        private QuantileSketch[] loadTypeSketches;
+        private final QuantileSketch[] hourSketches;
+
+        Accumulators(Set<Aggregate> aggregates) {
+            basic = aggregates.contains(Aggregate.BASIC_STATISTICS);
+            usageByHour = aggregates.contains(Aggregate.TOTAL_USAGE_BY_HOUR);
+            loadTypeTotals = aggregates.contains(Aggregate.TOTAL_USAGE_BY_LOAD_TYPE);
+            loadTypeAverages = aggregates.contains(Aggregate.AVERAGE_USAGE_BY_LOAD_TYPE);
+            weekStatusTotals = aggregates.contains(Aggregate.TOTAL_USAGE_BY_WEEK_STATUS);
+            dayUsageAverages = aggregates.contains(Aggregate.AVERAGE_USAGE_BY_DAY_OF_WEEK);
+            dayUsageTotals = aggregates.contains(Aggregate.TOTAL_USAGE_BY_DAY_OF_WEEK);
+            dayCo2Averages = aggregates.contains(Aggregate.AVERAGE_CO2_BY_DAY_OF_WEEK);
+            dayCo2Totals = aggregates.contains(Aggregate.TOTAL_CO2_BY_DAY_OF_WEEK);
+            loadTypePercentiles = aggregates.contains(Aggregate.USAGE_PERCENTILES_BY_LOAD_TYPE);
+            hourPercentiles = aggregates.contains(Aggregate.USAGE_PERCENTILES_BY_HOUR);
+
+            needsCo2 = basic || dayCo2Averages || dayCo2Totals;
+            needsHour = usageByHour || hourPercentiles;
+            needsWeekStatus = weekStatusTotals;
+            needsDayOfWeek = dayUsageAverages || dayUsageTotals || dayCo2Averages || dayCo2Totals;
+            needsLoadType = loadTypeTotals || loadTypeAverages || loadTypePercentiles;
+
+            loadTypeStats = loadTypeAverages ? newStats(INITIAL_CODES) : null;
+            dayUsageStats = dayUsageAverages ? newStats(INITIAL_CODES) : null;
+            dayCo2Stats = dayCo2Averages ? newStats(INITIAL_CODES) : null;
+            loadTypeSketches = loadTypePercentiles ? new QuantileSketch[INITIAL_CODES] : null;
+            hourSketches = hourPercentiles ? new QuantileSketch[24] : null;
+        }
+
+        /**
+         * Acumula las filas [from, to) de un almacén columnar
+         */
+        void scan(MeasurementStore store, int from, int to) {
+            for (int i = from; i < to; i++) {
+                accept(store.getUsageKWh(i), needsCo2 ? store.getCo2(i) : 0,
+                        needsHour ? store.getHour(i) : 0,
+                        needsWeekStatus ? store.getCode(Category.WEEK_STATUS, i) : 0,
+                        needsDayOfWeek ? store.getCode(Category.DAY_OF_WEEK, i) : 0,
+                        needsLoadType ? store.getCode(Category.LOAD_TYPE, i) : 0);
+            }
+        }
+
+        void accept(double usage, double co2, int hour, int weekStatus, int dayOfWeek, int loadType) {
+            if (basic) {
+                count++;
+                sum += usage;
+                minUsage = Math.min(minUsage, usage);
+                maxUsage = Math.max(maxUsage, usage);
+                totalCO2 += co2;
+            }
+            if (needsHour) {
+                hourSums[hour] += usage;
+                hourCounts[hour]++;
+                if (hourSketches != null) {
+                    sketch(hourSketches, hour).accept(usage);
+                }
+            }
+            if (needsLoadType) {
+                if (loadType >= loadTypeCounts.length) {
+                    growLoadTypes(loadType + 1);
+                }
+                loadTypeSums[loadType] += usage;
+                loadTypeCounts[loadType]++;
+                if (loadTypeStats != null) {
+                    loadTypeStats[loadType].accept(usage);
+                }
+                if (loadTypeSketches != null) {
+                    sketch(loadTypeSketches, loadType).accept(usage);
+                }
+            }
+            if (needsWeekStatus) {
+                if (weekStatus >= weekStatusCounts.length) {
+                    growWeekStatuses(weekStatus + 1);
+                }
+                weekStatusSums[weekStatus] += usage;
+                weekStatusCounts[weekStatus]++;
+            }
+            if (needsDayOfWeek) {
+                if (dayOfWeek >= dayCounts.length) {
+                    growDays(dayOfWeek + 1);
+                }
+                dayUsageSums[dayOfWeek] += usage;
+                dayCo2Sums[dayOfWeek] += co2;
+                dayCounts[dayOfWeek]++;
+                if (dayUsageStats != null) {
+                    dayUsageStats[dayOfWeek].accept(usage);
+                }
+                if (dayCo2Stats != null) {
+                    dayCo2Stats[dayOfWeek].accept(co2);
+                }
+            }
+        }
+
+        /**
+         * Suma a estos acumuladores los de otro tramo (con los mismos agregados y diccionarios)
+         */
+        void merge(Accumulators other) {
+            count += other.count;
+            sum += other.sum;
+            minUsage = Math.min(minUsage, other.minUsage);
+            maxUsage = Math.max(maxUsage, other.maxUsage);
+            totalCO2 += other.totalCO2;
+            if (other.loadTypeCounts.length > loadTypeCounts.length) {
+                growLoadTypes(other.loadTypeCounts.length);
+            }
+            if (other.weekStatusCounts.length > weekStatusCounts.length) {
+                growWeekStatuses(other.weekStatusCounts.length);
+            }
+            if (other.dayCounts.length > dayCounts.length) {
+                growDays(other.dayCounts.length);
+            }
+            add(hourSums, other.hourSums);
+            add(hourCounts, other.hourCounts);
+            add(loadTypeSums, other.loadTypeSums);
+            add(loadTypeCounts, other.loadTypeCounts);
+            add(weekStatusSums, other.weekStatusSums);
+            add(weekStatusCounts, other.weekStatusCounts);
+            add(dayUsageSums, other.dayUsageSums);
+            add(dayCo2Sums, other.dayCo2Sums);
+            add(dayCounts, other.dayCounts);
+            combine(loadTypeStats, other.loadTypeStats);
+            combine(dayUsageStats, other.dayUsageStats);
+            combine(dayCo2Stats, other.dayCo2Stats);
+            merge(loadTypeSketches, other.loadTypeSketches);
+            merge(hourSketches, other.hourSketches);
+        }
+
+        private void growLoadTypes(int minCodes) {
+            int codes = capacity(loadTypeCounts.length, minCodes);
+            loadTypeSums = Arrays.copyOf(loadTypeSums, codes);
+            loadTypeCounts = Arrays.copyOf(loadTypeCounts, codes);
+            loadTypeStats = grow(loadTypeStats, codes);
+            if (loadTypeSketches != null) {
+                loadTypeSketches = Arrays.copyOf(loadTypeSketches, codes);
+            }
+        }
+
+        private void growWeekStatuses(int minCodes) {
+            int codes = capacity(weekStatusCounts.length, minCodes);
+            weekStatusSums = Arrays.copyOf(weekStatusSums, codes);
+            weekStatusCounts = Arrays.copyOf(weekStatusCounts, codes);
+        }
+
+        private void growDays(int minCodes) {
+            int codes = capacity(dayCounts.length, minCodes);
+            dayUsageSums = Arrays.copyOf(dayUsageSums, codes);
+            dayCo2Sums = Arrays.copyOf(dayCo2Sums, codes);
+            dayCounts = Arrays.copyOf(dayCounts, codes);
+            dayUsageStats = grow(dayUsageStats, codes);
+            dayCo2Stats = grow(dayCo2Stats, codes);
+        }
+
+        private static int capacity(int current, int minCodes) {
+            return Math.max(minCodes, current * 2);
+        }
+
+        private static StreamingStats[] grow(StreamingStats[] stats, int codes) {
+            if (stats == null) {
+                return null;
+            }
+            StreamingStats[] grown = Arrays.copyOf(stats, codes);
+            for (int code = stats.length; code < codes; code++) {
+                grown[code] = new StreamingStats();
+            }
+            return grown;
+        }
+
+        private static void combine(StreamingStats[] target, StreamingStats[] source) {
+            if (target == null) {
+                return;
+            }
+            for (int code = 0; code < source.length; code++) {
+                target[code].combine(source[code]);
+            }
+        }
+
+        private static QuantileSketch sketch(QuantileSketch[] sketches, int index) {
+            QuantileSketch sketch = sketches[index];
+            if (sketch == null) {
+                sketch = new QuantileSketch();
+                sketches[index] = sketch;
+            }
+            return sketch;
+        }
+
+        private static void merge(QuantileSketch[] target, QuantileSketch[] source) {
+            if (target == null) {
+                return;
+            }
+            for (int i = 0; i < source.length; i++) {
+                if (source[i] != null) {
+                    sketch(target, i).merge(source[i]);
+                }
+            }
+        }
+
+        // El destino tiene al menos la longitud del origen
+        private static void add(double[] target, double[] source) {
+            for (int i = 0; i < source.length; i++) {
+                target[i] += source[i];
+            }
+        }
+
+        private static void add(long[] target, long[] source) {
+            for (int i = 0; i < source.length; i++) {
+                target[i] += source[i];
+            }
+        }
+
+        /**
+         * Construye los mapas de resultado de los agregados pedidos
+         */
+        AggregationResult finish(CodeDecoder decoder) {
+            AggregationResult result = new AggregationResult();
+            if (basic) {
+                result.setBasicStatistics(count == 0
+                        ? new double[]{0, 0, 0, 0, 0}
+                        : new double[]{count, sum / count, minUsage, maxUsage, totalCO2});
+            }
+            if (usageByHour) {
+                Map<Integer, Double> byHour = new HashMap<>();
+                for (int hour = 0; hour < 24; hour++) {
+                    if (hourCounts[hour] > 0) {
+                        byHour.put(hour, hourSums[hour]);
+                    }
+                }
+                result.setTotalUsageByHour(byHour);
+            }
+            if (loadTypeTotals) {
+                result.setTotalUsageByLoadType(totals(decoder, Category.LOAD_TYPE, loadTypeSums, loadTypeCounts));
+            }
+            if (loadTypeAverages) {
+                Map<String, StreamingStats> stats = stats(decoder, Category.LOAD_TYPE, loadTypeStats);
+                Map<String, double[]> averages = new HashMap<>();
+                stats.forEach((loadType, s) -> averages.put(loadType, new double[]{s.getMean()}));
+                result.setUsageStatsByLoadType(stats);
+                result.setAverageUsageByLoadType(averages);
+            }
+            if (weekStatusTotals) {
+                result.setTotalUsageByWeekStatus(totals(decoder, Category.WEEK_STATUS, weekStatusSums, weekStatusCounts));
+            }
+            if (dayUsageTotals) {
+                result.setTotalUsageByDayOfWeek(inDayOrder(totals(decoder, Category.DAY_OF_WEEK, dayUsageSums, dayCounts)));
+            }
+            if (dayCo2Totals) {
+                result.setTotalCO2ByDayOfWeek(inDayOrder(totals(decoder, Category.DAY_OF_WEEK, dayCo2Sums, dayCounts)));
+            }
+            if (dayUsageAverages) {
+                Map<String, StreamingStats> stats = inDayOrder(stats(decoder, Category.DAY_OF_WEEK, dayUsageStats));
+                result.setUsageStatsByDayOfWeek(stats);
+                result.setAverageUsageByDayOfWeek(means(stats));
+            }
+            if (dayCo2Averages) {
+                Map<String, StreamingStats> stats = inDayOrder(stats(decoder, Category.DAY_OF_WEEK, dayCo2Stats));
+                result.setCo2StatsByDayOfWeek(stats);
+                result.setAverageCO2ByDayOfWeek(means(stats));
+            }
+            if (loadTypePercentiles) {
+                Map<String, QuantileSketch> byLoadType = new HashMap<>();
+                for (int code = 0; code < loadTypeSketches.length; code++) {
+                    if (loadTypeSketches[code] != null) {
+                        byLoadType.put(decoder.decode(Category.LOAD_TYPE, code), loadTypeSketches[code]);
+                    }
+                }
+                result.setUsagePercentilesByLoadType(byLoadType);
+            }
+            if (hourPercentiles) {
+                Map<Integer, QuantileSketch> byHour = new HashMap<>();
+                for (int hour = 0; hour < hourSketches.length; hour++) {
+                    if (hourSketches[hour] != null) {
+                        byHour.put(hour, hourSketches[hour]);
+                    }
+                }
+                result.setUsagePercentilesByHour(byHour);
+            }
+            return result;
+        }
+
+        private static Map<String, Double> totals(CodeDecoder decoder, Category category, double[] sums, long[] counts) {
+            Map<String, Double> totals = new HashMap<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    totals.put(decoder.decode(category, code), sums[code]);
+                }
+            }
+            return totals;
+        }
+
+        private static Map<String, StreamingStats> stats(CodeDecoder decoder, Category category, StreamingStats[] stats) {
+            Map<String, StreamingStats> byValue = new HashMap<>();
+            for (int code = 0; code < stats.length; code++) {
+                if (stats[code].getCount() > 0) {
+                    byValue.put(decoder.decode(category, code), stats[code]);
+                }
+            }
+            return byValue;
+        }
+
+        private static StreamingStats[] newStats(int codes) {
+            StreamingStats[] stats = new StreamingStats[codes];
+            for (int code = 0; code < stats.length; code++) {
+                stats[code] = new StreamingStats();
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Medias de unas estadísticas, en el mismo orden
+     */
+    private static Map<String, Double> means(Map<String, StreamingStats> stats) {
+        Map<String, Double> means = new LinkedHashMap<>();
+        stats.forEach((key, s) -> means.put(key, s.getMean()));
+        return means;
+    }
+
+    /**
+     * Ordena los días de la semana de lunes a domingo (los valores desconocidos se descartan)
+     */
+    private static <V> Map<String, V> inDayOrder(Map<String, V> byDay) {
+        Map<String, V> ordered = new LinkedHashMap<>();
+        for (String day : DAYS_ORDER) {
+            if (byDay.containsKey(day)) {
+                ordered.put(day, byDay.get(day));
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.storage.QuantileSketch;
+import org.example.datasensefx.storage.StreamingStats;
+
+import java.util.Map;
+
+/**
+ * Resultados de una pasada de {@link AggregationEngine}.
+ * Los agregados que no se pidieron devuelven null.
+ */
+public class AggregationResult {
+
+    private double[] basicStatistics;
+    private Map<Integer, Double> totalUsageByHour;
+    private Map<String, double[]> averageUsageByLoadType;
+    private Map<String, Double> totalUsageByLoadType;
+    private Map<String, Double> totalUsageByWeekStatus;
+    private Map<String, Double> averageUsageByDayOfWeek;
+    private Map<String, Double> totalUsageByDayOfWeek;
+    private Map<String, Double> averageCO2ByDayOfWeek;
+    private Map<String, Double> totalCO2ByDayOfWeek;
+    // Dispersión de los promedios (se rellenan junto a ellos)
+    private Map<String, StreamingStats> usageStatsByLoadType;
+    private Map<String, StreamingStats> usageStatsByDayOfWeek;
+    private Map<String, StreamingStats> co2StatsByDayOfWeek;
+    private Map<String, QuantileSketch> usagePercentilesByLoadType;
+    private Map<Integer, QuantileSketch> usagePercentilesByHour;
+
+    /**
+     * @return Array: [total_mediciones, consumo_promedio, consumo_min, consumo_max, co2_total]
+     */
+    public double[] getBasicStatistics() {
+        return basicStatistics;
+    }
+
+    void setBasicStatistics(double[] basicStatistics) {
+        this.basicStatistics = basicStatistics;
+    }
+
+    public Map<Integer, Double> getTotalUsageByHour() {
+        return totalUsageByHour;
+    }
+
+    void setTotalUsageByHour(Map<Integer, Double> totalUsageByHour) {
+        this.totalUsageByHour = totalUsageByHour;
+    }
+
+    public Map<String, double[]> getAverageUsageByLoadType() {
+        return averageUsageByLoadType;
+    }
+
+    void setAverageUsageByLoadType(Map<String, double[]> averageUsageByLoadType) {
+        this.averageUsageByLoadType = averageUsageByLoadType;
+    }
+
+    public Map<String, Double> getTotalUsageByLoadType() {
+        return totalUsageByLoadType;
+    }
+
+    void setTotalUsageByLoadType(Map<String, Double> totalUsageByLoadType) {
+        this.totalUsageByLoadType = totalUsageByLoadType;
+    }
+
+    public Map<String, Double> getTotalUsageByWeekStatus() {
+        return totalUsageByWeekStatus;
+    }
+
+    void setTotalUsageByWeekStatus(Map<String, Double> totalUsageByWeekStatus) {
+        this.totalUsageByWeekStatus = totalUsageByWeekStatus;
+    }
+
+    public Map<String, Double> getAverageUsageByDayOfWeek() {
+        return averageUsageByDayOfWeek;
+    }
+
+    void setAverageUsageByDayOfWeek(Map<String, Double> averageUsageByDayOfWeek) {
+        this.averageUsageByDayOfWeek = averageUsageByDayOfWeek;
+    }
+
+    public Map<String, Double> getTotalUsageByDayOfWeek() {
+        return totalUsageByDayOfWeek;
+    }
+
+    void setTotalUsageByDayOfWeek(Map<String, Double> totalUsageByDayOfWeek) {
+        this.totalUsageByDayOfWeek = totalUsageByDayOfWeek;
+    }
+
+    public Map<String, Double> getAverageCO2ByDayOfWeek() {
+        return averageCO2ByDayOfWeek;
+    }
+
+    void setAverageCO2ByDayOfWeek(Map<String, Double> averageCO2ByDayOfWeek) {
+        this.averageCO2ByDayOfWeek = averageCO2ByDayOfWeek;
+    }
+
+    public Map<String, Double> getTotalCO2ByDayOfWeek() {
+        return totalCO2ByDayOfWeek;
+    }
+
+    void setTotalCO2ByDayOfWeek(Map<String, Double> totalCO2ByDayOfWeek) {
+        this.totalCO2ByDayOfWeek = totalCO2ByDayOfWeek;
+    }
+
+    /**
+     * Estadísticas de consumo por tipo de carga (con AVERAGE_USAGE_BY_LOAD_TYPE)
+     */
+    public Map<String, StreamingStats> getUsageStatsByLoadType() {
+        return usageStatsByLoadType;
+    }
+
+    void setUsageStatsByLoadType(Map<String, StreamingStats> usageStatsByLoadType) {
+        this.usageStatsByLoadType = usageStatsByLoadType;
+    }
+
+    /**
+     * Estadísticas de consumo por día de la semana (con AVERAGE_USAGE_BY_DAY_OF_WEEK)
+     */
+    public Map<String, StreamingStats> getUsageStatsByDayOfWeek() {
+        return usageStatsByDayOfWeek;
+    }
+
+    void setUsageStatsByDayOfWeek(Map<String, StreamingStats> usageStatsByDayOfWeek) {
+        this.usageStatsByDayOfWeek = usageStatsByDayOfWeek;
+    }
+
+    /**
+     * Estadísticas de CO2 por día de la semana (con AVERAGE_CO2_BY_DAY_OF_WEEK)
+     */
+    public Map<String, StreamingStats> getCo2StatsByDayOfWeek() {
+        return co2StatsByDayOfWeek;
+    }
+
+    void setCo2StatsByDayOfWeek(Map<String, StreamingStats> co2StatsByDayOfWeek) {
+        this.co2StatsByDayOfWeek = co2StatsByDayOfWeek;
+    }
+
+    public Map<String, QuantileSketch> getUsagePercentilesByLoadType() {
+        return usagePercentilesByLoadType;
+    }
+
+    void setUsagePercentilesByLoadType(Map<String, QuantileSketch> usagePercentilesByLoadType) {
+        this.usagePercentilesByLoadType = usagePercentilesByLoadType;
+    }
+
+    public Map<Integer, QuantileSketch> getUsagePercentilesByHour() {
+        return usagePercentilesByHour;
+    }
+
+    void setUsagePercentilesByHour(Map<Integer, QuantileSketch> usagePercentilesByHour) {
+        this.usagePercentilesByHour = usagePercentilesByHour;
+    }
+}
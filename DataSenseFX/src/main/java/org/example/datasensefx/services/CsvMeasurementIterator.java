@@ -0,0 +1,168 @@
+package org.example.datasensefx.services;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.example.datasensefx.model.Measurement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterador que lee las mediciones de un CSV bajo demanda, sin materializar el archivo.
+ *
+ * Con el formato industrial mapea un bloque cada vez y lo recorre con
+ * {@link IndustrialCsvTokenizer}; con otros formatos usa Commons CSV fila a fila.
+ * En memoria solo hay un bloque y la medición actual. Se cierra solo al agotarse;
+ * si se abandona antes hay que llamar a {@link #close()}.
+ */
+public class CsvMeasurementIterator implements Iterator<Measurement>, AutoCloseable {
+
+    private final DataLoader.CsvLayout layout;
+
+    // Formato industrial: bloques mapeados uno a uno
+    private FileChannel channel;
+    private List<long[]> chunks;
+    private int chunkIndex;
+    private IndustrialCsvTokenizer tokenizer;
+
+    // Resto de formatos: Commons CSV
+    private CSVParser csvParser;
+    private Iterator<CSVRecord> records;
+    private Iterator<CSVRecord> pending;
+
+    private Measurement next;
+    private long recordCount;
+    private boolean closed;
+
+    public CsvMeasurementIterator(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long dataStart = DataLoader.findLineEnd(channel, 0, size);
+            String[] header = DataLoader.parseHeader(DataLoader.decodeLine(channel, 0, dataStart));
+
+            if (IndustrialCsvTokenizer.matches(header)) {
+                layout = DataLoader.CsvLayout.of(header, DataLoader.sniffDateLayout(channel, dataStart, size));
+                chunks = DataLoader.splitIntoChunks(channel, dataStart, size, 1);
+                return;
+            }
+            channel.close();
+            channel = null;
+
+            BufferedReader reader = Files.newBufferedReader(path);
+            csvParser = CSVFormat.DEFAULT.builder().setHeader().setTrim(true).build().parse(reader);
+            String[] csvHeader = csvParser.getHeaderNames().toArray(new String[0]);
+
+            // Primeras filas en memoria para detectar el formato de fecha
+            records = csvParser.iterator();
+            List<CSVRecord> firstRecords = new ArrayList<>();
+            while (firstRecords.size() < DateLayout.SNIFF_ROWS && records.hasNext()) {
+                firstRecords.add(records.next());
+            }
+            pending = firstRecords.iterator();
+            layout = DataLoader.CsvLayout.of(csvHeader, DataLoader.sniffDateLayout(firstRecords, csvHeader));
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = advance();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            if (next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Measurement next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Measurement current = next;
+        next = null;
+        return current;
+    }
+
+    /**
+     * Número de filas de datos leídas hasta ahora (válidas o no), útil para informar del progreso
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        tokenizer = null;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (csvParser != null) {
+                csvParser.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error cerrando CSV: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee filas hasta encontrar la siguiente medición válida
+     * @return La medición, o null al final del archivo
+     */
+    private Measurement advance() throws IOException {
+        if (chunks != null) {
+            while (true) {
+                while (tokenizer == null || !tokenizer.next()) {
+                    if (chunkIndex >= chunks.size()) {
+                        return null;
+                    }
+                    long[] chunk = chunks.get(chunkIndex++);
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                    tokenizer = new IndustrialCsvTokenizer(mapped, layout.dateLayout);
+                }
+                recordCount++;
+                Measurement measurement = tokenizer.isValid()
+                        ? tokenizer.toMeasurement()
+                        : DataLoader.parseLine(tokenizer.rowText(), layout);
+                if (measurement != null) {
+                    return measurement;
+                }
+            }
+        }
+
+        while (pending.hasNext() || records.hasNext()) {
+            CSVRecord record = pending.hasNext() ? pending.next() : records.next();
+            recordCount++;
+            Measurement measurement = DataLoader.parseRecord(record, layout, false);
+            if (measurement != null) {
+                return measurement;
+            }
+        }
+        return null;
+    }
+}
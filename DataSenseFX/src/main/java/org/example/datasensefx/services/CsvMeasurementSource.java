@@ -0,0 +1,73 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Fuente de mediciones respaldada por un archivo CSV que no se carga en memoria.
+ *
+ * Cada llamada a {@link #iterator()} vuelve a leer el archivo desde el principio,
+ * así que se puede pasar a {@link MainController} o {@link ReportGenerator} como
+ * cualquier colección: cada cálculo hace una única pasada en streaming.
+ */
+public class CsvMeasurementSource implements Iterable<Measurement> {
+
+    private final Path path;
+
+    public CsvMeasurementSource(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Abre una nueva lectura del archivo
+     * @throws UncheckedIOException si el archivo no se puede abrir
+     */
+    @Override
+    public CsvMeasurementIterator iterator() {
+        try {
+            return new CsvMeasurementIterator(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stream secuencial de mediciones; hay que cerrarlo (try-with-resources)
+     * si no se consume entero
+     */
+    public Stream<Measurement> stream() {
+        CsvMeasurementIterator iterator = iterator();
+        Spliterator<Measurement> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Publisher con contrapresión que emite en el pool común
+     */
+    public Flow.Publisher<Measurement> publisher() {
+        return publisher(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Publisher con contrapresión: solo se lee del archivo lo que el suscriptor pide
+     * @param executor Ejecutor donde se lee el archivo y se llama a onNext
+     */
+    public Flow.Publisher<Measurement> publisher(Executor executor) {
+        return new MeasurementPublisher(this, executor);
+    }
+}
@@ -0,0 +1,269 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sigue un CSV al que se van añadiendo filas (como el export de los medidores) y publica
+ * las mediciones nuevas a sus suscriptores.
+ *
+ * Un hilo en segundo plano vigila el directorio con un {@link WatchService} y, en cada
+ * cambio (o cada segundo, por si el sistema de archivos no avisa), lee solo los bytes
+ * añadidos desde el último desplazamiento. Solo se procesan líneas completas: una fila a
+ * medio escribir espera a la siguiente lectura. Las mediciones se publican en el orden
+ * del archivo con un {@link SubmissionPublisher}, que frena la lectura si un suscriptor
+ * no da abasto.
+ *
+ * Si el archivo se trunca o se sustituye por uno más corto, se sigue desde su nuevo final.
+ *
+ * La lectura y la publicación usan cerrojos propios y {@link #close()} no toma ninguno: un
+ * suscriptor lento (o que espera a quien está cerrando el seguidor) no lo bloquea.
+ */
+public class CsvTailFollower implements Flow.Publisher<Measurement>, AutoCloseable {
+
+    private static final long POLL_MILLIS = 1000;
+    // Máximo de bytes leídos de una vez; si se añadió más, se lee en varias vueltas
+    private static final int MAX_READ_BYTES = 16 << 20;
+
+    private final Path path;
+    private final DataLoader.CsvLayout layout;
+    private final SubmissionPublisher<Measurement> publisher = new SubmissionPublisher<>();
+    private final AtomicLong published = new AtomicLong();
+
+    // Lectura del archivo y avance de offset
+    private final ReentrantLock reading = new ReentrantLock();
+    // Publicación: se toma antes de soltar reading para no desordenar las filas
+    private final ReentrantLock publishing = new ReentrantLock();
+
+    private volatile long offset;
+    private volatile boolean running;
+    private volatile boolean closed;
+    private volatile WatchService watcher;
+    private volatile Thread thread;
+
+    /**
+     * @param offset Posición desde la que leer (normalmente el tamaño del archivo ya cargado)
+     */
+    CsvTailFollower(Path path, long offset) throws IOException {
+        this.path = path.toAbsolutePath().normalize();
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = DataLoader.findLineEnd(channel, 0, size);
+            String[] header = DataLoader.parseHeader(DataLoader.decodeLine(channel, 0, dataStart));
+            this.layout = DataLoader.CsvLayout.of(header, DataLoader.sniffDateLayout(channel, dataStart, size));
+            this.offset = Math.max(offset, dataStart);
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Measurement> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Empieza a vigilar el archivo en un hilo en segundo plano
+     */
+    public synchronized void start() throws IOException {
+        if (running || closed) {
+            return;
+        }
+        Path directory = path.getParent();
+        watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        running = true;
+        thread = new Thread(this::follow, "csv-tail-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("👀 Siguiendo " + path + " desde el byte " + offset);
+    }
+
+    /**
+     * Deja de vigilar el archivo y completa a los suscriptores. No espera a que termine una
+     * publicación en curso: esta acaba cuando los suscriptores vacían su buffer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        running = false;
+        WatchService watcher = this.watcher;
+        Thread thread = this.thread;
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando la vigilancia de " + path + ": " + e.getMessage());
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+        closePublisherIfStopped();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Posición del archivo hasta la que ya se han publicado las filas
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Mediciones publicadas desde que se creó
+     */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void follow() {
+        try {
+            while (running) {
+                WatchKey key = watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // Basta con saber que algo cambió: el tamaño del archivo dice si creció
+                    key.pollEvents();
+                    key.reset();
+                }
+                readAppended();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // close()
+        } catch (IOException | RuntimeException e) {
+            System.err.println("✗ Error siguiendo " + path + ": " + e.getMessage());
+            running = false;
+            publisher.closeExceptionally(e);
+        }
+    }
+
+    /**
+     * Lee y publica las filas completas añadidas desde la última lectura. Lo llama el hilo
+     * de seguimiento; también se puede llamar para forzar una lectura sin esperar al aviso.
+     * @return Mediciones publicadas
+     */
+    public int readAppended() throws IOException {
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (true) {
+                List<Measurement> rows;
+                reading.lock();
+                try {
+                    rows = readChunk(channel);
+                    if (rows == null) {
+                        break;
+                    }
+                    publishing.lock();
+                } finally {
+                    reading.unlock();
+                }
+                try {
+                    count += publish(rows);
+                } finally {
+                    publishing.unlock();
+                }
+                closePublisherIfStopped();
+            }
+        }
+        published.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * Lee el siguiente bloque de líneas completas y avanza offset. Se llama con reading tomado.
+     * @return Filas leídas, o null si no hay ninguna línea completa nueva
+     */
+    private List<Measurement> readChunk(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < offset) {
+            System.out.println("⚠ " + path + " se ha truncado: se sigue desde su final");
+            offset = size;
+            return null;
+        }
+        if (offset == size) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - offset, MAX_READ_BYTES));
+        int read;
+        do {
+            read = channel.read(buffer, offset + buffer.position());
+        } while (read > 0 && buffer.hasRemaining());
+        int lineEnd = lastLineEnd(buffer);
+        if (lineEnd == 0) {
+            // Fila aún incompleta (o más larga que el buffer, lo que no es un CSV de medidores)
+            return null;
+        }
+        buffer.position(0).limit(lineEnd);
+        List<Measurement> rows = DataLoader.parseChunk(buffer, layout, false).measurements;
+        offset += lineEnd;
+        return rows;
+    }
+
+    /**
+     * Publica las filas en orden. submit espera si un suscriptor no da abasto; si el
+     * seguidor se cierra mientras tanto, las filas restantes se descartan.
+     */
+    private int publish(List<Measurement> rows) {
+        int count = 0;
+        for (Measurement m : rows) {
+            if (closed) {
+                break;
+            }
+            try {
+                publisher.submit(m);
+            } catch (IllegalStateException e) {
+                // close() entre la comprobación y el envío
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Completa a los suscriptores si el seguidor está cerrado y nadie está publicando.
+     * SubmissionPublisher.close() espera a que termine un submit bloqueado, así que si hay
+     * una publicación en curso la cierra quien publica, al acabar.
+     */
+    private void closePublisherIfStopped() {
+        if (closed && publishing.tryLock()) {
+            try {
+                publisher.close();
+            } finally {
+                publishing.unlock();
+            }
+        }
+    }
+
+    /**
+     * Posición siguiente al último '\n' del buffer, o 0 si no contiene ninguno
+     */
+    private static int lastLineEnd(ByteBuffer buffer) {
+        for (int i = buffer.position() - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -1,18 +1,34 @@
 //Limpieza de datos y carga desde CSV
 package org.example.datasensefx.services;
 
+import org.example.datasensefx.dao.MeasurementDAO;
 import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.storage.MeasurementSnapshot;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -23,6 +39,22 @@ import org.apache.commons.csv.CSVRecord;
  */
 public class DataLoader {
 
+    // Tamaño de los bloques para la carga paralela: suficientemente grandes para
+    // amortizar el mapeo, y acotados para que un bloque nunca supere los 2 GB de un buffer
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 64L << 20;
+
+    // Cada cuántas filas se informa del avance de la carga
+    private static final int PROGRESS_INTERVAL_ROWS = 2048;
+
+    // Formatos admitidos por parseDate, en orden de prueba
+    private static final DateTimeFormatter[] DATE_FORMATTERS = {
+        DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm"),
+        DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"),
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"),
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME
+    };
+
     public static void main(String[] args) {
         try {
             Path ruta = Path.of("src/main/resources/data/steel_industry_data.csv");
@@ -31,6 +63,9 @@ public class DataLoader {
             for (int i = 0; i < Math.min(5, datos.size()); i++) {
                 System.out.println(datos.get(i));
             }
+
+            LoadResult paralelo = loadFromCsvParallel(ruta);
+            System.out.println("Carga paralela: " + paralelo);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -39,41 +74,102 @@ public class DataLoader {
     /**
      * Carga datos desde un CSV usando Apache Commons CSV
      * Soporta tanto el formato simple (device, power, timestamp) como el formato industrial (11 columnas)
+     * Si existe un snapshot binario vigente del archivo se carga desde él sin parsear el texto
+     * (la lista es entonces una vista de solo lectura sobre el snapshot mapeado, ver
+     * {@link MeasurementSnapshot#of}); si no, se parsea el CSV y se guarda el snapshot para la
+     * siguiente vez.
      */
     public static List<Measurement> loadFromCsv(Path path) throws IOException {
-        List<Measurement> out = new ArrayList<>();
+        return loadFromCsv(path, LoadProgress.NONE);
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader().setTrim(true).build();
-            CSVParser csvParser = csvFormat.parse(reader);
+    /**
+     * Carga datos desde un CSV informando del avance
+     * @param progress Recibe las filas leídas; si el hilo se interrumpe la carga se aborta
+     * @throws InterruptedIOException Si el hilo de carga se interrumpe
+     */
+    public static List<Measurement> loadFromCsv(Path path, LoadProgress progress) throws IOException {
+        return loadFromCsvResult(path, progress).getMeasurements();
+    }
 
-            int recordCount = 0;
-            int successCount = 0;
+    /**
+     * Igual que {@link #loadFromCsv(Path, LoadProgress)}, pero informa además de los bytes del
+     * archivo que se leyeron ({@link LoadResult#getSourceBytes()}): si se le añaden filas
+     * mientras se parsea, quedan detrás y un seguimiento que empiece ahí las publica
+     */
+    public static LoadResult loadFromCsvResult(Path path, LoadProgress progress) throws IOException {
+        long start = System.nanoTime();
+        Path snapshot = MeasurementSnapshot.pathFor(path.toAbsolutePath().normalize().toString());
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long size;
+        long hash;
+        List<Measurement> out = null;
+        long recordCount = 0;
+
+        // Formato industrial conocido: tokenizador de bytes sobre el archivo mapeado
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            hash = MeasurementSnapshot.isEnabled() ? MeasurementSnapshot.checksum(channel) : 0;
+            List<Measurement> cached = readSnapshot(snapshot, size, modified, hash);
+            if (cached != null) {
+                progress.update(cached.size(), cached.size());
+                return new LoadResult(cached, cached.size(), System.nanoTime() - start, size);
+            }
 
-            for (CSVRecord record : csvParser) {
-                recordCount++;
-                try {
-                    Measurement measurement = parseRecord(record);
-                    if (measurement != null) {
-                        out.add(measurement);
-                        successCount++;
-                    } else {
-                        if (recordCount <= 5) {
-                            System.err.println("Registro " + recordCount + " no reconocido: formato desconocido");
-                        }
-                    }
-                } catch (Exception e) {
-                    if (recordCount <= 5) {
-                        System.err.println("Error en registro " + recordCount + ": " + e.getMessage());
-                    }
+            long dataStart = findLineEnd(channel, 0, size);
+            String[] header = parseHeader(decodeLine(channel, 0, dataStart));
+
+            if (IndustrialCsvTokenizer.matches(header)) {
+                CsvLayout layout = CsvLayout.of(header, sniffDateLayout(channel, dataStart, size));
+                out = new ArrayList<>();
+                ProgressTracker tracker = new ProgressTracker(progress, dataStart, size);
+                for (long[] chunk : splitIntoChunks(channel, dataStart, size, 1)) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                    ChunkResult result = parseChunk(mapped, layout, chunk[0] == dataStart, tracker);
+                    out.addAll(result.measurements);
+                    recordCount += result.recordCount;
+                    tracker.endChunk(chunk[1] - chunk[0]);
+                }
+                tracker.done();
+                System.out.println("Total de registros procesados: " + recordCount + ", exitosos: " + out.size());
+                System.out.println("Total de mediciones cargadas: " + out.size());
+            } else {
+                // Resto de formatos: Commons CSV, solo sobre los bytes que había al abrirlo
+                InputStream bytes = inputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(bytes, StandardCharsets.UTF_8.newDecoder()))) {
+                    out = parseWithCommons(reader, "", new ProgressTracker(progress, 0, -1));
                 }
+                recordCount = out.size();
             }
-
-            System.out.println("Total de registros procesados: " + recordCount + ", exitosos: " + successCount);
         }
 
-        System.out.println("Total de mediciones cargadas: " + out.size());
-        return out;
+        writeSnapshot(snapshot, size, modified, hash, out);
+        return new LoadResult(out, recordCount, System.nanoTime() - start, size);
+    }
+
+    /**
+     * Flujo de entrada sobre los bytes restantes de un buffer
+     */
+    private static InputStream inputStream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
+            }
+        };
     }
 
     /**
@@ -82,6 +178,15 @@ public class DataLoader {
      * @param resourcePath Ruta del recurso, ej: "/data/steel_industry_data.csv"
      */
     public static List<Measurement> loadFromClasspath(String resourcePath) throws IOException {
+        return loadFromClasspath(resourcePath, LoadProgress.NONE);
+    }
+
+    /**
+     * Carga datos desde un recurso del classpath informando del avance
+     * @param progress Recibe las filas leídas; si el hilo se interrumpe la carga se aborta
+     * @throws InterruptedIOException Si el hilo de carga se interrumpe
+     */
+    public static List<Measurement> loadFromClasspath(String resourcePath, LoadProgress progress) throws IOException {
         List<Measurement> out = new ArrayList<>();
 
         System.out.println("Intentando cargar recurso desde classpath: " + resourcePath);
@@ -93,63 +198,645 @@ public class DataLoader {
             throw new IOException("No se pudo encontrar el recurso en el classpath: " + resourcePath);
         }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader().setTrim(true).build();
-            CSVParser csvParser = csvFormat.parse(reader);
+        byte[] bytes;
+        try (InputStream in = inputStream) {
+            bytes = in.readAllBytes();
+        }
+
+        // Los recursos no tienen fecha fiable: el snapshot se valida por tamaño y hash
+        Path snapshot = MeasurementSnapshot.pathFor("classpath:" + resourcePath);
+        long hash = MeasurementSnapshot.isEnabled() ? MeasurementSnapshot.checksum(bytes) : 0;
+        List<Measurement> cached = readSnapshot(snapshot, bytes.length, 0, hash);
+        if (cached != null) {
+            progress.update(cached.size(), cached.size());
+            return cached;
+        }
+
+        // Formato industrial conocido: tokenizador de bytes
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int dataStart = 0;
+        while (dataStart < bytes.length && bytes[dataStart] != '\n') {
+            dataStart++;
+        }
+        dataStart = Math.min(bytes.length, dataStart + 1);
+        String[] header = parseHeader(decodeLine(buffer.slice(0, dataStart)));
+
+        if (IndustrialCsvTokenizer.matches(header)) {
+            CsvLayout layout = CsvLayout.of(header, sniffDateLayout(buffer.slice(dataStart, bytes.length - dataStart)));
+            ProgressTracker tracker = new ProgressTracker(progress, dataStart, bytes.length);
+            ChunkResult result = parseChunk(buffer.position(dataStart), layout, true, tracker);
+            tracker.done();
+            out.addAll(result.measurements);
+            System.out.println("Total de registros procesados desde classpath: " + result.recordCount + ", exitosos: " + out.size());
+            System.out.println("Total de mediciones cargadas desde classpath: " + out.size());
+        } else {
+            // Resto de formatos: Commons CSV
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes)))) {
+                out = parseWithCommons(reader, " desde classpath", new ProgressTracker(progress, 0, -1));
+            }
+        }
+
+        writeSnapshot(snapshot, bytes.length, 0, hash, out);
+        return out;
+    }
 
-            int recordCount = 0;
-            int successCount = 0;
+    /**
+     * Abre el snapshot si existe y corresponde exactamente al origen. Un snapshot dañado se
+     * borra (se vuelve a generar tras parsear el CSV).
+     * @return Vista de las mediciones sobre el snapshot mapeado (no se crean hasta leerlas),
+     *         o null si no hay snapshot vigente (o está desactivado)
+     */
+    private static List<Measurement> readSnapshot(Path snapshot, long size, long modified, long hash) {
+        if (!MeasurementSnapshot.isEnabled() || !Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            MeasurementSnapshot cached = MeasurementSnapshot.open(snapshot);
+            if (!cached.matches(size, modified, hash)) {
+                System.out.println("Snapshot desactualizado, se vuelve a parsear el CSV: " + snapshot);
+                return null;
+            }
+            System.out.printf("⚡ %d mediciones cargadas desde snapshot en %.1f ms%n",
+                    cached.size(), (System.nanoTime() - start) / 1_000_000.0);
+            return cached.asList();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo leer el snapshot " + snapshot + ", se descarta: " + e.getMessage());
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException deleteError) {
+                System.err.println("No se pudo borrar el snapshot " + snapshot + ": " + deleteError.getMessage());
+            }
+            return null;
+        }
+    }
 
+    /**
+     * Guarda el snapshot de las mediciones recién parseadas; un fallo no impide la carga
+     */
+    private static void writeSnapshot(Path snapshot, long size, long modified, long hash, List<Measurement> measurements) {
+        if (!MeasurementSnapshot.isEnabled() || measurements.isEmpty()) {
+            return;
+        }
+        try {
+            MeasurementSnapshot.write(snapshot, size, modified, hash, measurements);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el snapshot " + snapshot + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parsea un CSV completo con Commons CSV.
+     * El formato de fecha se detecta con las primeras filas y las columnas se resuelven
+     * una sola vez a partir de la cabecera.
+     * @param origen Sufijo para los mensajes de log (ej: " desde classpath")
+     */
+    private static List<Measurement> parseWithCommons(BufferedReader reader, String origen, ProgressTracker tracker) throws IOException {
+        List<Measurement> out = new ArrayList<>();
+
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder().setHeader().setTrim(true).build();
+        CSVParser csvParser = csvFormat.parse(reader);
+        String[] header = csvParser.getHeaderNames().toArray(new String[0]);
+
+        // Leer las primeras filas para detectar el formato de fecha
+        Iterator<CSVRecord> records = csvParser.iterator();
+        List<CSVRecord> firstRecords = new ArrayList<>();
+        while (firstRecords.size() < DateLayout.SNIFF_ROWS && records.hasNext()) {
+            firstRecords.add(records.next());
+        }
+        CsvLayout layout = CsvLayout.of(header, sniffDateLayout(firstRecords, header));
+
+        int recordCount = 0;
+        int successCount = 0;
+        Iterator<CSVRecord> pending = firstRecords.iterator();
+
+        while (pending.hasNext() || records.hasNext()) {
+            CSVRecord record = pending.hasNext() ? pending.next() : records.next();
+            recordCount++;
+            tracker.row(0);
+            try {
+                Measurement measurement = parseRecord(record, layout, true);
+                if (measurement != null) {
+                    out.add(measurement);
+                    successCount++;
+                } else {
+                    if (recordCount <= 5) {
+                        System.err.println("Registro " + recordCount + " no reconocido: formato desconocido");
+                    }
+                }
+            } catch (Exception e) {
+                if (recordCount <= 5) {
+                    System.err.println("Error en registro " + recordCount + ": " + e.getMessage());
+                }
+            }
+        }
+
+        tracker.done();
+        System.out.println("Total de registros procesados" + origen + ": " + recordCount + ", exitosos: " + successCount);
+        System.out.println("Total de mediciones cargadas" + origen + ": " + out.size());
+        return out;
+    }
+
+    /**
+     * Devuelve una fuente en streaming sobre el CSV: cada recorrido lee el archivo
+     * bajo demanda, sin construir la lista completa en memoria
+     */
+    public static CsvMeasurementSource sourceFromCsv(Path path) {
+        return new CsvMeasurementSource(path);
+    }
+
+    /**
+     * Stream de mediciones leídas bajo demanda. Debe cerrarse si no se consume entero.
+     */
+    public static Stream<Measurement> streamFromCsv(Path path) {
+        return sourceFromCsv(path).stream();
+    }
+
+    /**
+     * Importa un CSV a la tabla de mediciones leyéndolo en streaming: las filas pasan
+     * directamente a los INSERT por lotes, sin cargar el archivo entero en memoria
+     * @return Número de mediciones insertadas
+     */
+    public static int importToDatabase(Path path, MeasurementDAO dao) throws SQLException {
+        return dao.insertAll(sourceFromCsv(path));
+    }
+
+    /**
+     * Sigue un CSV que crece: publica las filas que se añadan a partir de su tamaño actual
+     * (las que ya tiene se cargan con {@link #loadFromCsv(Path)}). Hay que cerrarlo al terminar.
+     */
+    public static CsvTailFollower follow(Path path) throws IOException {
+        return follow(path, Files.size(path));
+    }
+
+    /**
+     * Sigue un CSV que crece publicando las filas a partir de una posición del archivo
+     * @param offset Byte desde el que leer (0 para publicar también las filas existentes)
+     */
+    public static CsvTailFollower follow(Path path, long offset) throws IOException {
+        CsvTailFollower follower = new CsvTailFollower(path, offset);
+        follower.start();
+        return follower;
+    }
+
+    /**
+     * Carga un CSV en paralelo: mapea el archivo en memoria, lo divide en bloques
+     * alineados a salto de línea y los parsea en un ForkJoinPool.
+     * Los bloques se unen en el orden del archivo, así que la lista resultante es
+     * la misma que devuelve {@link #loadFromCsv(Path)}.
+     * Requiere que ningún campo contenga saltos de línea entre comillas.
+     */
+    public static LoadResult loadFromCsvParallel(Path path) throws IOException {
+        return loadFromCsvParallel(path, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Carga un CSV en paralelo usando como máximo {@code parallelism} hilos
+     */
+    public static LoadResult loadFromCsvParallel(Path path, int parallelism) throws IOException {
+        long start = System.nanoTime();
+        int threads = Math.max(1, parallelism);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = findLineEnd(channel, 0, size);
+            String headerLine = decodeLine(channel, 0, dataStart);
+            if (headerLine.isEmpty()) {
+                return new LoadResult(new ArrayList<>(), 0, System.nanoTime() - start, size);
+            }
+            String[] header = parseHeader(headerLine);
+            CsvLayout layout = CsvLayout.of(header, sniffDateLayout(channel, dataStart, size));
+
+            List<long[]> chunks = splitIntoChunks(channel, dataStart, size, threads);
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<ChunkTask> tasks = new ArrayList<>();
+                for (int i = 0; i < chunks.size(); i++) {
+                    long[] chunk = chunks.get(i);
+                    tasks.add(new ChunkTask(channel, chunk[0], chunk[1], layout, i == 0));
+                }
+                for (ChunkTask task : tasks) {
+                    pool.execute(task);
+                }
+
+                // Unir resultados en el orden de los bloques (= orden del archivo)
+                List<Measurement> out = new ArrayList<>();
+                long recordCount = 0;
+                for (ChunkTask task : tasks) {
+                    ChunkResult result = task.join();
+                    out.addAll(result.measurements);
+                    recordCount += result.recordCount;
+                }
+
+                LoadResult loadResult = new LoadResult(out, recordCount, System.nanoTime() - start, size);
+                System.out.println("Carga paralela (" + chunks.size() + " bloques, " + threads + " hilos): " + loadResult);
+                return loadResult;
+            } catch (RuntimeException e) {
+                // join() puede envolver de nuevo la excepción del hilo trabajador
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                }
+                throw e;
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Divide [start, size) en bloques de tamaño similar cuyo final cae justo después de un '\n'
+     * @return Lista de pares {inicio, fin} (fin exclusivo)
+     */
+    static List<long[]> splitIntoChunks(FileChannel channel, long start, long size, int threads) throws IOException {
+        long target = (size - start) / (threads * 4L);
+        target = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, target));
+
+        List<long[]> chunks = new ArrayList<>();
+        long chunkStart = start;
+        while (chunkStart < size) {
+            long chunkEnd = Math.min(size, chunkStart + target);
+            if (chunkEnd < size) {
+                chunkEnd = findLineEnd(channel, chunkEnd, size);
+            }
+            chunks.add(new long[]{chunkStart, chunkEnd});
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * Devuelve la posición siguiente al primer '\n' a partir de {@code from}, o {@code size} si no hay más
+     */
+    static long findLineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long pos = from;
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    static String decodeLine(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        channel.read(buffer, start);
+        buffer.flip();
+        return decodeLine(buffer);
+    }
+
+    static String decodeLine(ByteBuffer buffer) {
+        String line = StandardCharsets.UTF_8.decode(buffer).toString();
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        return line.strip();
+    }
+
+    static String[] parseHeader(String headerLine) throws IOException {
+        try (CSVParser parser = CSVFormat.DEFAULT.builder().setTrim(true).build().parse(new StringReader(headerLine))) {
+            List<String> names = new ArrayList<>();
+            for (CSVRecord record : parser) {
+                for (String name : record) {
+                    names.add(name);
+                }
+                break;
+            }
+            return names.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Resultado parcial de un bloque
+     */
+    static class ChunkResult {
+        final List<Measurement> measurements;
+        final long recordCount;
+
+        ChunkResult(List<Measurement> measurements, long recordCount) {
+            this.measurements = measurements;
+            this.recordCount = recordCount;
+        }
+    }
+
+    /**
+     * Cuenta las filas leídas y avisa al {@link LoadProgress} cada PROGRESS_INTERVAL_ROWS filas,
+     * estimando el total por la proporción de bytes ya leídos. Es también el punto donde la
+     * carga comprueba si su hilo se ha interrumpido.
+     */
+    static final class ProgressTracker {
+        private final LoadProgress listener;
+        private final long totalBytes;
+        private long bytesBefore;
+        private long rows;
+
+        /**
+         * @param bytesBefore Bytes ya consumidos antes del primer bloque (cabecera)
+         * @param totalBytes  Tamaño total del origen, o -1 si se desconoce
+         */
+        ProgressTracker(LoadProgress listener, long bytesBefore, long totalBytes) {
+            this.listener = listener;
+            this.bytesBefore = bytesBefore;
+            this.totalBytes = totalBytes;
+        }
+
+        /**
+         * @param positionInChunk Bytes del bloque actual consumidos hasta esta fila
+         */
+        void row(long positionInChunk) throws InterruptedIOException {
+            if (++rows % PROGRESS_INTERVAL_ROWS != 0) {
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Carga cancelada");
+            }
+            long bytesRead = bytesBefore + positionInChunk;
+            long estimatedRows = totalBytes > 0 && bytesRead > 0
+                    ? Math.max(rows, (long) ((double) rows * totalBytes / bytesRead))
+                    : -1;
+            listener.update(rows, estimatedRows);
+        }
+
+        void endChunk(long chunkBytes) {
+            bytesBefore += chunkBytes;
+        }
+
+        void done() {
+            listener.update(rows, rows);
+        }
+    }
+
+    /**
+     * Tarea que mapea un bloque del archivo y lo parsea con la misma lógica que la carga secuencial
+     */
+    private static class ChunkTask extends RecursiveTask<ChunkResult> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final CsvLayout layout;
+        private final boolean firstChunk;
+
+        ChunkTask(FileChannel channel, long start, long end, CsvLayout layout, boolean firstChunk) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.layout = layout;
+            this.firstChunk = firstChunk;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            try {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                return parseChunk(mapped, layout, firstChunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Parsea un bloque de filas de datos (sin cabecera).
+     * Con la cabecera industrial usa {@link IndustrialCsvTokenizer} y deja en Commons CSV
+     * solo las filas que el tokenizador no resuelve; con cualquier otra cabecera, Commons CSV.
+     */
+    static ChunkResult parseChunk(ByteBuffer buffer, CsvLayout layout, boolean verbose) throws IOException {
+        return parseChunk(buffer, layout, verbose, null);
+    }
+
+    /**
+     * @param tracker Contador de avance de la carga, o null si no se informa
+     */
+    static ChunkResult parseChunk(ByteBuffer buffer, CsvLayout layout, boolean verbose, ProgressTracker tracker) throws IOException {
+        if (IndustrialCsvTokenizer.matches(layout.header)) {
+            return tokenizeChunk(buffer, layout, tracker);
+        }
+        return parseChunkWithCommons(buffer, layout, verbose);
+    }
+
+    /**
+     * Vía rápida para el formato industrial
+     */
+    static ChunkResult tokenizeChunk(ByteBuffer buffer, CsvLayout layout) throws IOException {
+        return tokenizeChunk(buffer, layout, null);
+    }
+
+    private static ChunkResult tokenizeChunk(ByteBuffer buffer, CsvLayout layout, ProgressTracker tracker) throws IOException {
+        List<Measurement> out = new ArrayList<>();
+        long recordCount = 0;
+        int chunkStart = buffer.position();
+
+        IndustrialCsvTokenizer tokenizer = new IndustrialCsvTokenizer(buffer, layout.dateLayout);
+        while (tokenizer.next()) {
+            recordCount++;
+            if (tracker != null) {
+                tracker.row(tokenizer.getPosition() - chunkStart);
+            }
+            Measurement measurement = tokenizer.isValid()
+                    ? tokenizer.toMeasurement()
+                    : parseLine(tokenizer.rowText(), layout);
+            if (measurement != null) {
+                out.add(measurement);
+            }
+        }
+        return new ChunkResult(out, recordCount);
+    }
+
+    /**
+     * Vía general con Commons CSV
+     */
+    static ChunkResult parseChunkWithCommons(ByteBuffer buffer, CsvLayout layout, boolean verbose) throws IOException {
+        List<Measurement> out = new ArrayList<>();
+        long recordCount = 0;
+
+        String text = StandardCharsets.UTF_8.decode(buffer).toString();
+        try (CSVParser csvParser = headerFormat(layout.header).parse(new StringReader(text))) {
             for (CSVRecord record : csvParser) {
                 recordCount++;
                 try {
-                    Measurement measurement = parseRecord(record);
+                    Measurement measurement = parseRecord(record, layout, verbose);
                     if (measurement != null) {
                         out.add(measurement);
-                        successCount++;
-                    } else {
-                        if (recordCount <= 5) {
-                            System.err.println("Registro " + recordCount + " no reconocido: formato desconocido");
-                        }
                     }
                 } catch (Exception e) {
-                    if (recordCount <= 5) {
-                        System.err.println("Error en registro " + recordCount + ": " + e.getMessage());
-                    }
+                    // Igual que en la carga secuencial: se descarta la fila
                 }
             }
+        }
+        return new ChunkResult(out, recordCount);
+    }
 
-            System.out.println("Total de registros procesados desde classpath: " + recordCount + ", exitosos: " + successCount);
+    /**
+     * Parsea una única fila con Commons CSV (respaldo del tokenizador)
+     */
+    static Measurement parseLine(String line, CsvLayout layout) throws IOException {
+        try (CSVParser csvParser = headerFormat(layout.header).parse(new StringReader(line))) {
+            for (CSVRecord record : csvParser) {
+                return parseRecord(record, layout, false);
+            }
         }
+        return null;
+    }
 
-        System.out.println("Total de mediciones cargadas desde classpath: " + out.size());
-        return out;
+    private static CSVFormat headerFormat(String[] header) {
+        return CSVFormat.DEFAULT.builder()
+                .setHeader(header)
+                .setSkipHeaderRecord(false)
+                .setTrim(true)
+                .build();
+    }
+
+    /**
+     * Detecta el formato de fecha con las primeras filas de un bloque de bytes (sin cabecera)
+     */
+    static DateLayout sniffDateLayout(ByteBuffer data) {
+        List<String> samples = new ArrayList<>();
+        int pos = data.position();
+        int limit = data.limit();
+        while (pos < limit && samples.size() < DateLayout.SNIFF_ROWS) {
+            int lineEnd = pos;
+            while (lineEnd < limit && data.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int fieldEnd = pos;
+            while (fieldEnd < lineEnd && data.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            // Una línea cortada al final de la ventana no se usa como muestra
+            if (lineEnd < limit) {
+                byte[] field = new byte[fieldEnd - pos];
+                data.get(pos, field);
+                String sample = new String(field, StandardCharsets.UTF_8).trim();
+                if (!sample.isEmpty()) {
+                    samples.add(sample);
+                }
+            }
+            pos = lineEnd + 1;
+        }
+        return DateLayout.sniff(samples);
+    }
+
+    static DateLayout sniffDateLayout(FileChannel channel, long dataStart, long size) throws IOException {
+        long window = Math.min(size - dataStart, 64L << 10);
+        return sniffDateLayout(channel.map(FileChannel.MapMode.READ_ONLY, dataStart, window));
+    }
+
+    static DateLayout sniffDateLayout(List<CSVRecord> records, String[] header) {
+        int dateIndex = indexOf(header, "date");
+        if (dateIndex < 0) {
+            return DateLayout.UNKNOWN;
+        }
+        List<String> samples = new ArrayList<>();
+        for (CSVRecord record : records) {
+            if (dateIndex < record.size()) {
+                samples.add(record.get(dateIndex).trim());
+            }
+        }
+        return DateLayout.sniff(samples);
+    }
+
+    private static int indexOf(String[] header, String name) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Columnas y formato de fecha de un CSV, resueltos una sola vez por archivo
+     * para que el bucle por fila acceda por índice y no consulte la cabecera.
+     */
+    static final class CsvLayout {
+        final String[] header;
+        final DateLayout dateLayout;
+
+        // Formato industrial (-1 si la columna no existe)
+        final int date;
+        final int usageKWh;
+        final int laggingReactive;
+        final int leadingReactive;
+        final int co2;
+        final int laggingPowerFactor;
+        final int leadingPowerFactor;
+        final int nsm;
+        final int weekStatus;
+        final int dayOfWeek;
+        final int loadType;
+
+        // Formato simple (-1 si la columna no existe)
+        final int device;
+        final int power;
+        final int timestamp;
+
+        private CsvLayout(String[] header, DateLayout dateLayout) {
+            this.header = header;
+            this.dateLayout = dateLayout;
+            this.date = indexOf(header, "date");
+            this.usageKWh = indexOf(header, "Usage_kWh");
+            this.laggingReactive = indexOf(header, "Lagging_Current_Reactive.Power_kVarh");
+            this.leadingReactive = indexOf(header, "Leading_Current_Reactive_Power_kVarh");
+            this.co2 = indexOf(header, "CO2(tCO2)");
+            this.laggingPowerFactor = indexOf(header, "Lagging_Current_Power_Factor");
+            this.leadingPowerFactor = indexOf(header, "Leading_Current_Power_Factor");
+            this.nsm = indexOf(header, "NSM");
+            this.weekStatus = indexOf(header, "WeekStatus");
+            this.dayOfWeek = indexOf(header, "Day_of_week");
+            this.loadType = indexOf(header, "Load_Type");
+            this.device = indexOf(header, "device");
+            this.power = indexOf(header, "power");
+            this.timestamp = indexOf(header, "timestamp");
+        }
+
+        static CsvLayout of(String[] header, DateLayout dateLayout) {
+            return new CsvLayout(header, dateLayout);
+        }
+
+        boolean isIndustrial() {
+            return usageKWh >= 0;
+        }
+
+        boolean isSimple() {
+            return device >= 0;
+        }
     }
 
     /**
      * Parsea un registro CSV y lo convierte en una Measurement
-     * Detecta automáticamente el formato
+     * El formato (industrial o simple) viene resuelto en el layout del archivo
+     * @param verbose Si es false no se imprime la depuración de los primeros registros
+     *                (los bloques de la carga paralela numeran sus registros desde 1)
      */
-    private static Measurement parseRecord(CSVRecord record) {
+    static Measurement parseRecord(CSVRecord record, CsvLayout layout, boolean verbose) {
         try {
-            // Obtener encabezados disponibles - revisar si existe la columna Usage_kWh
-            boolean hasUsageKWh = record.isMapped("Usage_kWh");
-            boolean hasDevice = record.isMapped("device");
-
             // Debug para primeros registros
-            if (record.getRecordNumber() <= 3) {
-                System.out.println("Record #" + record.getRecordNumber() + ": hasUsageKWh=" + hasUsageKWh + ", hasDevice=" + hasDevice);
-                System.out.println("  Valores: date=" + record.get("date") + ", Usage_kWh=" + record.get("Usage_kWh"));
+            if (verbose && record.getRecordNumber() <= 3) {
+                System.out.println("Record #" + record.getRecordNumber() + ": hasUsageKWh=" + layout.isIndustrial() + ", hasDevice=" + layout.isSimple());
+                if (layout.isIndustrial() && layout.date >= 0) {
+                    System.out.println("  Valores: date=" + record.get(layout.date) + ", Usage_kWh=" + record.get(layout.usageKWh));
+                }
             }
 
             // Formato 1: Industrial (11 columnas)
-            if (hasUsageKWh) {
-                return parseIndustrialFormat(record);
+            if (layout.isIndustrial()) {
+                return parseIndustrialFormat(record, layout, verbose);
             }
 
             // Formato 2: Simple (device, power, timestamp)
-            if (hasDevice) {
-                return parseSimpleFormat(record);
+            if (layout.isSimple()) {
+                return parseSimpleFormat(record, layout);
             }
 
             // Si no detecta el formato, retorna null
@@ -163,33 +850,37 @@ public class DataLoader {
     /**
      * Parsea el formato industrial de 11 columnas
      */
-    private static Measurement parseIndustrialFormat(CSVRecord record) throws Exception {
-        String dateStr = record.get("date").trim();
+    private static Measurement parseIndustrialFormat(CSVRecord record, CsvLayout layout, boolean verbose) throws Exception {
+        String dateStr = record.get(layout.date).trim();
 
-        LocalDateTime date = parseDate(dateStr);
+        // Parser específico del archivo; el genérico solo si la fila no encaja
+        LocalDateTime date = layout.dateLayout.parse(dateStr);
+        if (date == null) {
+            date = parseDate(dateStr);
+        }
         if (date == null) {
-            if (record.getRecordNumber() <= 3) {
+            if (verbose && record.getRecordNumber() <= 3) {
                 System.err.println("No se pudo parsear fecha: " + dateStr);
             }
             return null;
         }
 
         try {
-            double usageKWh = Double.parseDouble(record.get("Usage_kWh").trim());
-            double laggingReactive = Double.parseDouble(record.get("Lagging_Current_Reactive.Power_kVarh").trim());
-            double leadingReactive = Double.parseDouble(record.get("Leading_Current_Reactive_Power_kVarh").trim());
-            double co2 = Double.parseDouble(record.get("CO2(tCO2)").trim());
-            double laggingPF = Double.parseDouble(record.get("Lagging_Current_Power_Factor").trim());
-            double leadingPF = Double.parseDouble(record.get("Leading_Current_Power_Factor").trim());
-            int nsm = (int) Double.parseDouble(record.get("NSM").trim()); // Parsear como double primero, luego castear a int
-            String weekStatus = record.get("WeekStatus").trim();
-            String dayOfWeek = record.get("Day_of_week").trim();
-            String loadType = record.get("Load_Type").trim();
+            double usageKWh = Double.parseDouble(record.get(layout.usageKWh).trim());
+            double laggingReactive = Double.parseDouble(record.get(layout.laggingReactive).trim());
+            double leadingReactive = Double.parseDouble(record.get(layout.leadingReactive).trim());
+            double co2 = Double.parseDouble(record.get(layout.co2).trim());
+            double laggingPF = Double.parseDouble(record.get(layout.laggingPowerFactor).trim());
+            double leadingPF = Double.parseDouble(record.get(layout.leadingPowerFactor).trim());
+            int nsm = (int) Double.parseDouble(record.get(layout.nsm).trim()); // Parsear como double primero, luego castear a int
+            String weekStatus = record.get(layout.weekStatus).trim();
+            String dayOfWeek = record.get(layout.dayOfWeek).trim();
+            String loadType = record.get(layout.loadType).trim();
 
             return new Measurement(date, usageKWh, laggingReactive, leadingReactive, co2,
                     laggingPF, leadingPF, nsm, weekStatus, dayOfWeek, loadType);
         } catch (Exception e) {
-            if (record.getRecordNumber() <= 3) {
+            if (verbose && record.getRecordNumber() <= 3) {
                 System.err.println("Error parseando valores en registro " + record.getRecordNumber() + ": " + e.getMessage());
             }
             throw e;
@@ -199,10 +890,14 @@ public class DataLoader {
     /**
      * Parsea el formato simple (device, power, timestamp)
      */
-    private static Measurement parseSimpleFormat(CSVRecord record) throws Exception {
-        String device = record.get("device").trim();
-        double power = Double.parseDouble(record.get("power").trim());
-        LocalDateTime timestamp = LocalDateTime.parse(record.get("timestamp").trim());
+    private static Measurement parseSimpleFormat(CSVRecord record, CsvLayout layout) throws Exception {
+        String device = record.get(layout.device).trim();
+        double power = Double.parseDouble(record.get(layout.power).trim());
+        String timestampStr = record.get(layout.timestamp).trim();
+        LocalDateTime timestamp = DateLayout.ISO_LOCAL.parse(timestampStr);
+        if (timestamp == null) {
+            timestamp = LocalDateTime.parse(timestampStr);
+        }
 
         return new Measurement(timestamp, power, 0.0, 0.0, 0.0, 1.0, 1.0, 0,
                 "Unknown", "Unknown", device);
@@ -210,19 +905,12 @@ public class DataLoader {
 
     /**
      * Parsea fechas en múltiples formatos
+     * Solo se usa para filas que no encajan en el formato detectado del archivo
      */
-    private static LocalDateTime parseDate(String dateStr) {
+    static LocalDateTime parseDate(String dateStr) {
         dateStr = dateStr.trim();
 
-        // Intentar formatos comunes
-        DateTimeFormatter[] formatters = {
-            DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm"),
-            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"),
-            DateTimeFormatter.ISO_LOCAL_DATE_TIME
-        };
-
-        for (DateTimeFormatter formatter : formatters) {
+        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
             try {
                 return LocalDateTime.parse(dateStr, formatter);
             } catch (Exception e) {
@@ -233,4 +921,3 @@ public class DataLoader {
         return null;
     }
 }
-
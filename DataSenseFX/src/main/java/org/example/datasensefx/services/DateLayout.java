@@ -0,0 +1,222 @@
+package org.example.datasensefx.services;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.util.List;
+
+/**
+ * Formato de fecha de un CSV, detectado una sola vez a partir de las primeras filas.
+ *
+ * Cada formato tiene un parser específico que no lanza excepciones: devuelve null
+ * si el texto no encaja, y en ese caso el llamador puede recurrir a
+ * {@code DataLoader.parseDate} (que prueba todos los formatos) solo para esa fila.
+ */
+public enum DateLayout {
+    /** MM/dd/yyyy HH:mm */
+    MONTH_FIRST,
+    /** dd/MM/yyyy HH:mm */
+    DAY_FIRST,
+    /** xx/xx/yyyy HH:mm sin dato concluyente: primero MM/dd y después dd/MM, como parseDate */
+    SLASH_AMBIGUOUS,
+    /** yyyy-MM-dd HH:mm */
+    ISO_SPACE,
+    /** yyyy-MM-ddTHH:mm[:ss[.fracción]] (ISO_LOCAL_DATE_TIME) */
+    ISO_LOCAL,
+    /** Formato no reconocido o mezclado: siempre parseDate */
+    UNKNOWN;
+
+    /** Número máximo de filas que se examinan para detectar el formato */
+    public static final int SNIFF_ROWS = 200;
+
+    /**
+     * Detecta el formato a partir de una muestra de fechas (ya recortadas)
+     */
+    public static DateLayout sniff(List<String> samples) {
+        boolean slash = false;
+        boolean isoSpace = false;
+        boolean isoLocal = false;
+        boolean firstAboveTwelve = false;
+        boolean secondAboveTwelve = false;
+
+        for (String s : samples) {
+            if (isSlashShape(s)) {
+                slash = true;
+                int a = twoDigits(s, 0);
+                int b = twoDigits(s, 3);
+                if (a > 12) {
+                    firstAboveTwelve = true;
+                }
+                if (b > 12) {
+                    secondAboveTwelve = true;
+                }
+            } else if (isDashShape(s) && s.length() == 16 && s.charAt(10) == ' ') {
+                isoSpace = true;
+            } else if (isDashShape(s) && s.charAt(10) == 'T') {
+                isoLocal = true;
+            } else {
+                return UNKNOWN;
+            }
+        }
+
+        int kinds = (slash ? 1 : 0) + (isoSpace ? 1 : 0) + (isoLocal ? 1 : 0);
+        if (kinds != 1) {
+            return UNKNOWN;
+        }
+        if (isoSpace) {
+            return ISO_SPACE;
+        }
+        if (isoLocal) {
+            return ISO_LOCAL;
+        }
+        if (firstAboveTwelve && !secondAboveTwelve) {
+            return DAY_FIRST;
+        }
+        if (secondAboveTwelve && !firstAboveTwelve) {
+            return MONTH_FIRST;
+        }
+        return SLASH_AMBIGUOUS;
+    }
+
+    /**
+     * Parsea una fecha con este formato
+     * @return La fecha, o null si el texto no encaja (sin lanzar excepciones)
+     */
+    public LocalDateTime parse(String s) {
+        switch (this) {
+            case MONTH_FIRST:
+            case DAY_FIRST:
+            case SLASH_AMBIGUOUS: {
+                if (!isSlashShape(s) || s.charAt(10) != ' ' || s.charAt(13) != ':') {
+                    return null;
+                }
+                int year = fourDigits(s, 6);
+                int monthDay = monthDay(twoDigits(s, 0), twoDigits(s, 3), year);
+                return build(year, monthDay, twoDigits(s, 11), twoDigits(s, 14), 0, 0);
+            }
+            case ISO_SPACE: {
+                if (s.length() != 16 || !isDashShape(s) || s.charAt(10) != ' ' || s.charAt(13) != ':') {
+                    return null;
+                }
+                int year = fourDigits(s, 0);
+                int monthDay = monthDay(twoDigits(s, 5), twoDigits(s, 8), year);
+                return build(year, monthDay, twoDigits(s, 11), twoDigits(s, 14), 0, 0);
+            }
+            case ISO_LOCAL:
+                return parseIsoLocal(s);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Valida y ordena los dos primeros campos numéricos de la fecha según el formato.
+     * En los formatos basados en patrón el día se ajusta al último del mes (como
+     * ResolverStyle.SMART); en ISO_LOCAL un día inexistente es inválido (STRICT).
+     *
+     * @param first  Primer campo (mes o día en formatos con '/', mes en ISO)
+     * @param second Segundo campo (día o mes en formatos con '/', día en ISO)
+     * @return mes * 32 + día, o -1 si no es válido
+     */
+    public int monthDay(int first, int second, int year) {
+        if (year < 1) {
+            return -1;
+        }
+        switch (this) {
+            case MONTH_FIRST:
+            case ISO_SPACE:
+                return smart(first, second, year);
+            case DAY_FIRST:
+                return smart(second, first, year);
+            case SLASH_AMBIGUOUS: {
+                int monthFirst = smart(first, second, year);
+                return monthFirst >= 0 ? monthFirst : smart(second, first, year);
+            }
+            case ISO_LOCAL:
+                if (first < 1 || first > 12 || second < 1 || second > Month.of(first).length(Year.isLeap(year))) {
+                    return -1;
+                }
+                return first * 32 + second;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Indica si el formato usa '/' (xx/xx/yyyy HH:mm)
+     */
+    public boolean isSlash() {
+        return this == MONTH_FIRST || this == DAY_FIRST || this == SLASH_AMBIGUOUS;
+    }
+
+    private static int smart(int month, int day, int year) {
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return -1;
+        }
+        return month * 32 + Math.min(day, Month.of(month).length(Year.isLeap(year)));
+    }
+
+    private static LocalDateTime build(int year, int monthDay, int hour, int minute, int second, int nanos) {
+        if (monthDay < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(year, monthDay / 32, monthDay % 32, hour, minute, second, nanos);
+    }
+
+    private static LocalDateTime parseIsoLocal(String s) {
+        int length = s.length();
+        if (length < 16 || !isDashShape(s) || s.charAt(10) != 'T' || s.charAt(13) != ':') {
+            return null;
+        }
+        int second = 0;
+        int nanos = 0;
+        if (length > 16) {
+            if (length < 19 || s.charAt(16) != ':') {
+                return null;
+            }
+            second = twoDigits(s, 17);
+            if (length > 19) {
+                int digits = length - 20;
+                if (s.charAt(19) != '.' || digits < 1 || digits > 9) {
+                    return null;
+                }
+                for (int i = 20; i < length; i++) {
+                    int d = s.charAt(i) - '0';
+                    if (d < 0 || d > 9) {
+                        return null;
+                    }
+                    nanos = nanos * 10 + d;
+                }
+                for (int i = digits; i < 9; i++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        int year = fourDigits(s, 0);
+        int monthDay = ISO_LOCAL.monthDay(twoDigits(s, 5), twoDigits(s, 8), year);
+        return build(year, monthDay, twoDigits(s, 11), twoDigits(s, 14), second, nanos);
+    }
+
+    private static boolean isSlashShape(String s) {
+        return s.length() == 16 && s.charAt(2) == '/' && s.charAt(5) == '/';
+    }
+
+    private static boolean isDashShape(String s) {
+        return s.length() >= 16 && s.charAt(4) == '-' && s.charAt(7) == '-';
+    }
+
+    private static int twoDigits(String s, int p) {
+        int d1 = s.charAt(p) - '0';
+        int d2 = s.charAt(p + 1) - '0';
+        if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9) {
+            return -1;
+        }
+        return d1 * 10 + d2;
+    }
+
+    private static int fourDigits(String s, int p) {
+        int high = twoDigits(s, p);
+        int low = twoDigits(s, p + 2);
+        return high < 0 || low < 0 ? -1 : high * 100 + low;
+    }
+}
@@ -0,0 +1,529 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.dao.MeasurementDAO;
+import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.storage.MeasurementSnapshot;
+import org.example.datasensefx.storage.MeasurementStore;
+import org.example.datasensefx.storage.MeasurementTable;
+import org.example.datasensefx.storage.SegmentStore;
+import org.example.datasensefx.storage.StorageMode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Servicio de aplicación que mantiene el dataset energético cargado una sola vez.
+ *
+ * Los controladores de la interfaz se recrean en cada navegación; en lugar de volver a
+ * leer el CSV, todos piden los datos a esta instancia única, que entrega una vista
+ * inmutable compartida junto con un {@link MainController} y un {@link ReportGenerator}
+ * ya inicializados sobre ella. Los datos se guardan en un {@link MeasurementStore}
+ * columnar (en el heap, fuera del heap o mapeado según {@link StorageMode}); la lista
+ * que se entrega son vistas de fila sobre ese almacén. Si el CSV se carga de su snapshot binario
+ * ({@link MeasurementSnapshot}) y el modo es HEAP o MAPPED, el propio snapshot mapeado es el
+ * almacén: no se copian las filas (al empezar a seguir el CSV se pasan a una tabla en el heap,
+ * que admite añadirlas). La carga puede forzarse con {@link #reload()} o
+ * descartarse con {@link #invalidate()} para que la siguiente petición vuelva a leer.
+ *
+ * Con -Ddatasensefx.csv=archivo.csv los datos se cargan de ese archivo en lugar del recurso
+ * del classpath. Con {@link #follow()} (o -Ddatasensefx.follow=true) el servicio sigue ese
+ * CSV: cada fila que se le añade entra en el almacén, actualiza el cubo y los agregados por
+ * periodo sin recalcularlos, y se publica a quien se haya suscrito con {@link #subscribe}.
+ * El recurso del classpath no se sigue: es la copia empaquetada en el build, no el archivo
+ * en el que escribe el medidor.
+ *
+ * Con -Ddatasensefx.sqlite=archivo.db los datos se guardan en un histórico SQLite
+ * ({@link MeasurementDAO}): la primera carga importa el CSV y las siguientes leen de la
+ * base de datos sin volver a parsearlo.
+ *
+ * Con -Ddatasensefx.segments=directorio los datos se guardan además en un histórico de
+ * segmentos ({@link SegmentStore}): la primera carga lo llena, las siguientes leen de él,
+ * las filas que añade el seguimiento se escriben en su registro antes de publicarse y las
+ * consultas por rango de fechas del {@link MainController} leen solo los segmentos del rango.
+ */
+public class EnergyDataService {
+
+    /** Recurso del classpath con el dataset por defecto */
+    public static final String DEFAULT_RESOURCE = "/data/steel_industry_data.csv";
+
+    // Rutas alternativas en el sistema de archivos (modo desarrollo)
+    private static final String[] FALLBACK_PATHS = {
+        "src/main/resources/data/steel_industry_data.csv",
+        "DataSenseFX/src/main/resources/data/steel_industry_data.csv",
+        "src/main/resources/data/sample.csv"
+    };
+
+    /** Propiedad de sistema para seguir el CSV de origen al cargarlo (-Ddatasensefx.follow=true) */
+    public static final String FOLLOW_PROPERTY = "datasensefx.follow";
+
+    /** Propiedad de sistema con el CSV del que cargar los datos (-Ddatasensefx.csv=ruta) */
+    public static final String CSV_PROPERTY = "datasensefx.csv";
+
+    private static EnergyDataService instance;
+
+    private StorageMode storageMode = StorageMode.fromSystemProperty();
+    private MeasurementStore store;
+    private SegmentStore segments;
+    private List<Measurement> data;
+    private MainController mainController;
+    private ReportGenerator reportGenerator;
+    private String source;
+    private long version;
+
+    // Archivo del que se cargaron los datos (null si no es un archivo) y los bytes que se parsearon
+    private Path sourcePath;
+    private long sourceSize;
+    private CsvTailFollower follower;
+    // Mediciones añadidas por el seguimiento, ya incorporadas a los datos
+    private final SubmissionPublisher<Measurement> updates = new SubmissionPublisher<>();
+
+    private EnergyDataService() {}
+
+    public static synchronized EnergyDataService getInstance() {
+        if (instance == null) {
+            instance = new EnergyDataService();
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve el dataset compartido, cargándolo la primera vez
+     * @return Lista inmutable de mediciones
+     */
+    public synchronized List<Measurement> getData() throws IOException {
+        return getData(LoadProgress.NONE);
+    }
+
+    /**
+     * Devuelve el dataset compartido; si hay que cargarlo, informa del avance.
+     * Pensado para llamarse desde un hilo en segundo plano: si ese hilo se interrumpe
+     * la carga se aborta y el servicio queda sin datos.
+     */
+    public synchronized List<Measurement> getData(LoadProgress progress) throws IOException {
+        if (data == null) {
+            load(progress);
+        }
+        return data;
+    }
+
+    /**
+     * Almacén columnar con el dataset compartido (para recorridos sin crear objetos)
+     */
+    public synchronized MeasurementStore getStore() throws IOException {
+        getData();
+        return store;
+    }
+
+    public synchronized StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * Cambia dónde se guardan los datos; se aplica en la siguiente carga
+     */
+    public synchronized void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    /**
+     * Controlador de análisis sobre el dataset compartido
+     */
+    public synchronized MainController getMainController() throws IOException {
+        getData();
+        return mainController;
+    }
+
+    /**
+     * Generador de informes sobre el dataset compartido
+     */
+    public synchronized ReportGenerator getReportGenerator() throws IOException {
+        getData();
+        return reportGenerator;
+    }
+
+    /**
+     * Vuelve a leer el dataset aunque ya estuviera cargado
+     */
+    public List<Measurement> reload() throws IOException {
+        invalidate();
+        return getData();
+    }
+
+    /**
+     * Descarta los datos cargados; la siguiente petición los vuelve a leer
+     */
+    public void invalidate() {
+        CsvTailFollower stopped;
+        synchronized (this) {
+            stopped = detachFollower();
+            discard();
+        }
+        closeFollower(stopped);
+    }
+
+    /**
+     * Libera el almacén y el histórico y olvida los datos; se llama con el cerrojo tomado
+     */
+    private void discard() {
+        if (store instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("Error liberando el almacén de mediciones: " + e.getMessage());
+            }
+        }
+        if (segments != null) {
+            try {
+                segments.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando el histórico de segmentos: " + e.getMessage());
+            }
+        }
+        store = null;
+        segments = null;
+        data = null;
+        mainController = null;
+        reportGenerator = null;
+        source = null;
+        sourcePath = null;
+        version++;
+    }
+
+    /**
+     * Empieza a seguir el CSV de origen: las filas que se le añadan se incorporan a los datos
+     * y se publican a los suscriptores de {@link #subscribe}
+     * @throws IllegalStateException Si los datos no vienen de un archivo (el recurso del
+     *                               classpath no se sigue: ver -Ddatasensefx.csv) o no se
+     *                               guardan en el heap (los otros almacenes no admiten añadir filas)
+     */
+    public synchronized void follow() throws IOException {
+        getData();
+        startFollowing();
+    }
+
+    /**
+     * Deja de seguir el CSV de origen (los datos ya añadidos se mantienen)
+     */
+    public void stopFollowing() {
+        CsvTailFollower stopped;
+        synchronized (this) {
+            stopped = detachFollower();
+        }
+        closeFollower(stopped);
+    }
+
+    /**
+     * Suelta el seguidor actual: desde aquí append descarta lo que aún publique
+     */
+    private synchronized CsvTailFollower detachFollower() {
+        CsvTailFollower detached = follower;
+        follower = null;
+        return detached;
+    }
+
+    /**
+     * Cierra un seguidor ya soltado. Se llama sin el cerrojo del servicio: su hilo puede estar
+     * esperando a entrar en append para entregar una fila.
+     */
+    private static void closeFollower(CsvTailFollower stopped) {
+        if (stopped != null) {
+            stopped.close();
+            System.out.println("⏹ Seguimiento del CSV detenido");
+        }
+    }
+
+    public synchronized boolean isFollowing() {
+        return follower != null && follower.isRunning();
+    }
+
+    /**
+     * Suscribe a las mediciones que el seguimiento añade a los datos; se reciben cuando ya
+     * están en el almacén, el {@link MainController} y el {@link ReportGenerator}
+     */
+    public void subscribe(Flow.Subscriber<? super Measurement> subscriber) {
+        updates.subscribe(subscriber);
+    }
+
+    public synchronized boolean isLoaded() {
+        return data != null;
+    }
+
+    /**
+     * Origen de los datos cargados (recurso o ruta), o null si no hay datos
+     */
+    public synchronized String getSource() {
+        return source;
+    }
+
+    /**
+     * Versión del dataset: cambia cada vez que se recargan o invalidan los datos
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    private void load(LoadProgress progress) throws IOException {
+        System.out.println("🔄 Cargando dataset energético compartido...");
+
+        List<Measurement> loaded = null;
+        String loadedFrom = null;
+        Path loadedPath = null;
+        long loadedBytes = 0;
+        MeasurementDAO database = openDatabase();
+        if (database != null) {
+            loaded = readDatabase(database);
+            loadedFrom = database.getDescription();
+        }
+        SegmentStore segmentStore = openSegments();
+        if (loaded == null && segmentStore != null && !segmentStore.isEmpty()) {
+            loaded = readSegments(segmentStore);
+            loadedFrom = "segments:" + segmentStore.getDirectory();
+        }
+        // Solo se importa a un histórico vacío: si no se pudo leer, no se toca
+        boolean importCsv = loaded != null && loaded.isEmpty();
+        if (loaded == null || loaded.isEmpty()) {
+            Path csvPath = csvFromSystemProperty();
+            if (csvPath == null) {
+                try {
+                    loaded = DataLoader.loadFromClasspath(DEFAULT_RESOURCE, progress);
+                    loadedFrom = "classpath:" + DEFAULT_RESOURCE;
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    System.out.println("⚠ No se pudo cargar desde classpath, intentando con ruta del sistema de archivos...");
+                    csvPath = findFallbackPath();
+                    if (csvPath == null) {
+                        throw new IOException("No se encontró el archivo CSV en ninguna ubicación");
+                    }
+                }
+            }
+            if (csvPath != null) {
+                // El seguimiento empieza donde acabó el parseo, no en el tamaño actual del archivo
+                LoadResult result = DataLoader.loadFromCsvResult(csvPath, progress);
+                loaded = result.getMeasurements();
+                loadedFrom = csvPath.toString();
+                loadedPath = csvPath;
+                loadedBytes = result.getSourceBytes();
+            }
+            if (importCsv) {
+                writeDatabase(database, loaded);
+            }
+        }
+        if (segmentStore != null && segmentStore.isEmpty()) {
+            segmentStore = writeSegments(segmentStore, loaded);
+        }
+
+        store = createStore(loaded);
+        mainController = new MainController();
+        mainController.setData(store);
+        // Vista que lee con el cerrojo del controlador: el seguimiento puede añadir filas a la vez
+        data = mainController.asList();
+        mainController.setSegmentStore(segmentStore);
+        // Los informes comparten el controlador: mismo índice, cubo, caché e histórico de segmentos
+        reportGenerator = new ReportGenerator(mainController);
+        segments = segmentStore;
+        source = loadedFrom;
+        sourcePath = loadedPath;
+        sourceSize = loadedBytes;
+        version++;
+
+        System.out.println("✓ Dataset compartido listo: " + data.size() + " mediciones (" + source + ", "
+                + (store instanceof MeasurementSnapshot ? "snapshot mapeado" : storageMode) + ")");
+
+        if (Boolean.getBoolean(FOLLOW_PROPERTY)) {
+            try {
+                startFollowing();
+            } catch (IllegalStateException | IOException e) {
+                System.err.println("⚠ No se puede seguir el CSV: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Almacén del modo configurado; un snapshot mapeado se usa directamente si el modo es
+     * HEAP o MAPPED (los otros modos piden expresamente otra representación)
+     */
+    private MeasurementStore createStore(List<Measurement> loaded) throws IOException {
+        MeasurementSnapshot snapshot = MeasurementSnapshot.of(loaded);
+        if (snapshot != null && (storageMode == StorageMode.HEAP || storageMode == StorageMode.MAPPED)) {
+            return snapshot;
+        }
+        return storageMode.create(loaded);
+    }
+
+    private void startFollowing() throws IOException {
+        if (follower != null) {
+            return;
+        }
+        if (sourcePath == null) {
+            throw new IllegalStateException("Los datos no vienen de un archivo que se pueda seguir: " + source
+                    + " (indica el CSV con -D" + CSV_PROPERTY + "=ruta)");
+        }
+        if (store instanceof MeasurementSnapshot && storageMode == StorageMode.HEAP) {
+            // El snapshot es de solo lectura: las filas pasan a una tabla que admite añadir
+            store = MeasurementTable.from(store);
+            mainController.setData(store);
+            data = mainController.asList();
+            version++;
+        }
+        if (!(store instanceof MeasurementTable)) {
+            throw new IllegalStateException("Seguir el CSV requiere almacenamiento " + StorageMode.HEAP + " (actual: " + storageMode + ")");
+        }
+        // Desde el último byte parseado al cargarlo: no se pierden las filas añadidas entretanto
+        follower = DataLoader.follow(sourcePath, sourceSize);
+        follower.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Measurement m) {
+                if (append(m)) {
+                    updates.submit(m);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                System.err.println("✗ Error en el seguimiento del CSV: " + throwable.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    /**
+     * Incorpora una medición nueva a los datos cargados
+     * @return false si los datos se han descartado o recargado mientras tanto
+     */
+    private synchronized boolean append(Measurement m) {
+        if (!(store instanceof MeasurementTable) || follower == null) {
+            return false;
+        }
+        if (segments != null) {
+            try {
+                segments.append(m);
+            } catch (IOException e) {
+                System.err.println("⚠ No se pudo guardar la medición en el histórico de segmentos: " + e.getMessage());
+            }
+        }
+        // Tabla, cubo y agregados cambian juntos con el cerrojo de escritura del controlador,
+        // que comparte el generador de informes
+        mainController.append(m);
+        return true;
+    }
+
+    /**
+     * Histórico SQLite configurado, o null si no hay o no se puede abrir (se carga del CSV)
+     */
+    private static MeasurementDAO openDatabase() {
+        try {
+            return MeasurementDAO.fromSystemProperty();
+        } catch (SQLException e) {
+            System.err.println("⚠ No se pudo abrir la base de datos SQLite: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<Measurement> readDatabase(MeasurementDAO database) {
+        try {
+            List<Measurement> measurements = database.findAll();
+            System.out.println("Total de mediciones cargadas desde SQLite: " + measurements.size());
+            return measurements;
+        } catch (SQLException e) {
+            System.err.println("⚠ No se pudo leer la base de datos SQLite: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Importa el CSV recién cargado al histórico (si falla, se sigue con los datos en memoria)
+     */
+    private static void writeDatabase(MeasurementDAO database, List<Measurement> measurements) {
+        try {
+            database.insertAll(measurements);
+        } catch (SQLException e) {
+            System.err.println("⚠ No se pudo guardar en la base de datos SQLite: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Histórico de segmentos configurado, o null si no hay o no se puede abrir
+     */
+    private static SegmentStore openSegments() {
+        try {
+            return SegmentStore.fromSystemProperty();
+        } catch (IOException e) {
+            System.err.println("⚠ No se pudo abrir el histórico de segmentos: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<Measurement> readSegments(SegmentStore segmentStore) {
+        try {
+            List<Measurement> measurements = segmentStore.readAll();
+            System.out.println("Total de mediciones cargadas desde " + segmentStore.getSegments().size()
+                    + " segmentos: " + measurements.size());
+            return measurements;
+        } catch (IOException e) {
+            System.err.println("⚠ No se pudo leer el histórico de segmentos: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Llena el histórico vacío con los datos recién cargados, en orden temporal para que
+     * cada segmento cubra un tramo de fechas distinto
+     * @return El histórico, o null si falla (se sigue con los datos en memoria)
+     */
+    private static SegmentStore writeSegments(SegmentStore segmentStore, List<Measurement> measurements) {
+        try {
+            List<Measurement> chronological = new ArrayList<>(measurements);
+            chronological.sort(Comparator.comparing(Measurement::getDate));
+            segmentStore.appendAll(chronological);
+            segmentStore.flush();
+            System.out.println("✓ Guardadas " + measurements.size() + " mediciones en " + segmentStore.getSegments().size()
+                    + " segmentos en " + segmentStore.getDirectory());
+            return segmentStore;
+        } catch (IOException e) {
+            System.err.println("⚠ No se pudo guardar en el histórico de segmentos: " + e.getMessage());
+            try {
+                segmentStore.close();
+            } catch (IOException | IllegalStateException closeError) {
+                System.err.println("Error cerrando el histórico de segmentos: " + closeError.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Archivo de un recurso del classpath, o null si está dentro de un JAR
+     */
+    /**
+     * CSV indicado con -Ddatasensefx.csv, o null si no se indica
+     */
+    private static Path csvFromSystemProperty() {
+        String value = System.getProperty(CSV_PROPERTY);
+        return value == null || value.isBlank() ? null : Path.of(value.trim());
+    }
+
+    private static Path findFallbackPath() {
+        for (String candidate : FALLBACK_PATHS) {
+            Path path = Path.of(candidate);
+            if (path.toFile().exists()) {
+                return path;
+            }
+        }
+        return null;
+    }
+}
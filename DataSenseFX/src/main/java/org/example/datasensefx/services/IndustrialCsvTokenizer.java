@@ -0,0 +1,496 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.storage.Category;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Tokenizador a nivel de bytes para el formato industrial de 11 columnas
+ * (date, Usage_kWh, ..., Load_Type).
+ *
+ * Lee cada fila directamente a campos primitivos: posiciones de columna fijas,
+ * decimales parseados en línea y categorías resueltas contra constantes, sin
+ * crear Strings intermedios. Las filas que no encajan en el caso rápido
+ * (comillas, exponentes, fechas en otro formato...) se marcan como no válidas
+ * para que el llamador las procese con Commons CSV.
+ */
+public class IndustrialCsvTokenizer {
+
+    public static final String[] COLUMNS = {
+        "date", "Usage_kWh", "Lagging_Current_Reactive.Power_kVarh", "Leading_Current_Reactive_Power_kVarh",
+        "CO2(tCO2)", "Lagging_Current_Power_Factor", "Leading_Current_Power_Factor", "NSM",
+        "WeekStatus", "Day_of_week", "Load_Type"
+    };
+
+    // Valores conocidos de cada columna categórica, en el orden de sus códigos globales
+    private static final String[] WEEK_STATUSES = Category.WEEK_STATUS.getKnownValues();
+    private static final String[] DAYS = Category.DAY_OF_WEEK.getKnownValues();
+    private static final String[] LOAD_TYPES = Category.LOAD_TYPE.getKnownValues();
+
+    private static final byte[][] WEEK_STATUS_BYTES = toBytes(WEEK_STATUSES);
+    private static final byte[][] DAY_BYTES = toBytes(DAYS);
+    private static final byte[][] LOAD_TYPE_BYTES = toBytes(LOAD_TYPES);
+
+    // Potencias de 10 exactamente representables como double (10^0 .. 10^22)
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final DateLayout dateLayout;
+    private final int limit;
+    private int pos;
+
+    // Límites de la fila actual (sin el salto de línea)
+    private int rowStart;
+    private int rowEnd;
+    private boolean valid;
+
+    // Campos de la fila actual
+    private int year;
+    private int month;
+    private int day;
+    private int hour;
+    private int minute;
+    private int second;
+    private double usageKWh;
+    private double laggingReactive;
+    private double leadingReactive;
+    private double co2;
+    private double laggingPowerFactor;
+    private double leadingPowerFactor;
+    private int nsm;
+    private String weekStatus;
+    private String dayOfWeek;
+    private String loadType;
+
+    // Estado auxiliar del parseo de campos
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean numberOk;
+
+    /**
+     * @param buffer Bytes a tokenizar, desde {@code position()} hasta {@code limit()},
+     *               empezando en una fila de datos (sin cabecera)
+     */
+    public IndustrialCsvTokenizer(ByteBuffer buffer) {
+        this(buffer, DateLayout.SLASH_AMBIGUOUS);
+    }
+
+    /**
+     * @param dateLayout Formato de fecha detectado para el archivo
+     */
+    public IndustrialCsvTokenizer(ByteBuffer buffer, DateLayout dateLayout) {
+        this.buffer = buffer;
+        this.dateLayout = dateLayout;
+        this.pos = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Indica si la cabecera corresponde exactamente al formato industrial
+     */
+    public static boolean matches(String[] header) {
+        if (header == null || header.length != COLUMNS.length) {
+            return false;
+        }
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (!COLUMNS[i].equals(header[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Avanza a la siguiente fila no vacía
+     * @return false si no quedan filas
+     */
+    public boolean next() {
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b != '\n' && b != '\r') {
+                break;
+            }
+            pos++;
+        }
+        if (pos >= limit) {
+            return false;
+        }
+
+        rowStart = pos;
+        int eol = pos;
+        while (eol < limit && buffer.get(eol) != '\n') {
+            eol++;
+        }
+        rowEnd = eol;
+        if (rowEnd > rowStart && buffer.get(rowEnd - 1) == '\r') {
+            rowEnd--;
+        }
+        pos = Math.min(limit, eol + 1);
+
+        valid = parseRow();
+        return true;
+    }
+
+    /**
+     * Posición en el buffer justo después de la fila actual (bytes consumidos)
+     */
+    public int getPosition() {
+        return pos;
+    }
+
+    /**
+     * Indica si la fila actual se ha podido leer por la vía rápida.
+     * Si es false, el llamador debe procesar {@link #rowText()} con el parser general.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Texto de la fila actual, solo para el camino de respaldo
+     */
+    public String rowText() {
+        byte[] bytes = new byte[rowEnd - rowStart];
+        buffer.get(rowStart, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Construye la Measurement de la fila actual (solo si {@link #isValid()})
+     */
+    public Measurement toMeasurement() {
+        return new Measurement(LocalDateTime.of(year, month, day, hour, minute, second), usageKWh, laggingReactive,
+                leadingReactive, co2, laggingPowerFactor, leadingPowerFactor, nsm, weekStatus, dayOfWeek, loadType);
+    }
+
+    // Getters de la fila actual
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public int getHour() {
+        return hour;
+    }
+
+    public int getMinute() {
+        return minute;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public double getUsageKWh() {
+        return usageKWh;
+    }
+
+    public double getLaggingReactive() {
+        return laggingReactive;
+    }
+
+    public double getLeadingReactive() {
+        return leadingReactive;
+    }
+
+    public double getCo2() {
+        return co2;
+    }
+
+    public double getLaggingPowerFactor() {
+        return laggingPowerFactor;
+    }
+
+    public double getLeadingPowerFactor() {
+        return leadingPowerFactor;
+    }
+
+    public int getNsm() {
+        return nsm;
+    }
+
+    public String getWeekStatus() {
+        return weekStatus;
+    }
+
+    public String getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public String getLoadType() {
+        return loadType;
+    }
+
+    private boolean parseRow() {
+        int p = rowStart;
+
+        // 0: date
+        p = nextField(p);
+        if (p < 0 || !parseDate(fieldStart, fieldEnd)) {
+            return false;
+        }
+
+        // 1-6: valores numéricos
+        p = nextField(p);
+        if (p < 0) return false;
+        usageKWh = parseDecimal(fieldStart, fieldEnd);
+        if (!numberOk) return false;
+
+        p = nextField(p);
+        if (p < 0) return false;
+        laggingReactive = parseDecimal(fieldStart, fieldEnd);
+        if (!numberOk) return false;
+
+        p = nextField(p);
+        if (p < 0) return false;
+        leadingReactive = parseDecimal(fieldStart, fieldEnd);
+        if (!numberOk) return false;
+
+        p = nextField(p);
+        if (p < 0) return false;
+        co2 = parseDecimal(fieldStart, fieldEnd);
+        if (!numberOk) return false;
+
+        p = nextField(p);
+        if (p < 0) return false;
+        laggingPowerFactor = parseDecimal(fieldStart, fieldEnd);
+        if (!numberOk) return false;
+
+        p = nextField(p);
+        if (p < 0) return false;
+        leadingPowerFactor = parseDecimal(fieldStart, fieldEnd);
+        if (!numberOk) return false;
+
+        // 7: NSM (viene como "900.0", igual que antes se parsea como double y se trunca)
+        p = nextField(p);
+        if (p < 0) return false;
+        nsm = (int) parseDecimal(fieldStart, fieldEnd);
+        if (!numberOk) return false;
+
+        // 8-10: categorías
+        p = nextField(p);
+        if (p < 0) return false;
+        weekStatus = category(WEEK_STATUSES, WEEK_STATUS_BYTES);
+
+        p = nextField(p);
+        if (p < 0) return false;
+        dayOfWeek = category(DAYS, DAY_BYTES);
+
+        p = nextField(p);
+        if (p < 0) return false;
+        loadType = category(LOAD_TYPES, LOAD_TYPE_BYTES);
+
+        return true;
+    }
+
+    /**
+     * Localiza el campo que empieza en {@code p}, dejando sus límites (recortados) en fieldStart/fieldEnd
+     * @return Posición del siguiente campo, o -1 si no hay campo o lleva comillas
+     */
+    private int nextField(int p) {
+        if (p > rowEnd) {
+            return -1;
+        }
+        int end = p;
+        while (end < rowEnd) {
+            byte b = buffer.get(end);
+            if (b == ',') {
+                break;
+            }
+            if (b == '"') {
+                return -1;
+            }
+            end++;
+        }
+
+        int s = p;
+        int e = end;
+        while (s < e && (buffer.get(s) & 0xFF) <= ' ') {
+            s++;
+        }
+        while (e > s && (buffer.get(e - 1) & 0xFF) <= ' ') {
+            e--;
+        }
+        fieldStart = s;
+        fieldEnd = e;
+        return end + 1;
+    }
+
+    /**
+     * Parsea la fecha con el formato detectado del archivo ({@link DateLayout}):
+     * "xx/xx/yyyy HH:mm", "yyyy-MM-dd HH:mm" o "yyyy-MM-ddTHH:mm[:ss]".
+     * Cualquier otra forma se deja al parser general.
+     */
+    private boolean parseDate(int s, int e) {
+        int length = e - s;
+        int y;
+        int first;
+        int second;
+        int timeStart;
+        int sec = 0;
+
+        if (dateLayout.isSlash()) {
+            if (length != 16 || buffer.get(s + 2) != '/' || buffer.get(s + 5) != '/' || buffer.get(s + 10) != ' ') {
+                return false;
+            }
+            first = twoDigits(s);
+            second = twoDigits(s + 3);
+            y = fourDigits(s + 6);
+            timeStart = s + 11;
+        } else if (dateLayout == DateLayout.ISO_SPACE || dateLayout == DateLayout.ISO_LOCAL) {
+            byte separator = dateLayout == DateLayout.ISO_SPACE ? (byte) ' ' : (byte) 'T';
+            if (length < 16 || buffer.get(s + 4) != '-' || buffer.get(s + 7) != '-' || buffer.get(s + 10) != separator) {
+                return false;
+            }
+            if (length != 16) {
+                // Segundos solo en ISO; las fracciones van por el parser general
+                if (dateLayout != DateLayout.ISO_LOCAL || length != 19 || buffer.get(s + 16) != ':') {
+                    return false;
+                }
+                sec = twoDigits(s + 17);
+                if (sec < 0 || sec > 59) {
+                    return false;
+                }
+            }
+            y = fourDigits(s);
+            first = twoDigits(s + 5);
+            second = twoDigits(s + 8);
+            timeStart = s + 11;
+        } else {
+            return false;
+        }
+
+        if (buffer.get(timeStart + 2) != ':') {
+            return false;
+        }
+        int h = twoDigits(timeStart);
+        int mi = twoDigits(timeStart + 3);
+        if (h < 0 || h > 23 || mi < 0 || mi > 59) {
+            return false;
+        }
+        int monthDay = dateLayout.monthDay(first, second, y);
+        if (monthDay < 0) {
+            return false;
+        }
+
+        year = y;
+        month = monthDay / 32;
+        day = monthDay % 32;
+        hour = h;
+        minute = mi;
+        this.second = sec;
+        return true;
+    }
+
+    private int fourDigits(int p) {
+        int high = twoDigits(p);
+        int low = twoDigits(p + 2);
+        return high < 0 || low < 0 ? -1 : high * 100 + low;
+    }
+
+    private int twoDigits(int p) {
+        int d1 = buffer.get(p) - '0';
+        int d2 = buffer.get(p + 1) - '0';
+        if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9) {
+            return -1;
+        }
+        return d1 * 10 + d2;
+    }
+
+    /**
+     * Parsea un decimal simple ([-]dígitos[.dígitos]) sin crear objetos.
+     * Mantisa y potencia de 10 son exactas, así que la división da el mismo
+     * double que Double.parseDouble. Cualquier otra forma deja numberOk=false.
+     */
+    private double parseDecimal(int s, int e) {
+        numberOk = false;
+        int p = s;
+        boolean negative = false;
+        if (p < e) {
+            byte first = buffer.get(p);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                p++;
+            }
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; p < e; p++) {
+            byte b = buffer.get(p);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa > (1L << 53)) {
+                    return 0;
+                }
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return 0;
+            }
+        }
+        if (digits == 0 || fractionDigits >= POW10.length) {
+            return 0;
+        }
+
+        double value = fractionDigits > 0 ? mantissa / POW10[fractionDigits] : mantissa;
+        numberOk = true;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Devuelve la constante que coincide con el campo actual; un valor desconocido se crea
+     * una vez y se comparte a través del diccionario global al construir la medición
+     */
+    private String category(String[] values, byte[][] encoded) {
+        int length = fieldEnd - fieldStart;
+        for (int i = 0; i < encoded.length; i++) {
+            byte[] candidate = encoded[i];
+            if (candidate.length != length) {
+                continue;
+            }
+            boolean same = true;
+            for (int j = 0; j < length; j++) {
+                if (buffer.get(fieldStart + j) != candidate[j]) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return values[i];
+            }
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(fieldStart, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] toBytes(String[] values) {
+        byte[][] out = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            out[i] = values[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return out;
+    }
+}
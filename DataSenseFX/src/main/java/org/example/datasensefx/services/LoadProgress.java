@@ -0,0 +1,20 @@
+package org.example.datasensefx.services;
+
+/**
+ * Receptor del avance de una carga de CSV.
+ *
+ * El cargador lo invoca cada cierto número de filas desde el hilo que lee el archivo;
+ * si ese hilo se interrumpe, la carga se aborta con {@link java.io.InterruptedIOException}.
+ */
+@FunctionalInterface
+public interface LoadProgress {
+
+    /** Receptor que ignora el avance */
+    LoadProgress NONE = (rowsRead, estimatedRows) -> { };
+
+    /**
+     * @param rowsRead      Filas de datos leídas hasta ahora
+     * @param estimatedRows Total de filas estimado a partir de los bytes ya leídos, o -1 si se desconoce
+     */
+    void update(long rowsRead, long estimatedRows);
+}
@@ -0,0 +1,66 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.util.List;
+
+/**
+ * Resultado de una carga de CSV: las mediciones leídas más las cifras
+ * de rendimiento de la ingesta (filas procesadas, tiempo y filas/segundo)
+ */
+public class LoadResult {
+
+    private final List<Measurement> measurements;
+    private final long recordCount;
+    private final long elapsedNanos;
+    private final long sourceBytes;
+
+    public LoadResult(List<Measurement> measurements, long recordCount, long elapsedNanos, long sourceBytes) {
+        this.measurements = measurements;
+        this.recordCount = recordCount;
+        this.elapsedNanos = elapsedNanos;
+        this.sourceBytes = sourceBytes;
+    }
+
+    public List<Measurement> getMeasurements() {
+        return measurements;
+    }
+
+    /**
+     * Número de filas de datos leídas del archivo (válidas o no)
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Bytes del archivo que se leyeron (su tamaño al abrirlo); lo añadido después empieza aquí
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    /**
+     * Filas procesadas por segundo durante la carga
+     */
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return recordCount * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoadResult{mediciones=%d, filas=%d, tiempo=%.1f ms, filas/s=%,.0f}",
+                measurements.size(), recordCount, getElapsedMillis(), getRowsPerSecond());
+    }
+}
@@ -1,54 +1,396 @@
 package org.example.datasensefx.services;
 
 import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.storage.EnergyCube;
+import org.example.datasensefx.storage.Granularity;
+import org.example.datasensefx.storage.MeasurementStore;
+import org.example.datasensefx.storage.MeasurementTable;
+import org.example.datasensefx.storage.Metric;
+import org.example.datasensefx.storage.QuantileSketch;
+import org.example.datasensefx.storage.Rollup;
+import org.example.datasensefx.storage.RollupStore;
+import org.example.datasensefx.storage.SegmentStore;
+import org.example.datasensefx.storage.StreamingStats;
+import org.example.datasensefx.storage.TimeIndex;
+import org.example.datasensefx.storage.ZoneFilter;
+import org.example.datasensefx.storage.ZoneMap;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.TreeMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * Controlador principal que procesa y analiza los datos de consumo energético.
  * Proporciona métodos para calcular estadísticas por tipo de carga, día, hora, etc.
+ *
+ * Los datos pueden ser una lista en memoria o una fuente en streaming
+ * ({@link CsvMeasurementSource}). Los cálculos los hace {@link AggregationEngine}:
+ * cada método es una pasada, y {@link #aggregate(Set)} calcula varios agregados en una
+ * sola. Con un almacén columnar ({@link MeasurementStore}) los agregados se leen de un
+ * {@link EnergyCube} y las consultas por fecha usan un {@link TimeIndex} para leer solo
+ * las filas del día. Las búsquedas con condiciones ({@link #findDaysWithUsageAbove},
+ * {@link #findIntervals}) usan un {@link ZoneMap} diario para saltarse los días cuyas
+ * estadísticas no pueden cumplirlas. Si los datos tienen además un histórico en disco ({@link SegmentStore}),
+ * las consultas por rango de fechas ({@link #range}) leen solo sus segmentos que se solapan
+ * con el rango.
+ *
+ * Los percentiles (P50, P95, P99) son aproximados: salen de un {@link QuantileSketch} por
+ * grupo, construido en la misma pasada, en lugar de ordenar todos los valores.
+ *
+ * Los resultados de las consultas se guardan en una {@link QueryCache} asociada a la
+ * versión de los datos, que cambia con {@link #setData}, {@link #notifyDataChanged()} o
+ * {@link #measurementAdded}: repetir una consulta no vuelve a calcularla. Los resultados se
+ * comparten entre llamadas y no deben modificarse.
+ *
+ * Las consultas, la construcción perezosa del índice, el cubo y los agregados, y las vistas
+ * de {@link #asList()} toman un cerrojo de lectura; {@link #append}, {@link #setData} y los
+ * avisos de cambio, el de escritura. Así una medición añadida desde otro hilo (el seguimiento
+ * del CSV) no se cuenta dos veces ni se pierde en el cubo, y ninguna consulta ve la tabla
+ * a medio crecer. Para varias lecturas coherentes seguidas está {@link #read}.
  */
 public class MainController {
-    private List<Measurement> data;
 
-    public void setData(List<Measurement> data) {
-        this.data = data;
+    /** Percentiles que devuelven los métodos calculateUsagePercentiles* */
+    public static final double[] PERCENTILES = {0.50, 0.95, 0.99};
+
+    private Iterable<Measurement> data;
+    // Índice temporal del almacén, construido en la primera consulta por fecha
+    private volatile TimeIndex timeIndex;
+    // Estadísticas por día sobre el índice temporal, construidas en la primera búsqueda con condiciones
+    private volatile ZoneMap zoneMap;
+    // Cubo tipo de carga × día × estado de semana × hora, construido en el primer cálculo
+    private volatile EnergyCube cube;
+    // Agregados por hora, día, semana y mes, construidos en el primer informe que los necesita
+    private volatile RollupStore rollups;
+    // Histórico en disco con los mismos datos, o null
+    private volatile SegmentStore segments;
+    // Repartir los recorridos de almacenes grandes entre varios hilos
+    private boolean parallel = AggregationEngine.isParallelEnabled();
+    // Resultados ya calculados para la versión actual de los datos
+    private final QueryCache cache = new QueryCache();
+    private volatile long dataVersion;
+    // Consultas y estructuras derivadas (lectura) frente a cambios de los datos (escritura)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param data Lista de mediciones o cualquier fuente iterable (p. ej. un CSV leído en streaming)
+     */
+    public void setData(Iterable<Measurement> data) {
+        lock.writeLock().lock();
+        try {
+            this.data = data;
+            notifyDataChanged();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
-     * Calcula el consumo promedio por tipo de carga
-     * @return HashMap: tipo_carga -> [promedio_kWh]
+     * Datos actuales (lista, fuente en streaming o almacén columnar), o null si no hay
      */
-    public Map<String, double[]> calculateAverageUsageByLoadType() {
-        Map<String, List<Double>> usageByLoadType = new HashMap<>();
+    public Iterable<Measurement> getData() {
+        return data;
+    }
 
-        // Agrupar consumos por tipo de carga
-        for (Measurement m : data) {
-            usageByLoadType
-                .computeIfAbsent(m.getLoadType(), k -> new ArrayList<>())
-                .add(m.getUsageKWh());
+    /**
+     * Vista de lista de un almacén columnar que lee cada fila con el cerrojo de lectura (los
+     * datos pueden crecer con {@link #append} mientras se recorre), o null si no lo son
+     */
+    public List<Measurement> asList() {
+        return data instanceof MeasurementStore store ? locked(store.asList()) : null;
+    }
+
+    /**
+     * Ejecuta varias lecturas con el cerrojo de lectura: mientras tanto no cambian los datos
+     * ni sus estructuras derivadas. Se puede anidar con las consultas del controlador.
+     */
+    public <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Avisa de que los datos han cambiado (p. ej. se añadieron mediciones al almacén):
+     * descarta el índice, el cubo, los agregados por periodo y los resultados en caché
+     */
+    public void notifyDataChanged() {
+        lock.writeLock().lock();
+        try {
+            this.timeIndex = null;
+            this.zoneMap = null;
+            this.cube = null;
+            this.rollups = null;
+            dataVersion++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Avisa de que se ha añadido una medición al final de los datos (ya incluida en ellos,
+     * p. ej. por el seguimiento de un CSV): el cubo y los agregados por periodo se actualizan
+     * sumándola, sin recalcularse; el índice temporal se reconstruye en la siguiente consulta
+     * por fecha y los resultados en caché dejan de valer.
+     * Si otros hilos consultan a la vez, la medición debe añadirse con {@link #append}: aquí
+     * el almacén ya ha cambiado antes de tomar el cerrojo.
+     */
+    public void measurementAdded(Measurement m) {
+        lock.writeLock().lock();
+        try {
+            added(m);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Añade una medición al final de una tabla en el heap y actualiza con ella el cubo y los
+     * agregados por periodo, todo con el cerrojo de escritura
+     * @throws IllegalStateException Si los datos no son una {@link MeasurementTable}
+     */
+    public void append(Measurement m) {
+        lock.writeLock().lock();
+        try {
+            if (!(data instanceof MeasurementTable table)) {
+                throw new IllegalStateException("Solo se pueden añadir mediciones a una tabla en el heap");
+            }
+            table.add(m);
+            added(m);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void added(Measurement m) {
+        EnergyCube currentCube = cube;
+        if (currentCube != null) {
+            currentCube.add(m);
+        }
+        RollupStore currentRollups = rollups;
+        if (currentRollups != null) {
+            currentRollups.add(m);
+        }
+        this.timeIndex = null;
+        this.zoneMap = null;
+        dataVersion++;
+    }
+
+    /**
+     * Versión de los datos: cambia con cada {@link #setData}, {@link #notifyDataChanged()},
+     * {@link #measurementAdded}, {@link #append} o {@link #setSegmentStore}, siempre con el
+     * cerrojo de escritura
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Caché de resultados de este controlador (tamaño y contadores de aciertos y fallos)
+     */
+    public QueryCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Índice temporal de los datos, o null si no son un almacén columnar
+     */
+    public TimeIndex getTimeIndex() {
+        return read(this::timeIndex);
+    }
+
+    private TimeIndex timeIndex() {
+        if (!(data instanceof MeasurementStore store)) {
+            return null;
+        }
+        TimeIndex index = timeIndex;
+        if (index == null) {
+            index = TimeIndex.of(store);
+            timeIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Estadísticas por día de los datos (fechas, mínimo y máximo de cada columna, tipos de
+     * carga presentes), o null si no son un almacén columnar
+     */
+    public ZoneMap getZoneMap() {
+        return read(this::zoneMap);
+    }
+
+    private ZoneMap zoneMap() {
+        TimeIndex index = timeIndex();
+        if (index == null) {
+            return null;
+        }
+        ZoneMap current = zoneMap;
+        if (current == null) {
+            current = ZoneMap.of(index, Granularity.DAY);
+            zoneMap = current;
+        }
+        return current;
+    }
+
+    /**
+     * Histórico en disco que guarda los mismos datos: las consultas por rango de fechas lo
+     * usan para leer solo los segmentos del rango
+     */
+    public void setSegmentStore(SegmentStore segments) {
+        lock.writeLock().lock();
+        try {
+            this.segments = segments;
+            dataVersion++;
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
 
-        // Calcular promedio para cada tipo
-        Map<String, double[]> averageUsageByLoadType = new HashMap<>();
-        for (Map.Entry<String, List<Double>> entry : usageByLoadType.entrySet()) {
-            String loadType = entry.getKey();
-            List<Double> usages = entry.getValue();
+    public SegmentStore getSegmentStore() {
+        return segments;
+    }
+
+    /**
+     * Mediciones entre dos días, ambos incluidos, en orden temporal: del histórico en disco
+     * si lo hay (solo los segmentos que se solapan) o del índice temporal; null si los datos
+     * no son un almacén columnar
+     */
+    public MeasurementStore range(LocalDate startInclusive, LocalDate endInclusive) {
+        return read(() -> computeRange(startInclusive, endInclusive));
+    }
 
-            double sum = 0;
-            for (double usage : usages) {
-                sum += usage;
+    private MeasurementStore computeRange(LocalDate startInclusive, LocalDate endInclusive) {
+        SegmentStore current = segments;
+        if (current != null) {
+            try {
+                return current.range(startInclusive, endInclusive);
+            } catch (IOException e) {
+                System.err.println("⚠ No se pudo leer el histórico de segmentos, se usan los datos en memoria: " + e.getMessage());
             }
-            double average = sum / usages.size();
-            averageUsageByLoadType.put(loadType, new double[]{average});
         }
+        TimeIndex index = timeIndex();
+        return index == null ? null : index.range(startInclusive, endInclusive);
+    }
+
+    /**
+     * Cubo de los datos, o null si no son un almacén columnar
+     */
+    public EnergyCube getCube() {
+        return read(this::cube);
+    }
+
+    private EnergyCube cube() {
+        if (!(data instanceof MeasurementStore store)) {
+            return null;
+        }
+        EnergyCube current = cube;
+        if (current == null) {
+            current = EnergyCube.from(store);
+            cube = current;
+        }
+        return current;
+    }
+
+    /**
+     * Agregados por periodo de los datos, o null si no son un almacén columnar
+     */
+    public RollupStore getRollups() {
+        return read(this::rollups);
+    }
+
+    private RollupStore rollups() {
+        if (!(data instanceof MeasurementStore store)) {
+            return null;
+        }
+        RollupStore current = rollups;
+        if (current == null) {
+            current = RollupStore.from(store);
+            rollups = current;
+        }
+        return current;
+    }
+
+    /**
+     * Calcula varios agregados: con un almacén columnar se leen del cubo (una pasada la
+     * primera vez, luego solo lecturas de celdas); si no, o si alguno necesita las filas
+     * (percentiles), en una sola pasada por los datos
+     * @param aggregates Agregados a calcular; los demás quedan a null en el resultado
+     */
+    public AggregationResult aggregate(Set<Aggregate> aggregates) {
+        Set<Aggregate> requested = EnumSet.noneOf(Aggregate.class);
+        requested.addAll(aggregates);
+        return cached("aggregate", () -> computeAggregate(requested), requested);
+    }
+
+    private AggregationResult computeAggregate(Set<Aggregate> aggregates) {
+        EnergyCube current = cube();
+        if (current != null && current.isComplete() && Collections.disjoint(aggregates, AggregationEngine.ROW_AGGREGATES)) {
+            return AggregationEngine.aggregate(current, aggregates);
+        }
+        return AggregationEngine.aggregate(data, aggregates, parallel);
+    }
 
-        return averageUsageByLoadType;
+    /**
+     * Resultado en caché para la versión actual de los datos, calculado con el cerrojo de lectura
+     */
+    private <T> T cached(String query, Supplier<T> compute, Object... params) {
+        return read(() -> cache.get(dataVersion, query, compute, params));
+    }
+
+    /**
+     * Lista que lee cada elemento con el cerrojo de lectura
+     */
+    private <T> List<T> locked(List<T> list) {
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                return read(() -> list.get(index));
+            }
+
+            @Override
+            public int size() {
+                return read(list::size);
+            }
+        };
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Activa o desactiva el cálculo en paralelo (por defecto según -Ddatasensefx.parallel)
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Calcula el consumo promedio por tipo de carga
+     * @return HashMap: tipo_carga -> [promedio_kWh]
+     */
+    public Map<String, double[]> calculateAverageUsageByLoadType() {
+        return aggregate(EnumSet.of(Aggregate.AVERAGE_USAGE_BY_LOAD_TYPE)).getAverageUsageByLoadType();
     }
     
     /**
@@ -56,15 +398,7 @@ public class MainController {
      * @return HashMap: hora (0-23) -> consumo_total_kWh
      */
     public Map<Integer, Double> calculateTotalUsageByHour() {
-        Map<Integer, Double> usageByHour = new HashMap<>();
-
-        // Agrupar y sumar consumos por hora
-        for (Measurement m : data) {
-            int hour = m.getDate().getHour();
-            usageByHour.put(hour, usageByHour.getOrDefault(hour, 0.0) + m.getUsageKWh());
-        }
-
-        return usageByHour;
+        return aggregate(EnumSet.of(Aggregate.TOTAL_USAGE_BY_HOUR)).getTotalUsageByHour();
     }
 
     /**
@@ -73,6 +407,16 @@ public class MainController {
      * @return HashMap: hora (0-23) -> consumo_kWh en ese día
      */
     public Map<Integer, Double> calculateUsageByHourForDate(LocalDate date) {
+        return cached("usageByHourForDate", () -> computeUsageByHourForDate(date), date);
+    }
+
+    private Map<Integer, Double> computeUsageByHourForDate(LocalDate date) {
+        if (data instanceof MeasurementStore) {
+            // Búsqueda binaria del día (o su segmento): solo se leen sus filas (96 con mediciones cada 15 minutos)
+            return AggregationEngine.aggregate(range(date, date), EnumSet.of(Aggregate.TOTAL_USAGE_BY_HOUR))
+                .getTotalUsageByHour();
+        }
+
         Map<Integer, Double> usageByHour = new HashMap<>();
 
         for (Measurement m : data) {
@@ -90,10 +434,33 @@ public class MainController {
      * @return La primera fecha con datos, o null si no hay datos
      */
     public LocalDate getFirstAvailableDate() {
-        if (data == null || data.isEmpty()) {
+        return read(this::firstAvailableDate);
+    }
+
+    private LocalDate firstAvailableDate() {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof MeasurementStore) {
+            LocalDateTime first = timeIndex().first();
+            return first == null ? null : first.toLocalDate();
+        }
+        if (data instanceof List<Measurement> list) {
+            return list.isEmpty() ? null : list.getFirst().getDate().toLocalDate();
+        }
+        Iterator<Measurement> it = data.iterator();
+        if (!it.hasNext()) {
             return null;
         }
-        return data.getFirst().getDate().toLocalDate();
+        LocalDate first = it.next().getDate().toLocalDate();
+        if (it instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("Error cerrando la fuente de datos: " + e.getMessage());
+            }
+        }
+        return first;
     }
 
     /**
@@ -101,10 +468,25 @@ public class MainController {
      * @return La última fecha con datos, o null si no hay datos
      */
     public LocalDate getLastAvailableDate() {
-        if (data == null || data.isEmpty()) {
+        return read(this::lastAvailableDate);
+    }
+
+    private LocalDate lastAvailableDate() {
+        if (data == null) {
             return null;
         }
-        return data.getLast().getDate().toLocalDate();
+        if (data instanceof MeasurementStore) {
+            LocalDateTime last = timeIndex().last();
+            return last == null ? null : last.toLocalDate();
+        }
+        if (data instanceof List<Measurement> list) {
+            return list.isEmpty() ? null : list.getLast().getDate().toLocalDate();
+        }
+        Measurement last = null;
+        for (Measurement m : data) {
+            last = m;
+        }
+        return last == null ? null : last.getDate().toLocalDate();
     }
     
     /**
@@ -112,26 +494,7 @@ public class MainController {
      * @return HashMap: día_semana -> co2_promedio
      */
     public Map<String, Double> calculateTotalCO2ByDayOfWeek() {
-        Map<String, List<Double>> co2ByDay = new HashMap<>();
-
-        for (Measurement m : data) {
-            String day = m.getDayOfWeek();
-            co2ByDay.computeIfAbsent(day, k -> new ArrayList<>()).add(m.getCo2());
-        }
-
-        // Ordenar días de la semana correctamente
-        String[] daysOrder = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        Map<String, Double> averageByDay = new LinkedHashMap<>();
-        
-        for (String day : daysOrder) {
-            if (co2ByDay.containsKey(day)) {
-                List<Double> values = co2ByDay.get(day);
-                double average = values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                averageByDay.put(day, average);
-            }
-        }
-
-        return averageByDay;
+        return aggregate(EnumSet.of(Aggregate.AVERAGE_CO2_BY_DAY_OF_WEEK)).getAverageCO2ByDayOfWeek();
     }
 
     /**
@@ -139,14 +502,7 @@ public class MainController {
      * @return HashMap: tipo_carga -> consumo_total_kWh
      */
     public Map<String, Double> calculateTotalUsageByLoadType() {
-        Map<String, Double> usageByLoadType = new HashMap<>();
-
-        for (Measurement m : data) {
-            String loadType = m.getLoadType();
-            usageByLoadType.put(loadType, usageByLoadType.getOrDefault(loadType, 0.0) + m.getUsageKWh());
-        }
-
-        return usageByLoadType;
+        return aggregate(EnumSet.of(Aggregate.TOTAL_USAGE_BY_LOAD_TYPE)).getTotalUsageByLoadType();
     }
 
     /**
@@ -154,14 +510,7 @@ public class MainController {
      * @return HashMap: estado -> consumo_total_kWh
      */
     public Map<String, Double> calculateTotalUsageByWeekStatus() {
-        Map<String, Double> usageByStatus = new HashMap<>();
-
-        for (Measurement m : data) {
-            String status = m.getWeekStatus();
-            usageByStatus.put(status, usageByStatus.getOrDefault(status, 0.0) + m.getUsageKWh());
-        }
-
-        return usageByStatus;
+        return aggregate(EnumSet.of(Aggregate.TOTAL_USAGE_BY_WEEK_STATUS)).getTotalUsageByWeekStatus();
     }
 
     /**
@@ -169,25 +518,7 @@ public class MainController {
      * @return HashMap: día_semana -> consumo_promedio_kWh
      */
     public Map<String, Double> calculateAverageUsageByDayOfWeek() {
-        Map<String, List<Double>> usageByDay = new HashMap<>();
-
-        for (Measurement m : data) {
-            String day = m.getDayOfWeek();
-            usageByDay.computeIfAbsent(day, k -> new ArrayList<>()).add(m.getUsageKWh());
-        }
-
-        // Ordenar días de la semana correctamente
-        String[] daysOrder = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        Map<String, Double> averageByDay = new LinkedHashMap<>();
-        
-        for (String day : daysOrder) {
-            if (usageByDay.containsKey(day)) {
-                double average = usageByDay.get(day).stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                averageByDay.put(day, average);
-            }
-        }
-
-        return averageByDay;
+        return aggregate(EnumSet.of(Aggregate.AVERAGE_USAGE_BY_DAY_OF_WEEK)).getAverageUsageByDayOfWeek();
     }
 
     /**
@@ -195,7 +526,14 @@ public class MainController {
      * @return List de LocalDate con todos los días en el dataset
      */
     public List<LocalDate> getAvailableDates() {
-        return data.stream()
+        return cached("availableDates", this::computeAvailableDates);
+    }
+
+    private List<LocalDate> computeAvailableDates() {
+        if (data instanceof MeasurementStore) {
+            return availableDates(timeIndex());
+        }
+        return StreamSupport.stream(data.spliterator(), false)
             .map(m -> m.getDate().toLocalDate())
             .distinct()
             .sorted()
@@ -207,25 +545,10 @@ public class MainController {
      * @return Array: [total_mediciones, consumo_promedio, consumo_min, consumo_max, co2_total]
      */
     public double[] getBasicStatistics() {
-        if (data == null || data.isEmpty()) {
+        if (data == null) {
             return new double[]{0, 0, 0, 0, 0};
         }
-
-        double sum = 0;
-        double minUsage = Double.MAX_VALUE;
-        double maxUsage = Double.MIN_VALUE;
-        double totalCO2 = 0;
-
-        for (Measurement m : data) {
-            double usage = m.getUsageKWh();
-            sum += usage;
-            minUsage = Math.min(minUsage, usage);
-            maxUsage = Math.max(maxUsage, usage);
-            totalCO2 += m.getCo2();
-        }
-
-        double average = sum / data.size();
-        return new double[]{data.size(), average, minUsage, maxUsage, totalCO2};
+        return aggregate(EnumSet.of(Aggregate.BASIC_STATISTICS)).getBasicStatistics();
     }
 
     /**
@@ -233,48 +556,162 @@ public class MainController {
      * @return HashMap: día_semana -> consumo_total_kWh
      */
     public Map<String, Double> calculateTotalUsageByDayOfWeek() {
-        Map<String, Double> usageByDay = new HashMap<>();
+        return aggregate(EnumSet.of(Aggregate.TOTAL_USAGE_BY_DAY_OF_WEEK)).getTotalUsageByDayOfWeek();
+    }
+
+    /**
+     * Calcula el CO2 TOTAL por día de la semana
+     * @return HashMap: día_semana -> co2_total
+     */
+    public Map<String, Double> calculateTotalCO2ByDayOfWeekTotal() {
+        return aggregate(EnumSet.of(Aggregate.TOTAL_CO2_BY_DAY_OF_WEEK)).getTotalCO2ByDayOfWeek();
+    }
+
+    /**
+     * Estadísticas de consumo por tipo de carga: media, desviación típica, mínimo y máximo
+     * @return HashMap: tipo_carga -> estadísticas
+     */
+    public Map<String, StreamingStats> calculateUsageStatsByLoadType() {
+        return aggregate(EnumSet.of(Aggregate.AVERAGE_USAGE_BY_LOAD_TYPE)).getUsageStatsByLoadType();
+    }
 
+    /**
+     * Estadísticas de consumo por día de la semana, de lunes a domingo
+     * @return LinkedHashMap: día_semana -> estadísticas
+     */
+    public Map<String, StreamingStats> calculateUsageStatsByDayOfWeek() {
+        return aggregate(EnumSet.of(Aggregate.AVERAGE_USAGE_BY_DAY_OF_WEEK)).getUsageStatsByDayOfWeek();
+    }
+
+    /**
+     * Estadísticas de CO2 por día de la semana, de lunes a domingo
+     * @return LinkedHashMap: día_semana -> estadísticas
+     */
+    public Map<String, StreamingStats> calculateCO2StatsByDayOfWeek() {
+        return aggregate(EnumSet.of(Aggregate.AVERAGE_CO2_BY_DAY_OF_WEEK)).getCo2StatsByDayOfWeek();
+    }
+
+    /**
+     * Percentiles de consumo por tipo de carga
+     * @return HashMap: tipo_carga -> [P50, P95, P99] en kWh
+     */
+    public Map<String, double[]> calculateUsagePercentilesByLoadType() {
+        Map<String, double[]> percentiles = new HashMap<>();
+        aggregate(EnumSet.of(Aggregate.USAGE_PERCENTILES_BY_LOAD_TYPE)).getUsagePercentilesByLoadType()
+            .forEach((loadType, sketch) -> percentiles.put(loadType, sketch.quantiles(PERCENTILES)));
+        return percentiles;
+    }
+
+    /**
+     * Percentiles de consumo por hora del día
+     * @return HashMap: hora (0-23) -> [P50, P95, P99] en kWh
+     */
+    public Map<Integer, double[]> calculateUsagePercentilesByHour() {
+        Map<Integer, double[]> percentiles = new HashMap<>();
+        aggregate(EnumSet.of(Aggregate.USAGE_PERCENTILES_BY_HOUR)).getUsagePercentilesByHour()
+            .forEach((hour, sketch) -> percentiles.put(hour, sketch.quantiles(PERCENTILES)));
+        return percentiles;
+    }
+
+    /**
+     * Percentiles de consumo por mes: con un almacén columnar se leen de los agregados
+     * mensuales; si no, se construye un sketch por mes en una pasada
+     * @return LinkedHashMap en orden cronológico: mes -> [P50, P95, P99] en kWh
+     */
+    public Map<YearMonth, double[]> calculateUsagePercentilesByMonth() {
+        return cached("usagePercentilesByMonth", this::computeUsagePercentilesByMonth);
+    }
+
+    private Map<YearMonth, double[]> computeUsagePercentilesByMonth() {
+        Map<YearMonth, double[]> percentiles = new LinkedHashMap<>();
+        RollupStore current = rollups();
+        if (current != null) {
+            for (Rollup month : current.all(Granularity.MONTH)) {
+                percentiles.put(YearMonth.from(month.getStart()), month.getUsageSketch().quantiles(PERCENTILES));
+            }
+            return percentiles;
+        }
+        if (data == null) {
+            return percentiles;
+        }
+        Map<YearMonth, QuantileSketch> sketches = new TreeMap<>();
         for (Measurement m : data) {
-            String day = m.getDayOfWeek();
-            usageByDay.put(day, usageByDay.getOrDefault(day, 0.0) + m.getUsageKWh());
+            sketches.computeIfAbsent(YearMonth.from(m.getDate()), k -> new QuantileSketch()).accept(m.getUsageKWh());
         }
+        sketches.forEach((month, sketch) -> percentiles.put(month, sketch.quantiles(PERCENTILES)));
+        return percentiles;
+    }
+
+    /**
+     * Días en los que alguna medición superó un consumo
+     * Con almacén columnar basta con el máximo de cada día: no se lee ninguna fila
+     * @return Días ordenados
+     */
+    public List<LocalDate> findDaysWithUsageAbove(double thresholdKWh) {
+        return cached("daysWithUsageAbove", () -> computeDaysWithUsageAbove(thresholdKWh), thresholdKWh);
+    }
 
-        // Ordenar días de la semana correctamente
-        String[] daysOrder = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        Map<String, Double> orderedUsageByDay = new LinkedHashMap<>();
-        
-        for (String day : daysOrder) {
-            if (usageByDay.containsKey(day)) {
-                orderedUsageByDay.put(day, usageByDay.get(day));
+    private List<LocalDate> computeDaysWithUsageAbove(double thresholdKWh) {
+        ZoneMap zones = zoneMap();
+        if (zones != null) {
+            List<LocalDate> days = new ArrayList<>();
+            for (ZoneMap.Zone day : zones.candidates(new ZoneFilter().greaterThan(Metric.USAGE_KWH, thresholdKWh))) {
+                days.add(day.getPeriodStart());
             }
+            return days;
         }
-
-        return orderedUsageByDay;
+        Set<LocalDate> days = new TreeSet<>();
+        if (data != null) {
+            for (Measurement m : data) {
+                if (m.getUsageKWh() > thresholdKWh) {
+                    days.add(m.getDate().toLocalDate());
+                }
+            }
+        }
+        return new ArrayList<>(days);
     }
 
     /**
-     * Calcula el CO2 TOTAL por día de la semana
-     * @return HashMap: día_semana -> co2_total
+     * Mediciones de un tipo de carga entre dos días, ambos incluidos (p. ej. los intervalos
+     * Maximum_Load de un trimestre). Con almacén columnar solo se leen los días del rango
+     * en los que aparece ese tipo de carga.
+     * @return Mediciones en orden temporal
      */
-    public Map<String, Double> calculateTotalCO2ByDayOfWeekTotal() {
-        Map<String, Double> co2ByDay = new HashMap<>();
+    public List<Measurement> findIntervals(String loadType, LocalDate startInclusive, LocalDate endInclusive) {
+        return cached("intervals", () -> computeIntervals(loadType, startInclusive, endInclusive),
+            loadType, startInclusive, endInclusive);
+    }
 
-        for (Measurement m : data) {
-            String day = m.getDayOfWeek();
-            co2ByDay.put(day, co2ByDay.getOrDefault(day, 0.0) + m.getCo2());
+    private List<Measurement> computeIntervals(String loadType, LocalDate startInclusive, LocalDate endInclusive) {
+        ZoneMap zones = zoneMap();
+        if (zones != null) {
+            return locked(zones.select(new ZoneFilter().dates(startInclusive, endInclusive).loadType(loadType)).asList());
         }
-
-        // Ordenar días de la semana correctamente
-        String[] daysOrder = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        Map<String, Double> orderedCO2ByDay = new LinkedHashMap<>();
-        
-        for (String day : daysOrder) {
-            if (co2ByDay.containsKey(day)) {
-                orderedCO2ByDay.put(day, co2ByDay.get(day));
+        List<Measurement> intervals = new ArrayList<>();
+        if (data != null) {
+            for (Measurement m : data) {
+                LocalDate date = m.getDate().toLocalDate();
+                if (loadType.equals(m.getLoadType()) && !date.isBefore(startInclusive) && !date.isAfter(endInclusive)) {
+                    intervals.add(m);
+                }
             }
+            intervals.sort(Comparator.comparing(Measurement::getDate));
         }
+        return intervals;
+    }
 
-        return orderedCO2ByDay;
+    /**
+     * Días distintos presentes en el almacén, ordenados: en el índice temporal se salta
+     * de un día al siguiente con una búsqueda binaria, sin recorrer todas las filas
+     */
+    private static List<LocalDate> availableDates(TimeIndex index) {
+        List<LocalDate> dates = new ArrayList<>();
+        int position = 0;
+        while (position < index.size()) {
+            long epochDay = Math.floorDiv(index.getEpochMinute(position), MeasurementStore.MINUTES_PER_DAY);
+            dates.add(LocalDate.ofEpochDay(epochDay));
+            position = index.lowerBound((epochDay + 1) * MeasurementStore.MINUTES_PER_DAY);
+        }
+        return dates;
     }
 }
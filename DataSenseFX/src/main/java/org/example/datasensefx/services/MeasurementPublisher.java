@@ -0,0 +1,133 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher de mediciones con contrapresión sobre cualquier fuente iterable.
+ *
+ * Cada suscriptor recibe su propia lectura de la fuente. Los elementos se leen
+ * solo cuando hay demanda pendiente ({@code request(n)}), de modo que un
+ * consumidor lento nunca acumula mediciones en memoria. Por lo mismo, el fin
+ * de la fuente se comunica cuando se pide un elemento más de los que tiene.
+ */
+public class MeasurementPublisher implements Flow.Publisher<Measurement> {
+
+    private final Iterable<Measurement> source;
+    private final Executor executor;
+
+    public MeasurementPublisher(Iterable<Measurement> source, Executor executor) {
+        this.source = Objects.requireNonNull(source);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Measurement> subscriber) {
+        Objects.requireNonNull(subscriber);
+        IteratorSubscription subscription = new IteratorSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Suscripción que drena el iterador en el ejecutor mientras haya demanda.
+     * Un contador de trabajo pendiente garantiza que solo un hilo emite a la vez.
+     */
+    private class IteratorSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super Measurement> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingWork = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private Iterator<Measurement> iterator;
+        private boolean done;
+
+        IteratorSubscription(Flow.Subscriber<? super Measurement> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request(n) requiere n > 0, recibido: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> {
+                    long sum = current + add;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pendingWork.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pendingWork.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            try {
+                // hasNext() puede leer la siguiente fila, así que solo se consulta con demanda
+                // pendiente: el fin de la fuente se avisa en el siguiente request(n)
+                while (demand.get() > 0 && !cancelled) {
+                    if (iterator == null) {
+                        iterator = source.iterator();
+                    }
+                    if (!iterator.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    demand.decrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (iterator instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) iterator).close();
+                } catch (Exception e) {
+                    System.err.println("Error cerrando la fuente de mediciones: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.datasensefx.services;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caché de resultados de consultas (agregados, informes) con expulsión LRU.
+ *
+ * Cada entrada se identifica por el tipo de consulta y sus parámetros, y pertenece a una
+ * versión de los datos: cuando se consulta con una versión distinta de la guardada, la
+ * caché se vacía entera, así que nunca se devuelve un resultado calculado sobre datos
+ * anteriores. Como mucho guarda {@code maxEntries} resultados; al superarlos se descarta
+ * el usado hace más tiempo.
+ *
+ * Los resultados se comparten entre todas las llamadas con la misma clave: no deben
+ * modificarse. El cálculo se hace fuera del cerrojo, de modo que una consulta lenta no
+ * bloquea las demás (dos hilos pueden calcular a la vez la misma clave; se guarda una).
+ */
+public class QueryCache {
+
+    /** Propiedad de sistema con el número máximo de resultados (-Ddatasensefx.cache.size=0 la desactiva) */
+    public static final String SIZE_PROPERTY = "datasensefx.cache.size";
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Object> entries;
+
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public QueryCache() {
+        this(Integer.getInteger(SIZE_PROPERTY, DEFAULT_MAX_ENTRIES));
+    }
+
+    /**
+     * @param maxEntries Número máximo de resultados guardados (0 desactiva la caché)
+     */
+    public QueryCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("El tamaño de la caché no puede ser negativo: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        // Orden de acceso: el primero es el usado hace más tiempo
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > QueryCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el resultado guardado de una consulta o lo calcula y lo guarda
+     * @param version Versión actual de los datos
+     * @param query Tipo de consulta (p. ej. el nombre del método)
+     * @param compute Cálculo del resultado si no está en la caché
+     * @param params Parámetros de la consulta (deben tener equals/hashCode)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(long version, String query, Supplier<T> compute, Object... params) {
+        if (maxEntries == 0) {
+            return compute.get();
+        }
+        Key key = new Key(query, Arrays.asList(params));
+        synchronized (this) {
+            checkVersion(version);
+            if (entries.containsKey(key)) {
+                hits++;
+                return (T) entries.get(key);
+            }
+            misses++;
+        }
+        T result = compute.get();
+        synchronized (this) {
+            // Si los datos cambiaron mientras se calculaba, el resultado ya no vale
+            if (this.version == version) {
+                entries.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Descarta todos los resultados guardados
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Proporción de consultas respondidas desde la caché (0 si aún no hubo ninguna)
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("QueryCache{entries=%d/%d, hits=%d, misses=%d, evictions=%d}",
+                entries.size(), maxEntries, hits, misses, evictions);
+    }
+
+    private void checkVersion(long version) {
+        if (version != this.version) {
+            entries.clear();
+            this.version = version;
+        }
+    }
+
+    private static final class Key {
+
+        private final String query;
+        private final List<Object> params;
+
+        Key(String query, List<Object> params) {
+            this.query = query;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return query.equals(other.query) && params.equals(other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * query.hashCode() + params.hashCode();
+        }
+    }
+}
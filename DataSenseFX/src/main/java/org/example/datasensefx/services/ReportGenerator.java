@@ -1,54 +1,96 @@
 package org.example.datasensefx.services;
 
 import org.example.datasensefx.model.*;
+import org.example.datasensefx.storage.Category;
+import org.example.datasensefx.storage.Granularity;
+import org.example.datasensefx.storage.MeasurementStore;
+import org.example.datasensefx.storage.Metric;
+import org.example.datasensefx.storage.QuantileSketch;
+import org.example.datasensefx.storage.Rollup;
+import org.example.datasensefx.storage.RollupStore;
+import org.example.datasensefx.storage.TimeIndex;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Servicio para generar informes a partir de datos de mediciones
+ * Acepta una lista en memoria o una fuente en streaming ({@link CsvMeasurementSource});
+ * los informes se calculan recorriendo los datos sin copiarlos enteros.
+ * Con un almacén columnar, los informes diarios, semanales y mensuales se responden con
+ * agregados precalculados por periodo ({@link RollupStore}) y el de eficiencia con el
+ * índice temporal, sin recorrer el resto del histórico.
+ * Los informes se guardan en la caché del controlador de datos: pedir de nuevo el mismo
+ * informe sobre los mismos datos devuelve el objeto ya generado.
+ *
+ * Puede compartir el {@link MainController} de la aplicación ({@link #ReportGenerator(MainController)}):
+ * así usa su índice temporal, su cubo, sus agregados por periodo, su caché y su histórico de
+ * segmentos en lugar de construir otros iguales sobre los mismos datos.
  */
 public class ReportGenerator {
     
-    private List<Measurement> measurements;
-    private MainController dataController;
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    // Códigos globales de los estados de semana: los filtros comparan enteros, no Strings
+    // (el código de cada medición pasa antes por weekStatus para no distinguir mayúsculas)
+    private static final int WEEKDAY = Category.WEEK_STATUS.encode("Weekday");
+    private static final int WEEKEND = Category.WEEK_STATUS.encode("Weekend");
+
+    private final MainController dataController;
     
-    public ReportGenerator(List<Measurement> measurements) {
-        this.measurements = measurements;
+    public ReportGenerator(Iterable<Measurement> measurements) {
         this.dataController = new MainController();
         this.dataController.setData(measurements);
     }
+
+    /**
+     * Generador de informes sobre los datos de un controlador ya existente, compartiendo con
+     * él las estructuras derivadas y la caché
+     */
+    public ReportGenerator(MainController dataController) {
+        this.dataController = dataController;
+    }
     
     /**
      * Genera un informe diario para la fecha más reciente disponible
      */
     public DailyReport generateDailyReport() {
-        if (measurements == null || measurements.isEmpty()) {
+        return dataController.read(this::latestDailyReport);
+    }
+
+    private DailyReport latestDailyReport() {
+        if (getMeasurements() == null) {
             return null;
         }
         
         // Obtener la fecha más reciente
-        LocalDate latestDate = measurements.stream()
-            .map(m -> m.getDate().toLocalDate())
-            .max(LocalDate::compareTo)
-            .orElse(LocalDate.now());
+        Optional<LocalDate> latestDate = latestDate();
         
-        return generateDailyReport(latestDate);
+        return latestDate.map(this::generateDailyReport).orElse(null);
     }
     
     /**
      * Genera un informe diario para una fecha específica
      */
     public DailyReport generateDailyReport(LocalDate date) {
+        return cached("dailyReport", () -> computeDailyReport(date), date);
+    }
+
+    private DailyReport computeDailyReport(LocalDate date) {
         DailyReport report = new DailyReport(date);
+
+        RollupStore rollups = getRollups();
+        if (rollups != null) {
+            return fillDailyReport(report, rollups);
+        }
         
         // Filtrar mediciones del día
-        List<Measurement> dayMeasurements = measurements.stream()
-            .filter(m -> m.getDate().toLocalDate().equals(date))
-            .collect(Collectors.toList());
+        List<Measurement> dayMeasurements = select(date, date);
         
         if (dayMeasurements.isEmpty()) {
             return report;
@@ -127,16 +169,21 @@ public class ReportGenerator {
      * Genera un informe semanal para la última semana disponible
      */
     public WeeklyReport generateWeeklyReport() {
-        if (measurements == null || measurements.isEmpty()) {
+        return dataController.read(this::latestWeeklyReport);
+    }
+
+    private WeeklyReport latestWeeklyReport() {
+        if (getMeasurements() == null) {
             return null;
         }
         
         // Obtener la fecha más reciente y calcular la semana
-        LocalDate endDate = measurements.stream()
-            .map(m -> m.getDate().toLocalDate())
-            .max(LocalDate::compareTo)
-            .orElse(LocalDate.now());
+        Optional<LocalDate> latestDate = latestDate();
+        if (latestDate.isEmpty()) {
+            return null;
+        }
         
+        LocalDate endDate = latestDate.get();
         LocalDate startDate = endDate.minusDays(6);
         
         return generateWeeklyReport(startDate, endDate);
@@ -146,15 +193,19 @@ public class ReportGenerator {
      * Genera un informe semanal para un rango de fechas
      */
     public WeeklyReport generateWeeklyReport(LocalDate startDate, LocalDate endDate) {
+        return cached("weeklyReport", () -> computeWeeklyReport(startDate, endDate), startDate, endDate);
+    }
+
+    private WeeklyReport computeWeeklyReport(LocalDate startDate, LocalDate endDate) {
         WeeklyReport report = new WeeklyReport(startDate, endDate);
+
+        RollupStore rollups = getRollups();
+        if (rollups != null) {
+            return fillWeeklyReport(report, rollups);
+        }
         
         // Filtrar mediciones de la semana
-        List<Measurement> weekMeasurements = measurements.stream()
-            .filter(m -> {
-                LocalDate date = m.getDate().toLocalDate();
-                return !date.isBefore(startDate) && !date.isAfter(endDate);
-            })
-            .collect(Collectors.toList());
+        List<Measurement> weekMeasurements = select(startDate, endDate);
         
         if (weekMeasurements.isEmpty()) {
             return report;
@@ -173,13 +224,13 @@ public class ReportGenerator {
         
         // Consumo laborables vs fin de semana
         double weekdayConsumption = weekMeasurements.stream()
-            .filter(m -> m.getWeekStatus().equalsIgnoreCase("Weekday"))
+            .filter(m -> weekStatus(m.getWeekStatusCode()) == WEEKDAY)
             .mapToDouble(Measurement::getUsageKWh)
             .sum();
         report.setWeekdayConsumption(weekdayConsumption);
         
         double weekendConsumption = weekMeasurements.stream()
-            .filter(m -> m.getWeekStatus().equalsIgnoreCase("Weekend"))
+            .filter(m -> weekStatus(m.getWeekStatusCode()) == WEEKEND)
             .mapToDouble(Measurement::getUsageKWh)
             .sum();
         report.setWeekendConsumption(weekendConsumption);
@@ -204,29 +255,47 @@ public class ReportGenerator {
      * Genera un informe mensual para el mes más reciente disponible
      */
     public MonthlyReport generateMonthlyReport() {
-        if (measurements == null || measurements.isEmpty()) {
+        return dataController.read(this::latestMonthlyReport);
+    }
+
+    private MonthlyReport latestMonthlyReport() {
+        if (getMeasurements() == null) {
             return null;
         }
 
         // Obtener el mes más reciente
-        YearMonth latestMonth = measurements.stream()
-            .map(m -> YearMonth.from(m.getDate()))
-            .max(YearMonth::compareTo)
-            .orElse(YearMonth.now());
+        Optional<YearMonth> latestMonth = latestDate().map(YearMonth::from);
 
-        return generateMonthlyReport(latestMonth);
+        return latestMonth.map(this::generateMonthlyReport).orElse(null);
     }
 
     /**
      * Genera un informe mensual para un mes específico
      */
     public MonthlyReport generateMonthlyReport(YearMonth month) {
+        return cached("monthlyReport", () -> computeMonthlyReport(month), month);
+    }
+
+    private MonthlyReport computeMonthlyReport(YearMonth month) {
         MonthlyReport report = new MonthlyReport(month);
 
-        // Filtrar mediciones del mes
-        List<Measurement> monthMeasurements = measurements.stream()
-            .filter(m -> YearMonth.from(m.getDate()).equals(month))
-            .collect(Collectors.toList());
+        RollupStore rollups = getRollups();
+        if (rollups != null) {
+            return fillMonthlyReport(report, rollups);
+        }
+
+        // Filtrar mediciones del mes y del mes anterior en una sola pasada
+        YearMonth previousMonth = month.minusMonths(1);
+        List<Measurement> monthMeasurements = new ArrayList<>();
+        List<Measurement> previousMonthMeasurements = new ArrayList<>();
+        for (Measurement m : getMeasurements()) {
+            YearMonth measurementMonth = YearMonth.from(m.getDate());
+            if (measurementMonth.equals(month)) {
+                monthMeasurements.add(m);
+            } else if (measurementMonth.equals(previousMonth)) {
+                previousMonthMeasurements.add(m);
+            }
+        }
 
         if (monthMeasurements.isEmpty()) {
             return report;
@@ -263,11 +332,6 @@ public class ReportGenerator {
         report.setPeakDayCost(peakDayConsumption * report.getCostPerKWh());
 
         // Comparación con mes anterior (si hay datos)
-        YearMonth previousMonth = month.minusMonths(1);
-        List<Measurement> previousMonthMeasurements = measurements.stream()
-            .filter(m -> YearMonth.from(m.getDate()).equals(previousMonth))
-            .collect(Collectors.toList());
-
         if (!previousMonthMeasurements.isEmpty()) {
             double prevConsumption = previousMonthMeasurements.stream()
                 .mapToDouble(Measurement::getUsageKWh)
@@ -283,78 +347,134 @@ public class ReportGenerator {
      * Genera un informe de eficiencia para el período completo de datos
      */
     public EfficiencyReport generateEfficiencyReport() {
-        if (measurements == null || measurements.isEmpty()) {
+        return dataController.read(this::fullEfficiencyReport);
+    }
+
+    private EfficiencyReport fullEfficiencyReport() {
+        if (getMeasurements() == null) {
             return null;
         }
 
-        LocalDate startDate = measurements.stream()
-            .map(m -> m.getDate().toLocalDate())
-            .min(LocalDate::compareTo)
-            .orElse(LocalDate.now().minusDays(30));
+        TimeIndex index = dataController.getTimeIndex();
+        if (index != null) {
+            return index.size() == 0 ? null
+                : generateEfficiencyReport(index.first().toLocalDate(), index.last().toLocalDate());
+        }
 
-        LocalDate endDate = measurements.stream()
-            .map(m -> m.getDate().toLocalDate())
-            .max(LocalDate::compareTo)
-            .orElse(LocalDate.now());
+        // Primera y última fecha en una sola pasada
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        for (Measurement m : getMeasurements()) {
+            LocalDate date = m.getDate().toLocalDate();
+            if (startDate == null || date.isBefore(startDate)) {
+                startDate = date;
+            }
+            if (endDate == null || date.isAfter(endDate)) {
+                endDate = date;
+            }
+        }
+        if (startDate == null) {
+            return null;
+        }
 
         return generateEfficiencyReport(startDate, endDate);
     }
 
     /**
      * Genera un informe de eficiencia para un rango de fechas
+     * Todos los indicadores se acumulan sin copiar las mediciones: con índice temporal, como
+     * reducciones de columna sobre el rango (y los percentiles combinando los de cada día);
+     * si no, en una única pasada
      */
     public EfficiencyReport generateEfficiencyReport(LocalDate startDate, LocalDate endDate) {
+        return cached("efficiencyReport", () -> computeEfficiencyReport(startDate, endDate), startDate, endDate);
+    }
+
+    private EfficiencyReport computeEfficiencyReport(LocalDate startDate, LocalDate endDate) {
         EfficiencyReport report = new EfficiencyReport(startDate, endDate);
 
-        // Filtrar mediciones del período
-        List<Measurement> periodMeasurements = measurements.stream()
-            .filter(m -> {
+        long total;
+        double powerFactorSum;
+        double totalConsumption;
+        double peakConsumption;
+        double totalCO2;
+        Map<String, Long> loadTypeCount = new HashMap<>();
+        QuantileSketch usageSketch = new QuantileSketch();
+
+        TimeIndex index = dataController.getTimeIndex();
+        if (index != null) {
+            // Reducciones de columna sobre las filas del rango (kernels SIMD si están en una tabla)
+            MeasurementStore range = dataController.range(startDate, endDate);
+            int n = range.size();
+            total = n;
+            powerFactorSum = range.sum(Metric.LAGGING_POWER_FACTOR, 0, n);
+            totalConsumption = range.sum(Metric.USAGE_KWH, 0, n);
+            peakConsumption = range.max(Metric.USAGE_KWH, 0, n);
+            totalCO2 = range.sum(Metric.CO2, 0, n);
+            long[] counts = new long[range.dictionarySize(Category.LOAD_TYPE)];
+            for (int i = 0; i < n; i++) {
+                counts[range.getCode(Category.LOAD_TYPE, i)]++;
+            }
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    loadTypeCount.put(range.decode(Category.LOAD_TYPE, code), counts[code]);
+                }
+            }
+            for (Rollup day : getRollups().range(Granularity.DAY, startDate, endDate)) {
+                usageSketch.merge(day.getUsageSketch());
+            }
+        } else {
+            DoubleSummaryStatistics powerFactorStats = new DoubleSummaryStatistics();
+            DoubleSummaryStatistics usageStats = new DoubleSummaryStatistics();
+            DoubleSummaryStatistics co2Stats = new DoubleSummaryStatistics();
+            for (Measurement m : getMeasurements()) {
                 LocalDate date = m.getDate().toLocalDate();
-                return !date.isBefore(startDate) && !date.isAfter(endDate);
-            })
-            .collect(Collectors.toList());
+                if (date.isBefore(startDate) || date.isAfter(endDate)) {
+                    continue;
+                }
+                powerFactorStats.accept(m.getLaggingPowerFactor());
+                usageStats.accept(m.getUsageKWh());
+                usageSketch.accept(m.getUsageKWh());
+                co2Stats.accept(m.getCo2());
+                loadTypeCount.merge(m.getLoadType(), 1L, Long::sum);
+            }
+            total = usageStats.getCount();
+            powerFactorSum = powerFactorStats.getSum();
+            totalConsumption = usageStats.getSum();
+            peakConsumption = usageStats.getMax();
+            totalCO2 = co2Stats.getSum();
+        }
 
-        if (periodMeasurements.isEmpty()) {
+        if (total == 0) {
             return report;
         }
 
-        report.setTotalMeasurements(periodMeasurements.size());
+        report.setTotalMeasurements((int) total);
 
         // Factor de potencia promedio
-        double avgPowerFactor = periodMeasurements.stream()
-            .mapToDouble(Measurement::getLaggingPowerFactor)
-            .average()
-            .orElse(0.0);
+        double avgPowerFactor = powerFactorSum / total;
         report.setAveragePowerFactor(avgPowerFactor);
 
         // Intensidad energética
-        double totalConsumption = periodMeasurements.stream()
-            .mapToDouble(Measurement::getUsageKWh)
-            .sum();
-        double energyIntensity = totalConsumption / periodMeasurements.size();
+        double energyIntensity = totalConsumption / total;
         report.setEnergyIntensity(energyIntensity);
 
         // Intensidad de CO2
-        double totalCO2 = periodMeasurements.stream()
-            .mapToDouble(Measurement::getCo2)
-            .sum();
         double co2Intensity = totalCO2 / totalConsumption;
         report.setCo2Intensity(co2Intensity);
 
         // Factor de carga (simplificado)
-        double avgConsumption = totalConsumption / periodMeasurements.size();
-        double peakConsumption = periodMeasurements.stream()
-            .mapToDouble(Measurement::getUsageKWh)
-            .max()
-            .orElse(1.0);
+        double avgConsumption = totalConsumption / total;
         double loadFactor = (avgConsumption / peakConsumption) * 100;
         report.setLoadFactor(loadFactor);
 
-        // Distribución de carga
-        Map<String, Long> loadTypeCount = periodMeasurements.stream()
-            .collect(Collectors.groupingBy(Measurement::getLoadType, Collectors.counting()));
+        // Percentiles de consumo (aproximados)
+        double[] percentiles = usageSketch.quantiles(MainController.PERCENTILES);
+        report.setUsageP50(percentiles[0]);
+        report.setUsageP95(percentiles[1]);
+        report.setUsageP99(percentiles[2]);
 
-        long total = periodMeasurements.size();
+        // Distribución de carga
         double lightLoad = loadTypeCount.getOrDefault("Light_Load", 0L) * 100.0 / total;
         double mediumLoad = loadTypeCount.getOrDefault("Medium_Load", 0L) * 100.0 / total;
         double maximumLoad = loadTypeCount.getOrDefault("Maximum_Load", 0L) * 100.0 / total;
@@ -384,13 +504,190 @@ public class ReportGenerator {
         return report;
     }
 
+    /**
+     * Agregados por hora, día, semana y mes de los datos; se calculan la primera vez que se
+     * piden y solo con un almacén columnar (null con listas o fuentes en streaming)
+     */
+    public RollupStore getRollups() {
+        return dataController.getRollups();
+    }
+
+    /**
+     * Caché de informes (la misma que la del controlador de datos)
+     */
+    public QueryCache getCache() {
+        return dataController.getCache();
+    }
+
+    /**
+     * Avisa de que las mediciones han cambiado: los informes se vuelven a calcular
+     */
+    public void notifyDataChanged() {
+        dataController.notifyDataChanged();
+    }
+
+    /**
+     * Avisa de que se ha añadido una medición al final de los datos: los agregados por
+     * periodo se actualizan con ella ({@link MainController#measurementAdded})
+     */
+    public void measurementAdded(Measurement m) {
+        dataController.measurementAdded(m);
+    }
+
+    /**
+     * Informe en la caché del controlador, calculado con su cerrojo de lectura (el seguimiento
+     * del CSV puede estar añadiendo mediciones desde otro hilo)
+     */
+    private <T> T cached(String query, Supplier<T> compute, Object... params) {
+        return dataController.read(() ->
+            dataController.getCache().get(dataController.getDataVersion(), query, compute, params));
+    }
+
+    // --- Informes a partir de agregados precalculados ---
+
+    private static DailyReport fillDailyReport(DailyReport report, RollupStore rollups) {
+        LocalDate date = report.getReportDate();
+        Rollup day = rollups.get(Granularity.DAY, date);
+        if (day == null) {
+            return report;
+        }
+
+        report.setTotalMeasurements((int) day.getCount());
+        report.setTotalConsumption(day.getUsageSum());
+        report.setAverageConsumption(day.getAverageUsage());
+        report.setPeakConsumption(day.getUsageMax());
+        report.setPeakHour(day.getUsageMaxTime().format(HOUR_FORMAT));
+        report.setMinConsumption(day.getUsageMin());
+        report.setMinHour(day.getUsageMinTime().format(HOUR_FORMAT));
+        report.setTotalCO2(day.getCo2Sum());
+
+        StringBuilder hourlyData = new StringBuilder();
+        for (Rollup hour : rollups.range(Granularity.HOUR, date, date)) {
+            hourlyData.append(String.format("%02d:00 - %.2f kWh\n", hour.getStart().getHour(), hour.getUsageSum()));
+        }
+        report.addData("consumptionByHour", hourlyData.toString());
+
+        StringBuilder loadTypeData = new StringBuilder();
+        day.getUsageByLoadType().forEach((type, consumption) ->
+            loadTypeData.append(String.format("%s: %.2f kWh\n", type, consumption)));
+        report.addData("consumptionByLoadType", loadTypeData.toString());
+
+        return report;
+    }
+
+    /**
+     * Código de estado de semana sin distinguir mayúsculas: "weekday" cuenta como WEEKDAY
+     */
+    private static int weekStatus(int code) {
+        return code < 0 ? code : Category.WEEK_STATUS.dictionary().caseInsensitiveCode(code);
+    }
+
+    private static WeeklyReport fillWeeklyReport(WeeklyReport report, RollupStore rollups) {
+        List<Rollup> days = rollups.range(Granularity.DAY, report.getStartDate(), report.getEndDate());
+        if (days.isEmpty()) {
+            return report;
+        }
+
+        long count = 0;
+        double totalConsumption = 0;
+        double weekdayConsumption = 0;
+        double weekendConsumption = 0;
+        Map<String, Double> consumptionByDay = new LinkedHashMap<>(); // en orden cronológico
+        for (Rollup day : days) {
+            count += day.getCount();
+            totalConsumption += day.getUsageSum();
+            int weekStatus = weekStatus(day.getWeekStatusCode());
+            if (weekStatus == WEEKDAY) {
+                weekdayConsumption += day.getUsageSum();
+            } else if (weekStatus == WEEKEND) {
+                weekendConsumption += day.getUsageSum();
+            }
+            consumptionByDay.merge(day.getDayOfWeek(), day.getUsageSum(), Double::sum);
+        }
+
+        report.setTotalMeasurements((int) count);
+        report.setTotalConsumption(totalConsumption);
+        report.setAverageConsumption(totalConsumption / 7.0); // Promedio diario
+        report.setWeekdayConsumption(weekdayConsumption);
+        report.setWeekendConsumption(weekendConsumption);
+
+        StringBuilder dayData = new StringBuilder();
+        consumptionByDay.forEach((day, consumption) ->
+            dayData.append(String.format("%s: %.2f kWh\n", day, consumption)));
+        report.addData("consumptionByDay", dayData.toString());
+
+        return report;
+    }
+
+    private static MonthlyReport fillMonthlyReport(MonthlyReport report, RollupStore rollups) {
+        YearMonth month = report.getReportMonth();
+        Rollup monthRollup = rollups.get(Granularity.MONTH, month.atDay(1));
+        if (monthRollup == null) {
+            return report;
+        }
+
+        report.setTotalMeasurements((int) monthRollup.getCount());
+        report.setTotalConsumption(monthRollup.getUsageSum());
+        report.setTotalCO2(monthRollup.getCo2Sum());
+        report.setAverageDailyCost(report.getTotalCost() / month.lengthOfMonth());
+
+        // Día de mayor consumo a partir de los agregados diarios
+        double peakDayConsumption = 0.0;
+        for (Rollup day : rollups.range(Granularity.DAY, month.atDay(1), month.atEndOfMonth())) {
+            peakDayConsumption = Math.max(peakDayConsumption, day.getUsageSum());
+        }
+        report.setPeakDayCost(peakDayConsumption * report.getCostPerKWh());
+
+        Rollup previousMonth = rollups.get(Granularity.MONTH, month.minusMonths(1).atDay(1));
+        if (previousMonth != null) {
+            report.setPreviousMonthConsumption(previousMonth.getUsageSum());
+            report.setPreviousMonthCost(previousMonth.getUsageSum() * report.getCostPerKWh());
+        }
+
+        return report;
+    }
+
+    /**
+     * Fecha más reciente de los datos (con índice temporal, sin recorrerlos)
+     */
+    private Optional<LocalDate> latestDate() {
+        TimeIndex index = dataController.getTimeIndex();
+        if (index != null) {
+            return index.size() == 0 ? Optional.empty() : Optional.of(index.last().toLocalDate());
+        }
+        return stream()
+            .map(m -> m.getDate().toLocalDate())
+            .max(LocalDate::compareTo);
+    }
+
+    /**
+     * Mediciones entre dos días, ambos incluidos
+     */
+    private List<Measurement> select(LocalDate startDate, LocalDate endDate) {
+        return stream()
+            .filter(m -> {
+                LocalDate date = m.getDate().toLocalDate();
+                return !date.isBefore(startDate) && !date.isAfter(endDate);
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Recorre las mediciones como Stream secuencial
+     */
+    private Stream<Measurement> stream() {
+        return StreamSupport.stream(getMeasurements().spliterator(), false);
+    }
+
     // Getters y Setters
-    public List<Measurement> getMeasurements() {
-        return measurements;
+    public Iterable<Measurement> getMeasurements() {
+        return dataController.getData();
     }
 
-    public void setMeasurements(List<Measurement> measurements) {
-        this.measurements = measurements;
+    /**
+     * Cambia los datos del controlador (si es compartido, también para los demás que lo usan)
+     */
+    public void setMeasurements(Iterable<Measurement> measurements) {
         this.dataController.setData(measurements);
     }
 }
@@ -0,0 +1,60 @@
+package org.example.datasensefx.storage;
+
+/**
+ * Columnas categóricas de una medición, guardadas como códigos de diccionario.
+ *
+ * Cada columna tiene un diccionario global en el que los valores conocidos del dataset
+ * industrial ocupan los primeros códigos, en el mismo orden que las dimensiones de
+ * {@link EnergyCube}; los valores nuevos se añaden detrás al ingerirlos.
+ */
+public enum Category {
+    WEEK_STATUS("Weekday", "Weekend"),
+    DAY_OF_WEEK("Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"),
+    LOAD_TYPE("Light_Load", "Medium_Load", "Maximum_Load");
+
+    private final String[] knownValues;
+    private final CategoryDictionary dictionary;
+
+    Category(String... knownValues) {
+        this.knownValues = knownValues;
+        this.dictionary = new CategoryDictionary(knownValues);
+    }
+
+    /**
+     * Valores conocidos, con los códigos 0, 1, 2... en este orden
+     */
+    public String[] getKnownValues() {
+        return knownValues.clone();
+    }
+
+    /**
+     * Diccionario global de la columna
+     */
+    public CategoryDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Código global del valor (lo añade al diccionario si es nuevo)
+     */
+    public int encode(String value) {
+        return dictionary.encode(value);
+    }
+
+    public String decode(int code) {
+        return dictionary.decode(code);
+    }
+
+    /**
+     * Código global de cada código del almacén (la posición es el código del almacén). Los
+     * almacenes con diccionario propio, como {@link MeasurementSnapshot}, numeran los valores
+     * en otro orden; se traduce una vez por almacén y no en cada fila.
+     */
+    int[] globalCodes(MeasurementStore store) {
+        int[] codes = new int[store.dictionarySize(this)];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = encode(store.decode(this, code));
+        }
+        return codes;
+    }
+}
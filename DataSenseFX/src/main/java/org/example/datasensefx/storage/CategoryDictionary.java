@@ -0,0 +1,101 @@
+package org.example.datasensefx.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Diccionario de una columna categórica: asigna a cada valor distinto un código entero
+ * en orden de aparición.
+ *
+ * Cada {@link Category} tiene un diccionario global ({@link Category#dictionary()}) que
+ * comparten la ingesta, los almacenes y los agregados, de modo que un código significa lo
+ * mismo en todas partes. Es seguro entre hilos: las búsquedas no bloquean (leen una copia
+ * inmutable) y solo añadir un valor nuevo, algo que ocurre unas pocas veces, toma el cerrojo.
+ *
+ * Los valores que solo se diferencian en mayúsculas ("Weekday", "WEEKDAY") tienen códigos
+ * distintos, pero {@link #caseInsensitiveCode} los lleva al mismo para comparar sin
+ * distinguirlas, como hacía equalsIgnoreCase sobre los Strings.
+ */
+public class CategoryDictionary {
+
+    private volatile String[] values = new String[0];
+    private volatile Map<String, Integer> codes = new HashMap<>();
+    // Por código: código del primer valor igual sin distinguir mayúsculas
+    private volatile int[] caseInsensitiveCodes = new int[0];
+    // Solo se usa al añadir, con el cerrojo tomado
+    private final Map<String, Integer> foldedCodes = new HashMap<>();
+
+    public CategoryDictionary() {
+    }
+
+    /**
+     * Diccionario con valores iniciales, que reciben los códigos 0, 1, 2... en ese orden
+     */
+    public CategoryDictionary(String... initialValues) {
+        for (String value : initialValues) {
+            add(value);
+        }
+    }
+
+    /**
+     * Devuelve el código del valor, añadiéndolo si es nuevo
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Código de un valor existente, o -1 si no está en el diccionario
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    /**
+     * Código del primer valor que coincide con el de este código sin distinguir mayúsculas
+     * (el propio código si no hay otro antes)
+     */
+    public int caseInsensitiveCode(int code) {
+        return caseInsensitiveCodes[code];
+    }
+
+    /**
+     * Instancia única del valor: todas las mediciones con el mismo valor comparten el String
+     */
+    public String intern(String value) {
+        return decode(encode(value));
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int newCode = values.length;
+        Map<String, Integer> newCodes = new HashMap<>(codes);
+        newCodes.put(value, newCode);
+        String[] newValues = Arrays.copyOf(values, newCode + 1);
+        newValues[newCode] = value;
+        int[] newCaseInsensitiveCodes = Arrays.copyOf(caseInsensitiveCodes, newCode + 1);
+        // Mayúsculas y luego minúsculas, como equalsIgnoreCase carácter a carácter
+        String folded = value == null ? null : value.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        newCaseInsensitiveCodes[newCode] = foldedCodes.computeIfAbsent(folded, k -> newCode);
+        // Primero los valores: quien vea el código nuevo ya puede decodificarlo
+        values = newValues;
+        caseInsensitiveCodes = newCaseInsensitiveCodes;
+        codes = newCodes;
+        return newCode;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.datasensefx.storage;
+
+import java.util.Arrays;
+
+/**
+ * Columna de códigos de diccionario de {@link MeasurementTable}: un byte por fila mientras
+ * todos los códigos caben en uno (lo normal, con unos pocos valores distintos) y un int por
+ * fila desde el primer código mayor que 255, sin límite de valores distintos.
+ */
+final class CodeColumn {
+
+    private byte[] narrow;
+    private int[] wide;
+
+    CodeColumn(int capacity) {
+        narrow = new byte[capacity];
+    }
+
+    int get(int row) {
+        return wide != null ? wide[row] : Byte.toUnsignedInt(narrow[row]);
+    }
+
+    void set(int row, int code) {
+        if (wide == null && code > 0xFF) {
+            widen();
+        }
+        if (wide != null) {
+            wide[row] = code;
+        } else {
+            narrow[row] = (byte) code;
+        }
+    }
+
+    /**
+     * Cambia la capacidad conservando las primeras filas
+     */
+    void resize(int capacity) {
+        if (wide != null) {
+            wide = Arrays.copyOf(wide, capacity);
+        } else {
+            narrow = Arrays.copyOf(narrow, capacity);
+        }
+    }
+
+    /**
+     * Bytes que ocupa cada fila (1, o 4 si algún código no cabe en un byte)
+     */
+    int bytesPerRow() {
+        return wide != null ? Integer.BYTES : 1;
+    }
+
+    private void widen() {
+        int[] codes = new int[narrow.length];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = Byte.toUnsignedInt(narrow[i]);
+        }
+        wide = codes;
+        narrow = null;
+    }
+}
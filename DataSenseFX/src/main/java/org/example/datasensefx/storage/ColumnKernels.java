@@ -0,0 +1,83 @@
+package org.example.datasensefx.storage;
+
+/**
+ * Reducciones (suma, mínimo, máximo) sobre tramos de columnas en arrays primitivos.
+ *
+ * Si el módulo jdk.incubator.vector está cargado (--add-modules jdk.incubator.vector) se usan
+ * instrucciones SIMD a través de la Vector API; si no, bucles escalares. El modo vectorial se
+ * puede desactivar con -Ddatasensefx.simd=false o en tiempo de ejecución con
+ * {@link #setVectorized(boolean)}. Las sumas vectoriales acumulan por carriles, así que pueden
+ * diferir de las escalares en los últimos decimales.
+ */
+public final class ColumnKernels {
+
+    /** Propiedad de sistema para desactivar los kernels vectoriales */
+    public static final String PROPERTY = "datasensefx.simd";
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private static volatile boolean vectorized = AVAILABLE && !"false".equalsIgnoreCase(System.getProperty(PROPERTY));
+
+    private ColumnKernels() {
+    }
+
+    /**
+     * Indica si la Vector API está disponible en esta JVM
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    public static boolean isVectorized() {
+        return vectorized;
+    }
+
+    /**
+     * Activa o desactiva los kernels vectoriales (sin la Vector API se queda en modo escalar)
+     */
+    public static void setVectorized(boolean enabled) {
+        vectorized = enabled && AVAILABLE;
+    }
+
+    /**
+     * Suma de los valores [from, to)
+     */
+    public static double sum(double[] values, int from, int to) {
+        if (vectorized) {
+            return VectorKernels.sum(values, from, to);
+        }
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Mínimo de los valores [from, to), o +infinito si el tramo está vacío
+     */
+    public static double min(double[] values, int from, int to) {
+        if (vectorized) {
+            return VectorKernels.min(values, from, to);
+        }
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Máximo de los valores [from, to), o -infinito si el tramo está vacío
+     */
+    public static double max(double[] values, int from, int to) {
+        if (vectorized) {
+            return VectorKernels.max(values, from, to);
+        }
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
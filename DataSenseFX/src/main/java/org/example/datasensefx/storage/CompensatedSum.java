@@ -0,0 +1,28 @@
+package org.example.datasensefx.storage;
+
+/**
+ * Suma compensada (Kahan), con el mismo algoritmo que {@code DoubleStream.sum()} y
+ * {@code Collectors.summingDouble}: sumando los mismos valores en el mismo orden da el mismo
+ * resultado bit a bit que el recorrido de la lista de mediciones.
+ */
+final class CompensatedSum {
+
+    private double sum;
+    // Error de redondeo acumulado, con el signo cambiado
+    private double compensation;
+    // Suma sin compensar, para devolver el infinito correcto si la compensada da NaN
+    private double simpleSum;
+
+    void add(double value) {
+        double tmp = value - compensation;
+        double velvel = sum + tmp;
+        compensation = (velvel - sum) - tmp;
+        sum = velvel;
+        simpleSum += value;
+    }
+
+    double get() {
+        double result = sum - compensation;
+        return Double.isNaN(result) && Double.isInfinite(simpleSum) ? simpleSum : result;
+    }
+}
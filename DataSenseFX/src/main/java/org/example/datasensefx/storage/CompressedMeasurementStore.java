@@ -0,0 +1,254 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Almacén de mediciones comprimido en el heap con columnas estilo Gorilla ({@link GorillaColumn}).
+ *
+ * Los datos de los medidores comprimen muy bien: las fechas avanzan 15 minutos cada vez (1 bit
+ * por fila con delta de deltas), el NSM y los códigos de categoría casi nunca rompen su patrón
+ * y muchas métricas repiten valor (factor de potencia 100, CO2 0), que con XOR ocupa 1 bit.
+ *
+ * Las sumas, mínimos y máximos de columna decodifican los bloques en streaming, sin crear
+ * arrays. El acceso por fila decodifica el bloque de la fila y lo conserva en una caché por
+ * hilo con {@link #CACHE_BLOCKS} bloques por columna: un recorrido en orden decodifica cada
+ * bloque una sola vez por columna, los hilos de un recorrido en paralelo no se pisan la caché
+ * y un orden casi temporal (un {@link TimeIndex} que salta entre bloques vecinos) sigue
+ * acertando. Cada hilo que lee ocupa como mucho 11 columnas × 4 bloques × 8 KB (352 KB).
+ */
+public class CompressedMeasurementStore implements MeasurementStore {
+
+    // Posición de cada columna en columns: 0 fecha, 1-6 métricas (orden de Metric), 7 NSM, 8-10 categorías
+    private static final int EPOCH_MINUTE = 0;
+    private static final int FIRST_METRIC = 1;
+    private static final int NSM = FIRST_METRIC + Metric.values().length;
+    private static final int FIRST_CATEGORY = NSM + 1;
+    private static final int COLUMNS = FIRST_CATEGORY + Category.values().length;
+    /** Bloques decodificados que conserva cada hilo por columna (potencia de dos) */
+    static final int CACHE_BLOCKS = 4;
+
+    private final GorillaColumn[] columns = new GorillaColumn[COLUMNS];
+    private final ThreadLocal<BlockCache> blocks = ThreadLocal.withInitial(BlockCache::new);
+    private int size;
+
+    public CompressedMeasurementStore() {
+        for (int i = 0; i < COLUMNS; i++) {
+            boolean xor = i >= FIRST_METRIC && i < NSM;
+            columns[i] = new GorillaColumn(xor ? GorillaColumn.Encoding.XOR : GorillaColumn.Encoding.DELTA_OF_DELTA);
+        }
+    }
+
+    /**
+     * Crea un almacén con todas las mediciones, en el mismo orden
+     */
+    public static CompressedMeasurementStore from(Iterable<Measurement> measurements) {
+        CompressedMeasurementStore store = new CompressedMeasurementStore();
+        for (Measurement m : measurements) {
+            store.add(m);
+        }
+        store.trimToSize();
+        return store;
+    }
+
+    /**
+     * Añade una medición al final del almacén (como en {@link MeasurementTable}, la fecha se
+     * guarda con resolución de un minuto)
+     */
+    public void add(Measurement m) {
+        columns[EPOCH_MINUTE].add(Math.floorDiv(m.getDate().toEpochSecond(ZoneOffset.UTC), 60));
+        columns[FIRST_METRIC + Metric.USAGE_KWH.ordinal()].add(Double.doubleToLongBits(m.getUsageKWh()));
+        columns[FIRST_METRIC + Metric.LAGGING_REACTIVE.ordinal()].add(Double.doubleToLongBits(m.getLaggingReactive()));
+        columns[FIRST_METRIC + Metric.LEADING_REACTIVE.ordinal()].add(Double.doubleToLongBits(m.getLeadingReactive()));
+        columns[FIRST_METRIC + Metric.CO2.ordinal()].add(Double.doubleToLongBits(m.getCo2()));
+        columns[FIRST_METRIC + Metric.LAGGING_POWER_FACTOR.ordinal()].add(Double.doubleToLongBits(m.getLaggingPowerFactor()));
+        columns[FIRST_METRIC + Metric.LEADING_POWER_FACTOR.ordinal()].add(Double.doubleToLongBits(m.getLeadingPowerFactor()));
+        columns[NSM].add(m.getNsm());
+        columns[FIRST_CATEGORY + Category.WEEK_STATUS.ordinal()].add(m.getWeekStatusCode());
+        columns[FIRST_CATEGORY + Category.DAY_OF_WEEK.ordinal()].add(m.getDayOfWeekCode());
+        columns[FIRST_CATEGORY + Category.LOAD_TYPE.ordinal()].add(m.getLoadTypeCode());
+        // Las filas ya decodificadas del último bloque no cambian: las cachés siguen valiendo
+        size++;
+    }
+
+    /**
+     * Ajusta los arrays al contenido para liberar la capacidad sobrante
+     */
+    public void trimToSize() {
+        for (GorillaColumn column : columns) {
+            column.trimToSize();
+        }
+    }
+
+    /**
+     * Memoria aproximada ocupada por las columnas comprimidas, en bytes
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (GorillaColumn column : columns) {
+            bytes += column.getMemoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Bits por fila de una columna numérica (64 sin comprimir)
+     */
+    public double getBitsPerRow(Metric metric) {
+        return size == 0 ? 0 : (double) columns[FIRST_METRIC + metric.ordinal()].getBitLength() / size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getEpochMinute(int row) {
+        return value(EPOCH_MINUTE, row);
+    }
+
+    @Override
+    public double getUsageKWh(int row) {
+        return metric(Metric.USAGE_KWH, row);
+    }
+
+    @Override
+    public double getLaggingReactive(int row) {
+        return metric(Metric.LAGGING_REACTIVE, row);
+    }
+
+    @Override
+    public double getLeadingReactive(int row) {
+        return metric(Metric.LEADING_REACTIVE, row);
+    }
+
+    @Override
+    public double getCo2(int row) {
+        return metric(Metric.CO2, row);
+    }
+
+    @Override
+    public double getLaggingPowerFactor(int row) {
+        return metric(Metric.LAGGING_POWER_FACTOR, row);
+    }
+
+    @Override
+    public double getLeadingPowerFactor(int row) {
+        return metric(Metric.LEADING_POWER_FACTOR, row);
+    }
+
+    @Override
+    public double getValue(Metric metric, int row) {
+        return metric(metric, row);
+    }
+
+    @Override
+    public int getNsm(int row) {
+        return (int) value(NSM, row);
+    }
+
+    @Override
+    public int getCode(Category category, int row) {
+        return (int) value(FIRST_CATEGORY + category.ordinal(), row);
+    }
+
+    @Override
+    public String decode(Category category, int code) {
+        return category.decode(code);
+    }
+
+    @Override
+    public int dictionarySize(Category category) {
+        return category.dictionary().size();
+    }
+
+    @Override
+    public double sum(Metric metric, int from, int to) {
+        checkRange(from, to);
+        GorillaColumn column = columns[FIRST_METRIC + metric.ordinal()];
+        double sum = 0;
+        for (int block = from / GorillaColumn.BLOCK_ROWS, row = from; row < to; block++) {
+            GorillaColumn.Reader reader = column.reader(block);
+            int blockStart = block * GorillaColumn.BLOCK_ROWS;
+            reader.skip(row - blockStart);
+            int end = Math.min(to, blockStart + GorillaColumn.BLOCK_ROWS);
+            for (; row < end; row++) {
+                sum += Double.longBitsToDouble(reader.next());
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(Metric metric, int from, int to) {
+        return extreme(metric, from, to, true);
+    }
+
+    @Override
+    public double max(Metric metric, int from, int to) {
+        return extreme(metric, from, to, false);
+    }
+
+    private double extreme(Metric metric, int from, int to, boolean min) {
+        checkRange(from, to);
+        GorillaColumn column = columns[FIRST_METRIC + metric.ordinal()];
+        double result = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        for (int block = from / GorillaColumn.BLOCK_ROWS, row = from; row < to; block++) {
+            GorillaColumn.Reader reader = column.reader(block);
+            int blockStart = block * GorillaColumn.BLOCK_ROWS;
+            reader.skip(row - blockStart);
+            int end = Math.min(to, blockStart + GorillaColumn.BLOCK_ROWS);
+            for (; row < end; row++) {
+                double value = Double.longBitsToDouble(reader.next());
+                result = min ? Math.min(result, value) : Math.max(result, value);
+            }
+        }
+        return result;
+    }
+
+    private double metric(Metric metric, int row) {
+        return Double.longBitsToDouble(value(FIRST_METRIC + metric.ordinal(), row));
+    }
+
+    private long value(int column, int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        int index = row / GorillaColumn.BLOCK_ROWS;
+        int offset = row - index * GorillaColumn.BLOCK_ROWS;
+        BlockCache cache = blocks.get();
+        int slot = column * CACHE_BLOCKS + (index & (CACHE_BLOCKS - 1));
+        // Si el bloque era el último, pudo decodificarse antes de añadirle filas
+        if (cache.indexes[slot] != index || offset >= cache.rows[slot]) {
+            if (cache.values[slot] == null) {
+                cache.values[slot] = new long[GorillaColumn.BLOCK_ROWS];
+            }
+            cache.rows[slot] = columns[column].decodeBlock(index, cache.values[slot]);
+            cache.indexes[slot] = index;
+        }
+        return cache.values[slot][offset];
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Rango [" + from + ", " + to + ") fuera de " + size + " filas");
+        }
+    }
+
+    /**
+     * Bloques decodificados de un hilo: la ranura de un bloque es columna × CACHE_BLOCKS más
+     * su número módulo CACHE_BLOCKS
+     */
+    private static final class BlockCache {
+        private final int[] indexes = new int[COLUMNS * CACHE_BLOCKS];
+        private final int[] rows = new int[COLUMNS * CACHE_BLOCKS];
+        private final long[][] values = new long[COLUMNS * CACHE_BLOCKS][];
+
+        private BlockCache() {
+            Arrays.fill(indexes, -1);
+        }
+    }
+}
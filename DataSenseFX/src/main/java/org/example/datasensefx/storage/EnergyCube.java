@@ -0,0 +1,247 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Cubo denso de mediciones: tipo de carga × día de la semana × estado de semana × hora.
+ *
+ * Son 3 × 7 × 2 × 24 = 1008 celdas guardadas en arrays planos; cada una acumula el número
+ * de mediciones y la suma, la media y varianza (Welford), el mínimo y el máximo de cada
+ * {@link Metric}. Se construye en una pasada y se actualiza con {@link #add}; cualquier
+ * corte o agregación sobre las cuatro dimensiones recorre como mucho esas 1008 celdas, sin
+ * tocar las filas.
+ *
+ * Las mediciones con un tipo de carga, día o estado fuera de los valores conocidos no caben
+ * en el cubo: se cuentan aparte y {@link #isComplete()} pasa a ser false.
+ */
+public class EnergyCube {
+
+    /** Comodín: agrega todos los valores de una dimensión */
+    public static final int ALL = -1;
+
+    // Los valores conocidos de cada Category: su código global coincide con su posición en el cubo
+    public static final String[] LOAD_TYPES = Category.LOAD_TYPE.getKnownValues();
+    public static final String[] DAYS_OF_WEEK = Category.DAY_OF_WEEK.getKnownValues();
+    public static final String[] WEEK_STATUSES = Category.WEEK_STATUS.getKnownValues();
+    public static final int HOURS = 24;
+
+    private static final int CELLS = LOAD_TYPES.length * DAYS_OF_WEEK.length * WEEK_STATUSES.length * HOURS;
+    private static final int METRICS = Metric.values().length;
+
+    private final long[] counts = new long[CELLS];
+    // Índice: celda * METRICS + métrica
+    private final double[] sums = new double[CELLS * METRICS];
+    private final double[] means = new double[CELLS * METRICS];
+    private final double[] m2s = new double[CELLS * METRICS];
+    private final double[] mins = new double[CELLS * METRICS];
+    private final double[] maxs = new double[CELLS * METRICS];
+
+    private long rejected;
+
+    public EnergyCube() {
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Construye el cubo con todas las filas de un almacén
+     */
+    public static EnergyCube from(MeasurementStore store) {
+        EnergyCube cube = new EnergyCube();
+        // Traducción de los códigos de diccionario del almacén a posiciones del cubo
+        int[] loadTypes = positions(store, Category.LOAD_TYPE, LOAD_TYPES);
+        int[] days = positions(store, Category.DAY_OF_WEEK, DAYS_OF_WEEK);
+        int[] weekStatuses = positions(store, Category.WEEK_STATUS, WEEK_STATUSES);
+        double[] values = new double[METRICS];
+        for (int row = 0, n = store.size(); row < n; row++) {
+            int loadType = loadTypes[store.getCode(Category.LOAD_TYPE, row)];
+            int day = days[store.getCode(Category.DAY_OF_WEEK, row)];
+            int weekStatus = weekStatuses[store.getCode(Category.WEEK_STATUS, row)];
+            values[Metric.USAGE_KWH.ordinal()] = store.getUsageKWh(row);
+            values[Metric.LAGGING_REACTIVE.ordinal()] = store.getLaggingReactive(row);
+            values[Metric.LEADING_REACTIVE.ordinal()] = store.getLeadingReactive(row);
+            values[Metric.CO2.ordinal()] = store.getCo2(row);
+            values[Metric.LAGGING_POWER_FACTOR.ordinal()] = store.getLaggingPowerFactor(row);
+            values[Metric.LEADING_POWER_FACTOR.ordinal()] = store.getLeadingPowerFactor(row);
+            cube.add(loadType, day, weekStatus, store.getHour(row), values);
+        }
+        return cube;
+    }
+
+    /**
+     * Añade una medición al cubo
+     */
+    public void add(Measurement m) {
+        double[] values = {
+            m.getUsageKWh(), m.getLaggingReactive(), m.getLeadingReactive(),
+            m.getCo2(), m.getLaggingPowerFactor(), m.getLeadingPowerFactor()
+        };
+        int hour = (int) (Math.floorMod(Math.floorDiv(m.getDate().toEpochSecond(ZoneOffset.UTC), 60), MeasurementStore.MINUTES_PER_DAY) / 60);
+        add(position(m.getLoadTypeCode(), LOAD_TYPES), position(m.getDayOfWeekCode(), DAYS_OF_WEEK),
+                position(m.getWeekStatusCode(), WEEK_STATUSES), hour, values);
+    }
+
+    /**
+     * Posición en el cubo de un código global, o -1 si no es uno de los valores conocidos
+     */
+    private static int position(int code, String[] dimension) {
+        return code < dimension.length ? code : -1;
+    }
+
+    private void add(int loadType, int day, int weekStatus, int hour, double[] values) {
+        if (loadType < 0 || day < 0 || weekStatus < 0) {
+            rejected++;
+            return;
+        }
+        int cell = cell(loadType, day, weekStatus, hour);
+        long count = ++counts[cell];
+        int base = cell * METRICS;
+        for (int metric = 0; metric < METRICS; metric++) {
+            double value = values[metric];
+            sums[base + metric] += value;
+            double delta = value - means[base + metric];
+            means[base + metric] += delta / count;
+            m2s[base + metric] += delta * (value - means[base + metric]);
+            mins[base + metric] = Math.min(mins[base + metric], value);
+            maxs[base + metric] = Math.max(maxs[base + metric], value);
+        }
+    }
+
+    /**
+     * Indica si todas las mediciones añadidas caben en el cubo
+     */
+    public boolean isComplete() {
+        return rejected == 0;
+    }
+
+    /**
+     * Mediciones que no se pudieron añadir por tener valores categóricos desconocidos
+     */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Número de mediciones de las celdas seleccionadas (cada posición o {@link #ALL})
+     */
+    public long count(int loadType, int day, int weekStatus, int hour) {
+        long count = 0;
+        for (int lt = from(loadType); lt < to(loadType, LOAD_TYPES.length); lt++) {
+            for (int d = from(day); d < to(day, DAYS_OF_WEEK.length); d++) {
+                for (int ws = from(weekStatus); ws < to(weekStatus, WEEK_STATUSES.length); ws++) {
+                    for (int h = from(hour); h < to(hour, HOURS); h++) {
+                        count += counts[cell(lt, d, ws, h)];
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Suma de una métrica en las celdas seleccionadas
+     */
+    public double sum(Metric metric, int loadType, int day, int weekStatus, int hour) {
+        double sum = 0;
+        for (int lt = from(loadType); lt < to(loadType, LOAD_TYPES.length); lt++) {
+            for (int d = from(day); d < to(day, DAYS_OF_WEEK.length); d++) {
+                for (int ws = from(weekStatus); ws < to(weekStatus, WEEK_STATUSES.length); ws++) {
+                    for (int h = from(hour); h < to(hour, HOURS); h++) {
+                        sum += sums[cell(lt, d, ws, h) * METRICS + metric.ordinal()];
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Estadísticas completas (media, varianza...) de una métrica en las celdas seleccionadas,
+     * combinando las de cada celda
+     */
+    public StreamingStats stats(Metric metric, int loadType, int day, int weekStatus, int hour) {
+        StreamingStats stats = new StreamingStats();
+        for (int lt = from(loadType); lt < to(loadType, LOAD_TYPES.length); lt++) {
+            for (int d = from(day); d < to(day, DAYS_OF_WEEK.length); d++) {
+                for (int ws = from(weekStatus); ws < to(weekStatus, WEEK_STATUSES.length); ws++) {
+                    for (int h = from(hour); h < to(hour, HOURS); h++) {
+                        int cell = cell(lt, d, ws, h);
+                        int index = cell * METRICS + metric.ordinal();
+                        stats.combine(StreamingStats.of(counts[cell], sums[index], means[index], m2s[index], mins[index], maxs[index]));
+                    }
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Mínimo de una métrica en las celdas seleccionadas (+infinito si están vacías)
+     */
+    public double min(Metric metric, int loadType, int day, int weekStatus, int hour) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int lt = from(loadType); lt < to(loadType, LOAD_TYPES.length); lt++) {
+            for (int d = from(day); d < to(day, DAYS_OF_WEEK.length); d++) {
+                for (int ws = from(weekStatus); ws < to(weekStatus, WEEK_STATUSES.length); ws++) {
+                    for (int h = from(hour); h < to(hour, HOURS); h++) {
+                        min = Math.min(min, mins[cell(lt, d, ws, h) * METRICS + metric.ordinal()]);
+                    }
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Máximo de una métrica en las celdas seleccionadas (-infinito si están vacías)
+     */
+    public double max(Metric metric, int loadType, int day, int weekStatus, int hour) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int lt = from(loadType); lt < to(loadType, LOAD_TYPES.length); lt++) {
+            for (int d = from(day); d < to(day, DAYS_OF_WEEK.length); d++) {
+                for (int ws = from(weekStatus); ws < to(weekStatus, WEEK_STATUSES.length); ws++) {
+                    for (int h = from(hour); h < to(hour, HOURS); h++) {
+                        max = Math.max(max, maxs[cell(lt, d, ws, h) * METRICS + metric.ordinal()]);
+                    }
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Posición de un valor en una dimensión, o -1 si no es un valor conocido
+     */
+    public static int indexOf(String[] dimension, String value) {
+        for (int i = 0; i < dimension.length; i++) {
+            if (dimension[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int cell(int loadType, int day, int weekStatus, int hour) {
+        return ((loadType * DAYS_OF_WEEK.length + day) * WEEK_STATUSES.length + weekStatus) * HOURS + hour;
+    }
+
+    // Posiciones [from, to) a recorrer de una dimensión: una sola, o todas con ALL
+    private static int from(int position) {
+        return position == ALL ? 0 : position;
+    }
+
+    private static int to(int position, int size) {
+        return position == ALL ? size : position + 1;
+    }
+
+    private static int[] positions(MeasurementStore store, Category category, String[] dimension) {
+        int[] positions = new int[store.dictionarySize(category)];
+        for (int code = 0; code < positions.length; code++) {
+            positions[code] = indexOf(dimension, store.decode(category, code));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,374 @@
+package org.example.datasensefx.storage;
+
+import java.util.Arrays;
+
+/**
+ * Columna de valores de 64 bits comprimida al estilo Gorilla, en bloques de {@link #BLOCK_ROWS}
+ * filas que se decodifican de forma independiente.
+ *
+ * Dos codificaciones, según el tipo de columna:
+ * <ul>
+ *   <li>{@link Encoding#DELTA_OF_DELTA}: para enteros regulares (fechas cada 15 minutos, NSM,
+ *   códigos que cambian poco). Se guarda la diferencia entre deltas consecutivas con prefijos
+ *   de longitud variable: 1 bit si la serie es regular.</li>
+ *   <li>{@link Encoding#XOR}: para doubles. Un valor repetido ocupa 1 bit. Si no, se guarda
+ *   el XOR con el anterior (solo los bits significativos, reutilizando la ventana del anterior
+ *   cuando cabe en ella), salvo que ambos sean decimales con dos cifras como las del CSV
+ *   (3.17, 73.21): el XOR de dos de ellos apenas tiene ceros, así que se guarda la diferencia
+ *   de los valores por 100, que entre lecturas consecutivas es pequeña.</li>
+ * </ul>
+ * El primer valor de cada bloque va completo, así que leer una fila solo exige decodificar
+ * su bloque. Los bits se guardan en un único long[] con la posición inicial de cada bloque.
+ */
+final class GorillaColumn {
+
+    /** Filas por bloque (acceso aleatorio: como mucho se decodifica un bloque) */
+    static final int BLOCK_ROWS = 1024;
+
+    enum Encoding {
+        DELTA_OF_DELTA,
+        XOR
+    }
+
+    // Escala de los decimales que se guardan como enteros (dos cifras decimales)
+    private static final double DECIMAL_SCALE = 100;
+    // Marca de "no es un decimal con dos cifras"
+    private static final long NOT_DECIMAL = Long.MIN_VALUE;
+
+    private final Encoding encoding;
+    private long[] words = new long[16];
+    private long bitLength;
+    private long[] blockStarts = new long[4];
+    private int size;
+
+    // Estado del codificador: valor anterior y delta, ventana de bits o decimal escalado del anterior
+    private long previous;
+    private long previousDelta;
+    private int previousLeading;
+    private int previousTrailing;
+    private long previousScaled;
+
+    GorillaColumn(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Añade un valor al final de la columna
+     */
+    void add(long value) {
+        int position = size % BLOCK_ROWS;
+        if (position == 0) {
+            int block = size / BLOCK_ROWS;
+            if (block == blockStarts.length) {
+                blockStarts = Arrays.copyOf(blockStarts, Math.max(4, block * 2));
+            }
+            blockStarts[block] = bitLength;
+            write(value, 64);
+            previousDelta = 0;
+            previousLeading = -1;
+        } else if (encoding == Encoding.DELTA_OF_DELTA) {
+            long delta = value - previous;
+            writeDeltaOfDelta(delta - previousDelta);
+            previousDelta = delta;
+        } else {
+            writeDouble(value);
+        }
+        previous = value;
+        if (encoding == Encoding.XOR) {
+            previousScaled = scaled(value);
+        }
+        size++;
+    }
+
+    /**
+     * Lector secuencial desde el comienzo de un bloque
+     */
+    Reader reader(int block) {
+        return new Reader(block);
+    }
+
+    /**
+     * Decodifica un bloque completo
+     */
+    long[] decodeBlock(int block) {
+        Reader reader = reader(block);
+        long[] values = new long[reader.remaining];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reader.next();
+        }
+        return values;
+    }
+
+    /**
+     * Decodifica un bloque completo en un array de al menos {@link #BLOCK_ROWS} valores
+     * @return Valores decodificados (menos de BLOCK_ROWS en el último bloque)
+     */
+    int decodeBlock(int block, long[] values) {
+        Reader reader = reader(block);
+        int rows = reader.remaining;
+        for (int i = 0; i < rows; i++) {
+            values[i] = reader.next();
+        }
+        return rows;
+    }
+
+    /**
+     * Ajusta los arrays al contenido para liberar la capacidad sobrante
+     */
+    void trimToSize() {
+        words = Arrays.copyOf(words, (int) ((bitLength + 63) >>> 6));
+        blockStarts = Arrays.copyOf(blockStarts, (size + BLOCK_ROWS - 1) / BLOCK_ROWS);
+    }
+
+    /**
+     * Memoria ocupada por los arrays de la columna, en bytes
+     */
+    long getMemoryBytes() {
+        return (long) words.length * Long.BYTES + (long) blockStarts.length * Long.BYTES;
+    }
+
+    /**
+     * Bits usados por los valores (sin capacidad sobrante)
+     */
+    long getBitLength() {
+        return bitLength;
+    }
+
+    // Prefijos: 0 -> igual; 10 -> 7 bits; 110 -> 9 bits; 1110 -> 12 bits; 1111 -> 64 bits
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            write(0, 1);
+        } else if (fits(deltaOfDelta, 7)) {
+            write(0b10, 2);
+            write(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 9)) {
+            write(0b110, 3);
+            write(deltaOfDelta, 9);
+        } else if (fits(deltaOfDelta, 12)) {
+            write(0b1110, 4);
+            write(deltaOfDelta, 12);
+        } else {
+            write(0b1111, 4);
+            write(deltaOfDelta, 64);
+        }
+    }
+
+    // 0 -> igual; 10 -> diferencia de decimales escalados; 11 -> XOR
+    private void writeDouble(long value) {
+        if (value == previous) {
+            write(0, 1);
+            return;
+        }
+        long scaled = scaled(value);
+        if (scaled != NOT_DECIMAL && previousScaled != NOT_DECIMAL) {
+            write(0b10, 2);
+            writeDelta(scaled - previousScaled);
+        } else {
+            write(0b11, 2);
+            writeXor(value ^ previous);
+        }
+    }
+
+    // Prefijos: 0 -> 8 bits; 10 -> 14 bits; 110 -> 24 bits; 111 -> 64 bits
+    private void writeDelta(long delta) {
+        if (fits(delta, 8)) {
+            write(0, 1);
+            write(delta, 8);
+        } else if (fits(delta, 14)) {
+            write(0b10, 2);
+            write(delta, 14);
+        } else if (fits(delta, 24)) {
+            write(0b110, 3);
+            write(delta, 24);
+        } else {
+            write(0b111, 3);
+            write(delta, 64);
+        }
+    }
+
+    // XOR distinto de 0: 0 -> bits dentro de la ventana anterior; 1 -> ceros a la izquierda
+    // (5 bits), longitud - 1 (6 bits) y bits significativos
+    private void writeXor(long xor) {
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+            write(0, 1);
+            write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            return;
+        }
+        int length = 64 - leading - trailing;
+        write(1, 1);
+        write(leading, 5);
+        write(length - 1, 6);
+        write(xor >>> trailing, length);
+        previousLeading = leading;
+        previousTrailing = trailing;
+    }
+
+    /**
+     * Valor por 100 si el double es exactamente un decimal con dos cifras, o NOT_DECIMAL
+     */
+    private static long scaled(long bits) {
+        double value = Double.longBitsToDouble(bits);
+        double times = value * DECIMAL_SCALE;
+        if (!(Math.abs(times) < 1e15)) {
+            return NOT_DECIMAL;
+        }
+        long scaled = Math.round(times);
+        return Double.doubleToRawLongBits(scaled / DECIMAL_SCALE) == bits ? scaled : NOT_DECIMAL;
+    }
+
+    private static boolean fits(long value, int bits) {
+        return value >= -(1L << (bits - 1)) && value < (1L << (bits - 1));
+    }
+
+    /**
+     * Escribe los n bits bajos de value (1 <= n <= 64)
+     */
+    private void write(long value, int n) {
+        int needed = (int) ((bitLength + n + 63) >>> 6);
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+        }
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        int index = (int) (bitLength >>> 6);
+        int offset = (int) (bitLength & 63);
+        int free = 64 - offset;
+        if (n <= free) {
+            words[index] |= value << (free - n);
+        } else {
+            words[index] |= value >>> (n - free);
+            words[index + 1] |= value << (64 - (n - free));
+        }
+        bitLength += n;
+    }
+
+    /**
+     * Decodificador secuencial de un bloque: no reserva memoria por valor
+     */
+    final class Reader {
+
+        private long position;
+        private int remaining;
+        private boolean started;
+        private long value;
+        private long delta;
+        private int leading;
+        private int trailing;
+        private long scaled;
+
+        private Reader(int block) {
+            if (block < 0 || (long) block * BLOCK_ROWS >= size) {
+                throw new IndexOutOfBoundsException("Bloque " + block + " fuera de la columna");
+            }
+            position = blockStarts[block];
+            remaining = Math.min(BLOCK_ROWS, size - block * BLOCK_ROWS);
+        }
+
+        /**
+         * Indica si quedan valores en el bloque
+         */
+        boolean hasNext() {
+            return remaining > 0;
+        }
+
+        long next() {
+            if (remaining-- <= 0) {
+                throw new IllegalStateException("No quedan valores en el bloque");
+            }
+            if (!started) {
+                started = true;
+                value = read(64);
+            } else if (encoding == Encoding.DELTA_OF_DELTA) {
+                delta += readDeltaOfDelta();
+                value += delta;
+            } else if (read(1) == 0) {
+                return value;
+            } else if (read(1) == 0) {
+                scaled += readDelta();
+                // Mismo cálculo que al comprobar el decimal: se recupera el double exacto
+                value = Double.doubleToRawLongBits(scaled / DECIMAL_SCALE);
+                return value;
+            } else {
+                value ^= readXor();
+            }
+            if (encoding == Encoding.XOR) {
+                scaled = scaled(value);
+            }
+            return value;
+        }
+
+        /**
+         * Salta valores sin devolverlos (hay que decodificarlos igualmente)
+         */
+        void skip(int count) {
+            for (int i = 0; i < count; i++) {
+                next();
+            }
+        }
+
+        private long readDeltaOfDelta() {
+            if (read(1) == 0) {
+                return 0;
+            }
+            if (read(1) == 0) {
+                return signed(read(7), 7);
+            }
+            if (read(1) == 0) {
+                return signed(read(9), 9);
+            }
+            if (read(1) == 0) {
+                return signed(read(12), 12);
+            }
+            return read(64);
+        }
+
+        private long readDelta() {
+            if (read(1) == 0) {
+                return signed(read(8), 8);
+            }
+            if (read(1) == 0) {
+                return signed(read(14), 14);
+            }
+            if (read(1) == 0) {
+                return signed(read(24), 24);
+            }
+            return read(64);
+        }
+
+        private long readXor() {
+            if (read(1) == 1) {
+                leading = (int) read(5);
+                int length = (int) read(6) + 1;
+                trailing = 64 - leading - length;
+            }
+            int length = 64 - leading - trailing;
+            return read(length) << trailing;
+        }
+
+        private long read(int n) {
+            int index = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            int available = 64 - offset;
+            long result;
+            if (n <= available) {
+                result = words[index] << offset >>> (64 - n);
+            } else {
+                long high = words[index] << offset >>> offset;
+                result = high << (n - available) | words[index + 1] >>> (64 - (n - available));
+            }
+            position += n;
+            return result;
+        }
+
+        private static long signed(long value, int bits) {
+            return value << (64 - bits) >> (64 - bits);
+        }
+    }
+}
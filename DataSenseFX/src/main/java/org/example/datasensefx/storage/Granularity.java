@@ -0,0 +1,50 @@
+package org.example.datasensefx.storage;
+
+import java.time.LocalDate;
+
+/**
+ * Niveles de agregación de {@link RollupStore}; cada periodo se identifica por
+ * el minuto de época en que empieza
+ */
+public enum Granularity {
+    HOUR,
+    DAY,
+    /** Semana ISO, de lunes a domingo */
+    WEEK,
+    MONTH;
+
+    /**
+     * Inicio del periodo que contiene el minuto dado
+     */
+    public long periodStart(long epochMinute) {
+        long epochDay = Math.floorDiv(epochMinute, MeasurementStore.MINUTES_PER_DAY);
+        switch (this) {
+            case HOUR:
+                return Math.floorDiv(epochMinute, 60) * 60;
+            case DAY:
+                return epochDay * MeasurementStore.MINUTES_PER_DAY;
+            case WEEK:
+                // El día de época 0 (1970-01-01) fue jueves: se retrocede hasta el lunes
+                return (epochDay - Math.floorMod(epochDay + 3, 7)) * MeasurementStore.MINUTES_PER_DAY;
+            default:
+                return LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay() * MeasurementStore.MINUTES_PER_DAY;
+        }
+    }
+
+    /**
+     * Inicio del periodo siguiente al que empieza en periodStart
+     */
+    public long nextPeriodStart(long periodStart) {
+        switch (this) {
+            case HOUR:
+                return periodStart + 60;
+            case DAY:
+                return periodStart + MeasurementStore.MINUTES_PER_DAY;
+            case WEEK:
+                return periodStart + 7 * MeasurementStore.MINUTES_PER_DAY;
+            default:
+                long epochDay = Math.floorDiv(periodStart, MeasurementStore.MINUTES_PER_DAY);
+                return LocalDate.ofEpochDay(epochDay).plusMonths(1).toEpochDay() * MeasurementStore.MINUTES_PER_DAY;
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot binario y columnar de un CSV de mediciones.
+ *
+ * Formato (little-endian):
+ * <pre>
+ *  cabecera (64 bytes): magic, versión, tamaño, fecha de modificación y CRC32C del CSV de origen, nº de filas
+ *  diccionarios: weekStatus, dayOfWeek y loadType (nº de valores + cadenas UTF-8)
+ *  columnas (alineadas a 8): epochSecond long[], 6 x double[], nanos int[], nsm int[], 3 x byte[] códigos
+ * </pre>
+ * Al abrirlo cada columna se mapea en memoria y se lee sin copiarla; las mediciones
+ * solo se crean al pedirlas. Como {@link MeasurementStore} conserva los segundos de la fecha.
+ * Al abrirlo se comprueban también los diccionarios, los códigos y las fechas, de modo que un
+ * archivo dañado se rechaza con IOException en lugar de fallar después al leer una fila.
+ *
+ * Los códigos de {@link #getCode} son los del diccionario propio del snapshot, no los de
+ * {@link Category}: hay que traducirlos con {@link #decode}.
+ */
+public class MeasurementSnapshot implements MeasurementStore {
+
+    private static final int MAGIC = 0x504E5344; // "DSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAX_DICTIONARY = 256;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final long HASH_WINDOW_BYTES = 64L << 20;
+
+    /** Directorio de snapshots: propiedad datasensefx.snapshot.dir o ~/.datasensefx/snapshots */
+    public static final String DIRECTORY_PROPERTY = "datasensefx.snapshot.dir";
+    /** Con -Ddatasensefx.snapshot=false se desactiva la caché */
+    public static final String ENABLED_PROPERTY = "datasensefx.snapshot";
+
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long sourceHash;
+    private final int rowCount;
+
+    private final String[] weekStatuses;
+    private final String[] daysOfWeek;
+    private final String[] loadTypes;
+
+    private final LongBuffer epochSeconds;
+    private final DoubleBuffer usageKWh;
+    private final DoubleBuffer laggingReactive;
+    private final DoubleBuffer leadingReactive;
+    private final DoubleBuffer co2;
+    private final DoubleBuffer laggingPowerFactor;
+    private final DoubleBuffer leadingPowerFactor;
+    private final IntBuffer nanos;
+    private final IntBuffer nsm;
+    private final ByteBuffer weekStatusCodes;
+    private final ByteBuffer dayOfWeekCodes;
+    private final ByteBuffer loadTypeCodes;
+
+    private MeasurementSnapshot(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_BYTES) {
+            throw new IOException("Snapshot incompleto");
+        }
+        ByteBuffer header = map(channel, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Snapshot con formato desconocido");
+        }
+        sourceSize = header.getLong(8);
+        sourceModified = header.getLong(16);
+        sourceHash = header.getLong(24);
+        rowCount = header.getInt(32);
+        int dictionaryBytes = header.getInt(36);
+
+        long columnsStart = align(HEADER_BYTES + (long) dictionaryBytes);
+        if (rowCount < 0 || dictionaryBytes < 0 || columnsStart + columnsBytes(rowCount) != fileSize) {
+            throw new IOException("Snapshot con tamaño inconsistente");
+        }
+
+        ByteBuffer dictionaries = map(channel, HEADER_BYTES, dictionaryBytes);
+        weekStatuses = readDictionary(dictionaries);
+        daysOfWeek = readDictionary(dictionaries);
+        loadTypes = readDictionary(dictionaries);
+
+        long n = rowCount;
+        long offset = columnsStart;
+        epochSeconds = map(channel, offset, n * Long.BYTES).asLongBuffer();
+        offset += n * Long.BYTES;
+        usageKWh = map(channel, offset, n * Double.BYTES).asDoubleBuffer();
+        offset += n * Double.BYTES;
+        laggingReactive = map(channel, offset, n * Double.BYTES).asDoubleBuffer();
+        offset += n * Double.BYTES;
+        leadingReactive = map(channel, offset, n * Double.BYTES).asDoubleBuffer();
+        offset += n * Double.BYTES;
+        co2 = map(channel, offset, n * Double.BYTES).asDoubleBuffer();
+        offset += n * Double.BYTES;
+        laggingPowerFactor = map(channel, offset, n * Double.BYTES).asDoubleBuffer();
+        offset += n * Double.BYTES;
+        leadingPowerFactor = map(channel, offset, n * Double.BYTES).asDoubleBuffer();
+        offset += n * Double.BYTES;
+        nanos = map(channel, offset, n * Integer.BYTES).asIntBuffer();
+        offset += n * Integer.BYTES;
+        nsm = map(channel, offset, n * Integer.BYTES).asIntBuffer();
+        offset += n * Integer.BYTES;
+        weekStatusCodes = map(channel, offset, n);
+        offset += n;
+        dayOfWeekCodes = map(channel, offset, n);
+        offset += n;
+        loadTypeCodes = map(channel, offset, n);
+        validate();
+    }
+
+    /**
+     * Comprueba que los códigos caben en sus diccionarios y que las fechas se pueden construir
+     */
+    private void validate() throws IOException {
+        long minSecond = LocalDateTime.MIN.toEpochSecond(ZoneOffset.UTC);
+        long maxSecond = LocalDateTime.MAX.toEpochSecond(ZoneOffset.UTC);
+        for (int row = 0; row < rowCount; row++) {
+            if (Byte.toUnsignedInt(weekStatusCodes.get(row)) >= weekStatuses.length
+                    || Byte.toUnsignedInt(dayOfWeekCodes.get(row)) >= daysOfWeek.length
+                    || Byte.toUnsignedInt(loadTypeCodes.get(row)) >= loadTypes.length) {
+                throw new IOException("Snapshot con códigos fuera del diccionario en la fila " + row);
+            }
+            long second = epochSeconds.get(row);
+            int nano = nanos.get(row);
+            if (second < minSecond || second > maxSecond || nano < 0 || nano > 999_999_999) {
+                throw new IOException("Snapshot con una fecha inválida en la fila " + row);
+            }
+        }
+    }
+
+    /**
+     * Snapshot cuyas filas muestra la lista de {@link #asList()}, o null si las mediciones
+     * no son una de esas vistas
+     */
+    public static MeasurementSnapshot of(Iterable<Measurement> measurements) {
+        return measurements instanceof RowList rows ? rows.snapshot() : null;
+    }
+
+    /**
+     * Abre un snapshot mapeando sus columnas en memoria
+     * @throws IOException Si el archivo no existe o no es un snapshot válido
+     */
+    public static MeasurementSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Los buffers mapeados siguen siendo válidos tras cerrar el canal
+            return new MeasurementSnapshot(channel);
+        }
+    }
+
+    /**
+     * Indica si el snapshot se generó a partir de un origen con este tamaño, fecha y hash
+     */
+    public boolean matches(long size, long modified, long hash) {
+        return sourceSize == size && sourceModified == modified && sourceHash == hash;
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public long getEpochMinute(int row) {
+        return Math.floorDiv(epochSeconds.get(row), 60);
+    }
+
+    @Override
+    public LocalDateTime getDate(int row) {
+        return LocalDateTime.ofEpochSecond(epochSeconds.get(row), nanos.get(row), ZoneOffset.UTC);
+    }
+
+    @Override
+    public double getUsageKWh(int row) {
+        return usageKWh.get(row);
+    }
+
+    @Override
+    public double getLaggingReactive(int row) {
+        return laggingReactive.get(row);
+    }
+
+    @Override
+    public double getLeadingReactive(int row) {
+        return leadingReactive.get(row);
+    }
+
+    @Override
+    public double getCo2(int row) {
+        return co2.get(row);
+    }
+
+    @Override
+    public double getLaggingPowerFactor(int row) {
+        return laggingPowerFactor.get(row);
+    }
+
+    @Override
+    public double getLeadingPowerFactor(int row) {
+        return leadingPowerFactor.get(row);
+    }
+
+    @Override
+    public int getNsm(int row) {
+        return nsm.get(row);
+    }
+
+    @Override
+    public String getWeekStatus(int row) {
+        return weekStatuses[Byte.toUnsignedInt(weekStatusCodes.get(row))];
+    }
+
+    @Override
+    public String getDayOfWeek(int row) {
+        return daysOfWeek[Byte.toUnsignedInt(dayOfWeekCodes.get(row))];
+    }
+
+    @Override
+    public String getLoadType(int row) {
+        return loadTypes[Byte.toUnsignedInt(loadTypeCodes.get(row))];
+    }
+
+    @Override
+    public int getCode(Category category, int row) {
+        switch (category) {
+            case WEEK_STATUS:
+                return Byte.toUnsignedInt(weekStatusCodes.get(row));
+            case DAY_OF_WEEK:
+                return Byte.toUnsignedInt(dayOfWeekCodes.get(row));
+            default:
+                return Byte.toUnsignedInt(loadTypeCodes.get(row));
+        }
+    }
+
+    @Override
+    public String decode(Category category, int code) {
+        return dictionary(category)[code];
+    }
+
+    @Override
+    public int dictionarySize(Category category) {
+        return dictionary(category).length;
+    }
+
+    private String[] dictionary(Category category) {
+        switch (category) {
+            case WEEK_STATUS:
+                return weekStatuses;
+            case DAY_OF_WEEK:
+                return daysOfWeek;
+            default:
+                return loadTypes;
+        }
+    }
+
+    /**
+     * Crea la medición de una fila (las categorías comparten las cadenas del diccionario)
+     */
+    @Override
+    public Measurement get(int row) {
+        return new Measurement(getDate(row), getUsageKWh(row), getLaggingReactive(row),
+                getLeadingReactive(row), getCo2(row), getLaggingPowerFactor(row),
+                getLeadingPowerFactor(row), getNsm(row), getWeekStatus(row),
+                getDayOfWeek(row), getLoadType(row));
+    }
+
+    /**
+     * Vista de solo lectura en el orden del CSV original; cada acceso crea la medición de esa fila
+     */
+    @Override
+    public List<Measurement> asList() {
+        return new RowList(this);
+    }
+
+    /**
+     * Crea todas las mediciones en el orden del CSV original
+     */
+    public List<Measurement> toMeasurements() {
+        List<Measurement> out = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            out.add(get(i));
+        }
+        return out;
+    }
+
+    /**
+     * Escribe el snapshot de unas mediciones. Se escribe en un temporal y se mueve al
+     * destino al terminar, de modo que nunca queda un snapshot a medias.
+     *
+     * @throws IOException Si falla la escritura o alguna categoría tiene más de 256 valores distintos
+     */
+    public static void write(Path target, long sourceSize, long sourceModified, long sourceHash,
+                             List<Measurement> measurements) throws IOException {
+        int n = measurements.size();
+        if ((long) n * Long.BYTES > Integer.MAX_VALUE) {
+            throw new IOException("Demasiadas filas para un snapshot: " + n);
+        }
+
+        Map<String, Integer> weekStatusDictionary = new LinkedHashMap<>();
+        Map<String, Integer> dayOfWeekDictionary = new LinkedHashMap<>();
+        Map<String, Integer> loadTypeDictionary = new LinkedHashMap<>();
+        byte[] weekStatusColumn = new byte[n];
+        byte[] dayOfWeekColumn = new byte[n];
+        byte[] loadTypeColumn = new byte[n];
+        for (int i = 0; i < n; i++) {
+            Measurement m = measurements.get(i);
+            weekStatusColumn[i] = encode(weekStatusDictionary, m.getWeekStatus());
+            dayOfWeekColumn[i] = encode(dayOfWeekDictionary, m.getDayOfWeek());
+            loadTypeColumn[i] = encode(loadTypeDictionary, m.getLoadType());
+        }
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer dictionaries = encodeDictionaries(weekStatusDictionary, dayOfWeekDictionary, loadTypeDictionary);
+
+                ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                out.putInt(MAGIC).putInt(VERSION)
+                        .putLong(sourceSize).putLong(sourceModified).putLong(sourceHash)
+                        .putInt(n).putInt(dictionaries.remaining());
+                out.position(HEADER_BYTES);
+                flush(channel, out);
+                writeFully(channel, dictionaries);
+                long columnsStart = align(HEADER_BYTES + (long) dictionaries.capacity());
+                while (channel.position() + out.position() < columnsStart) {
+                    out.put((byte) 0);
+                }
+
+                for (int i = 0; i < n; i++) {
+                    ensure(channel, out, Long.BYTES);
+                    LocalDateTime date = measurements.get(i).getDate();
+                    out.putLong(date.toEpochSecond(ZoneOffset.UTC));
+                }
+                for (int column = 0; column < 6; column++) {
+                    for (int i = 0; i < n; i++) {
+                        ensure(channel, out, Double.BYTES);
+                        out.putDouble(metric(measurements.get(i), column));
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    ensure(channel, out, Integer.BYTES);
+                    out.putInt(measurements.get(i).getDate().getNano());
+                }
+                for (int i = 0; i < n; i++) {
+                    ensure(channel, out, Integer.BYTES);
+                    out.putInt(measurements.get(i).getNsm());
+                }
+                flush(channel, out);
+                writeFully(channel, ByteBuffer.wrap(weekStatusColumn));
+                writeFully(channel, ByteBuffer.wrap(dayOfWeekColumn));
+                writeFully(channel, ByteBuffer.wrap(loadTypeColumn));
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Ruta del snapshot asociado a un origen (archivo o recurso del classpath)
+     * @param sourceKey Identificador estable del origen, p. ej. la ruta absoluta del CSV
+     */
+    public static Path pathFor(String sourceKey) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        Path base = directory != null
+                ? Path.of(directory)
+                : Path.of(System.getProperty("user.home"), ".datasensefx", "snapshots");
+        String name = sourceKey.substring(sourceKey.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+        return base.resolve(name + "-" + Integer.toHexString(sourceKey.hashCode()) + ".dsnap");
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * CRC32C de todo el contenido del canal, leído por ventanas mapeadas
+     */
+    public static long checksum(FileChannel channel) throws IOException {
+        CRC32C crc = new CRC32C();
+        long size = channel.size();
+        for (long position = 0; position < size; position += HASH_WINDOW_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_WINDOW_BYTES, size - position)));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * CRC32C de un contenido ya en memoria (recursos del classpath)
+     */
+    public static long checksum(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static long columnsBytes(long rows) {
+        return rows * (Long.BYTES + 6L * Double.BYTES + 2L * Integer.BYTES + 3L);
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) throws IOException {
+        int count = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : -1;
+        if (count < 0 || count > MAX_DICTIONARY) {
+            throw new IOException("Diccionario de snapshot inválido");
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : -1;
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Diccionario de snapshot inválido");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static final class RowList extends AbstractList<Measurement> {
+        private final MeasurementSnapshot snapshot;
+
+        private RowList(MeasurementSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private MeasurementSnapshot snapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public Measurement get(int index) {
+            if (index < 0 || index >= snapshot.rowCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return snapshot.get(index);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.rowCount;
+        }
+    }
+
+    private static byte encode(Map<String, Integer> dictionary, String value) throws IOException {
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            if (dictionary.size() == MAX_DICTIONARY) {
+                throw new IOException("Demasiados valores distintos para el diccionario del snapshot");
+            }
+            code = dictionary.size();
+            dictionary.put(value, code);
+        }
+        return (byte) (int) code;
+    }
+
+    @SafeVarargs
+    private static ByteBuffer encodeDictionaries(Map<String, Integer>... dictionaries) {
+        List<byte[]> encoded = new ArrayList<>();
+        int size = 0;
+        for (Map<String, Integer> dictionary : dictionaries) {
+            size += Integer.BYTES;
+            for (String value : dictionary.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                size += Integer.BYTES + bytes.length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        int next = 0;
+        for (Map<String, Integer> dictionary : dictionaries) {
+            buffer.putInt(dictionary.size());
+            for (int i = 0; i < dictionary.size(); i++) {
+                byte[] bytes = encoded.get(next++);
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static double metric(Measurement m, int column) {
+        switch (column) {
+            case 0: return m.getUsageKWh();
+            case 1: return m.getLaggingReactive();
+            case 2: return m.getLeadingReactive();
+            case 3: return m.getCo2();
+            case 4: return m.getLaggingPowerFactor();
+            default: return m.getLeadingPowerFactor();
+        }
+    }
+
+    private static void ensure(FileChannel channel, ByteBuffer out, int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            flush(channel, out);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+        writeFully(channel, out.flip());
+        out.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Almacén columnar de mediciones: cada campo se lee por índice de fila, sin crear objetos.
+ *
+ * Las fechas se guardan como minutos desde 1970-01-01T00:00 (sin zona horaria) y las
+ * columnas categóricas como códigos de diccionario. Para el código existente que trabaja
+ * con {@link Measurement}, {@link #get(int)} y {@link #asList()} ofrecen vistas de fila.
+ */
+public interface MeasurementStore extends Iterable<Measurement> {
+
+    /** Minutos por día, para pasar de minuto de época a día y hora */
+    long MINUTES_PER_DAY = 1440;
+
+    int size();
+
+    long getEpochMinute(int row);
+
+    double getUsageKWh(int row);
+
+    double getLaggingReactive(int row);
+
+    double getLeadingReactive(int row);
+
+    double getCo2(int row);
+
+    double getLaggingPowerFactor(int row);
+
+    double getLeadingPowerFactor(int row);
+
+    int getNsm(int row);
+
+    /**
+     * Código de diccionario de una columna categórica
+     */
+    int getCode(Category category, int row);
+
+    /**
+     * Valor de un código de diccionario
+     */
+    String decode(Category category, int code);
+
+    /**
+     * Número de valores distintos de una columna categórica (los códigos van de 0 a este valor - 1)
+     */
+    int dictionarySize(Category category);
+
+    /**
+     * Valor de una columna numérica
+     */
+    default double getValue(Metric metric, int row) {
+        switch (metric) {
+            case USAGE_KWH:
+                return getUsageKWh(row);
+            case LAGGING_REACTIVE:
+                return getLaggingReactive(row);
+            case LEADING_REACTIVE:
+                return getLeadingReactive(row);
+            case CO2:
+                return getCo2(row);
+            case LAGGING_POWER_FACTOR:
+                return getLaggingPowerFactor(row);
+            default:
+                return getLeadingPowerFactor(row);
+        }
+    }
+
+    /**
+     * Suma de una columna en las filas [from, to)
+     */
+    default double sum(Metric metric, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += getValue(metric, i);
+        }
+        return sum;
+    }
+
+    /**
+     * Mínimo de una columna en las filas [from, to), o +infinito si no hay filas
+     */
+    default double min(Metric metric, int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, getValue(metric, i));
+        }
+        return min;
+    }
+
+    /**
+     * Máximo de una columna en las filas [from, to), o -infinito si no hay filas
+     */
+    default double max(Metric metric, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, getValue(metric, i));
+        }
+        return max;
+    }
+
+    default LocalDateTime getDate(int row) {
+        return LocalDateTime.ofEpochSecond(getEpochMinute(row) * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Día de época (LocalDate.toEpochDay) de la fila
+     */
+    default long getEpochDay(int row) {
+        return Math.floorDiv(getEpochMinute(row), MINUTES_PER_DAY);
+    }
+
+    /**
+     * Hora del día (0-23) de la fila
+     */
+    default int getHour(int row) {
+        return (int) (Math.floorMod(getEpochMinute(row), MINUTES_PER_DAY) / 60);
+    }
+
+    default String getWeekStatus(int row) {
+        return decode(Category.WEEK_STATUS, getCode(Category.WEEK_STATUS, row));
+    }
+
+    default String getDayOfWeek(int row) {
+        return decode(Category.DAY_OF_WEEK, getCode(Category.DAY_OF_WEEK, row));
+    }
+
+    default String getLoadType(int row) {
+        return decode(Category.LOAD_TYPE, getCode(Category.LOAD_TYPE, row));
+    }
+
+    /**
+     * Crea la medición de una fila
+     */
+    default Measurement get(int row) {
+        return new Measurement(getDate(row), getUsageKWh(row), getLaggingReactive(row),
+                getLeadingReactive(row), getCo2(row), getLaggingPowerFactor(row),
+                getLeadingPowerFactor(row), getNsm(row), getWeekStatus(row),
+                getDayOfWeek(row), getLoadType(row));
+    }
+
+    /**
+     * Vista de solo lectura como lista; cada acceso crea la medición de esa fila
+     */
+    default List<Measurement> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Measurement get(int index) {
+                if (index < 0 || index >= MeasurementStore.this.size()) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return MeasurementStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return MeasurementStore.this.size();
+            }
+        };
+    }
+
+    @Override
+    default Iterator<Measurement> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size();
+            }
+
+            @Override
+            public Measurement next() {
+                if (next >= size()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+}
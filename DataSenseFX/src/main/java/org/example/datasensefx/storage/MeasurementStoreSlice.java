@@ -0,0 +1,127 @@
+package org.example.datasensefx.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista de un tramo contiguo del orden temporal de otro almacén, sin copiar filas
+ */
+final class MeasurementStoreSlice implements MeasurementStore {
+
+    private final MeasurementStore base;
+    private final int[] rows;
+    private final int start;
+    private final int size;
+
+    MeasurementStoreSlice(MeasurementStore base, int[] rows, int start, int size) {
+        this.base = base;
+        this.rows = rows;
+        this.start = start;
+        this.size = size;
+    }
+
+    private int row(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return rows == null ? start + row : rows[start + row];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getEpochMinute(int row) {
+        return base.getEpochMinute(row(row));
+    }
+
+    @Override
+    public LocalDateTime getDate(int row) {
+        return base.getDate(row(row));
+    }
+
+    @Override
+    public double getUsageKWh(int row) {
+        return base.getUsageKWh(row(row));
+    }
+
+    @Override
+    public double getLaggingReactive(int row) {
+        return base.getLaggingReactive(row(row));
+    }
+
+    @Override
+    public double getLeadingReactive(int row) {
+        return base.getLeadingReactive(row(row));
+    }
+
+    @Override
+    public double getCo2(int row) {
+        return base.getCo2(row(row));
+    }
+
+    @Override
+    public double getLaggingPowerFactor(int row) {
+        return base.getLaggingPowerFactor(row(row));
+    }
+
+    @Override
+    public double getLeadingPowerFactor(int row) {
+        return base.getLeadingPowerFactor(row(row));
+    }
+
+    @Override
+    public int getNsm(int row) {
+        return base.getNsm(row(row));
+    }
+
+    // Las reducciones no dependen del orden: si el tramo son filas contiguas del almacén base
+    // (o todas sus filas) se delegan en él y aprovechan sus kernels de columna
+
+    @Override
+    public double sum(Metric metric, int from, int to) {
+        int baseFrom = baseRange(from, to);
+        return baseFrom < 0 ? MeasurementStore.super.sum(metric, from, to) : base.sum(metric, baseFrom, baseFrom + to - from);
+    }
+
+    @Override
+    public double min(Metric metric, int from, int to) {
+        int baseFrom = baseRange(from, to);
+        return baseFrom < 0 ? MeasurementStore.super.min(metric, from, to) : base.min(metric, baseFrom, baseFrom + to - from);
+    }
+
+    @Override
+    public double max(Metric metric, int from, int to) {
+        int baseFrom = baseRange(from, to);
+        return baseFrom < 0 ? MeasurementStore.super.max(metric, from, to) : base.max(metric, baseFrom, baseFrom + to - from);
+    }
+
+    /**
+     * Primera fila del almacén base si [from, to) es un tramo contiguo de él, o -1 si no
+     */
+    private int baseRange(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Rango [" + from + ", " + to + ") fuera de " + size + " filas");
+        }
+        if (rows == null) {
+            return start + from;
+        }
+        return from == 0 && to == size && size == base.size() ? 0 : -1;
+    }
+
+    @Override
+    public int getCode(Category category, int row) {
+        return base.getCode(category, row(row));
+    }
+
+    @Override
+    public String decode(Category category, int code) {
+        return base.decode(category, code);
+    }
+
+    @Override
+    public int dictionarySize(Category category) {
+        return base.dictionarySize(category);
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Tabla columnar en memoria: un array primitivo por campo.
+ *
+ * Cada fila ocupa 63 bytes (minuto de época, seis métricas, NSM y tres códigos de
+ * diccionario de un byte) frente a los más de 150 de una {@link Measurement} con su
+ * LocalDateTime, y los recorridos sobre una columna leen memoria contigua. Un código pasa
+ * a ocupar cuatro bytes si su columna supera los 256 valores distintos.
+ * La resolución temporal es de un minuto: los segundos de la fecha original se descartan.
+ * Las sumas, mínimos y máximos de columnas usan {@link ColumnKernels} (SIMD si está disponible).
+ * No es segura entre hilos: si se añaden filas mientras otros la leen, hay que protegerla
+ * (MainController lo hace con un cerrojo de lectura y escritura).
+ */
+public class MeasurementTable implements MeasurementStore {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] epochMinutes;
+    private double[] usageKWh;
+    private double[] laggingReactive;
+    private double[] leadingReactive;
+    private double[] co2;
+    private double[] laggingPowerFactor;
+    private double[] leadingPowerFactor;
+    private int[] nsm;
+    private CodeColumn weekStatusCodes;
+    private CodeColumn dayOfWeekCodes;
+    private CodeColumn loadTypeCodes;
+
+    private int size;
+
+    public MeasurementTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MeasurementTable(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Crea una tabla con todas las mediciones, en el mismo orden
+     */
+    public static MeasurementTable from(Iterable<Measurement> measurements) {
+        MeasurementTable table = measurements instanceof Collection<?> collection
+                ? new MeasurementTable(collection.size())
+                : new MeasurementTable();
+        for (Measurement m : measurements) {
+            table.add(m);
+        }
+        table.trimToSize();
+        return table;
+    }
+
+    /**
+     * Añade una medición al final de la tabla
+     */
+    public void add(Measurement m) {
+        if (size == epochMinutes.length) {
+            allocate(size + (size >> 1) + 1);
+        }
+        int row = size;
+        epochMinutes[row] = Math.floorDiv(m.getDate().toEpochSecond(ZoneOffset.UTC), 60);
+        usageKWh[row] = m.getUsageKWh();
+        laggingReactive[row] = m.getLaggingReactive();
+        leadingReactive[row] = m.getLeadingReactive();
+        co2[row] = m.getCo2();
+        laggingPowerFactor[row] = m.getLaggingPowerFactor();
+        leadingPowerFactor[row] = m.getLeadingPowerFactor();
+        nsm[row] = m.getNsm();
+        weekStatusCodes.set(row, m.getWeekStatusCode());
+        dayOfWeekCodes.set(row, m.getDayOfWeekCode());
+        loadTypeCodes.set(row, m.getLoadTypeCode());
+        size++;
+    }
+
+    /**
+     * Ajusta los arrays al número de filas para liberar la capacidad sobrante
+     */
+    public void trimToSize() {
+        if (size < epochMinutes.length) {
+            allocate(size);
+        }
+    }
+
+    /**
+     * Memoria aproximada ocupada por las columnas, en bytes
+     */
+    public long getMemoryBytes() {
+        int codeBytes = weekStatusCodes.bytesPerRow() + dayOfWeekCodes.bytesPerRow() + loadTypeCodes.bytesPerRow();
+        return (long) epochMinutes.length * (Long.BYTES + 6L * Double.BYTES + Integer.BYTES + codeBytes);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getEpochMinute(int row) {
+        return epochMinutes[row];
+    }
+
+    @Override
+    public LocalDateTime getDate(int row) {
+        return LocalDateTime.ofEpochSecond(epochMinutes[row] * 60, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public double getUsageKWh(int row) {
+        return usageKWh[row];
+    }
+
+    @Override
+    public double getLaggingReactive(int row) {
+        return laggingReactive[row];
+    }
+
+    @Override
+    public double getLeadingReactive(int row) {
+        return leadingReactive[row];
+    }
+
+    @Override
+    public double getCo2(int row) {
+        return co2[row];
+    }
+
+    @Override
+    public double getLaggingPowerFactor(int row) {
+        return laggingPowerFactor[row];
+    }
+
+    @Override
+    public double getLeadingPowerFactor(int row) {
+        return leadingPowerFactor[row];
+    }
+
+    @Override
+    public int getNsm(int row) {
+        return nsm[row];
+    }
+
+    @Override
+    public double sum(Metric metric, int from, int to) {
+        checkRange(from, to);
+        return ColumnKernels.sum(column(metric), from, to);
+    }
+
+    @Override
+    public double min(Metric metric, int from, int to) {
+        checkRange(from, to);
+        return ColumnKernels.min(column(metric), from, to);
+    }
+
+    @Override
+    public double max(Metric metric, int from, int to) {
+        checkRange(from, to);
+        return ColumnKernels.max(column(metric), from, to);
+    }
+
+    @Override
+    public int getCode(Category category, int row) {
+        switch (category) {
+            case WEEK_STATUS:
+                return weekStatusCodes.get(row);
+            case DAY_OF_WEEK:
+                return dayOfWeekCodes.get(row);
+            default:
+                return loadTypeCodes.get(row);
+        }
+    }
+
+    @Override
+    public String decode(Category category, int code) {
+        return category.decode(code);
+    }
+
+    @Override
+    public int dictionarySize(Category category) {
+        return category.dictionary().size();
+    }
+
+    private double[] column(Metric metric) {
+        switch (metric) {
+            case USAGE_KWH:
+                return usageKWh;
+            case LAGGING_REACTIVE:
+                return laggingReactive;
+            case LEADING_REACTIVE:
+                return leadingReactive;
+            case CO2:
+                return co2;
+            case LAGGING_POWER_FACTOR:
+                return laggingPowerFactor;
+            default:
+                return leadingPowerFactor;
+        }
+    }
+
+    // La capacidad de los arrays puede superar size: no se lee más allá de las filas añadidas
+    private void checkRange(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Rango [" + from + ", " + to + ") fuera de " + size + " filas");
+        }
+    }
+
+
+    private void allocate(int capacity) {
+        if (epochMinutes == null) {
+            epochMinutes = new long[capacity];
+            usageKWh = new double[capacity];
+            laggingReactive = new double[capacity];
+            leadingReactive = new double[capacity];
+            co2 = new double[capacity];
+            laggingPowerFactor = new double[capacity];
+            leadingPowerFactor = new double[capacity];
+            nsm = new int[capacity];
+            weekStatusCodes = new CodeColumn(capacity);
+            dayOfWeekCodes = new CodeColumn(capacity);
+            loadTypeCodes = new CodeColumn(capacity);
+            return;
+        }
+        epochMinutes = Arrays.copyOf(epochMinutes, capacity);
+        usageKWh = Arrays.copyOf(usageKWh, capacity);
+        laggingReactive = Arrays.copyOf(laggingReactive, capacity);
+        leadingReactive = Arrays.copyOf(leadingReactive, capacity);
+        co2 = Arrays.copyOf(co2, capacity);
+        laggingPowerFactor = Arrays.copyOf(laggingPowerFactor, capacity);
+        leadingPowerFactor = Arrays.copyOf(leadingPowerFactor, capacity);
+        nsm = Arrays.copyOf(nsm, capacity);
+        weekStatusCodes.resize(capacity);
+        dayOfWeekCodes.resize(capacity);
+        loadTypeCodes.resize(capacity);
+    }
+}
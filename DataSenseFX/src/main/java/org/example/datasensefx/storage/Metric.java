@@ -0,0 +1,13 @@
+package org.example.datasensefx.storage;
+
+/**
+ * Columnas numéricas de una medición
+ */
+public enum Metric {
+    USAGE_KWH,
+    LAGGING_REACTIVE,
+    LEADING_REACTIVE,
+    CO2,
+    LAGGING_POWER_FACTOR,
+    LEADING_POWER_FACTOR
+}
@@ -0,0 +1,264 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacén de mediciones fuera del heap, en memoria nativa o en un archivo mapeado.
+ *
+ * Las filas se agrupan en páginas de {@link #PAGE_ROWS} filas; dentro de cada página cada
+ * columna es contigua (minuto de época, seis métricas, NSM y tres códigos de un byte; los
+ * códigos a partir de 255, raros, se guardan aparte en el heap). El GC solo ve
+ * un objeto buffer por página, sin importar cuántas filas contenga. En modo nativo el
+ * tamaño máximo lo fija -XX:MaxDirectMemorySize; en modo mapeado, el disco.
+ */
+public class OffHeapMeasurementStore implements MeasurementStore, AutoCloseable {
+
+    /** Filas por página (potencia de dos) */
+    public static final int PAGE_ROWS = 1 << 16;
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_MASK = PAGE_ROWS - 1;
+
+    // Desplazamiento de cada columna dentro de una página
+    private static final int EPOCH_MINUTES = 0;
+    private static final int USAGE_KWH = EPOCH_MINUTES + PAGE_ROWS * Long.BYTES;
+    private static final int LAGGING_REACTIVE = USAGE_KWH + PAGE_ROWS * Double.BYTES;
+    private static final int LEADING_REACTIVE = LAGGING_REACTIVE + PAGE_ROWS * Double.BYTES;
+    private static final int CO2 = LEADING_REACTIVE + PAGE_ROWS * Double.BYTES;
+    private static final int LAGGING_POWER_FACTOR = CO2 + PAGE_ROWS * Double.BYTES;
+    private static final int LEADING_POWER_FACTOR = LAGGING_POWER_FACTOR + PAGE_ROWS * Double.BYTES;
+    private static final int NSM = LEADING_POWER_FACTOR + PAGE_ROWS * Double.BYTES;
+    private static final int WEEK_STATUS = NSM + PAGE_ROWS * Integer.BYTES;
+    private static final int DAY_OF_WEEK = WEEK_STATUS + PAGE_ROWS;
+    private static final int LOAD_TYPE = DAY_OF_WEEK + PAGE_ROWS;
+    private static final int PAGE_BYTES = LOAD_TYPE + PAGE_ROWS;
+    // Valor del byte de código cuando el código real no cabe y está en wideCodes
+    private static final int WIDE_CODE = 0xFF;
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    // Códigos de 255 en adelante de cada categoría: fila -> código
+    private final Map<Category, Map<Integer, Integer>> wideCodes = new EnumMap<>(Category.class);
+    private final FileChannel channel;
+    private final Path file;
+
+    private int size;
+    private boolean closed;
+
+    /**
+     * Crea un almacén vacío en memoria nativa
+     */
+    public OffHeapMeasurementStore() {
+        this.channel = null;
+        this.file = null;
+    }
+
+    /**
+     * Crea un almacén vacío respaldado por un archivo mapeado (se sobrescribe si existe)
+     */
+    public OffHeapMeasurementStore(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Crea un almacén con todas las mediciones, en el mismo orden
+     * @param file Archivo para el modo mapeado, o null para memoria nativa
+     */
+    public static OffHeapMeasurementStore from(Iterable<Measurement> measurements, Path file) throws IOException {
+        OffHeapMeasurementStore store = file == null ? new OffHeapMeasurementStore() : new OffHeapMeasurementStore(file);
+        try {
+            for (Measurement m : measurements) {
+                store.add(m);
+            }
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Archivo temporal para un almacén mapeado; se borra al cerrar el almacén o al salir
+     */
+    public static Path createTempFile() throws IOException {
+        Path temp = Files.createTempFile("datasensefx-store", ".bin");
+        temp.toFile().deleteOnExit();
+        return temp;
+    }
+
+    /**
+     * Añade una medición al final del almacén
+     * @throws IllegalStateException Si el almacén está cerrado
+     */
+    public void add(Measurement m) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Almacén cerrado");
+        }
+        int offset = size & PAGE_MASK;
+        if (offset == 0 && (size >>> PAGE_SHIFT) == pages.size()) {
+            pages.add(newPage(pages.size()));
+        }
+        ByteBuffer page = pages.get(size >>> PAGE_SHIFT);
+        page.putLong(EPOCH_MINUTES + offset * Long.BYTES, Math.floorDiv(m.getDate().toEpochSecond(ZoneOffset.UTC), 60));
+        page.putDouble(USAGE_KWH + offset * Double.BYTES, m.getUsageKWh());
+        page.putDouble(LAGGING_REACTIVE + offset * Double.BYTES, m.getLaggingReactive());
+        page.putDouble(LEADING_REACTIVE + offset * Double.BYTES, m.getLeadingReactive());
+        page.putDouble(CO2 + offset * Double.BYTES, m.getCo2());
+        page.putDouble(LAGGING_POWER_FACTOR + offset * Double.BYTES, m.getLaggingPowerFactor());
+        page.putDouble(LEADING_POWER_FACTOR + offset * Double.BYTES, m.getLeadingPowerFactor());
+        page.putInt(NSM + offset * Integer.BYTES, m.getNsm());
+        putCode(page, WEEK_STATUS + offset, Category.WEEK_STATUS, m.getWeekStatusCode());
+        putCode(page, DAY_OF_WEEK + offset, Category.DAY_OF_WEEK, m.getDayOfWeekCode());
+        putCode(page, LOAD_TYPE + offset, Category.LOAD_TYPE, m.getLoadTypeCode());
+        size++;
+    }
+
+    private void putCode(ByteBuffer page, int index, Category category, int code) {
+        if (code < WIDE_CODE) {
+            page.put(index, (byte) code);
+        } else {
+            page.put(index, (byte) WIDE_CODE);
+            wideCodes.computeIfAbsent(category, c -> new HashMap<>()).put(size, code);
+        }
+    }
+
+    /**
+     * Indica si el almacén está respaldado por un archivo mapeado
+     */
+    public boolean isMapped() {
+        return channel != null;
+    }
+
+    /**
+     * Bytes reservados fuera del heap (páginas completas)
+     */
+    public long getReservedBytes() {
+        return (long) pages.size() * PAGE_BYTES;
+    }
+
+    /**
+     * Cierra el almacén para escritura; en modo mapeado cierra y borra el archivo.
+     * Las filas siguen siendo legibles (un mapeo sigue válido tras cerrar su canal), de modo
+     * que las vistas que aún lo referencian no fallan; la memoria nativa y los mapeos los
+     * libera el recolector cuando el almacén deja de ser alcanzable.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Error cerrando el almacén mapeado " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getEpochMinute(int row) {
+        return page(row).getLong(EPOCH_MINUTES + (row & PAGE_MASK) * Long.BYTES);
+    }
+
+    @Override
+    public double getUsageKWh(int row) {
+        return page(row).getDouble(USAGE_KWH + (row & PAGE_MASK) * Double.BYTES);
+    }
+
+    @Override
+    public double getLaggingReactive(int row) {
+        return page(row).getDouble(LAGGING_REACTIVE + (row & PAGE_MASK) * Double.BYTES);
+    }
+
+    @Override
+    public double getLeadingReactive(int row) {
+        return page(row).getDouble(LEADING_REACTIVE + (row & PAGE_MASK) * Double.BYTES);
+    }
+
+    @Override
+    public double getCo2(int row) {
+        return page(row).getDouble(CO2 + (row & PAGE_MASK) * Double.BYTES);
+    }
+
+    @Override
+    public double getLaggingPowerFactor(int row) {
+        return page(row).getDouble(LAGGING_POWER_FACTOR + (row & PAGE_MASK) * Double.BYTES);
+    }
+
+    @Override
+    public double getLeadingPowerFactor(int row) {
+        return page(row).getDouble(LEADING_POWER_FACTOR + (row & PAGE_MASK) * Double.BYTES);
+    }
+
+    @Override
+    public int getNsm(int row) {
+        return page(row).getInt(NSM + (row & PAGE_MASK) * Integer.BYTES);
+    }
+
+    @Override
+    public int getCode(Category category, int row) {
+        ByteBuffer page = page(row);
+        int offset = row & PAGE_MASK;
+        int code;
+        switch (category) {
+            case WEEK_STATUS:
+                code = Byte.toUnsignedInt(page.get(WEEK_STATUS + offset));
+                break;
+            case DAY_OF_WEEK:
+                code = Byte.toUnsignedInt(page.get(DAY_OF_WEEK + offset));
+                break;
+            default:
+                code = Byte.toUnsignedInt(page.get(LOAD_TYPE + offset));
+                break;
+        }
+        return code == WIDE_CODE ? wideCodes.get(category).get(row) : code;
+    }
+
+    @Override
+    public String decode(Category category, int code) {
+        return category.decode(code);
+    }
+
+    @Override
+    public int dictionarySize(Category category) {
+        return category.dictionary().size();
+    }
+
+    private ByteBuffer page(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return pages.get(row >>> PAGE_SHIFT);
+    }
+
+    private ByteBuffer newPage(int index) throws IOException {
+        ByteBuffer page = channel == null
+                ? ByteBuffer.allocateDirect(PAGE_BYTES)
+                : channel.map(FileChannel.MapMode.READ_WRITE, (long) index * PAGE_BYTES, PAGE_BYTES);
+        return page.order(ByteOrder.nativeOrder());
+    }
+
+}
@@ -0,0 +1,236 @@
+package org.example.datasensefx.storage;
+
+import java.util.Arrays;
+
+/**
+ * Resumen aproximado de una distribución para calcular percentiles (P50, P95, P99...) sin
+ * guardar ni ordenar todos los valores.
+ *
+ * Es un sketch KLL: los valores entran en el nivel 0 y, cuando un nivel se llena, se ordena
+ * y se promueve uno de cada dos valores al nivel siguiente, donde cada valor pesa el doble.
+ * Las capacidades decrecen en progresión 2/3 desde el nivel más alto, así que la memoria
+ * crece solo con el logaritmo del número de valores y el error de rango es de alrededor
+ * del 1-2 % con k = 200. Mientras caben todos los valores en el nivel 0 los percentiles son
+ * exactos.
+ *
+ * Dos sketches se combinan con {@link #merge}: se pueden construir por partes (hilos,
+ * periodos de un rollup) y unir. La mitad que se promueve alterna en cada compactación en
+ * lugar de sortearse, de modo que el resultado es reproducible.
+ */
+public final class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final int MIN_CAPACITY = 2;
+    private static final int INITIAL_LEVEL_SIZE = 8;
+
+    private final int k;
+    // Valores de cada nivel; los del nivel h pesan 2^h
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    // Mitad que se promueve en la próxima compactación de cada nivel (pares o impares)
+    private boolean[] oddOffsets = new boolean[1];
+    private int levelCount = 1;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k Capacidad del nivel más alto: más grande, más preciso y más memoria
+     */
+    public QuantileSketch(int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k debe ser al menos " + MIN_CAPACITY + ": " + k);
+        }
+        this.k = k;
+    }
+
+    /**
+     * Añade un valor (los NaN se ignoran)
+     */
+    public void accept(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        append(0, value);
+        if (sizes[0] >= capacity(0)) {
+            compress();
+        }
+    }
+
+    /**
+     * Añade todos los valores de otro sketch
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int level = 0; level < other.levelCount; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Mínimo exacto, o +infinito si no hay valores
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Máximo exacto, o -infinito si no hay valores
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Valor aproximado del cuantil q (0 = mínimo, 0.5 = mediana, 1 = máximo), o NaN si no hay valores
+     */
+    public double quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    /**
+     * Varios cuantiles a la vez, ordenando los valores retenidos una sola vez
+     */
+    public double[] quantiles(double... qs) {
+        double[] result = new double[qs.length];
+        if (count == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        // Valores retenidos con su peso, ordenados por valor
+        int retained = 0;
+        for (int level = 0; level < levelCount; level++) {
+            retained += sizes[level];
+        }
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        Integer[] order = new Integer[retained];
+        int n = 0;
+        for (int level = 0; level < levelCount; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[n] = levels[level][i];
+                weights[n] = 1L << level;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        for (int j = 0; j < qs.length; j++) {
+            double q = qs[j];
+            if (q <= 0) {
+                result[j] = min;
+                continue;
+            }
+            if (q >= 1) {
+                result[j] = max;
+                continue;
+            }
+            double rank = q * count;
+            long cumulative = 0;
+            result[j] = max;
+            for (Integer i : order) {
+                cumulative += weights[i];
+                if (cumulative >= rank) {
+                    result[j] = values[i];
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return "QuantileSketch{count=0}";
+        }
+        double[] p = quantiles(0.5, 0.95, 0.99);
+        return String.format("QuantileSketch{count=%d, p50=%.4f, p95=%.4f, p99=%.4f}", count, p[0], p[1], p[2]);
+    }
+
+    private int capacity(int level) {
+        int depth = levelCount - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)));
+    }
+
+    private void append(int level, double value) {
+        while (level >= levelCount) {
+            addLevel();
+        }
+        double[] items = levels[level];
+        if (items == null) {
+            items = new double[INITIAL_LEVEL_SIZE];
+            levels[level] = items;
+        } else if (sizes[level] == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels[level] = items;
+        }
+        items[sizes[level]++] = value;
+    }
+
+    private void addLevel() {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levelCount * 2);
+            sizes = Arrays.copyOf(sizes, levelCount * 2);
+            oddOffsets = Arrays.copyOf(oddOffsets, levelCount * 2);
+        }
+        levelCount++;
+    }
+
+    /**
+     * Compacta de abajo arriba los niveles que superan su capacidad
+     */
+    private void compress() {
+        for (int level = 0; level < levelCount; level++) {
+            if (sizes[level] >= capacity(level)) {
+                compact(level);
+            }
+        }
+    }
+
+    /**
+     * Ordena un nivel y promueve la mitad de sus valores al siguiente; si el número de valores
+     * es impar, el mayor se queda en el nivel para no perder peso
+     */
+    private void compact(int level) {
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        int pairs = size / 2;
+        int offset = oddOffsets[level] ? 1 : 0;
+        oddOffsets[level] = !oddOffsets[level];
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, items[2 * i + offset]);
+        }
+        // append puede haber ampliado los arrays de niveles, pero no este nivel
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            sizes[level] = 1;
+        } else {
+            sizes[level] = 0;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.datasensefx.storage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agregado de un periodo de {@link RollupStore}: número de mediciones, consumo total,
+ * mínimo y máximo (con su fecha), CO2 total, consumo por tipo de carga y un
+ * {@link QuantileSketch} del consumo para sus percentiles
+ */
+public class Rollup {
+
+    private final Granularity granularity;
+    private final long start;
+
+    private long count;
+    // Sumas compensadas, como DoubleStream.sum(): coinciden con el informe calculado sobre la lista
+    private final CompensatedSum usageSum = new CompensatedSum();
+    private double usageMin = Double.POSITIVE_INFINITY;
+    private long usageMinMinute;
+    private double usageMax = Double.NEGATIVE_INFINITY;
+    private long usageMaxMinute;
+    private final CompensatedSum co2Sum = new CompensatedSum();
+    private CompensatedSum[] usageByLoadType = new CompensatedSum[4];
+    private long[] countByLoadType = new long[4];
+    private final QuantileSketch usageSketch = new QuantileSketch();
+    // Códigos globales de Category de la primera medición; -1 mientras no haya ninguna
+    private int weekStatusCode = -1;
+    private int dayOfWeekCode = -1;
+
+    Rollup(Granularity granularity, long start) {
+        this.granularity = granularity;
+        this.start = start;
+    }
+
+    void add(long epochMinute, double usage, double co2, int loadTypeCode, int weekStatusCode, int dayOfWeekCode) {
+        count++;
+        usageSum.add(usage);
+        co2Sum.add(co2);
+        usageSketch.accept(usage);
+        // Ante empates se queda la primera medición añadida, como Stream.min/max sobre la lista
+        // (con el orden de Double.compare: el NaN es mayor que todo)
+        if (count == 1 || Double.compare(usage, usageMin) < 0) {
+            usageMin = usage;
+            usageMinMinute = epochMinute;
+        }
+        if (count == 1 || Double.compare(usage, usageMax) > 0) {
+            usageMax = usage;
+            usageMaxMinute = epochMinute;
+        }
+        if (loadTypeCode >= usageByLoadType.length) {
+            int length = Math.max(loadTypeCode + 1, usageByLoadType.length * 2);
+            usageByLoadType = Arrays.copyOf(usageByLoadType, length);
+            countByLoadType = Arrays.copyOf(countByLoadType, length);
+        }
+        if (usageByLoadType[loadTypeCode] == null) {
+            usageByLoadType[loadTypeCode] = new CompensatedSum();
+        }
+        usageByLoadType[loadTypeCode].add(usage);
+        countByLoadType[loadTypeCode]++;
+        if (this.weekStatusCode < 0) {
+            this.weekStatusCode = weekStatusCode;
+            this.dayOfWeekCode = dayOfWeekCode;
+        }
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Inicio del periodo
+     */
+    public LocalDateTime getStart() {
+        return LocalDateTime.ofEpochSecond(start * 60, 0, ZoneOffset.UTC);
+    }
+
+    public long getStartMinute() {
+        return start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getUsageSum() {
+        return usageSum.get();
+    }
+
+    public double getAverageUsage() {
+        return count == 0 ? 0 : usageSum.get() / count;
+    }
+
+    public double getUsageMin() {
+        return usageMin;
+    }
+
+    /**
+     * Fecha de la medición con menor consumo
+     */
+    public LocalDateTime getUsageMinTime() {
+        return LocalDateTime.ofEpochSecond(usageMinMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    public double getUsageMax() {
+        return usageMax;
+    }
+
+    /**
+     * Fecha de la medición con mayor consumo
+     */
+    public LocalDateTime getUsageMaxTime() {
+        return LocalDateTime.ofEpochSecond(usageMaxMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Distribución del consumo del periodo; se puede combinar con las de otros periodos
+     * ({@link QuantileSketch#merge}) para obtener los percentiles de un rango
+     */
+    public QuantileSketch getUsageSketch() {
+        return usageSketch;
+    }
+
+    public double getCo2Sum() {
+        return co2Sum.get();
+    }
+
+    /**
+     * Consumo total por tipo de carga: tipo_carga -> consumo_kWh
+     */
+    public Map<String, Double> getUsageByLoadType() {
+        Map<String, Double> byLoadType = new HashMap<>();
+        for (int code = 0; code < countByLoadType.length; code++) {
+            if (countByLoadType[code] > 0) {
+                byLoadType.put(Category.LOAD_TYPE.decode(code), usageByLoadType[code].get());
+            }
+        }
+        return byLoadType;
+    }
+
+    /**
+     * Estado de semana (Weekday/Weekend) de la primera medición del periodo
+     */
+    public String getWeekStatus() {
+        return weekStatusCode < 0 ? null : Category.WEEK_STATUS.decode(weekStatusCode);
+    }
+
+    /**
+     * Código global de {@link #getWeekStatus()}, o -1 si el periodo está vacío
+     */
+    public int getWeekStatusCode() {
+        return weekStatusCode;
+    }
+
+    /**
+     * Día de la semana de la primera medición del periodo
+     */
+    public String getDayOfWeek() {
+        return dayOfWeekCode < 0 ? null : Category.DAY_OF_WEEK.decode(dayOfWeekCode);
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Agregados precalculados por hora, día, semana ISO y mes.
+ *
+ * Cada medición añadida actualiza su periodo en los cuatro niveles, así que el almacén se
+ * mantiene al día al ir llegando datos. Un informe sobre periodos completos (un día, las
+ * horas de un día, los días de un mes...) se responde con unas pocas búsquedas en árboles
+ * ordenados, sin importar cuántas mediciones haya en el histórico.
+ */
+public class RollupStore {
+
+    private final Map<Granularity, NavigableMap<Long, Rollup>> levels = new EnumMap<>(Granularity.class);
+    // Último periodo actualizado en cada nivel: las mediciones suelen llegar en orden
+    private final Rollup[] current = new Rollup[Granularity.values().length];
+    private final long[] currentEnd = new long[Granularity.values().length];
+    private long measurements;
+
+    public RollupStore() {
+        for (Granularity granularity : Granularity.values()) {
+            levels.put(granularity, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Crea los agregados de todas las filas de un almacén
+     */
+    public static RollupStore from(MeasurementStore store) {
+        RollupStore rollups = new RollupStore();
+        for (int row = 0, n = store.size(); row < n; row++) {
+            rollups.add(store, row);
+        }
+        return rollups;
+    }
+
+    /**
+     * Crea los agregados de unas mediciones
+     */
+    public static RollupStore from(Iterable<Measurement> measurements) {
+        RollupStore rollups = new RollupStore();
+        for (Measurement m : measurements) {
+            rollups.add(m);
+        }
+        return rollups;
+    }
+
+    /**
+     * Añade una medición a los agregados
+     */
+    public void add(Measurement m) {
+        add(Math.floorDiv(m.getDate().toEpochSecond(ZoneOffset.UTC), 60), m.getUsageKWh(), m.getCo2(),
+                m.getLoadTypeCode(), m.getWeekStatusCode(), m.getDayOfWeekCode());
+    }
+
+    /**
+     * Añade una fila de un almacén columnar a los agregados
+     */
+    public void add(MeasurementStore store, int row) {
+        // Los códigos del almacén pueden ser de su propio diccionario (p. ej. una instantánea)
+        add(store.getEpochMinute(row), store.getUsageKWh(row), store.getCo2(row),
+                Category.LOAD_TYPE.encode(store.getLoadType(row)),
+                Category.WEEK_STATUS.encode(store.getWeekStatus(row)),
+                Category.DAY_OF_WEEK.encode(store.getDayOfWeek(row)));
+    }
+
+    private void add(long epochMinute, double usage, double co2, int loadTypeCode, int weekStatusCode, int dayOfWeekCode) {
+        for (Granularity granularity : Granularity.values()) {
+            int level = granularity.ordinal();
+            Rollup rollup = current[level];
+            if (rollup == null || epochMinute < rollup.getStartMinute() || epochMinute >= currentEnd[level]) {
+                long start = granularity.periodStart(epochMinute);
+                rollup = levels.get(granularity).computeIfAbsent(start, k -> new Rollup(granularity, k));
+                current[level] = rollup;
+                currentEnd[level] = granularity.nextPeriodStart(start);
+            }
+            rollup.add(epochMinute, usage, co2, loadTypeCode, weekStatusCode, dayOfWeekCode);
+        }
+        measurements++;
+    }
+
+    /**
+     * Número de mediciones agregadas
+     */
+    public long getMeasurementCount() {
+        return measurements;
+    }
+
+    /**
+     * Número de periodos con datos en un nivel
+     */
+    public int size(Granularity granularity) {
+        return levels.get(granularity).size();
+    }
+
+    /**
+     * Agregado del periodo que contiene la fecha dada, o null si no hay datos en él
+     */
+    public Rollup get(Granularity granularity, LocalDateTime dateTime) {
+        long epochMinute = Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+        return levels.get(granularity).get(granularity.periodStart(epochMinute));
+    }
+
+    /**
+     * Agregado del periodo que contiene el día dado, o null si no hay datos en él
+     */
+    public Rollup get(Granularity granularity, LocalDate date) {
+        return get(granularity, date.atStartOfDay());
+    }
+
+    /**
+     * Todos los agregados de un nivel, en orden
+     */
+    public List<Rollup> all(Granularity granularity) {
+        return new ArrayList<>(levels.get(granularity).values());
+    }
+
+    /**
+     * Agregados del nivel dado cuyos periodos empiezan en [from, to), en orden
+     */
+    public List<Rollup> range(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        long fromMinute = Math.floorDiv(from.toEpochSecond(ZoneOffset.UTC), 60);
+        long toMinute = Math.floorDiv(to.toEpochSecond(ZoneOffset.UTC), 60);
+        if (toMinute <= fromMinute) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(levels.get(granularity).subMap(fromMinute, true, toMinute, false).values());
+    }
+
+    /**
+     * Agregados del nivel dado cuyos periodos empiezan entre dos días, ambos incluidos
+     */
+    public List<Rollup> range(Granularity granularity, LocalDate startInclusive, LocalDate endInclusive) {
+        return range(granularity, startInclusive.atStartOfDay(), endInclusive.plusDays(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,498 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Segmento inmutable de un {@link SegmentStore}: mediciones en orden temporal, comprimidas,
+ * con un pie de tamaño fijo que resume su contenido.
+ *
+ * Formato:
+ * <pre>
+ *  cabecera (8 bytes): magic y versión
+ *  bloque comprimido (deflate): diccionarios, fechas (delta), nanos, 6 métricas, NSM y 3 columnas de códigos
+ *  (de un byte, o de dos si su diccionario tiene más de 256 valores)
+ *  pie ({@link #FOOTER_BYTES} bytes, little-endian): secuencias, parte, nº de filas, tamaños y CRC32C
+ *  del bloque, fecha mínima y máxima, mínimo/máximo/suma de cada {@link Metric}, magic
+ * </pre>
+ * Al abrirlo solo se lee el pie: con él se decide si el segmento interesa a una consulta sin
+ * descomprimir nada. Cubre un rango de secuencias: las de los registros que se volcaron en
+ * él o las de los segmentos que se fusionaron al compactar. Una compactación puede repartir
+ * el resultado en varias partes consecutivas en el tiempo, que cubren el mismo rango.
+ */
+public final class Segment {
+
+    static final String PREFIX = "segment-";
+    static final String SUFFIX = ".dseg";
+
+    private static final int MAGIC = 0x47455344; // "DSEG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int METRICS = Metric.values().length;
+    // Valores distintos por categoría: hasta 256 los códigos ocupan un byte, hasta 65535 dos
+    private static final int BYTE_CODES = 256;
+    private static final int MAX_DICTIONARY = 0xFFFF;
+    static final int FOOTER_BYTES = 2 * Long.BYTES + 6 * Integer.BYTES + 2 * Long.BYTES
+            + 3 * METRICS * Double.BYTES + Integer.BYTES;
+
+    private final Path file;
+    private final long firstSequence;
+    private final long lastSequence;
+    private final int part;
+    private final int partCount;
+    private final int rowCount;
+    private final int blockBytes;
+    private final int rawBytes;
+    private final int blockChecksum;
+    private final long minEpochSecond;
+    private final long maxEpochSecond;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+
+    private Segment(Path file, ByteBuffer footer) throws IOException {
+        this.file = file;
+        firstSequence = footer.getLong();
+        lastSequence = footer.getLong();
+        part = footer.getInt();
+        partCount = footer.getInt();
+        rowCount = footer.getInt();
+        blockBytes = footer.getInt();
+        rawBytes = footer.getInt();
+        blockChecksum = footer.getInt();
+        minEpochSecond = footer.getLong();
+        maxEpochSecond = footer.getLong();
+        min = new double[METRICS];
+        max = new double[METRICS];
+        sum = new double[METRICS];
+        for (int i = 0; i < METRICS; i++) {
+            min[i] = footer.getDouble();
+            max[i] = footer.getDouble();
+            sum[i] = footer.getDouble();
+        }
+        if (footer.getInt() != MAGIC || rowCount <= 0 || blockBytes < 0 || rawBytes < 0
+                || firstSequence > lastSequence || part < 0 || part >= partCount) {
+            throw new IOException("Pie de segmento inválido: " + file);
+        }
+    }
+
+    /**
+     * Abre un segmento leyendo solo su pie
+     * @throws IOException Si el archivo no existe o no es un segmento válido
+     */
+    static Segment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES) {
+                throw new IOException("Segmento incompleto: " + file);
+            }
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Segmento con formato desconocido: " + file);
+            }
+            Segment segment = new Segment(file, read(channel, size - FOOTER_BYTES, FOOTER_BYTES));
+            if (HEADER_BYTES + (long) segment.blockBytes + FOOTER_BYTES != size) {
+                throw new IOException("Segmento con tamaño inconsistente: " + file);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Escribe un segmento con las mediciones (ya en orden temporal). Se escribe en un temporal
+     * y se mueve al destino al terminar, de modo que nunca queda un segmento a medias.
+     * @param part Número de parte (0..partCount-1) dentro del resultado de una compactación
+     */
+    static Segment write(Path directory, long firstSequence, long lastSequence, int part, int partCount,
+                         List<Measurement> rows) throws IOException {
+        int n = rows.size();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            encodeColumns(out, rows);
+        }
+        int rawBytes = raw.size();
+        ByteArrayOutputStream block = new ByteArrayOutputStream(rawBytes / 4);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(block, deflater)) {
+            raw.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+        byte[] compressed = block.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(compressed);
+
+        double[] min = new double[METRICS];
+        double[] max = new double[METRICS];
+        double[] sum = new double[METRICS];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        long minSecond = Long.MAX_VALUE;
+        long maxSecond = Long.MIN_VALUE;
+        for (Measurement m : rows) {
+            long second = m.getDate().toEpochSecond(ZoneOffset.UTC);
+            minSecond = Math.min(minSecond, second);
+            maxSecond = Math.max(maxSecond, second);
+            for (Metric metric : Metric.values()) {
+                double value = value(m, metric);
+                int i = metric.ordinal();
+                min[i] = Math.min(min[i], value);
+                max[i] = Math.max(max[i], value);
+                sum[i] += value;
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        footer.putLong(firstSequence).putLong(lastSequence).putInt(part).putInt(partCount)
+                .putInt(n).putInt(compressed.length).putInt(rawBytes).putInt((int) crc.getValue())
+                .putLong(minSecond).putLong(maxSecond);
+        for (int i = 0; i < METRICS; i++) {
+            footer.putDouble(min[i]).putDouble(max[i]).putDouble(sum[i]);
+        }
+        footer.putInt(MAGIC).flip();
+
+        Path target = directory.resolve(fileName(firstSequence, lastSequence, part));
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, header);
+                writeFully(channel, ByteBuffer.wrap(compressed));
+                writeFully(channel, footer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return open(target);
+    }
+
+    /**
+     * Lee y descomprime las mediciones del segmento, en orden temporal
+     */
+    public List<Measurement> read() throws IOException {
+        byte[] compressed;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer block = read(channel, HEADER_BYTES, blockBytes);
+            compressed = new byte[blockBytes];
+            block.get(compressed);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(compressed);
+        if ((int) crc.getValue() != blockChecksum) {
+            throw new IOException("Segmento dañado (CRC incorrecto): " + file);
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            return decodeColumns(in, rowCount);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Primera secuencia que cubre el segmento
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * Última secuencia que cubre el segmento
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Parte del segmento dentro de su rango de secuencias (0 salvo en compactaciones repartidas)
+     */
+    public int getPart() {
+        return part;
+    }
+
+    /**
+     * Partes que cubren el mismo rango de secuencias
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Tamaño del archivo en disco, en bytes
+     */
+    public long getFileBytes() {
+        return HEADER_BYTES + (long) blockBytes + FOOTER_BYTES;
+    }
+
+    /**
+     * Tamaño de las columnas sin comprimir, en bytes
+     */
+    public int getRawBytes() {
+        return rawBytes;
+    }
+
+    public long getMinEpochSecond() {
+        return minEpochSecond;
+    }
+
+    public long getMaxEpochSecond() {
+        return maxEpochSecond;
+    }
+
+    public LocalDateTime getMinDate() {
+        return LocalDateTime.ofEpochSecond(minEpochSecond, 0, ZoneOffset.UTC);
+    }
+
+    public LocalDateTime getMaxDate() {
+        return LocalDateTime.ofEpochSecond(maxEpochSecond, 0, ZoneOffset.UTC);
+    }
+
+    public double getMin(Metric metric) {
+        return min[metric.ordinal()];
+    }
+
+    public double getMax(Metric metric) {
+        return max[metric.ordinal()];
+    }
+
+    public double getSum(Metric metric) {
+        return sum[metric.ordinal()];
+    }
+
+    /**
+     * Indica si el segmento puede tener filas con segundo de época en [fromSecond, toSecond)
+     */
+    public boolean overlaps(long fromSecond, long toSecond) {
+        return minEpochSecond < toSecond && maxEpochSecond >= fromSecond;
+    }
+
+    /**
+     * Indica si el rango de secuencias del segmento contiene el de otro
+     */
+    boolean covers(long first, long last) {
+        return firstSequence <= first && last <= lastSequence;
+    }
+
+    /**
+     * Indica si es otra parte del mismo resultado (mismo rango de secuencias)
+     */
+    boolean isSiblingOf(Segment other) {
+        return firstSequence == other.firstSequence && lastSequence == other.lastSequence;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Segment{%d-%d/%d, %d filas, %s..%s, %d bytes}",
+                firstSequence, lastSequence, part, rowCount, getMinDate(), getMaxDate(), getFileBytes());
+    }
+
+    static String fileName(long firstSequence, long lastSequence, int part) {
+        return String.format("%s%016d-%016d-%03d%s", PREFIX, firstSequence, lastSequence, part, SUFFIX);
+    }
+
+    /**
+     * Columnas sin comprimir: las fechas como diferencias con la anterior (900 s en datos de
+     * 15 minutos), que el deflate reduce a casi nada; las categorías con diccionario propio
+     */
+    private static void encodeColumns(DataOutputStream out, List<Measurement> rows) throws IOException {
+        int n = rows.size();
+        List<Map<String, Integer>> dictionaries = new ArrayList<>();
+        int[][] codes = new int[Category.values().length][n];
+        for (Category category : Category.values()) {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) {
+                String value = category(rows.get(i), category);
+                Integer code = dictionary.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.put(value, code);
+                }
+                codes[category.ordinal()][i] = code;
+            }
+            if (dictionary.size() > MAX_DICTIONARY) {
+                throw new IOException("Demasiados valores distintos de " + category + " en un segmento: " + dictionary.size());
+            }
+            dictionaries.add(dictionary);
+        }
+        for (Map<String, Integer> dictionary : dictionaries) {
+            out.writeShort(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeUTF(value);
+                }
+            }
+        }
+        long previous = 0;
+        for (Measurement m : rows) {
+            long second = m.getDate().toEpochSecond(ZoneOffset.UTC);
+            out.writeLong(second - previous);
+            previous = second;
+        }
+        for (Measurement m : rows) {
+            out.writeInt(m.getDate().getNano());
+        }
+        for (Metric metric : Metric.values()) {
+            for (Measurement m : rows) {
+                out.writeDouble(value(m, metric));
+            }
+        }
+        for (Measurement m : rows) {
+            out.writeInt(m.getNsm());
+        }
+        for (int c = 0; c < codes.length; c++) {
+            boolean wide = dictionaries.get(c).size() > BYTE_CODES;
+            for (int code : codes[c]) {
+                if (wide) {
+                    out.writeShort(code);
+                } else {
+                    out.writeByte(code);
+                }
+            }
+        }
+    }
+
+    private static List<Measurement> decodeColumns(DataInputStream in, int n) throws IOException {
+        String[][] dictionaries = new String[Category.values().length][];
+        for (int c = 0; c < dictionaries.length; c++) {
+            String[] values = new String[in.readUnsignedShort()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readBoolean() ? in.readUTF() : null;
+            }
+            dictionaries[c] = values;
+        }
+        long[] seconds = new long[n];
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += in.readLong();
+            seconds[i] = previous;
+        }
+        int[] nanos = new int[n];
+        for (int i = 0; i < n; i++) {
+            nanos[i] = in.readInt();
+        }
+        double[][] metrics = new double[METRICS][n];
+        for (double[] column : metrics) {
+            for (int i = 0; i < n; i++) {
+                column[i] = in.readDouble();
+            }
+        }
+        int[] nsm = new int[n];
+        for (int i = 0; i < n; i++) {
+            nsm[i] = in.readInt();
+        }
+        int[][] codes = new int[dictionaries.length][n];
+        byte[] column = new byte[n];
+        for (int c = 0; c < codes.length; c++) {
+            if (dictionaries[c].length > BYTE_CODES) {
+                for (int i = 0; i < n; i++) {
+                    codes[c][i] = in.readUnsignedShort();
+                }
+            } else {
+                in.readFully(column);
+                for (int i = 0; i < n; i++) {
+                    codes[c][i] = Byte.toUnsignedInt(column[i]);
+                }
+            }
+        }
+
+        String[] weekStatuses = dictionaries[Category.WEEK_STATUS.ordinal()];
+        String[] daysOfWeek = dictionaries[Category.DAY_OF_WEEK.ordinal()];
+        String[] loadTypes = dictionaries[Category.LOAD_TYPE.ordinal()];
+        List<Measurement> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(new Measurement(LocalDateTime.ofEpochSecond(seconds[i], nanos[i], ZoneOffset.UTC),
+                    metrics[Metric.USAGE_KWH.ordinal()][i],
+                    metrics[Metric.LAGGING_REACTIVE.ordinal()][i],
+                    metrics[Metric.LEADING_REACTIVE.ordinal()][i],
+                    metrics[Metric.CO2.ordinal()][i],
+                    metrics[Metric.LAGGING_POWER_FACTOR.ordinal()][i],
+                    metrics[Metric.LEADING_POWER_FACTOR.ordinal()][i],
+                    nsm[i],
+                    weekStatuses[codes[Category.WEEK_STATUS.ordinal()][i]],
+                    daysOfWeek[codes[Category.DAY_OF_WEEK.ordinal()][i]],
+                    loadTypes[codes[Category.LOAD_TYPE.ordinal()][i]]));
+        }
+        return rows;
+    }
+
+    static double value(Measurement m, Metric metric) {
+        switch (metric) {
+            case USAGE_KWH:
+                return m.getUsageKWh();
+            case LAGGING_REACTIVE:
+                return m.getLaggingReactive();
+            case LEADING_REACTIVE:
+                return m.getLeadingReactive();
+            case CO2:
+                return m.getCo2();
+            case LAGGING_POWER_FACTOR:
+                return m.getLaggingPowerFactor();
+            default:
+                return m.getLeadingPowerFactor();
+        }
+    }
+
+    private static String category(Measurement m, Category category) {
+        switch (category) {
+            case WEEK_STATUS:
+                return m.getWeekStatus();
+            case DAY_OF_WEEK:
+                return m.getDayOfWeek();
+            default:
+                return m.getLoadType();
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Segmento incompleto");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
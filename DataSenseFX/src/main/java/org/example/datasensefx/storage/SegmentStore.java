@@ -0,0 +1,547 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Histórico de mediciones en disco que solo crece: nunca reescribe datos ya guardados.
+ *
+ * Las mediciones nuevas se añaden a un registro de escritura anticipada ({@link WriteAheadLog})
+ * y a una tabla en memoria; cada {@link #getFlushRows()} filas la tabla se ordena por fecha y
+ * se vuelca en un {@link Segment} inmutable y comprimido, y el registro se descarta. Un hilo
+ * en segundo plano fusiona los segmentos pequeños consecutivos y reparte sus filas, ya
+ * ordenadas, en partes mayores que no se solapan en el tiempo.
+ *
+ * Las consultas por rango de fechas leen solo los segmentos cuyo pie indica que se solapan
+ * con el rango (más las filas aún en memoria) y devuelven una {@link MeasurementTable}.
+ *
+ * Cada segmento cubre un rango de secuencias y cada registro tiene la secuencia del segmento
+ * en el que se volcará, de modo que tras una caída se sabe qué archivos sobran: un registro
+ * o segmento cubierto por otro segmento ya está guardado y se borra al abrir.
+ */
+public class SegmentStore implements AutoCloseable {
+
+    /** Propiedad de sistema con el directorio del histórico (-Ddatasensefx.segments=ruta) */
+    public static final String DIRECTORY_PROPERTY = "datasensefx.segments";
+
+    /** Filas en memoria que provocan el volcado a un segmento (unos 10 días de datos cada 15 minutos) */
+    public static final int DEFAULT_FLUSH_ROWS = 1024;
+    /** Segmentos pequeños consecutivos a partir de los cuales se compactan */
+    public static final int COMPACTION_MIN_SEGMENTS = 4;
+
+    private static final String WAL_PREFIX = "wal-";
+    private static final String WAL_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int flushRows;
+    // Un segmento con menos filas se considera pequeño y entra en la compactación; también es
+    // el tamaño de las partes que escribe (unos 85 días con el volcado por defecto)
+    private final int compactionRows;
+
+    // Las consultas toman el cerrojo de lectura; añadir, volcar y sustituir segmentos, el de escritura
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Ordenados por secuencia; se sustituye la lista entera al cambiar
+    private volatile List<Segment> segments;
+    private final List<Measurement> memtable = new ArrayList<>();
+    private long memtableFirstSequence;
+    private WriteAheadLog wal;
+    private boolean closed;
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "segment-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong segmentsRead = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    private SegmentStore(Path directory, int flushRows) {
+        this.directory = directory;
+        this.flushRows = flushRows;
+        this.compactionRows = flushRows * 8;
+    }
+
+    /**
+     * Abre (o crea) el histórico de un directorio con el tamaño de volcado por defecto
+     */
+    public static SegmentStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_FLUSH_ROWS);
+    }
+
+    /**
+     * Abre (o crea) el histórico de un directorio. Recupera las filas de los registros que no
+     * llegaron a volcarse y borra los archivos que una caída pudo dejar duplicados.
+     * @param flushRows Filas en memoria que provocan el volcado a un segmento
+     */
+    public static SegmentStore open(Path directory, int flushRows) throws IOException {
+        if (flushRows <= 0) {
+            throw new IllegalArgumentException("flushRows debe ser positivo: " + flushRows);
+        }
+        Path absolute = directory.toAbsolutePath().normalize();
+        Files.createDirectories(absolute);
+        SegmentStore store = new SegmentStore(absolute, flushRows);
+        store.recover();
+        return store;
+    }
+
+    /**
+     * Histórico configurado con -Ddatasensefx.segments, o null si no se indica
+     */
+    public static SegmentStore fromSystemProperty() throws IOException {
+        String value = System.getProperty(DIRECTORY_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return open(Path.of(value.trim()));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getFlushRows() {
+        return flushRows;
+    }
+
+    /**
+     * Añade una medición: al volver ya está en el registro y en disco
+     */
+    public void append(Measurement m) throws IOException {
+        appendAll(List.of(m));
+    }
+
+    /**
+     * Añade mediciones en lotes de {@link #getFlushRows()} (una escritura y una sincronización
+     * del registro por lote), volcando a segmentos a medida que se llenan
+     */
+    public void appendAll(Iterable<Measurement> measurements) throws IOException {
+        List<Measurement> batch = new ArrayList<>(flushRows);
+        for (Measurement m : measurements) {
+            batch.add(m);
+            if (batch.size() == flushRows) {
+                appendBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            appendBatch(batch);
+        }
+    }
+
+    /**
+     * Vuelca a un segmento las filas en memoria (no hace nada si no hay ninguna)
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            flushLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mediciones con fecha en [from, to), en orden temporal; solo se leen los segmentos que
+     * se solapan con el rango
+     */
+    public MeasurementTable between(LocalDateTime from, LocalDateTime to) throws IOException {
+        return MeasurementTable.from(select(from.toEpochSecond(ZoneOffset.UTC), to.toEpochSecond(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Mediciones entre dos días, ambos incluidos
+     */
+    public MeasurementTable range(LocalDate startInclusive, LocalDate endInclusive) throws IOException {
+        return between(startInclusive.atStartOfDay(), endInclusive.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Mediciones de un día
+     */
+    public MeasurementTable day(LocalDate date) throws IOException {
+        return range(date, date);
+    }
+
+    /**
+     * Todas las mediciones, en orden temporal
+     */
+    public List<Measurement> readAll() throws IOException {
+        return select(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Número de mediciones guardadas (según los pies de los segmentos, sin leerlos)
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            long total = memtable.size();
+            for (Segment segment : segments) {
+                total += segment.getRowCount();
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Fecha más antigua, o null si no hay datos (los segmentos solo leen su pie)
+     */
+    public LocalDateTime first() {
+        return bound(true);
+    }
+
+    /**
+     * Fecha más reciente, o null si no hay datos (los segmentos solo leen su pie)
+     */
+    public LocalDateTime last() {
+        return bound(false);
+    }
+
+    /**
+     * Segmentos actuales, en orden de secuencia
+     */
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Segmentos descomprimidos por las consultas desde que se abrió el histórico
+     */
+    public long getSegmentsRead() {
+        return segmentsRead.get();
+    }
+
+    /**
+     * Compactaciones realizadas desde que se abrió el histórico
+     */
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    /**
+     * Fusiona ya los segmentos pequeños consecutivos, sin esperar al hilo de compactación
+     */
+    public void compact() throws IOException {
+        while (compactOnce()) {
+            // Puede quedar otro grupo de segmentos pequeños
+        }
+    }
+
+    /**
+     * Vuelca las filas en memoria, espera a que termine la compactación en curso y cierra el registro
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            flushLocked();
+            closed = true;
+            wal.delete();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void appendBatch(List<Measurement> batch) throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            wal.append(batch);
+            memtable.addAll(batch);
+            if (memtable.size() >= flushRows) {
+                flushLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void flushLocked() throws IOException {
+        if (memtable.isEmpty()) {
+            return;
+        }
+        long last = wal.getSequence();
+        List<Measurement> rows = new ArrayList<>(memtable);
+        rows.sort(Comparator.comparing(Measurement::getDate));
+        Segment segment = Segment.write(directory, memtableFirstSequence, last, 0, 1, rows);
+        List<Segment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        segments = Collections.unmodifiableList(updated);
+
+        // Las filas ya están en el segmento: se descartan el registro y los que quedaron de una caída
+        wal.delete();
+        for (long sequence = memtableFirstSequence; sequence < last; sequence++) {
+            Files.deleteIfExists(walPath(sequence));
+        }
+        memtable.clear();
+        memtableFirstSequence = last + 1;
+        wal = WriteAheadLog.open(walPath(last + 1), last + 1, new ArrayList<>());
+        scheduleCompaction();
+    }
+
+    private List<Measurement> select(long fromSecond, long toSecond) throws IOException {
+        List<Measurement> rows = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments) {
+                if (!segment.overlaps(fromSecond, toSecond)) {
+                    continue;
+                }
+                segmentsRead.incrementAndGet();
+                for (Measurement m : segment.read()) {
+                    if (inRange(m, fromSecond, toSecond)) {
+                        rows.add(m);
+                    }
+                }
+            }
+            for (Measurement m : memtable) {
+                if (inRange(m, fromSecond, toSecond)) {
+                    rows.add(m);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Ordenación estable: a igual fecha, en orden de llegada
+        rows.sort(Comparator.comparing(Measurement::getDate));
+        return rows;
+    }
+
+    private static boolean inRange(Measurement m, long fromSecond, long toSecond) {
+        long second = m.getDate().toEpochSecond(ZoneOffset.UTC);
+        return second >= fromSecond && second < toSecond;
+    }
+
+    private LocalDateTime bound(boolean first) {
+        lock.readLock().lock();
+        try {
+            LocalDateTime result = null;
+            for (Segment segment : segments) {
+                result = pick(result, first ? segment.getMinDate() : segment.getMaxDate(), first);
+            }
+            for (Measurement m : memtable) {
+                result = pick(result, m.getDate(), first);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static LocalDateTime pick(LocalDateTime current, LocalDateTime candidate, boolean first) {
+        if (current == null) {
+            return candidate;
+        }
+        return first == candidate.isBefore(current) ? candidate : current;
+    }
+
+    private void scheduleCompaction() {
+        if (!closed && findSmallRun(segments) != null) {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.err.println("✗ Error compactando segmentos: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Fusiona el primer grupo de al menos {@link #COMPACTION_MIN_SEGMENTS} segmentos pequeños
+     * consecutivos. Lee y escribe sin cerrojo (solo la compactación borra segmentos y se
+     * ejecuta en un único hilo); el cerrojo de escritura solo se toma para sustituirlos.
+     * @return false si no había nada que compactar
+     */
+    private synchronized boolean compactOnce() throws IOException {
+        int[] bounds = findSmallRun(segments);
+        if (bounds == null) {
+            return false;
+        }
+
+        long startNanos = System.nanoTime();
+        List<Segment> run = segments.subList(bounds[0], bounds[1]);
+        List<Measurement> rows = new ArrayList<>();
+        for (Segment segment : run) {
+            rows.addAll(segment.read());
+        }
+        rows.sort(Comparator.comparing(Measurement::getDate));
+        // Partes consecutivas en el tiempo: aunque las filas llegaran desordenadas, cada parte
+        // cubre un tramo de fechas propio y las consultas por rango se saltan las demás
+        long first = run.get(0).getFirstSequence();
+        long last = run.get(run.size() - 1).getLastSequence();
+        int partCount = (rows.size() + compactionRows - 1) / compactionRows;
+        List<Segment> merged = new ArrayList<>(partCount);
+        for (int part = 0; part < partCount; part++) {
+            int from = part * compactionRows;
+            merged.add(Segment.write(directory, first, last, part, partCount,
+                    rows.subList(from, Math.min(rows.size(), from + compactionRows))));
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Segment> updated = new ArrayList<>(segments);
+            int index = updated.indexOf(run.get(0));
+            updated.subList(index, index + run.size()).clear();
+            updated.addAll(index, merged);
+            segments = Collections.unmodifiableList(updated);
+            for (Segment segment : run) {
+                Files.deleteIfExists(segment.getFile());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactions.incrementAndGet();
+        System.out.printf("✓ Compactados %d segmentos (%d mediciones) en %d en %.1f ms%n",
+                run.size(), rows.size(), partCount, (System.nanoTime() - startNanos) / 1e6);
+        return true;
+    }
+
+    /**
+     * Primer grupo [inicio, fin) de al menos {@link #COMPACTION_MIN_SEGMENTS} segmentos
+     * pequeños consecutivos, o null si no hay ninguno. Las partes de una compactación nunca
+     * cuentan como pequeñas: un grupo no puede llevarse solo algunas de ellas.
+     */
+    private int[] findSmallRun(List<Segment> current) {
+        int start = 0;
+        for (int i = 0; i <= current.size(); i++) {
+            if (i == current.size() || current.get(i).getPartCount() > 1
+                    || current.get(i).getRowCount() >= compactionRows) {
+                if (i - start >= COMPACTION_MIN_SEGMENTS) {
+                    return new int[]{start, i};
+                }
+                start = i + 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lee los pies de los segmentos, descarta los cubiertos por otros y recupera los registros
+     */
+    private void recover() throws IOException {
+        List<Segment> found = new ArrayList<>();
+        TreeMap<Long, Path> walFiles = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    // Segmento a medio escribir: nunca llegó a sustituir a nada
+                    Files.deleteIfExists(file);
+                } else if (name.startsWith(Segment.PREFIX) && name.endsWith(Segment.SUFFIX)) {
+                    try {
+                        found.add(Segment.open(file));
+                    } catch (IOException e) {
+                        System.err.println("⚠ Segmento ignorado: " + e.getMessage());
+                    }
+                } else if (name.startsWith(WAL_PREFIX) && name.endsWith(WAL_SUFFIX)) {
+                    try {
+                        walFiles.put(Long.parseLong(name.substring(WAL_PREFIX.length(), name.length() - WAL_SUFFIX.length())), file);
+                    } catch (NumberFormatException e) {
+                        System.err.println("⚠ Registro con nombre desconocido ignorado: " + name);
+                    }
+                }
+            }
+        }
+
+        // Por secuencia inicial y, a igualdad, el más amplio primero: los cubiertos quedan detrás
+        found.sort(Comparator.comparingLong(Segment::getFirstSequence)
+                .thenComparing(Comparator.comparingLong(Segment::getLastSequence).reversed())
+                .thenComparingInt(Segment::getPart));
+        List<Segment> kept = new ArrayList<>();
+        for (int start = 0, end; start < found.size(); start = end) {
+            // Partes del mismo rango de secuencias
+            end = start + 1;
+            while (end < found.size() && found.get(end).isSiblingOf(found.get(start))) {
+                end++;
+            }
+            List<Segment> group = found.subList(start, end);
+            Segment previous = kept.isEmpty() ? null : kept.get(kept.size() - 1);
+            boolean complete = group.size() == group.get(0).getPartCount();
+            for (int i = 0; complete && i < group.size(); i++) {
+                complete = group.get(i).getPart() == i;
+            }
+            if (!complete || (previous != null && previous.covers(group.get(0).getFirstSequence(), group.get(0).getLastSequence()))) {
+                // Una compactación no terminó de escribir sus partes (los segmentos originales
+                // siguen ahí), o terminó pero no llegó a borrar estos segmentos
+                for (Segment segment : group) {
+                    Files.deleteIfExists(segment.getFile());
+                }
+            } else {
+                kept.addAll(group);
+            }
+        }
+        segments = Collections.unmodifiableList(kept);
+        long nextSequence = kept.isEmpty() ? 0 : kept.get(kept.size() - 1).getLastSequence() + 1;
+
+        List<Long> pending = new ArrayList<>();
+        for (var entry : walFiles.entrySet()) {
+            long sequence = entry.getKey();
+            if (sequence < nextSequence) {
+                // Ya volcado a un segmento: la caída fue entre escribirlo y borrar el registro
+                Files.deleteIfExists(entry.getValue());
+            } else {
+                pending.add(sequence);
+            }
+        }
+
+        if (pending.isEmpty()) {
+            memtableFirstSequence = nextSequence;
+            wal = WriteAheadLog.open(walPath(nextSequence), nextSequence, memtable);
+            return;
+        }
+        memtableFirstSequence = pending.get(0);
+        for (int i = 0; i < pending.size() - 1; i++) {
+            WriteAheadLog.open(walPath(pending.get(i)), pending.get(i), memtable).close();
+        }
+        long active = pending.get(pending.size() - 1);
+        wal = WriteAheadLog.open(walPath(active), active, memtable);
+        System.out.println("✓ Recuperadas " + memtable.size() + " mediciones del registro de " + directory);
+        if (pending.size() > 1 || memtable.size() >= flushRows) {
+            flushLocked();
+        }
+    }
+
+    private Path walPath(long sequence) {
+        return directory.resolve(String.format("%s%016d%s", WAL_PREFIX, sequence, WAL_SUFFIX));
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("El histórico está cerrado: " + directory);
+        }
+    }
+}
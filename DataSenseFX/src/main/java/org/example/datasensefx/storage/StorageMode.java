@@ -0,0 +1,54 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.IOException;
+
+/**
+ * Dónde se guardan las columnas del almacén de mediciones
+ */
+public enum StorageMode {
+    /** Arrays primitivos en el heap ({@link MeasurementTable}) */
+    HEAP,
+    /** Memoria nativa fuera del heap ({@link OffHeapMeasurementStore}) */
+    OFF_HEAP,
+    /** Archivo mapeado en memoria ({@link OffHeapMeasurementStore}) */
+    MAPPED,
+    /** Columnas comprimidas estilo Gorilla en el heap ({@link CompressedMeasurementStore}) */
+    COMPRESSED;
+
+    /** Propiedad de sistema con el modo por defecto: heap, off_heap, mapped o compressed */
+    public static final String PROPERTY = "datasensefx.storage";
+
+    /**
+     * Modo configurado con -Ddatasensefx.storage (HEAP si no se indica o no es válido)
+     */
+    public static StorageMode fromSystemProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value == null || value.isBlank()) {
+            return HEAP;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Modo de almacenamiento desconocido: " + value + ", se usa HEAP");
+            return HEAP;
+        }
+    }
+
+    /**
+     * Crea un almacén con este modo a partir de unas mediciones
+     */
+    public MeasurementStore create(Iterable<Measurement> measurements) throws IOException {
+        switch (this) {
+            case OFF_HEAP:
+                return OffHeapMeasurementStore.from(measurements, null);
+            case MAPPED:
+                return OffHeapMeasurementStore.from(measurements, OffHeapMeasurementStore.createTempFile());
+            case COMPRESSED:
+                return CompressedMeasurementStore.from(measurements);
+            default:
+                return MeasurementTable.from(measurements);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.datasensefx.storage;
+
+/**
+ * Estadísticas de una serie de valores sin guardarlos: número, suma, media, varianza,
+ * desviación típica, mínimo y máximo.
+ *
+ * La media y la varianza se actualizan con el algoritmo de Welford, estable aunque los
+ * valores sean grandes o muy parecidos, y dos acumuladores se combinan con la fórmula de
+ * Chan et al., de modo que se pueden calcular por partes (hilos, celdas de un cubo) y unir.
+ * La memoria es constante, sea cual sea el número de valores.
+ */
+public final class StreamingStats {
+
+    private long count;
+    private double sum;
+    private double mean;
+    // Suma de los cuadrados de las diferencias con la media
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public StreamingStats() {
+    }
+
+    /**
+     * Crea unas estadísticas a partir de sus momentos (p. ej. guardados en arrays)
+     */
+    public static StreamingStats of(long count, double sum, double mean, double m2, double min, double max) {
+        StreamingStats stats = new StreamingStats();
+        if (count > 0) {
+            stats.count = count;
+            stats.sum = sum;
+            stats.mean = mean;
+            stats.m2 = m2;
+            stats.min = min;
+            stats.max = max;
+        }
+        return stats;
+    }
+
+    /**
+     * Añade un valor
+     */
+    public void accept(double value) {
+        count++;
+        sum += value;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Añade todos los valores de otras estadísticas
+     */
+    public void combine(StreamingStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            sum = other.sum;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Media, o 0 si no hay valores
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Suma de los cuadrados de las diferencias con la media (segundo momento centrado)
+     */
+    public double getM2() {
+        return m2;
+    }
+
+    /**
+     * Varianza poblacional, o 0 si no hay valores
+     */
+    public double getVariance() {
+        return count == 0 ? 0 : m2 / count;
+    }
+
+    /**
+     * Varianza muestral (dividida entre n - 1), o 0 con menos de dos valores
+     */
+    public double getSampleVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    /**
+     * Desviación típica poblacional
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Mínimo, o +infinito si no hay valores
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Máximo, o -infinito si no hay valores
+     */
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StreamingStats{count=%d, mean=%.4f, stddev=%.4f, min=%.4f, max=%.4f}",
+                count, mean, getStandardDeviation(), min, max);
+    }
+}
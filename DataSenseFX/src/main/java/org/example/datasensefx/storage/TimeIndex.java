@@ -0,0 +1,197 @@
+package org.example.datasensefx.storage;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+/**
+ * Índice temporal de un {@link MeasurementStore}: las filas ordenadas por fecha permiten
+ * resolver un día, una semana, un mes o cualquier rango con dos búsquedas binarias y
+ * devolver las filas como una porción contigua, sin recorrer el resto del histórico.
+ *
+ * Si el almacén ya está en orden temporal (lo habitual) el índice no ocupa memoria extra;
+ * si no, guarda la permutación de filas que lo ordena (estable ante fechas repetidas).
+ */
+public final class TimeIndex {
+
+    private final MeasurementStore store;
+    // Fila del almacén en cada posición ordenada, o null si el almacén ya está ordenado
+    private final int[] rows;
+
+    private TimeIndex(MeasurementStore store, int[] rows) {
+        this.store = store;
+        this.rows = rows;
+    }
+
+    /**
+     * Construye el índice de un almacén (O(n) si ya está ordenado, O(n log n) si no)
+     */
+    public static TimeIndex of(MeasurementStore store) {
+        int n = store.size();
+        boolean sorted = true;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            long minute = store.getEpochMinute(i);
+            if (i > 0 && minute < store.getEpochMinute(i - 1)) {
+                sorted = false;
+            }
+            min = Math.min(min, minute);
+            max = Math.max(max, minute);
+        }
+        if (sorted) {
+            return new TimeIndex(store, null);
+        }
+        return new TimeIndex(store, sortedRows(store, min, max));
+    }
+
+    /**
+     * Indica si el almacén ya estaba en orden temporal
+     */
+    public boolean isIdentity() {
+        return rows == null;
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Fila del almacén en una posición del orden temporal
+     */
+    public int rowAt(int position) {
+        return rows == null ? position : rows[position];
+    }
+
+    public long getEpochMinute(int position) {
+        return store.getEpochMinute(rowAt(position));
+    }
+
+    /**
+     * Primera posición con fecha mayor o igual que el minuto dado (size() si no hay ninguna)
+     */
+    public int lowerBound(long epochMinute) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getEpochMinute(mid) < epochMinute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Filas con fecha en [from, to), en orden temporal
+     */
+    public MeasurementStore between(LocalDateTime from, LocalDateTime to) {
+        return between(toEpochMinute(from), toEpochMinute(to));
+    }
+
+    /**
+     * Filas con minuto de época en [fromMinute, toMinute), en orden temporal
+     */
+    public MeasurementStore between(long fromMinute, long toMinute) {
+        int start = lowerBound(fromMinute);
+        int end = Math.max(start, lowerBound(toMinute));
+        return slice(start, end);
+    }
+
+    /**
+     * Filas en las posiciones [start, end) del orden temporal
+     */
+    MeasurementStore slice(int start, int end) {
+        return new MeasurementStoreSlice(store, rows, start, end - start);
+    }
+
+    MeasurementStore getStore() {
+        return store;
+    }
+
+    /**
+     * Filas de un día
+     */
+    public MeasurementStore day(LocalDate date) {
+        return range(date, date);
+    }
+
+    /**
+     * Filas entre dos días, ambos incluidos
+     */
+    public MeasurementStore range(LocalDate startInclusive, LocalDate endInclusive) {
+        return between(startInclusive.toEpochDay() * MeasurementStore.MINUTES_PER_DAY,
+                (endInclusive.toEpochDay() + 1) * MeasurementStore.MINUTES_PER_DAY);
+    }
+
+    /**
+     * Filas de la semana ISO (lunes a domingo) que contiene el día dado
+     */
+    public MeasurementStore isoWeek(LocalDate anyDay) {
+        LocalDate monday = anyDay.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return range(monday, monday.plusDays(6));
+    }
+
+    /**
+     * Filas de un mes
+     */
+    public MeasurementStore month(YearMonth month) {
+        return range(month.atDay(1), month.atEndOfMonth());
+    }
+
+    /**
+     * Fecha más antigua, o null si no hay filas
+     */
+    public LocalDateTime first() {
+        return size() == 0 ? null : store.getDate(rowAt(0));
+    }
+
+    /**
+     * Fecha más reciente, o null si no hay filas
+     */
+    public LocalDateTime last() {
+        return size() == 0 ? null : store.getDate(rowAt(size() - 1));
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        // Redondeo hacia arriba: un instante con segundos empieza a contar en el minuto siguiente
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        long minute = Math.floorDiv(seconds, 60);
+        return seconds % 60 != 0 || dateTime.getNano() != 0 ? minute + 1 : minute;
+    }
+
+    /**
+     * Ordena las filas por fecha. Si el rango de fechas cabe en 31 bits se ordena una clave
+     * (minuto relativo, fila) de tipo long, sin objetos; si no, con un comparador.
+     */
+    private static int[] sortedRows(MeasurementStore store, long min, long max) {
+        int n = store.size();
+        int[] rows = new int[n];
+        if (max - min < Integer.MAX_VALUE) {
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = (store.getEpochMinute(i) - min) << 32 | i;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < n; i++) {
+                rows[i] = (int) keys[i];
+            }
+            return rows;
+        }
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (a, b) -> Long.compare(store.getEpochMinute(a), store.getEpochMinute(b)));
+        for (int i = 0; i < n; i++) {
+            rows[i] = boxed[i];
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Registro de escritura anticipada de un {@link SegmentStore}: las mediciones que llegan se
+ * añaden al final del archivo y se sincronizan con el disco antes de darlas por guardadas.
+ *
+ * Formato (little-endian): magic y versión, y después registros (longitud, medición, CRC32C).
+ * Al abrirlo se leen los registros completos; si el último quedó a medias por una caída,
+ * el archivo se trunca tras el último registro válido.
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x4C415744; // "DWAL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    // Fecha, nanos, seis métricas y NSM; las categorías tienen longitud variable
+    private static final int FIXED_RECORD_BYTES = Long.BYTES + Integer.BYTES + 6 * Double.BYTES + Integer.BYTES;
+    private static final int MAX_RECORD_BYTES = 1 << 16;
+
+    private final Path file;
+    private final long sequence;
+    private final FileChannel channel;
+
+    private WriteAheadLog(Path file, long sequence, FileChannel channel) {
+        this.file = file;
+        this.sequence = sequence;
+        this.channel = channel;
+    }
+
+    /**
+     * Abre (o crea) un registro y añade a replayed las mediciones que ya contenía
+     * @param sequence Secuencia del segmento en el que se volcarán sus mediciones
+     */
+    static WriteAheadLog open(Path file, long sequence, List<Measurement> replayed) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.truncate(0);
+                writeFully(channel, header, 0);
+                channel.force(true);
+            } else {
+                ByteBuffer content = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE)).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, content);
+                content.flip();
+                if (content.getInt() != MAGIC || content.getInt() != VERSION) {
+                    throw new IOException("Registro de escritura con formato desconocido: " + file);
+                }
+                long valid = replay(content, replayed);
+                if (valid < size) {
+                    System.err.println("⚠ Registro " + file.getFileName() + " truncado tras el último registro válido ("
+                            + (size - valid) + " bytes descartados)");
+                    channel.truncate(valid);
+                    channel.force(true);
+                }
+            }
+            channel.position(channel.size());
+            return new WriteAheadLog(file, sequence, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Añade las mediciones con una sola escritura y espera a que lleguen al disco
+     */
+    void append(List<Measurement> batch) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(batch.size() * (FIXED_RECORD_BYTES + 64)).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C crc = new CRC32C();
+        for (Measurement m : batch) {
+            byte[] weekStatus = bytes(m.getWeekStatus());
+            byte[] dayOfWeek = bytes(m.getDayOfWeek());
+            byte[] loadType = bytes(m.getLoadType());
+            int length = FIXED_RECORD_BYTES + stringBytes(weekStatus) + stringBytes(dayOfWeek) + stringBytes(loadType);
+            if (out.remaining() < length + 2 * Integer.BYTES) {
+                out = grow(out, length + 2 * Integer.BYTES);
+            }
+            out.putInt(length);
+            int start = out.position();
+            LocalDateTime date = m.getDate();
+            out.putLong(date.toEpochSecond(ZoneOffset.UTC)).putInt(date.getNano())
+                    .putDouble(m.getUsageKWh()).putDouble(m.getLaggingReactive()).putDouble(m.getLeadingReactive())
+                    .putDouble(m.getCo2()).putDouble(m.getLaggingPowerFactor()).putDouble(m.getLeadingPowerFactor())
+                    .putInt(m.getNsm());
+            putString(out, weekStatus);
+            putString(out, dayOfWeek);
+            putString(out, loadType);
+            crc.reset();
+            crc.update(out.array(), start, length);
+            out.putInt((int) crc.getValue());
+        }
+        out.flip();
+        writeFully(channel, out, channel.position());
+        channel.position(channel.position() + out.limit());
+        channel.force(false);
+    }
+
+    /**
+     * Cierra el registro y borra el archivo (sus mediciones ya están en un segmento)
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Lee los registros válidos y devuelve la posición tras el último
+     */
+    private static long replay(ByteBuffer content, List<Measurement> replayed) {
+        CRC32C crc = new CRC32C();
+        long valid = content.position();
+        while (content.remaining() >= Integer.BYTES) {
+            int length = content.getInt();
+            if (length < FIXED_RECORD_BYTES || length > MAX_RECORD_BYTES || content.remaining() < length + Integer.BYTES) {
+                break;
+            }
+            int start = content.position();
+            crc.reset();
+            crc.update(content.array(), start, length);
+            if (content.getInt(start + length) != (int) crc.getValue()) {
+                break;
+            }
+            LocalDateTime date = LocalDateTime.ofEpochSecond(content.getLong(), content.getInt(), ZoneOffset.UTC);
+            double usageKWh = content.getDouble();
+            double laggingReactive = content.getDouble();
+            double leadingReactive = content.getDouble();
+            double co2 = content.getDouble();
+            double laggingPowerFactor = content.getDouble();
+            double leadingPowerFactor = content.getDouble();
+            int nsm = content.getInt();
+            String weekStatus = getString(content);
+            String dayOfWeek = getString(content);
+            String loadType = getString(content);
+            replayed.add(new Measurement(date, usageKWh, laggingReactive, leadingReactive, co2,
+                    laggingPowerFactor, leadingPowerFactor, nsm, weekStatus, dayOfWeek, loadType));
+            content.position(start + length + Integer.BYTES);
+            valid = content.position();
+        }
+        return valid;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringBytes(byte[] value) {
+        return Short.BYTES + (value == null ? 0 : value.length);
+    }
+
+    // Longitud -1 para null
+    private static void putString(ByteBuffer out, byte[] value) {
+        if (value == null) {
+            out.putShort((short) -1);
+        } else {
+            out.putShort((short) value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        return bigger.put(buffer);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
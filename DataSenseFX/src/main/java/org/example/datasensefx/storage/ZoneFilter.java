@@ -0,0 +1,241 @@
+package org.example.datasensefx.storage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Condición sobre las filas de un {@link MeasurementStore} que {@link ZoneMap} puede comprobar
+ * también sobre las estadísticas de una partición: rango de fechas, límites de las columnas
+ * numéricas y tipos de carga admitidos. Todas las condiciones se combinan con Y.
+ *
+ * Los métodos modifican el filtro y lo devuelven, para encadenarlos:
+ * {@code new ZoneFilter().dates(julio, septiembre).loadType(código)}.
+ */
+public final class ZoneFilter {
+
+    private static final int METRICS = Metric.values().length;
+
+    private long fromMinute = Long.MIN_VALUE;
+    private long toMinute = Long.MAX_VALUE;
+    // Límites de cada columna numérica (sin límite: infinitos) y si son estrictos
+    private final double[] lower = new double[METRICS];
+    private final double[] upper = new double[METRICS];
+    private final boolean[] lowerStrict = new boolean[METRICS];
+    private final boolean[] upperStrict = new boolean[METRICS];
+    // Códigos de tipo de carga admitidos (bits, tantas palabras como el mayor código), o null si se admiten todos
+    private long[] loadTypes;
+
+    public ZoneFilter() {
+        Arrays.fill(lower, Double.NEGATIVE_INFINITY);
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Filas con minuto de época en [fromMinute, toMinute)
+     */
+    public ZoneFilter between(long fromMinute, long toMinute) {
+        this.fromMinute = Math.max(this.fromMinute, fromMinute);
+        this.toMinute = Math.min(this.toMinute, toMinute);
+        return this;
+    }
+
+    /**
+     * Filas entre dos días, ambos incluidos
+     */
+    public ZoneFilter dates(LocalDate startInclusive, LocalDate endInclusive) {
+        return between(startInclusive.toEpochDay() * MeasurementStore.MINUTES_PER_DAY,
+                (endInclusive.toEpochDay() + 1) * MeasurementStore.MINUTES_PER_DAY);
+    }
+
+    /**
+     * Filas con la columna estrictamente mayor que value
+     */
+    public ZoneFilter greaterThan(Metric metric, double value) {
+        return lowerBound(metric, value, true);
+    }
+
+    /**
+     * Filas con la columna mayor o igual que value
+     */
+    public ZoneFilter atLeast(Metric metric, double value) {
+        return lowerBound(metric, value, false);
+    }
+
+    /**
+     * Filas con la columna estrictamente menor que value
+     */
+    public ZoneFilter lessThan(Metric metric, double value) {
+        return upperBound(metric, value, true);
+    }
+
+    /**
+     * Filas con la columna menor o igual que value
+     */
+    public ZoneFilter atMost(Metric metric, double value) {
+        return upperBound(metric, value, false);
+    }
+
+    /**
+     * Filas con alguno de los tipos de carga dados (códigos del diccionario global); se puede
+     * llamar varias veces para ir restringiendo. Un código negativo (valor que no está en el
+     * diccionario) no coincide con ninguna fila.
+     */
+    public ZoneFilter loadType(int... codes) {
+        int maxCode = 0;
+        for (int code : codes) {
+            maxCode = Math.max(maxCode, code);
+        }
+        long[] allowed = new long[(maxCode >>> 6) + 1];
+        for (int code : codes) {
+            if (code >= 0) {
+                allowed[code >>> 6] |= 1L << code;
+            }
+        }
+        if (loadTypes != null) {
+            for (int i = 0; i < allowed.length; i++) {
+                allowed[i] &= i < loadTypes.length ? loadTypes[i] : 0;
+            }
+        }
+        loadTypes = allowed;
+        return this;
+    }
+
+    /**
+     * Filas con el tipo de carga dado (p. ej. "Maximum_Load")
+     */
+    public ZoneFilter loadType(String value) {
+        return loadType(Category.LOAD_TYPE.dictionary().codeOf(value));
+    }
+
+    /**
+     * Indica si una fila cumple todas las condiciones
+     */
+    public boolean matches(MeasurementStore store, int row) {
+        return matches(store, row, loadTypes != null ? Category.LOAD_TYPE.globalCodes(store) : null);
+    }
+
+    /**
+     * Igual que {@link #matches(MeasurementStore, int)}, con los códigos globales del almacén
+     * ya traducidos ({@link Category#globalCodes}) para no repetirlo en cada fila
+     */
+    boolean matches(MeasurementStore store, int row, int[] globalCodes) {
+        long minute = store.getEpochMinute(row);
+        if (minute < fromMinute || minute >= toMinute) {
+            return false;
+        }
+        for (int i = 0; i < METRICS; i++) {
+            if (!bounded(i)) {
+                continue;
+            }
+            double value = store.getValue(Metric.values()[i], row);
+            if (!(lowerStrict[i] ? value > lower[i] : value >= lower[i])
+                    || !(upperStrict[i] ? value < upper[i] : value <= upper[i])) {
+                return false;
+            }
+        }
+        if (loadTypes != null) {
+            int localCode = store.getCode(Category.LOAD_TYPE, row);
+            int code = localCode < globalCodes.length ? globalCodes[localCode]
+                    : Category.LOAD_TYPE.encode(store.decode(Category.LOAD_TYPE, localCode));
+            return (code >>> 6) < loadTypes.length && (loadTypes[code >>> 6] & 1L << code) != 0;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si alguna fila de una partición puede cumplir las condiciones, según sus
+     * estadísticas; si devuelve false la partición se salta entera
+     */
+    boolean mayMatch(ZoneMap.Zone zone) {
+        if (zone.getMaxEpochMinute() < fromMinute || zone.getMinEpochMinute() >= toMinute) {
+            return false;
+        }
+        for (int i = 0; i < METRICS; i++) {
+            if (!bounded(i)) {
+                continue;
+            }
+            Metric metric = Metric.values()[i];
+            double max = zone.getMax(metric);
+            double min = zone.getMin(metric);
+            if (!(lowerStrict[i] ? max > lower[i] : max >= lower[i])
+                    || !(upperStrict[i] ? min < upper[i] : min <= upper[i])) {
+                return false;
+            }
+        }
+        if (loadTypes != null) {
+            for (int i = 0; i < loadTypes.length; i++) {
+                if ((loadTypes[i] & zone.loadTypeWord(i)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si todas las filas de una partición cumplen las condiciones, según sus
+     * estadísticas: entonces no hace falta comprobarlas una a una
+     */
+    boolean matchesAll(ZoneMap.Zone zone) {
+        if (zone.getMinEpochMinute() < fromMinute || zone.getMaxEpochMinute() >= toMinute) {
+            return false;
+        }
+        for (int i = 0; i < METRICS; i++) {
+            if (!bounded(i)) {
+                continue;
+            }
+            if (zone.hasNaN()) {
+                // Los NaN no entran en el mínimo y el máximo, pero no cumplen ningún límite
+                return false;
+            }
+            Metric metric = Metric.values()[i];
+            double max = zone.getMax(metric);
+            double min = zone.getMin(metric);
+            if (!(lowerStrict[i] ? min > lower[i] : min >= lower[i])
+                    || !(upperStrict[i] ? max < upper[i] : max <= upper[i])) {
+                return false;
+            }
+        }
+        if (loadTypes != null) {
+            for (int i = 0; i < zone.loadTypeWords(); i++) {
+                long allowed = i < loadTypes.length ? loadTypes[i] : 0;
+                if ((zone.loadTypeWord(i) & ~allowed) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    long getFromMinute() {
+        return fromMinute;
+    }
+
+    long getToMinute() {
+        return toMinute;
+    }
+
+    private boolean bounded(int metric) {
+        return lower[metric] != Double.NEGATIVE_INFINITY || upper[metric] != Double.POSITIVE_INFINITY
+                || lowerStrict[metric] || upperStrict[metric];
+    }
+
+    private ZoneFilter lowerBound(Metric metric, double value, boolean strict) {
+        int i = metric.ordinal();
+        if (value > lower[i] || (value == lower[i] && strict)) {
+            lower[i] = value;
+            lowerStrict[i] = strict;
+        }
+        return this;
+    }
+
+    private ZoneFilter upperBound(Metric metric, double value, boolean strict) {
+        int i = metric.ordinal();
+        if (value < upper[i] || (value == upper[i] && strict)) {
+            upper[i] = value;
+            upperStrict[i] = strict;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,365 @@
+package org.example.datasensefx.storage;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mapa de zonas de un {@link TimeIndex}: parte el orden temporal en particiones de un periodo
+ * ({@link Granularity}, normalmente días o meses) y guarda de cada una el rango de fechas,
+ * el mínimo y el máximo de cada columna numérica y los tipos de carga presentes.
+ *
+ * Una consulta con un {@link ZoneFilter} solo recorre las particiones cuyas estadísticas
+ * pueden cumplirlo: "días con consumo por encima de X" descarta los días cuyo máximo no lo
+ * supera y "intervalos Maximum_Load del tercer trimestre" salta por búsqueda binaria los
+ * meses fuera del trimestre y los días sin ese tipo de carga. Si las estadísticas garantizan
+ * que toda la partición cumple el filtro, sus filas se toman sin comprobarlas una a una.
+ *
+ * Las estadísticas ocupan unos cientos de bytes por partición y se calculan en dos pasadas
+ * por el almacén (la primera solo lee las fechas).
+ * Los NaN no cuentan para el mínimo ni el máximo (no cumplen ninguna condición numérica).
+ * Los tipos de carga se guardan con su código global, sea cual sea el diccionario del almacén.
+ */
+public final class ZoneMap {
+
+    private static final int METRICS = Metric.values().length;
+
+    private final TimeIndex index;
+    private final Granularity granularity;
+    private final int zoneCount;
+    // Posición inicial de cada partición en el orden temporal (con el final como último elemento)
+    private final int[] starts;
+    private final long[] periodStarts;
+    private final long[] minMinutes;
+    private final long[] maxMinutes;
+    // Mínimo y máximo de cada columna: [partición * METRICS + columna]
+    private final double[] mins;
+    private final double[] maxs;
+    // Tipos de carga presentes en cada partición: bits por código, tantas palabras como haga falta
+    private final long[][] loadTypes;
+    private final boolean[] nans;
+
+    private final AtomicLong zonesScanned = new AtomicLong();
+    private final AtomicLong zonesSkipped = new AtomicLong();
+
+    private ZoneMap(TimeIndex index, Granularity granularity, int zoneCount, int[] starts, long[] periodStarts,
+                    long[] minMinutes, long[] maxMinutes, double[] mins, double[] maxs, long[][] loadTypes, boolean[] nans) {
+        this.index = index;
+        this.granularity = granularity;
+        this.zoneCount = zoneCount;
+        this.starts = starts;
+        this.periodStarts = periodStarts;
+        this.minMinutes = minMinutes;
+        this.maxMinutes = maxMinutes;
+        this.mins = mins;
+        this.maxs = maxs;
+        this.loadTypes = loadTypes;
+        this.nans = nans;
+    }
+
+    /**
+     * Calcula las estadísticas de las particiones de un periodo. Las filas se leen en el orden
+     * del almacén, no en el del índice: en un almacén comprimido cada bloque se decodifica una
+     * vez aunque el orden temporal salte de un bloque a otro. Como el índice ordena por fecha,
+     * cada partición ocupa en él tantas posiciones seguidas como filas tiene.
+     */
+    public static ZoneMap of(TimeIndex index, Granularity granularity) {
+        MeasurementStore store = index.getStore();
+        int n = store.size();
+        Metric[] metrics = Metric.values();
+
+        // Primera pasada, solo por las fechas: periodos con filas, ordenados y sin repetir
+        long[] periodStarts = new long[16];
+        int zoneCount = 0;
+        long period = 0;
+        long nextPeriod = Long.MIN_VALUE;
+        for (int row = 0; row < n; row++) {
+            long minute = store.getEpochMinute(row);
+            if (minute < period || minute >= nextPeriod) {
+                period = granularity.periodStart(minute);
+                nextPeriod = granularity.nextPeriodStart(period);
+                if (zoneCount == periodStarts.length) {
+                    periodStarts = Arrays.copyOf(periodStarts, zoneCount * 2);
+                }
+                periodStarts[zoneCount++] = period;
+            }
+        }
+        Arrays.sort(periodStarts, 0, zoneCount);
+        int distinct = 0;
+        for (int i = 0; i < zoneCount; i++) {
+            if (distinct == 0 || periodStarts[i] != periodStarts[distinct - 1]) {
+                periodStarts[distinct++] = periodStarts[i];
+            }
+        }
+        zoneCount = distinct;
+        periodStarts = Arrays.copyOf(periodStarts, zoneCount);
+
+        int[] counts = new int[zoneCount];
+        long[] minMinutes = new long[zoneCount];
+        long[] maxMinutes = new long[zoneCount];
+        double[] mins = new double[zoneCount * METRICS];
+        double[] maxs = new double[zoneCount * METRICS];
+        long[][] loadTypes = new long[zoneCount][];
+        boolean[] nans = new boolean[zoneCount];
+        Arrays.fill(minMinutes, Long.MAX_VALUE);
+        Arrays.fill(maxMinutes, Long.MIN_VALUE);
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        int[] globalCodes = Category.LOAD_TYPE.globalCodes(store);
+        int codeWords = Math.max(1, (Category.LOAD_TYPE.dictionary().size() + 63) >>> 6);
+        for (int zone = 0; zone < zoneCount; zone++) {
+            loadTypes[zone] = new long[codeWords];
+        }
+
+        // Segunda pasada: estadísticas de cada fila en su partición
+        int zone = -1;
+        long zoneEnd = Long.MIN_VALUE;
+        for (int row = 0; row < n; row++) {
+            long minute = store.getEpochMinute(row);
+            if (zone < 0 || minute < periodStarts[zone] || minute >= zoneEnd) {
+                zone = Arrays.binarySearch(periodStarts, granularity.periodStart(minute));
+                zoneEnd = granularity.nextPeriodStart(periodStarts[zone]);
+            }
+            counts[zone]++;
+            minMinutes[zone] = Math.min(minMinutes[zone], minute);
+            maxMinutes[zone] = Math.max(maxMinutes[zone], minute);
+            for (Metric metric : metrics) {
+                double value = store.getValue(metric, row);
+                int i = zone * METRICS + metric.ordinal();
+                if (value < mins[i]) {
+                    mins[i] = value;
+                }
+                if (value > maxs[i]) {
+                    maxs[i] = value;
+                }
+                if (value != value) {
+                    nans[zone] = true;
+                }
+            }
+            int localCode = store.getCode(Category.LOAD_TYPE, row);
+            if (localCode >= globalCodes.length) {
+                globalCodes = Category.LOAD_TYPE.globalCodes(store);
+            }
+            int code = globalCodes[localCode];
+            if ((code >>> 6) >= loadTypes[zone].length) {
+                loadTypes[zone] = Arrays.copyOf(loadTypes[zone], (code >>> 6) + 1);
+            }
+            loadTypes[zone][code >>> 6] |= 1L << code;
+        }
+
+        int[] starts = new int[zoneCount + 1];
+        for (int i = 0; i < zoneCount; i++) {
+            starts[i + 1] = starts[i] + counts[i];
+        }
+        return new ZoneMap(index, granularity, zoneCount, starts, periodStarts, minMinutes, maxMinutes,
+                mins, maxs, loadTypes, nans);
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Número de particiones (solo las que tienen filas)
+     */
+    public int size() {
+        return zoneCount;
+    }
+
+    public Zone getZone(int zone) {
+        if (zone < 0 || zone >= zoneCount) {
+            throw new IndexOutOfBoundsException(zone);
+        }
+        return new Zone(zone);
+    }
+
+    /**
+     * Todas las particiones, en orden temporal
+     */
+    public List<Zone> getZones() {
+        return new AbstractList<>() {
+            @Override
+            public Zone get(int zone) {
+                return getZone(zone);
+            }
+
+            @Override
+            public int size() {
+                return zoneCount;
+            }
+        };
+    }
+
+    /**
+     * Particiones que pueden tener filas que cumplan el filtro, en orden temporal. Las
+     * particiones fuera del rango de fechas ni siquiera se visitan.
+     */
+    public List<Zone> candidates(ZoneFilter filter) {
+        List<Zone> result = new ArrayList<>();
+        int zone = firstZoneEndingAtOrAfter(filter.getFromMinute());
+        for (; zone < zoneCount && minMinutes[zone] < filter.getToMinute(); zone++) {
+            Zone candidate = new Zone(zone);
+            if (filter.mayMatch(candidate)) {
+                result.add(candidate);
+            }
+        }
+        zonesScanned.addAndGet(result.size());
+        zonesSkipped.addAndGet(zoneCount - result.size());
+        return result;
+    }
+
+    /**
+     * Filas que cumplen el filtro, en orden temporal. Solo se leen las filas de las
+     * particiones candidatas, y no se comprueban las de particiones que lo cumplen enteras.
+     */
+    public MeasurementStore select(ZoneFilter filter) {
+        MeasurementStore store = index.getStore();
+        int[] globalCodes = Category.LOAD_TYPE.globalCodes(store);
+        int[] rows = new int[16];
+        int count = 0;
+        for (Zone zone : candidates(filter)) {
+            boolean all = filter.matchesAll(zone);
+            for (int position = zone.getStart(); position < zone.getEnd(); position++) {
+                int row = index.rowAt(position);
+                if (all || filter.matches(store, row, globalCodes)) {
+                    if (count == rows.length) {
+                        rows = Arrays.copyOf(rows, count * 2);
+                    }
+                    rows[count++] = row;
+                }
+            }
+        }
+        return new MeasurementStoreSlice(store, rows, 0, count);
+    }
+
+    /**
+     * Particiones leídas por {@link #candidates} y {@link #select} desde que se creó el mapa
+     */
+    public long getZonesScanned() {
+        return zonesScanned.get();
+    }
+
+    /**
+     * Particiones descartadas por sus estadísticas o por estar fuera del rango de fechas
+     */
+    public long getZonesSkipped() {
+        return zonesSkipped.get();
+    }
+
+    /**
+     * Primera partición cuya última fecha es mayor o igual que el minuto dado
+     */
+    private int firstZoneEndingAtOrAfter(long minute) {
+        int low = 0;
+        int high = zoneCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxMinutes[mid] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Estadísticas de una partición
+     */
+    public final class Zone {
+
+        private final int zone;
+
+        private Zone(int zone) {
+            this.zone = zone;
+        }
+
+        /**
+         * Primer día del periodo de la partición
+         */
+        public LocalDate getPeriodStart() {
+            return LocalDate.ofEpochDay(Math.floorDiv(periodStarts[zone], MeasurementStore.MINUTES_PER_DAY));
+        }
+
+        /**
+         * Primera posición de la partición en el orden temporal del índice
+         */
+        public int getStart() {
+            return starts[zone];
+        }
+
+        /**
+         * Posición siguiente a la última de la partición
+         */
+        public int getEnd() {
+            return starts[zone + 1];
+        }
+
+        public int size() {
+            return getEnd() - getStart();
+        }
+
+        public long getMinEpochMinute() {
+            return minMinutes[zone];
+        }
+
+        public long getMaxEpochMinute() {
+            return maxMinutes[zone];
+        }
+
+        /**
+         * Mínimo de la columna sin contar los NaN (+infinito si todos lo son)
+         */
+        public double getMin(Metric metric) {
+            return mins[zone * METRICS + metric.ordinal()];
+        }
+
+        /**
+         * Máximo de la columna sin contar los NaN (-infinito si todos lo son)
+         */
+        public double getMax(Metric metric) {
+            return maxs[zone * METRICS + metric.ordinal()];
+        }
+
+        /**
+         * Indica si alguna fila de la partición tiene el tipo de carga dado (código global)
+         */
+        public boolean hasLoadType(int code) {
+            return code >= 0 && (loadTypeWord(code >>> 6) & 1L << code) != 0;
+        }
+
+        /**
+         * Indica si alguna columna numérica tiene NaN en la partición
+         */
+        public boolean hasNaN() {
+            return nans[zone];
+        }
+
+        /**
+         * Filas de la partición, en orden temporal, sin copiarlas
+         */
+        public MeasurementStore getRows() {
+            return index.slice(getStart(), getEnd());
+        }
+
+        /**
+         * Palabra de 64 bits del conjunto de tipos de carga (0 más allá de las guardadas)
+         */
+        long loadTypeWord(int word) {
+            long[] words = loadTypes[zone];
+            return word < words.length ? words[word] : 0;
+        }
+
+        int loadTypeWords() {
+            return loadTypes[zone].length;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Zone[%s %s, %d filas]", granularity, getPeriodStart(), size());
+        }
+    }
+}
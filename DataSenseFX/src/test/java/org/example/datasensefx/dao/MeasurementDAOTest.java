@@ -0,0 +1,92 @@
+package org.example.datasensefx.dao;
+
+import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.services.MainController;
+import org.example.datasensefx.storage.Granularity;
+import org.example.datasensefx.storage.MeasurementTable;
+import org.example.datasensefx.storage.Rollup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MeasurementDAOTest {
+
+    // Las sumas de SQLite no van en el mismo orden que las de MainController
+    private static final double TOLERANCE = 1e-9;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Tres semanas cada 15 minutos, de lunes a lunes y cruzando un cambio de mes: 2016 filas,
+     * que no son múltiplo de las 90 por INSERT de SQLite (quedan 36 sueltas)
+     */
+    private static List<Measurement> sample() {
+        List<Measurement> rows = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2018, 1, 22, 0, 15);
+        String[] loadTypes = {"Light_Load", "Medium_Load", "Maximum_Load"};
+        for (int i = 0; i < 21 * 96; i++) {
+            LocalDateTime date = start.plusMinutes(15L * i);
+            boolean weekend = date.getDayOfWeek().getValue() >= 6;
+            rows.add(new Measurement(date, (i * 37 % 200) * 0.27, 1.5, 0.0, (i % 7) * 0.01, 80.5, 100.0,
+                    date.toLocalTime().toSecondOfDay(), weekend ? "Weekend" : "Weekday",
+                    date.getDayOfWeek().toString(), loadTypes[i / 5 % 3]));
+        }
+        return rows;
+    }
+
+    @Test
+    void sqliteMatchesMainController() throws SQLException {
+        List<Measurement> rows = sample();
+        assertEquals(36, rows.size() % SqlDialect.SQLITE.rowsPerInsert());
+
+        MeasurementDAO dao = MeasurementDAO.openSqlite(dir.resolve("mediciones.db"));
+        assertEquals(rows.size(), dao.insertAll(rows));
+        assertEquals(rows.size(), dao.count());
+
+        MainController controller = new MainController();
+        controller.setData(MeasurementTable.from(rows));
+
+        LocalDateTime from = LocalDateTime.of(2018, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2018, 3, 1, 0, 0);
+        for (Granularity granularity : new Granularity[] {Granularity.DAY, Granularity.WEEK, Granularity.MONTH}) {
+            List<PeriodAggregate> periods = dao.aggregate(granularity, from, to);
+            List<Rollup> expected = controller.getRollups().all(granularity);
+            assertEquals(expected.size(), periods.size(), granularity.toString());
+            for (int i = 0; i < expected.size(); i++) {
+                Rollup rollup = expected.get(i);
+                PeriodAggregate period = periods.get(i);
+                String message = granularity + " " + rollup.getStart();
+                assertEquals(rollup.getStart(), period.getStart(), message);
+                assertEquals(rollup.getCount(), period.getCount(), message);
+                assertEquals(rollup.getUsageSum(), period.getUsageSum(), TOLERANCE, message);
+                assertEquals(rollup.getUsageMin(), period.getUsageMin(), message);
+                assertEquals(rollup.getUsageMax(), period.getUsageMax(), message);
+                assertEquals(rollup.getCo2Sum(), period.getCo2Sum(), TOLERANCE, message);
+            }
+        }
+
+        assertMapsEqual(controller.calculateTotalUsageByLoadType(), dao.calculateTotalUsageByLoadType());
+        for (LocalDate day = LocalDate.of(2018, 1, 21); !day.isAfter(LocalDate.of(2018, 2, 13)); day = day.plusDays(1)) {
+            assertMapsEqual(controller.calculateUsageByHourForDate(day), dao.calculateUsageByHourForDate(day));
+        }
+        assertArrayEquals(controller.getBasicStatistics(), dao.getBasicStatistics(), TOLERANCE);
+    }
+
+    private static <K> void assertMapsEqual(Map<K, Double> expected, Map<K, Double> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<K, Double> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()), TOLERANCE, String.valueOf(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.storage.MeasurementSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DataLoaderSnapshotTest {
+
+    private static final String CSV = String.join("\n",
+            String.join(",", IndustrialCsvTokenizer.COLUMNS),
+            "01/01/2018 00:15,3.17,2.95,0.0,0.0,73.21,100.0,900.0,Weekday,Monday,Light_Load",
+            "01/01/2018 00:30,4.00,4.46,0.0,0.0,66.77,100.0,1800.0,Weekday,Monday,Light_Load",
+            "01/01/2018 00:45,3.24,3.28,0.0,0.0,70.28,100.0,2700.0,Weekday,Monday,Maximum_Load",
+            "");
+
+    @TempDir
+    Path dir;
+
+    private String previousDirectory;
+
+    @BeforeEach
+    void useTemporarySnapshotDirectory() {
+        previousDirectory = System.getProperty(MeasurementSnapshot.DIRECTORY_PROPERTY);
+        System.setProperty(MeasurementSnapshot.DIRECTORY_PROPERTY, dir.resolve("snapshots").toString());
+    }
+
+    @AfterEach
+    void restoreSnapshotDirectory() {
+        if (previousDirectory == null) {
+            System.clearProperty(MeasurementSnapshot.DIRECTORY_PROPERTY);
+        } else {
+            System.setProperty(MeasurementSnapshot.DIRECTORY_PROPERTY, previousDirectory);
+        }
+    }
+
+    @Test
+    void secondLoadReturnsAViewOverTheMappedSnapshot() throws IOException {
+        Path csv = Files.writeString(dir.resolve("data.csv"), CSV);
+        List<Measurement> parsed = DataLoader.loadFromCsv(csv);
+        assertNull(MeasurementSnapshot.of(parsed));
+
+        List<Measurement> cached = DataLoader.loadFromCsv(csv);
+        assertNotNull(MeasurementSnapshot.of(cached));
+        assertEquals(parsed.size(), cached.size());
+        assertEquals(parsed.get(2).getLoadType(), cached.get(2).getLoadType());
+    }
+
+    @Test
+    void damagedSnapshotFallsBackToTheCsvAndIsRewritten() throws IOException {
+        Path csv = Files.writeString(dir.resolve("data.csv"), CSV);
+        DataLoader.loadFromCsv(csv);
+        Path snapshot = MeasurementSnapshot.pathFor(csv.toAbsolutePath().normalize().toString());
+        // Mismo tamaño, código de tipo de carga fuera del diccionario en la última fila
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), channel.size() - 1);
+        }
+
+        List<Measurement> loaded = DataLoader.loadFromCsv(csv);
+        assertEquals(3, loaded.size());
+        assertNull(MeasurementSnapshot.of(loaded));
+        assertEquals("Maximum_Load", loaded.get(2).getLoadType());
+
+        // El snapshot se ha vuelto a generar y vuelve a ser válido
+        assertNotNull(MeasurementSnapshot.of(DataLoader.loadFromCsv(csv)));
+    }
+
+    @Test
+    void reportsTheBytesItParsedSoFollowingStartsThere() throws IOException {
+        Path csv = Files.writeString(dir.resolve("data.csv"), CSV);
+        LoadResult parsed = DataLoader.loadFromCsvResult(csv, LoadProgress.NONE);
+        assertEquals(3, parsed.getMeasurements().size());
+        assertEquals(Files.size(csv), parsed.getSourceBytes());
+
+        LoadResult cached = DataLoader.loadFromCsvResult(csv, LoadProgress.NONE);
+        assertNotNull(MeasurementSnapshot.of(cached.getMeasurements()));
+        assertEquals(Files.size(csv), cached.getSourceBytes());
+
+        // Formato simple (Commons CSV): tampoco lee más allá de lo que medía al abrirlo
+        Path simple = Files.writeString(dir.resolve("simple.csv"),
+                "device,power,timestamp\nA,1.5,2018-01-01T00:15\nB,2.0,2018-01-01T00:30\n");
+        LoadResult commons = DataLoader.loadFromCsvResult(simple, LoadProgress.NONE);
+        assertEquals(Files.size(simple), commons.getSourceBytes());
+        assertEquals(2, commons.getMeasurements().size());
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.Measurement;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeasurementPublisherTest {
+
+    /**
+     * Fuente que, como el iterador del CSV, lee una fila cada vez que hasNext() no la tiene ya leída
+     */
+    private static class ReadAheadSource implements Iterable<Measurement> {
+        private final int size;
+        private int reads;
+
+        ReadAheadSource(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Iterator<Measurement> iterator() {
+            return new Iterator<>() {
+                private int position;
+                private Measurement next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null && position < size) {
+                        reads++;
+                        LocalDateTime date = LocalDateTime.of(2018, 1, 1, 0, 15).plusMinutes(15L * position);
+                        next = new Measurement(date, position, 0, 0, 0, 0, 0,
+                                date.toLocalTime().toSecondOfDay(), "Weekday", "Monday", "Light_Load");
+                        position++;
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Measurement next() {
+                    hasNext();
+                    Measurement result = next;
+                    next = null;
+                    return result;
+                }
+            };
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Measurement> {
+        final List<Measurement> received = new ArrayList<>();
+        Flow.Subscription subscription;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Measurement item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throw new AssertionError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void readsOnlyWhatTheSubscriberRequested() {
+        ReadAheadSource source = new ReadAheadSource(3);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new MeasurementPublisher(source, Runnable::run).subscribe(subscriber);
+        assertEquals(0, source.reads);
+
+        subscriber.subscription.request(2);
+        assertEquals(2, subscriber.received.size());
+        assertEquals(2, source.reads);
+
+        subscriber.subscription.request(1);
+        assertEquals(3, subscriber.received.size());
+        assertEquals(3, source.reads);
+        assertFalse(subscriber.completed);
+
+        // El fin de la fuente se comprueba con la siguiente demanda
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.completed);
+        assertEquals(3, subscriber.received.size());
+    }
+
+    @Test
+    void emptySourceCompletesOnTheFirstRequest() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new MeasurementPublisher(new ReadAheadSource(0), Runnable::run).subscribe(subscriber);
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.completed);
+        assertTrue(subscriber.received.isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.datasensefx.services;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark sencillo del parseo del formato industrial:
+ * compara Commons CSV con {@link IndustrialCsvTokenizer} en tiempo y bytes asignados por fila.
+ *
+ * Uso: java ... org.example.datasensefx.services.ParserBenchmark [ruta.csv] [iteraciones]
+ *
+ * Está en las fuentes de test para no llegar al módulo de la aplicación. Los bytes asignados
+ * salen de la extensión de HotSpot (com.sun.management), que se consulta por reflexión: si el
+ * módulo jdk.management no está cargado se muestran como n/d.
+ */
+public class ParserBenchmark {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // getThreadAllocatedBytes(long) de com.sun.management.ThreadMXBean, o null si no está disponible
+    private static final Method ALLOCATED_BYTES = allocatedBytesMethod();
+
+    public static void main(String[] args) throws IOException {
+        Path ruta = Path.of(args.length > 0 ? args[0] : "src/main/resources/data/steel_industry_data.csv");
+        int iteraciones = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        byte[] bytes = Files.readAllBytes(ruta);
+        int dataStart = 0;
+        while (dataStart < bytes.length && bytes[dataStart] != '\n') {
+            dataStart++;
+        }
+        dataStart++;
+        DataLoader.CsvLayout layout = DataLoader.CsvLayout.of(IndustrialCsvTokenizer.COLUMNS, DateLayout.SLASH_AMBIGUOUS);
+        int inicio = dataStart;
+
+        System.out.println("Archivo: " + ruta + " (" + bytes.length + " bytes), iteraciones: " + iteraciones);
+
+        run("Commons CSV -> Measurement", iteraciones, () ->
+                DataLoader.parseChunkWithCommons(ByteBuffer.wrap(bytes).position(inicio), layout, false).recordCount);
+
+        run("Tokenizador -> Measurement", iteraciones, () ->
+                DataLoader.tokenizeChunk(ByteBuffer.wrap(bytes).position(inicio), layout).recordCount);
+
+        run("Tokenizador (solo primitivos)", iteraciones, () -> {
+            IndustrialCsvTokenizer tokenizer = new IndustrialCsvTokenizer(ByteBuffer.wrap(bytes).position(inicio));
+            long rows = 0;
+            double checksum = 0;
+            while (tokenizer.next()) {
+                rows++;
+                checksum += tokenizer.getUsageKWh() + tokenizer.getNsm();
+            }
+            if (checksum == -1) {
+                System.out.println(checksum);
+            }
+            return rows;
+        });
+    }
+
+    private interface Pass {
+        long run() throws IOException;
+    }
+
+    /**
+     * Ejecuta una pasada de calentamiento y después mide tiempo y asignación del hilo actual
+     */
+    private static void run(String nombre, int iteraciones, Pass pass) throws IOException {
+        for (int i = 0; i < Math.max(3, iteraciones / 2); i++) {
+            pass.run();
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long bytesAntes = allocatedBytes(threadId);
+        long inicio = System.nanoTime();
+        long filas = 0;
+        for (int i = 0; i < iteraciones; i++) {
+            filas += pass.run();
+        }
+        long nanos = System.nanoTime() - inicio;
+        long bytesDespues = allocatedBytes(threadId);
+
+        String bytesPorFila = bytesAntes < 0 || bytesDespues < 0
+                ? "n/d" : String.format("%.1f", (double) (bytesDespues - bytesAntes) / filas);
+        System.out.printf("%-32s %8.1f ns/fila %10s bytes/fila %,14.0f filas/s%n",
+                nombre, (double) nanos / filas, bytesPorFila, filas * 1e9 / nanos);
+    }
+
+    private static Method allocatedBytesMethod() {
+        try {
+            Class<?> extension = Class.forName("com.sun.management.ThreadMXBean");
+            return extension.isInstance(THREADS) ? extension.getMethod("getThreadAllocatedBytes", long.class) : null;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Bytes asignados por un hilo hasta ahora, o -1 si la JVM no lo mide
+     */
+    private static long allocatedBytes(long threadId) {
+        if (ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            return (long) ALLOCATED_BYTES.invoke(THREADS, threadId);
+        } catch (ReflectiveOperationException e) {
+            return -1;
+        }
+    }
+}
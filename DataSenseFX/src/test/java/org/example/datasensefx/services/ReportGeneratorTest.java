@@ -0,0 +1,76 @@
+package org.example.datasensefx.services;
+
+import org.example.datasensefx.model.DailyReport;
+import org.example.datasensefx.model.Measurement;
+import org.example.datasensefx.model.WeeklyReport;
+import org.example.datasensefx.storage.MeasurementTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportGeneratorTest {
+
+    private static final Path DATASET = Path.of("src/main/resources/data/steel_industry_data.csv");
+
+    @Test
+    void dailyReportsFromRollupsMatchTheListPathForEveryDay() throws IOException {
+        List<Measurement> rows;
+        try (Stream<Measurement> stream = DataLoader.streamFromCsv(DATASET)) {
+            rows = new ArrayList<>(stream.toList());
+        }
+        // Lista: recorre las mediciones; almacén: lee los agregados de RollupStore
+        ReportGenerator fromList = new ReportGenerator(rows);
+        ReportGenerator fromStore = new ReportGenerator(MeasurementTable.from(rows));
+
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (Measurement m : rows) {
+            days.add(m.getDate().toLocalDate());
+        }
+        assertEquals(365, days.size());
+        for (LocalDate day : days) {
+            DailyReport expected = fromList.generateDailyReport(day);
+            DailyReport actual = fromStore.generateDailyReport(day);
+            String message = day.toString();
+            assertEquals(expected.getTotalMeasurements(), actual.getTotalMeasurements(), message);
+            assertEquals(expected.getTotalConsumption(), actual.getTotalConsumption(), message);
+            assertEquals(expected.getAverageConsumption(), actual.getAverageConsumption(), message);
+            assertEquals(expected.getPeakConsumption(), actual.getPeakConsumption(), message);
+            assertEquals(expected.getPeakHour(), actual.getPeakHour(), message);
+            assertEquals(expected.getMinConsumption(), actual.getMinConsumption(), message);
+            assertEquals(expected.getMinHour(), actual.getMinHour(), message);
+            assertEquals(expected.getTotalCO2(), actual.getTotalCO2(), message);
+            assertEquals(expected.getData(), actual.getData(), message);
+            assertEquals(expected.generateSummary(), actual.generateSummary(), message);
+        }
+    }
+
+    @Test
+    void weekStatusIsMatchedWithoutCase() {
+        List<Measurement> rows = new ArrayList<>();
+        LocalDateTime friday = LocalDateTime.of(2018, 1, 5, 12, 0);
+        String[] statuses = {"weekday", "WEEKDAY", "Weekday", "weekend", "WEEKEND"};
+        for (int i = 0; i < statuses.length; i++) {
+            LocalDateTime date = friday.plusDays(i);
+            rows.add(new Measurement(date, i + 1.0, 0, 0, 0, 0, 0, 43200, statuses[i], date.getDayOfWeek().toString(), "Light_Load"));
+        }
+        LocalDate start = friday.toLocalDate();
+        LocalDate end = start.plusDays(statuses.length - 1);
+
+        WeeklyReport fromList = new ReportGenerator(rows).generateWeeklyReport(start, end);
+        assertEquals(1.0 + 2.0 + 3.0, fromList.getWeekdayConsumption());
+        assertEquals(4.0 + 5.0, fromList.getWeekendConsumption());
+
+        WeeklyReport fromStore = new ReportGenerator(MeasurementTable.from(rows)).generateWeeklyReport(start, end);
+        assertEquals(fromList.getWeekdayConsumption(), fromStore.getWeekdayConsumption());
+        assertEquals(fromList.getWeekendConsumption(), fromStore.getWeekendConsumption());
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.datasensefx.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GorillaColumnTest {
+
+    private static final int[] BLOCK_EDGES = {
+        1, GorillaColumn.BLOCK_ROWS - 1, GorillaColumn.BLOCK_ROWS, GorillaColumn.BLOCK_ROWS + 1,
+        2 * GorillaColumn.BLOCK_ROWS + 1
+    };
+
+    /**
+     * Codifica los valores y comprueba que cada bloque se decodifica bit a bit igual, tanto
+     * con decodeBlock como con un lector secuencial que salta parte del bloque
+     */
+    private static void assertRoundTrip(GorillaColumn.Encoding encoding, long[] values) {
+        GorillaColumn column = new GorillaColumn(encoding);
+        for (long value : values) {
+            column.add(value);
+        }
+        column.trimToSize();
+        assertEquals(values.length, column.size());
+
+        long[] decoded = new long[GorillaColumn.BLOCK_ROWS];
+        int blocks = (values.length + GorillaColumn.BLOCK_ROWS - 1) / GorillaColumn.BLOCK_ROWS;
+        for (int block = 0; block < blocks; block++) {
+            int first = block * GorillaColumn.BLOCK_ROWS;
+            int rows = column.decodeBlock(block, decoded);
+            assertEquals(Math.min(GorillaColumn.BLOCK_ROWS, values.length - first), rows);
+            for (int i = 0; i < rows; i++) {
+                assertEquals(values[first + i], decoded[i], "fila " + (first + i));
+            }
+
+            GorillaColumn.Reader reader = column.reader(block);
+            int skipped = rows / 2;
+            reader.skip(skipped);
+            for (int i = skipped; i < rows; i++) {
+                assertEquals(values[first + i], reader.next(), "fila " + (first + i));
+            }
+            assertFalse(reader.hasNext());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> column.reader(blocks));
+    }
+
+    private static long[] doubles(double... values) {
+        long[] bits = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bits[i] = Double.doubleToRawLongBits(values[i]);
+        }
+        return bits;
+    }
+
+    @Test
+    void xorKeepsSpecialDoublesBitForBit() {
+        long quietNaN = Double.doubleToRawLongBits(Double.NaN);
+        long payloadNaN = 0x7ff0_0000_0000_0001L;
+        long negativeNaN = 0xfff8_0000_0000_0abcL;
+        long[] special = {
+            Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(-0.0), quietNaN,
+            Double.doubleToRawLongBits(3.17), payloadNaN, Double.doubleToRawLongBits(-0.0),
+            negativeNaN, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY),
+            Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY), Double.doubleToRawLongBits(Double.MIN_VALUE),
+            Double.doubleToRawLongBits(-Double.MAX_VALUE), Double.doubleToRawLongBits(73.21), quietNaN, quietNaN
+        };
+        assertRoundTrip(GorillaColumn.Encoding.XOR, special);
+
+        for (int rows : BLOCK_EDGES) {
+            long[] values = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                values[i] = special[i % special.length];
+            }
+            assertRoundTrip(GorillaColumn.Encoding.XOR, values);
+        }
+    }
+
+    @Test
+    void xorRoundTripsCsvDecimalsAcrossBlockBoundaries() {
+        Random random = new Random(42);
+        for (int rows : BLOCK_EDGES) {
+            double[] values = new double[rows];
+            long cents = 317;
+            for (int i = 0; i < rows; i++) {
+                cents += random.nextInt(2001) - 1000;
+                // Decimales del CSV, repeticiones y, de vez en cuando, el salto a un double cualquiera
+                values[i] = i % 7 == 0 && i > 0 ? values[i - 1]
+                        : i % 13 == 0 ? random.nextDouble() * 1e6
+                        : cents / 100.0;
+            }
+            assertRoundTrip(GorillaColumn.Encoding.XOR, doubles(values));
+        }
+    }
+
+    @Test
+    void xorRoundTripsRandomBits() {
+        Random random = new Random(7);
+        long[] values = new long[3 * GorillaColumn.BLOCK_ROWS + 17];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+        }
+        assertRoundTrip(GorillaColumn.Encoding.XOR, values);
+    }
+
+    @Test
+    void deltaOfDeltaRoundTripsRegularSeriesAcrossBlockBoundaries() {
+        for (int rows : BLOCK_EDGES) {
+            long[] minutes = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                // Cada 15 minutos, con un hueco de vez en cuando
+                minutes[i] = 25_246_095L + 15L * i + (i % 500 == 499 ? 60 : 0);
+            }
+            assertRoundTrip(GorillaColumn.Encoding.DELTA_OF_DELTA, minutes);
+        }
+    }
+
+    @Test
+    void deltaOfDeltaHandlesDeltasThatOverflowSixtyFourBits() {
+        long[] extremes = {
+            0, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE, 0,
+            Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 1, -1, 64, -64, 255, -256,
+            2047, -2048, 4096, Long.MIN_VALUE + 1, Long.MAX_VALUE - 1
+        };
+        assertRoundTrip(GorillaColumn.Encoding.DELTA_OF_DELTA, extremes);
+
+        for (int rows : BLOCK_EDGES) {
+            long[] values = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                values[i] = extremes[i % extremes.length];
+            }
+            assertRoundTrip(GorillaColumn.Encoding.DELTA_OF_DELTA, values);
+        }
+    }
+
+    @Test
+    void deltaOfDeltaRoundTripsRandomValues() {
+        Random random = new Random(11);
+        long[] values = new long[2 * GorillaColumn.BLOCK_ROWS + 3];
+        for (int i = 0; i < values.length; i++) {
+            // Prefijos de todos los tamaños: diferencias de 7, 9, 12 y 64 bits
+            int kind = random.nextInt(5);
+            long previous = i == 0 ? 0 : values[i - 1];
+            values[i] = kind == 0 ? random.nextLong()
+                    : previous + (random.nextInt(1 << (4 * kind + 2)) - (1 << (4 * kind + 1)));
+        }
+        assertRoundTrip(GorillaColumn.Encoding.DELTA_OF_DELTA, values);
+    }
+
+    @Test
+    void decodeBlockReturnsOnlyTheRowsOfTheLastBlock() {
+        GorillaColumn column = new GorillaColumn(GorillaColumn.Encoding.DELTA_OF_DELTA);
+        for (int i = 0; i < GorillaColumn.BLOCK_ROWS + 5; i++) {
+            column.add(i);
+        }
+        assertArrayEquals(new long[] {1024, 1025, 1026, 1027, 1028}, column.decodeBlock(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> column.decodeBlock(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> column.decodeBlock(-1));
+    }
+}
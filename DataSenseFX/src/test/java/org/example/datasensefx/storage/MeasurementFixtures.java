@@ -0,0 +1,67 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mediciones de prueba compartidas por los tests de almacenamiento
+ */
+final class MeasurementFixtures {
+
+    private static final String[] LOAD_TYPES = {"Light_Load", "Medium_Load", "Maximum_Load"};
+
+    private MeasurementFixtures() {
+    }
+
+    /**
+     * Mediciones cada 15 minutos desde el 01/01/2018 00:15 (la i-ésima, con consumo i * 0.25).
+     * Incluyen -0.0 y, cada cinco filas, un NaN para comprobar que se guardan bit a bit.
+     * @param from Índice de la primera medición (para continuar una serie)
+     */
+    static List<Measurement> sample(int from, int count) {
+        return sample(from, count, i -> LOAD_TYPES[i % 3]);
+    }
+
+    /**
+     * Igual que {@link #sample(int, int)}, con el tipo de carga de cada índice
+     */
+    static List<Measurement> sample(int from, int count, IntFunction<String> loadType) {
+        List<Measurement> rows = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2018, 1, 1, 0, 15);
+        for (int i = from; i < from + count; i++) {
+            LocalDateTime date = start.plusMinutes(15L * i);
+            rows.add(new Measurement(date, i * 0.25, 1.5, -0.0, 0.01, i % 5 == 0 ? Double.NaN : 80.5, 100.0,
+                    date.toLocalTime().toSecondOfDay(), "Weekday", "Monday", loadType.apply(i)));
+        }
+        return rows;
+    }
+
+    /**
+     * Comprueba que dos listas tienen las mismas mediciones, campo a campo (los doubles bit a bit)
+     */
+    static void assertSameRows(List<Measurement> expected, List<Measurement> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Measurement e = expected.get(i);
+            Measurement a = actual.get(i);
+            String row = "fila " + i;
+            assertEquals(e.getDate(), a.getDate(), row);
+            assertEquals(e.getUsageKWh(), a.getUsageKWh(), row);
+            assertEquals(e.getLaggingReactive(), a.getLaggingReactive(), row);
+            assertEquals(e.getLeadingReactive(), a.getLeadingReactive(), row);
+            assertEquals(e.getCo2(), a.getCo2(), row);
+            assertEquals(e.getLaggingPowerFactor(), a.getLaggingPowerFactor(), row);
+            assertEquals(e.getLeadingPowerFactor(), a.getLeadingPowerFactor(), row);
+            assertEquals(e.getNsm(), a.getNsm(), row);
+            assertEquals(e.getWeekStatus(), a.getWeekStatus(), row);
+            assertEquals(e.getDayOfWeek(), a.getDayOfWeek(), row);
+            assertEquals(e.getLoadType(), a.getLoadType(), row);
+        }
+    }
+}
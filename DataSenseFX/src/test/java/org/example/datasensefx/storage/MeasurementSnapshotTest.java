@@ -0,0 +1,98 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.example.datasensefx.storage.MeasurementFixtures.assertSameRows;
+import static org.example.datasensefx.storage.MeasurementFixtures.sample;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeasurementSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(List<Measurement> rows) throws IOException {
+        Path file = dir.resolve("sample.dsnap");
+        MeasurementSnapshot.write(file, 10, 20, 30, rows);
+        return file;
+    }
+
+    @Test
+    void roundTripKeepsRowsAndExposesTheSnapshotBehindItsListView() throws IOException {
+        List<Measurement> rows = sample(0, 200);
+        MeasurementSnapshot snapshot = MeasurementSnapshot.open(write(rows));
+
+        List<Measurement> view = snapshot.asList();
+        assertSameRows(rows, view);
+        assertSame(snapshot, MeasurementSnapshot.of(view));
+        assertNull(MeasurementSnapshot.of(rows));
+    }
+
+    @Test
+    void rejectsDictionaryLengthOutOfBounds() throws IOException {
+        Path file = write(sample(0, 200));
+        // Longitud de la primera cadena del primer diccionario (tras la cabecera y el nº de valores)
+        overwrite(file, 64 + Integer.BYTES, ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.MAX_VALUE));
+        assertThrows(IOException.class, () -> MeasurementSnapshot.open(file));
+
+        overwrite(file, 64 + Integer.BYTES, ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(-5));
+        assertThrows(IOException.class, () -> MeasurementSnapshot.open(file));
+    }
+
+    @Test
+    void rejectsCodesOutsideTheDictionary() throws IOException {
+        Path file = write(sample(0, 200));
+        // La última columna son los códigos de tipo de carga (tres valores en el diccionario)
+        overwrite(file, Files.size(file) - 1, ByteBuffer.wrap(new byte[] {3}));
+        assertThrows(IOException.class, () -> MeasurementSnapshot.open(file));
+    }
+
+    @Test
+    void zoneMapsUseGlobalLoadTypeCodesOverTheSnapshotDictionary() throws IOException {
+        // El diccionario del snapshot sigue el orden de aparición: Maximum_Load = 0, Light_Load = 1
+        List<Measurement> rows = sample(0, 200, i -> i < 100 ? "Maximum_Load" : "Light_Load");
+        MeasurementSnapshot snapshot = MeasurementSnapshot.open(write(rows));
+        ZoneMap zones = ZoneMap.of(TimeIndex.of(snapshot), Granularity.DAY);
+
+        int maximum = Category.LOAD_TYPE.encode("Maximum_Load");
+        int light = Category.LOAD_TYPE.encode("Light_Load");
+        assertEquals(3, zones.size());
+        assertTrue(zones.getZone(0).hasLoadType(maximum));
+        assertFalse(zones.getZone(0).hasLoadType(light));
+        assertFalse(zones.getZone(2).hasLoadType(maximum));
+        assertTrue(zones.getZone(2).hasLoadType(light));
+
+        MeasurementStore selected = zones.select(new ZoneFilter().loadType("Maximum_Load"));
+        assertEquals(100, selected.size());
+        for (int i = 0; i < selected.size(); i++) {
+            assertEquals("Maximum_Load", selected.decode(Category.LOAD_TYPE, selected.getCode(Category.LOAD_TYPE, i)));
+        }
+        ZoneFilter heavy = new ZoneFilter().loadType("Maximum_Load").atLeast(Metric.USAGE_KWH, 20.0);
+        assertEquals(20, zones.select(heavy).size());
+        assertTrue(heavy.matches(snapshot, 99));
+        assertFalse(heavy.matches(snapshot, 100));
+    }
+
+    private static void overwrite(Path file, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            bytes.rewind();
+            channel.write(bytes, position);
+        }
+    }
+}
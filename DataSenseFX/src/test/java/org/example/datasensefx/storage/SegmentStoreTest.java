@@ -0,0 +1,177 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.example.datasensefx.storage.MeasurementFixtures.assertSameRows;
+import static org.example.datasensefx.storage.MeasurementFixtures.sample;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentStoreTest {
+
+    private static final int FLUSH_ROWS = 10;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Copia los archivos del histórico tal como están, como si la máquina se hubiera caído
+     * en este momento (el histórico original sigue abierto)
+     */
+    private Path crashCopy(Path source) throws IOException {
+        Path copy = Files.createDirectory(dir.resolve("crash"));
+        for (String name : fileNames(source)) {
+            Files.copy(source.resolve(name), copy.resolve(name));
+        }
+        return copy;
+    }
+
+    private static List<String> fileNames(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static String walName(long sequence) {
+        return String.format("wal-%016d.log", sequence);
+    }
+
+    @Test
+    void reopenAfterCrashReplaysRowsStillInTheLog() throws IOException {
+        Path live = dir.resolve("live");
+        List<Measurement> rows = sample(0, 25);
+        Path crashed;
+        try (SegmentStore store = SegmentStore.open(live, FLUSH_ROWS)) {
+            store.appendAll(rows);
+            assertEquals(2, store.getSegments().size());
+            crashed = crashCopy(live);
+        }
+
+        try (SegmentStore store = SegmentStore.open(crashed, FLUSH_ROWS)) {
+            assertEquals(2, store.getSegments().size());
+            assertEquals(25, store.size());
+            assertSameRows(rows, store.readAll());
+            store.appendAll(sample(25, 5));
+        }
+        try (SegmentStore store = SegmentStore.open(crashed, FLUSH_ROWS)) {
+            assertSameRows(sample(0, 30), store.readAll());
+        }
+    }
+
+    @Test
+    void crashMidFlushDropsTheTornRecordAndTheTemporarySegment() throws IOException {
+        Path live = dir.resolve("live");
+        List<Measurement> rows = sample(0, 5);
+        Path crashed;
+        try (SegmentStore store = SegmentStore.open(live, FLUSH_ROWS)) {
+            store.appendAll(rows);
+            crashed = crashCopy(live);
+        }
+
+        // El último registro quedó a medias y el volcado no llegó a mover su segmento
+        Path wal = crashed.resolve(walName(0));
+        try (FileChannel channel = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        Path temp = crashed.resolve(Segment.fileName(0, 0, 0) + "123.tmp");
+        Files.write(temp, new byte[] {1, 2, 3});
+
+        try (SegmentStore store = SegmentStore.open(crashed, FLUSH_ROWS)) {
+            assertTrue(store.getSegments().isEmpty());
+            assertSameRows(rows.subList(0, 4), store.readAll());
+            assertFalse(Files.exists(temp));
+        }
+    }
+
+    @Test
+    void crashBetweenWritingTheSegmentAndDeletingTheLogDoesNotDuplicateRows() throws IOException {
+        List<Measurement> rows = sample(0, 5);
+        byte[] log;
+        try (SegmentStore store = SegmentStore.open(dir, FLUSH_ROWS)) {
+            store.appendAll(rows);
+            log = Files.readAllBytes(dir.resolve(walName(0)));
+            store.flush();
+        }
+        // El registro ya volcado sigue en el directorio
+        Files.write(dir.resolve(walName(0)), log);
+
+        try (SegmentStore store = SegmentStore.open(dir, FLUSH_ROWS)) {
+            assertEquals(1, store.getSegments().size());
+            assertSameRows(rows, store.readAll());
+            assertFalse(Files.exists(dir.resolve(walName(0))));
+        }
+    }
+
+    @Test
+    void crashWhileWritingCompactionPartsKeepsTheOriginalSegments() throws IOException {
+        List<Measurement> rows = sample(0, 5 * FLUSH_ROWS);
+        for (int sequence = 0; sequence < 5; sequence++) {
+            Segment.write(dir, sequence, sequence, 0, 1,
+                    rows.subList(sequence * FLUSH_ROWS, (sequence + 1) * FLUSH_ROWS));
+        }
+        // Solo se escribió la primera de las dos partes, y la segunda quedó en un temporal
+        Segment partial = Segment.write(dir, 0, 4, 0, 2, rows.subList(0, 25));
+        Path temp = dir.resolve(Segment.fileName(0, 4, 1) + "456.tmp");
+        Files.write(temp, new byte[64]);
+
+        try (SegmentStore store = SegmentStore.open(dir, FLUSH_ROWS)) {
+            assertEquals(5, store.getSegments().size());
+            assertFalse(Files.exists(partial.getFile()));
+            assertFalse(Files.exists(temp));
+            assertSameRows(rows, store.readAll());
+
+            // La compactación se repite desde los segmentos originales
+            store.compact();
+            assertEquals(1, store.getCompactions());
+            assertEquals(1, store.getSegments().size());
+            assertSameRows(rows, store.readAll());
+        }
+        assertEquals(List.of(Segment.fileName(0, 4, 0)), fileNames(dir));
+    }
+
+    @Test
+    void crashBeforeDeletingCompactedSegmentsKeepsOnlyTheParts() throws IOException {
+        List<Measurement> rows = sample(0, 5 * FLUSH_ROWS);
+        List<Path> originals = new ArrayList<>();
+        for (int sequence = 0; sequence < 5; sequence++) {
+            originals.add(Segment.write(dir, sequence, sequence, 0, 1,
+                    rows.subList(sequence * FLUSH_ROWS, (sequence + 1) * FLUSH_ROWS)).getFile());
+        }
+        Segment.write(dir, 0, 4, 0, 2, rows.subList(0, 25));
+        Segment.write(dir, 0, 4, 1, 2, rows.subList(25, 50));
+        // Un registro ya volcado en el segmento 2 y el registro activo con filas nuevas
+        List<Measurement> pending = sample(50, 3);
+        try (WriteAheadLog stale = WriteAheadLog.open(dir.resolve(walName(2)), 2, new ArrayList<>());
+             WriteAheadLog active = WriteAheadLog.open(dir.resolve(walName(5)), 5, new ArrayList<>())) {
+            stale.append(rows.subList(20, 30));
+            active.append(pending);
+        }
+
+        List<Measurement> expected = new ArrayList<>(rows);
+        expected.addAll(pending);
+        try (SegmentStore store = SegmentStore.open(dir, FLUSH_ROWS)) {
+            assertEquals(2, store.getSegments().size());
+            assertEquals(2, store.getSegments().get(0).getPartCount());
+            assertSameRows(expected, store.readAll());
+            for (Path original : originals) {
+                assertFalse(Files.exists(original));
+            }
+            assertFalse(Files.exists(dir.resolve(walName(2))));
+        }
+        try (SegmentStore store = SegmentStore.open(dir, FLUSH_ROWS)) {
+            assertSameRows(expected, store.readAll());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.datasensefx.storage;
+
+import org.example.datasensefx.model.Measurement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.datasensefx.storage.MeasurementFixtures.assertSameRows;
+import static org.example.datasensefx.storage.MeasurementFixtures.sample;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Escribe las mediciones de una en una y devuelve el tamaño del archivo tras cada registro
+     */
+    private static long[] appendOneByOne(Path file, List<Measurement> rows) throws IOException {
+        long[] ends = new long[rows.size()];
+        try (WriteAheadLog wal = WriteAheadLog.open(file, 0, new ArrayList<>())) {
+            for (int i = 0; i < rows.size(); i++) {
+                wal.append(List.of(rows.get(i)));
+                ends[i] = Files.size(file);
+            }
+        }
+        return ends;
+    }
+
+    private static List<Measurement> replay(Path file) throws IOException {
+        List<Measurement> replayed = new ArrayList<>();
+        WriteAheadLog.open(file, 0, replayed).close();
+        return replayed;
+    }
+
+    @Test
+    void reopenReplaysEveryRecord() throws IOException {
+        Path file = dir.resolve("wal-0000000000000000.log");
+        List<Measurement> rows = sample(0, 50);
+        try (WriteAheadLog wal = WriteAheadLog.open(file, 7, new ArrayList<>())) {
+            assertEquals(7, wal.getSequence());
+            wal.append(rows.subList(0, 20));
+            wal.append(rows.subList(20, 50));
+        }
+        assertSameRows(rows, replay(file));
+    }
+
+    @Test
+    void keepsNullCategories() throws IOException {
+        Path file = dir.resolve("wal.log");
+        LocalDateTime date = LocalDateTime.of(2018, 3, 1, 10, 0);
+        List<Measurement> rows = List.of(new Measurement(date, 1.0, 0, 0, 0, 0, 0, 36000, null, "Thursday", null));
+        appendOneByOne(file, rows);
+
+        Measurement replayed = replay(file).get(0);
+        assertNull(replayed.getWeekStatus());
+        assertEquals("Thursday", replayed.getDayOfWeek());
+        assertNull(replayed.getLoadType());
+    }
+
+    @Test
+    void tornTailIsTruncatedAfterTheLastCompleteRecord() throws IOException {
+        Path file = dir.resolve("wal.log");
+        List<Measurement> rows = sample(0, 10);
+        long[] ends = appendOneByOne(file, rows);
+
+        // Caída a mitad del último registro: se pierde solo ese
+        truncate(file, ends[9] - 3);
+        assertSameRows(rows.subList(0, 9), replay(file));
+        assertEquals(ends[8], Files.size(file));
+
+        // Lo que se añade después queda detrás del último registro válido y se recupera
+        List<Measurement> more = sample(20, 3);
+        try (WriteAheadLog wal = WriteAheadLog.open(file, 0, new ArrayList<>())) {
+            wal.append(more);
+        }
+        List<Measurement> expected = new ArrayList<>(rows.subList(0, 9));
+        expected.addAll(more);
+        assertSameRows(expected, replay(file));
+    }
+
+    @Test
+    void tornLengthPrefixIsTruncated() throws IOException {
+        Path file = dir.resolve("wal.log");
+        List<Measurement> rows = sample(0, 4);
+        long[] ends = appendOneByOne(file, rows);
+
+        // Solo dos bytes de la longitud del último registro
+        truncate(file, ends[2] + 2);
+        assertSameRows(rows.subList(0, 3), replay(file));
+        assertEquals(ends[2], Files.size(file));
+    }
+
+    @Test
+    void garbageAfterTheLastRecordIsDiscarded() throws IOException {
+        Path file = dir.resolve("wal.log");
+        List<Measurement> rows = sample(0, 5);
+        long[] ends = appendOneByOne(file, rows);
+
+        // Bloque sin escribir (ceros) y un registro con la longitud bien pero el CRC roto
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(512));
+        }
+        assertSameRows(rows, replay(file));
+        assertEquals(ends[4], Files.size(file));
+
+        flipByte(file, ends[3] + 12);
+        assertSameRows(rows.subList(0, 4), replay(file));
+        assertEquals(ends[3], Files.size(file));
+    }
+
+    @Test
+    void headerCutByACrashIsRewritten() throws IOException {
+        Path file = dir.resolve("wal.log");
+        Files.write(file, new byte[] {0x44, 0x57});
+        assertTrue(replay(file).isEmpty());
+
+        List<Measurement> rows = sample(0, 2);
+        try (WriteAheadLog wal = WriteAheadLog.open(file, 0, new ArrayList<>())) {
+            wal.append(rows);
+        }
+        assertSameRows(rows, replay(file));
+    }
+
+    @Test
+    void rejectsUnknownFormat() throws IOException {
+        Path file = dir.resolve("wal.log");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertThrows(IOException.class, () -> replay(file));
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            b.put(0, (byte) ~b.get(0)).rewind();
+            channel.write(b, position);
+        }
+    }
+}